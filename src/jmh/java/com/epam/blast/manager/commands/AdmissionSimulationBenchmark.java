@@ -0,0 +1,251 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.commands;
+
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.task.TaskCostEstimator;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Replays a workload trace in the Standard Workload Format of the Parallel Workloads Archive against a node
+ * and compares admission by a fixed amount of task slots with admission by estimated cost. Submit time,
+ * run time and allocated processors of each job are used, jobs without run time or processors are skipped.
+ * Running tasks share the node: while their total cost exceeds the node capacity, each of them is slowed down
+ * proportionally. Simulated makespan, mean turnaround and peak load are reported as secondary results.
+ * Requires a trace, e.g. one of the archive logs, run the jar built by {@code ./gradlew jmhJar}
+ * with {@code AdmissionSimulation -p trace=<path to .swf>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(1)
+public class AdmissionSimulationBenchmark {
+
+    private static final String COMMENT = ";";
+    private static final int SUBMIT_TIME = 1;
+    private static final int RUN_TIME = 3;
+    private static final int ALLOCATED_PROCESSORS = 4;
+    private static final int REQUESTED_PROCESSORS = 7;
+    private static final long MILLIS_IN_SECOND = 1000;
+
+    @Param({""})
+    private String trace;
+
+    @Param({"10000"})
+    private int maxJobs;
+
+    // defaults of the profiles
+    @Param({"6"})
+    private int threadsAmount;
+
+    @Param({"2"})
+    private int threadsPending;
+
+    // processors of a trace job, which make up a regular single slot search
+    @Param({"1"})
+    private int processorsPerSlot;
+
+    private int capacity;
+    private List<TaskEntity> tasks;
+    private Map<Long, TraceRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (StringUtils.isBlank(trace)) {
+            throw new IllegalStateException("Path to a workload trace is required: -p trace=<path to .swf>");
+        }
+        capacity = TaskCostEstimator.getNodeCapacity(threadsAmount, threadsPending);
+        tasks = new ArrayList<>();
+        records = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(trace))) {
+            String line;
+            while ((line = reader.readLine()) != null && tasks.size() < maxJobs) {
+                final String[] values = line.trim().split("\\s+");
+                if (line.trim().startsWith(COMMENT) || values.length <= REQUESTED_PROCESSORS) {
+                    continue;
+                }
+                final long runTime = Long.parseLong(values[RUN_TIME]);
+                final long processors = Long.parseLong(values[ALLOCATED_PROCESSORS]) > 0
+                        ? Long.parseLong(values[ALLOCATED_PROCESSORS])
+                        : Long.parseLong(values[REQUESTED_PROCESSORS]);
+                if (runTime <= 0 || processors <= 0) {
+                    continue;
+                }
+                final TaskEntity taskEntity = TaskEntity.builder()
+                        .id((long) tasks.size())
+                        .taskType(TaskType.BLAST_TOOL)
+                        .cost(getCost(processors))
+                        .build();
+                tasks.add(taskEntity);
+                records.put(taskEntity.getId(), new TraceRecord(
+                        Long.parseLong(values[SUBMIT_TIME]) * MILLIS_IN_SECOND, runTime * MILLIS_IN_SECOND));
+            }
+        }
+    }
+
+    @Benchmark
+    public void slotAdmission(final SimulationResult result) {
+        final Semaphore semaphore = new Semaphore(threadsAmount + threadsPending);
+        simulate(new Admission() {
+            @Override
+            public boolean tryAdmit(final TaskEntity taskEntity) {
+                return semaphore.tryAcquire();
+            }
+
+            @Override
+            public void release(final TaskEntity taskEntity) {
+                semaphore.release();
+            }
+        }, result);
+    }
+
+    @Benchmark
+    public void weightedAdmission(final SimulationResult result) {
+        final AdmissionController admission = new AdmissionController(capacity, threadsAmount, 0);
+        simulate(new Admission() {
+            @Override
+            public boolean tryAdmit(final TaskEntity taskEntity) {
+                return admission.tryAdmit(taskEntity);
+            }
+
+            @Override
+            public void release(final TaskEntity taskEntity) {
+                admission.release(taskEntity.getId());
+            }
+        }, result);
+    }
+
+    private int getCost(final long processors) {
+        final long cost = (processors * TaskCostEstimator.UNITS_PER_SLOT + processorsPerSlot - 1) / processorsPerSlot;
+        return (int) Math.max(TaskCostEstimator.MIN_COST, Math.min(capacity, cost));
+    }
+
+    /**
+     * Tasks are admitted in the order of arrival, the first task, which isn't admitted, stops admission.
+     */
+    private void simulate(final Admission admission, final SimulationResult result) {
+        final Deque<TaskEntity> queue = new ArrayDeque<>();
+        final Map<TaskEntity, Double> running = new HashMap<>();
+        final long start = tasks.isEmpty() ? 0 : records.get(tasks.get(0).getId()).arrival;
+        double now = start;
+        int next = 0;
+        double turnaround = 0;
+        while (next < tasks.size() || !queue.isEmpty() || !running.isEmpty()) {
+            while (next < tasks.size() && records.get(tasks.get(next).getId()).arrival <= now) {
+                queue.add(tasks.get(next++));
+            }
+            while (!queue.isEmpty() && admission.tryAdmit(queue.peek())) {
+                final TaskEntity taskEntity = queue.poll();
+                running.put(taskEntity, (double) records.get(taskEntity.getId()).duration);
+            }
+            final int load = running.keySet().stream().mapToInt(TaskCostEstimator::getCost).sum();
+            result.peakLoad = Math.max(result.peakLoad, load);
+            final double rate = load <= capacity ? 1 : (double) capacity / load;
+            final double untilFinish = running.values().stream()
+                    .mapToDouble(remaining -> remaining / rate)
+                    .min()
+                    .orElse(Double.MAX_VALUE);
+            final double untilArrival = next < tasks.size()
+                    ? records.get(tasks.get(next).getId()).arrival - now
+                    : Double.MAX_VALUE;
+            final double step = Math.min(untilFinish, untilArrival);
+            now += step;
+            final Iterator<Map.Entry<TaskEntity, Double>> iterator = running.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<TaskEntity, Double> entry = iterator.next();
+                entry.setValue(entry.getValue() - step * rate);
+                if (entry.getValue() <= 1e-9) {
+                    iterator.remove();
+                    admission.release(entry.getKey());
+                    turnaround += now - records.get(entry.getKey().getId()).arrival;
+                }
+            }
+        }
+        result.makespanMs = now - start;
+        result.meanTurnaroundMs = tasks.isEmpty() ? 0 : turnaround / tasks.size();
+    }
+
+    /**
+     * Secondary results of a simulation, a single simulation is run per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SimulationResult {
+        public double makespanMs;
+        public double meanTurnaroundMs;
+        public int peakLoad;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            makespanMs = 0;
+            meanTurnaroundMs = 0;
+            peakLoad = 0;
+        }
+    }
+
+    private interface Admission {
+        boolean tryAdmit(TaskEntity taskEntity);
+
+        void release(TaskEntity taskEntity);
+    }
+
+    private static final class TraceRecord {
+        private final long arrival;
+        private final long duration;
+
+        private TraceRecord(final long arrival, final long duration) {
+            this.arrival = arrival;
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.commands.commands.MakeBlastDbCommand;
+import com.epam.blast.manager.commands.performers.ProcessSupervisor;
+import com.epam.blast.manager.commands.performers.SimpleCommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per task overhead of a short search run by BLAST+ binaries of the host and by {@code docker run}.
+ * Requires BLAST+ in {@code PATH} and the {@code ncbi/blast} image pulled. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionBackendOverheadBenchmark {
+
+    private static final String DB_NAME = "benchmark";
+    private static final String QUERY_FILE_NAME = "query.fsa";
+    private static final String RESULT_FILE_NAME = "result.blastout";
+    private static final String SEQUENCE = "MVKLGCSFSGKPGKEAKEMVQLLQEAGEKGSKYIVKGDLHVHTVEKSEEVLRE";
+
+    @Param({"local", "docker"})
+    private String backend;
+
+    private Path directory;
+    private ProcessSupervisor processSupervisor;
+    private ExecutionBackend executionBackend;
+    private BlastToolCommand search;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("benchmark");
+        final Path dbDirectory = Files.createDirectory(directory.resolve("db"));
+        final Path fastaDirectory = Files.createDirectory(directory.resolve("fasta"));
+        final Path queriesDirectory = Files.createDirectory(directory.resolve("queries"));
+        final Path resultsDirectory = Files.createDirectory(directory.resolve("results"));
+        Files.write(fastaDirectory.resolve("db.fasta"), List.of(">P1", SEQUENCE, ">P2", SEQUENCE.substring(10)));
+        Files.write(queriesDirectory.resolve(QUERY_FILE_NAME), List.of(">Q1", SEQUENCE.substring(5, 40)));
+
+        processSupervisor = new ProcessSupervisor(new MessageHelper(new StaticMessageSource()), 2);
+        final SimpleCommandPerformer commandPerformer = new SimpleCommandPerformer(processSupervisor);
+        executionBackend = "local".equals(backend)
+                ? new LocalExecutionBackend(commandPerformer, processSupervisor, "", Map.of())
+                : new DockerExecutionBackend(commandPerformer);
+        final ExecutionResult db = executionBackend.run(MakeBlastDbCommand.builder()
+                .taskName("makeBlastDb_benchmark")
+                .blastDbDirectory(dbDirectory.toString())
+                .inputFilePath(fastaDirectory.toString())
+                .inputFileName("db.fasta")
+                .dbType("prot")
+                .dbName(DB_NAME)
+                .dbTitle(DB_NAME)
+                .taxId(7801)
+                .blastDbVersion(5)
+                .build());
+        if (db.getExitCode() != 0) {
+            throw new IllegalStateException(db.getReason());
+        }
+        search = BlastToolCommand.builder()
+                .taskName("blast_benchmark")
+                .blastDbDirectory(dbDirectory.toString())
+                .blastQueriesDirectory(queriesDirectory.toString())
+                .blastResultsDirectory(resultsDirectory.toString())
+                .blastTool("blastp")
+                .resultDelimiter(",")
+                .queryFileName(QUERY_FILE_NAME)
+                .dbName(DB_NAME)
+                .outputFileName(RESULT_FILE_NAME)
+                .expectedThreshold("10")
+                .options("")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processSupervisor.shutdown();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Benchmark
+    public ExecutionResult search() throws IOException, InterruptedException {
+        return executionBackend.run(search);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares {@link BlastResultParser} with the former parser, which split each line of the result by
+ * {@link String#split(String)} and parsed numbers from the resulting strings, on 30 column outfmt 10 lines.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlastResultParserBenchmark {
+
+    private static final String DELIMITER = ",";
+    private static final String NA = "N/A";
+
+    @Param({"100000"})
+    private int lines;
+
+    private byte[] result;
+    private BlastResultParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+        for (int line = 0; line < lines; line++) {
+            builder.append(String.format(Locale.ROOT, "Query_%d,%d,2,10,LCGRGFIRA,P%d.1,sp|P%d.1|FABPL_GINCI,"
+                            + "132,123,131,VCTREYVRE,LV1GT1GEFYIV1AE,%.2e,%.1f,25,9,%d,3,6,6,0,0,66.67,%d,"
+                            + "Homo sapiens,human,N/A,20,20,N/A%n",
+                    line % 50, line, line % 1000, line % 1000, Math.pow(10, -line % 30) * 1.23, 20 + line % 400 / 10.0,
+                    line % 100, 7801 + line % 20));
+        }
+        result = builder.toString().getBytes(StandardCharsets.UTF_8);
+        parser = new BlastResultParser(DELIMITER, new MessageHelper(new StaticMessageSource()));
+    }
+
+    @Benchmark
+    public void splitParser(final Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(result), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (StringUtils.isNotBlank(line)) {
+                    blackhole.consume(parseBySplit(line));
+                }
+                line = reader.readLine();
+            }
+        }
+    }
+
+    @Benchmark
+    public void byteParser(final Blackhole blackhole) throws IOException {
+        parser.parse(new ByteArrayInputStream(result), Integer.MAX_VALUE, BlastResultParser.allColumns())
+                .forEach(blackhole::consume);
+    }
+
+    private static BlastResultEntry parseBySplit(final String line) {
+        final String[] split = line.split(DELIMITER);
+        if (split.length != BlastToolCommand.BLAST_FILE_FORMAT_PARTS) {
+            throw new IllegalArgumentException(line);
+        }
+        return BlastResultEntry.builder()
+                .queryAccVersion(split[0])
+                .queryLen(parseNumber(split[1], Long::parseLong))
+                .queryStart(parseNumber(split[2], Long::parseLong))
+                .queryEnd(parseNumber(split[3], Long::parseLong))
+                .qseq(split[4])
+                .seqAccVersion(split[5])
+                .seqSeqId(split[6])
+                .seqLen(parseNumber(split[7], Long::parseLong))
+                .seqStart(parseNumber(split[8], Long::parseLong))
+                .seqEnd(parseNumber(split[9], Long::parseLong))
+                .sseq(split[10])
+                .btop(split[11])
+                .expValue(parseNumber(split[12], Double::parseDouble))
+                .bitScore(parseNumber(split[13], Double::parseDouble))
+                .score(parseNumber(split[14], Double::parseDouble))
+                .length(parseNumber(split[15], Long::parseLong))
+                .percentIdent(parseNumber(split[16], Double::parseDouble))
+                .numIdent(parseNumber(split[17], Long::parseLong))
+                .mismatch(parseNumber(split[18], Long::parseLong))
+                .positive(parseNumber(split[19], Long::parseLong))
+                .gapOpen(parseNumber(split[20], Long::parseLong))
+                .gaps(parseNumber(split[21], Long::parseLong))
+                .percentPos(parseNumber(split[22], Double::parseDouble))
+                .seqTaxId(parseNumber(split[23], Long::parseLong))
+                .seqSciName(split[24])
+                .seqComName(split[25])
+                .seqStrand(split[26])
+                .queryCovS(parseNumber(split[27], Double::parseDouble))
+                .queryCovHsp(parseNumber(split[28], Double::parseDouble))
+                .queryCovUs(parseNumber(split[29], Double::parseDouble))
+                .build();
+    }
+
+    private static <T extends Number> T parseNumber(final String value, final Function<String, T> parser) {
+        return StringUtils.isBlank(value) || value.equals(NA) ? null : parser.apply(value);
+    }
+}
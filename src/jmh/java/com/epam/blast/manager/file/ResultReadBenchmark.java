@@ -0,0 +1,131 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastTool;
+import com.epam.blast.manager.helper.MessageHelper;
+import com.epam.blast.utils.TemporaryFileWriter;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading of results from the columnar copy with parsing of the result file.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResultReadBenchmark {
+
+    private static final long TASK_ID = 1L;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100000"})
+    private int lines;
+
+    @Param({"false", "true"})
+    private boolean columnar;
+
+    private Path directory;
+    private BlastFileManagerImpl fileManager;
+    private BlastResultQuery page;
+    private BlastResultQuery filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("benchmark");
+        final MessageHelper messageHelper = new MessageHelper(new StaticMessageSource());
+        fileManager = new BlastFileManagerImpl(directory.toString(), directory.toString(),
+                directory.toString(), directory.toString(), ",", ResultCompression.NONE, columnar ? 1024 : 0,
+                new TemporaryFileWriter(messageHelper), messageHelper);
+        final Path result = directory.resolve(fileManager.getResultFileName(TASK_ID));
+        try (BufferedWriter writer = Files.newBufferedWriter(result)) {
+            for (int line = 0; line < lines; line++) {
+                writer.write(String.format(Locale.ROOT, "Query_%d,%d,2,10,LCGRGFIRA,P%d.1,sp|P%d.1|FABPL_GINCI,"
+                                + "132,123,131,VCTREYVRE,LV1GT1GEFYIV1AE,1e-%d,%d,25,9,%d,3,6,6,0,0,66.67,%d,"
+                                + "Homo sapiens,human,N/A,20,20,N/A%n",
+                        line % 50, line, line % 1000, line % 1000, line % 10, line % 40, line % 100,
+                        7801 + line % 20));
+            }
+        }
+        page = BlastResultQuery.builder().offset((long) lines / 2).limit(PAGE_SIZE).build();
+        filter = BlastResultQuery.builder()
+                .queryAccVersion("Query_7")
+                .maxExpValue(1e-5)
+                .taxIds(Set.of(7808L))
+                .build();
+        fileManager.buildColumnarCopy(TASK_ID);
+        // the line index is built by the first read
+        fileManager.getResults(TASK_ID, BlastTool.BLASTP, page);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fileManager.shutdown();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Benchmark
+    public Object readPage() {
+        return fileManager.getResults(TASK_ID, BlastTool.BLASTP, page);
+    }
+
+    @Benchmark
+    public Object readFiltered() {
+        return fileManager.getResults(TASK_ID, BlastTool.BLASTP, filter);
+    }
+
+    @Benchmark
+    public void readAll(final Blackhole blackhole) {
+        fileManager.getResults(TASK_ID, BlastTool.BLASTP, BlastResultQuery.builder().build()).getEntries()
+                .forEach(blackhole::consume);
+    }
+}
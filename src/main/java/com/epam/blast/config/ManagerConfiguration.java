@@ -50,8 +50,9 @@ public class ManagerConfiguration {
 
     @Bean
     public ExecutorService createExecutorService(
-            @Value("${blast-wrapper.task-status-checking.thread-amount}") Integer threadsAmount) {
-        return Executors.newFixedThreadPool(threadsAmount);
+            @Value("${blast-wrapper.task-status-checking.max-parallel-tasks:"
+                    + "${blast-wrapper.task-status-checking.thread-amount}}") Integer maxParallelTasks) {
+        return Executors.newFixedThreadPool(maxParallelTasks);
     }
 
     @Bean
@@ -36,6 +36,8 @@ import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.web.multipart.MultipartFile;
@@ -46,6 +48,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -76,6 +79,7 @@ public abstract class AbstractRestController {
     public static final String NO_FILES_MESSAGE = "No files specified";
     public static final String NOT_A_MULTIPART_REQUEST = "Not a multipart request";
     public static final String CONTENT_DISPOSITION = "Content-Disposition";
+    public static final String BYTES_UNIT = "bytes";
 
     /**
      * Writes passed content to {@code HttpServletResponse} to allow it's downloading from
@@ -114,6 +118,61 @@ public abstract class AbstractRestController {
         writeFileToResponse(response, bytes, name, false);
     }
 
+    /**
+     * Writes content of given {@code length} to {@code HttpServletResponse} part by part without
+     * loading it into memory. A single byte range requested with Range header is returned
+     * as partial content, unless If-Range header doesn't match {@code etag}.
+     *
+     * @param request  to read conditional and range headers.
+     * @param response to write data.
+     * @param name     file name.
+     * @param length   content length.
+     * @param etag     strong entity tag of the content.
+     * @param writer   writes requested bytes of the content.
+     */
+    protected void writeContentToResponse(HttpServletRequest request, HttpServletResponse response, String name,
+                                          long length, String etag, ContentWriter writer) throws IOException {
+        response.setContentType(guessMediaType(name).toString());
+        response.setHeader(CONTENT_DISPOSITION, String.format("attachment;filename=%s", name));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        long start = 0;
+        long end = length - 1;
+        final String range = request.getHeader(HttpHeaders.RANGE);
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            final List<HttpRange> ranges = parseRanges(range);
+            if (ranges == null || ranges.size() == 1 && ranges.get(0).getRangeStart(length) >= length) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("%s */%d", BYTES_UNIT, length));
+                return;
+            }
+            // several ranges are rare for downloads, the whole content is returned for them
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        String.format("%s %d-%d/%d", BYTES_UNIT, start, end, length));
+            }
+        }
+        response.setContentLengthLong(end - start + 1);
+        try (ServletOutputStream stream = response.getOutputStream()) {
+            if (start <= end) {
+                writer.write(stream, start, end);
+            }
+            stream.flush();
+        }
+    }
+
+    /**
+     * Writes a part of content.
+     */
+    @FunctionalInterface
+    protected interface ContentWriter {
+        void write(OutputStream output, long start, long end) throws IOException;
+    }
+
     /**
      * Processes a multipart file upload as streaming upload.
      *
@@ -186,6 +245,14 @@ public abstract class AbstractRestController {
         writeStreamToResponse(response, stream, contentType, "attachment;filename=" + fileName);
     }
 
+    private List<HttpRange> parseRanges(final String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     protected MediaType guessMediaType(String fileName) {
         switch (FilenameUtils.getExtension(fileName.toLowerCase(Locale.getDefault()))) {
             case "gif":
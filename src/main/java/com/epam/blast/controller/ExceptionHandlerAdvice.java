@@ -54,6 +54,20 @@ public class ExceptionHandlerAdvice {
 
     private final MessageHelper messageHelper;
 
+    /**
+     * Invalid parameters of a request are reported with 400 status, so clients can tell them from failures.
+     */
+    @ResponseBody
+    @ExceptionHandler(IllegalArgumentException.class)
+    public final ResponseEntity<Result<String>> handleIllegalArgumentException(
+            final IllegalArgumentException exception, final WebRequest request) {
+        log.warn(messageHelper.getMessage(MessageConstants.LOGGER_ERROR_TEMPLATE,
+                request.getDescription(true)), exception);
+        return new ResponseEntity<>(Result.error(StringUtils.defaultString(StringUtils.trimToNull(
+                exception.getMessage()), messageHelper.getMessage(MessageConstants.ERROR_DEFAULT))),
+                HttpStatus.BAD_REQUEST);
+    }
+
     @ResponseBody
     @Order(Ordered.HIGHEST_PRECEDENCE)
     @ExceptionHandler(Throwable.class)
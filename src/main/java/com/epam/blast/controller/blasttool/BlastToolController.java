@@ -27,12 +27,22 @@ package com.epam.blast.controller.blasttool;
 import com.epam.blast.controller.AbstractRestController;
 import com.epam.blast.controller.common.Result;
 import com.epam.blast.entity.blasttool.BlastResult;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSort;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastStartSearchingRequest;
 import com.epam.blast.entity.task.TaskStatus;
+import com.epam.blast.manager.file.BlastRawResult;
 import com.epam.blast.manager.task.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.util.Pair;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -40,15 +50,25 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
 
 
 @RestController
 @RequiredArgsConstructor
 public class BlastToolController extends AbstractRestController {
 
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String NDJSON_SEPARATOR = "\n";
+    private static final String NEXT_CURSOR = "nextCursor";
+    private static final String GZIP_CODING = "gzip";
+
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/blast")
     @Operation(summary = "Schedules a task for blast computation.",
@@ -64,19 +84,136 @@ public class BlastToolController extends AbstractRestController {
 
     @GetMapping("/blast/{id}")
     @Operation(summary = "Returns blast result object by task id.",
-            description = "Returns blast result object by task id, results could be limited by number of alignments.")
+            description = "Returns blast result object by task id, results could be limited by number of alignments "
+                    + "and filtered by e-value, percent of identical matches, bit score, subject taxonomy ids "
+                    + "and query accession. Next page of results is returned for 'cursor' from 'nextCursor' "
+                    + "of the previous page, 'offset' skips the specified number of result lines. Entries are sorted "
+                    + "best first by 'sortBy', 'topPerQuery' returns only the best entries for every query grouped "
+                    + "by query, sorted results are paged by 'offset' in entries. Sorted results are limited to the "
+                    + "first " + BlastResultQuery.MAX_SORTED_ENTRIES + " entries: 'offset' + 'limit' and "
+                    + "'topPerQuery' should not exceed it, a sorted page without 'limit' ends at that entry.")
     public Result<BlastResult> getResult(@PathVariable final Long id,
-                                         @RequestParam(required = false) final Integer limit) {
-        return Result.success(taskService.getBlastResult(id, limit));
+                                         @RequestParam(required = false) final Integer limit,
+                                         @RequestParam(required = false) final String cursor,
+                                         @RequestParam(required = false) final Long offset,
+                                         @RequestParam(required = false) final Double maxExpValue,
+                                         @RequestParam(required = false) final Double minPercentIdent,
+                                         @RequestParam(required = false) final Double minBitScore,
+                                         @RequestParam(required = false) final Set<Long> taxIds,
+                                         @RequestParam(required = false) final String queryAccVersion,
+                                         @RequestParam(required = false) final BlastResultSort sortBy,
+                                         @RequestParam(required = false) final Integer topPerQuery) {
+        return Result.success(taskService.getBlastResult(id, buildQuery(limit, cursor, offset, maxExpValue,
+                minPercentIdent, minBitScore, taxIds, queryAccVersion, sortBy, topPerQuery)));
+    }
+
+    @GetMapping("/blast/{id}/stream")
+    @Operation(summary = "Streams blast result entries by task id.",
+            description = "Streams blast result entries by task id as newline delimited JSON, one entry per line. "
+                    + "Entries are written as they are read from the result file, so results of any size can be "
+                    + "loaded. Results could be limited, filtered, sorted and paged in the same way as for "
+                    + "/blast/{id}, sorted entries are written after the whole result is read and are limited "
+                    + "in the same way. If there are more results after the last written entry, the stream ends "
+                    + "with a line, which has only 'nextCursor' field, its value is the 'cursor' of the next page.")
+    public void streamResult(@PathVariable final Long id,
+                             @RequestParam(required = false) final Integer limit,
+                             @RequestParam(required = false) final String cursor,
+                             @RequestParam(required = false) final Long offset,
+                             @RequestParam(required = false) final Double maxExpValue,
+                             @RequestParam(required = false) final Double minPercentIdent,
+                             @RequestParam(required = false) final Double minBitScore,
+                             @RequestParam(required = false) final Set<Long> taxIds,
+                             @RequestParam(required = false) final String queryAccVersion,
+                             @RequestParam(required = false) final BlastResultSort sortBy,
+                             @RequestParam(required = false) final Integer topPerQuery,
+                             final HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        // the response isn't committed until the first entry is written,
+        // so errors found before that are still reported as a regular result
+        final SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator(NDJSON_SEPARATOR)
+                .writeValues(response.getOutputStream());
+        final String nextCursor = taskService.streamBlastResult(id, buildQuery(limit, cursor, offset, maxExpValue,
+                minPercentIdent, minBitScore, taxIds, queryAccVersion, sortBy, topPerQuery),
+                entry -> writeEntry(writer, entry));
+        // the cursor is known only after entries are written, so it can't be passed in a header
+        if (nextCursor != null) {
+            writer.write(Map.of(NEXT_CURSOR, nextCursor));
+        }
+        writer.close();
+    }
+
+    @GetMapping("/blast/{id}/summary")
+    @Operation(summary = "Returns per query summary of blast result by task id.",
+            description = "Returns number of hits, i.e. distinct subject sequences, the best e-value and bit score, "
+                    + "the best query coverage and "
+                    + "taxa with the most hits for every query of the result. The summary is computed once, "
+                    + "so repeated requests don't read the result again.")
+    public Result<BlastResultSummary> getResultSummary(@PathVariable final Long id) {
+        return Result.success(taskService.getBlastResultSummary(id));
     }
 
     @GetMapping("/blast/{id}/raw")
     @Operation(summary = "Returns blast result raw output by task id.",
             description = "Returns blast result raw output by task id. "
-                    + "\nThis method will response with a blast output file.")
-    public void getRawResult(@PathVariable final Long id, final HttpServletResponse response) throws IOException {
-        final Pair<String, byte[]> rawResult = taskService.getBlastRawResult(id);
-        writeFileToResponse(response, rawResult.getSecond(), rawResult.getFirst());
+                    + "\nThis method will response with a blast output file. "
+                    + "A single byte range could be requested with 'Range' header to resume a download. "
+                    + "Compressed results are sent gzip encoded to clients which accept it.")
+    public void getRawResult(@PathVariable final Long id, final HttpServletRequest request,
+                             final HttpServletResponse response) throws IOException {
+        final BlastRawResult rawResult = taskService.getBlastRawResult(id,
+                acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (rawResult.getContentEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, rawResult.getContentEncoding());
+        }
+        writeContentToResponse(request, response, rawResult.getName(), rawResult.getLength(),
+                rawResult.getEtag(), rawResult::write);
+    }
+
+    private BlastResultQuery buildQuery(final Integer limit, final String cursor, final Long offset,
+                                        final Double maxExpValue, final Double minPercentIdent,
+                                        final Double minBitScore, final Set<Long> taxIds,
+                                        final String queryAccVersion, final BlastResultSort sortBy,
+                                        final Integer topPerQuery) {
+        return BlastResultQuery.builder()
+                .limit(limit)
+                .cursor(cursor)
+                .offset(offset)
+                .maxExpValue(maxExpValue)
+                .minPercentIdent(minPercentIdent)
+                .minBitScore(minBitScore)
+                .taxIds(taxIds)
+                .queryAccVersion(queryAccVersion)
+                .sortBy(sortBy)
+                .topPerQuery(topPerQuery)
+                .build();
+    }
+
+    /**
+     * Checks whether Accept-Encoding header allows gzip coding, it's allowed unless its weight is zero.
+     */
+    static boolean acceptsGzip(final String acceptEncoding) {
+        for (String coding : StringUtils.split(StringUtils.defaultString(acceptEncoding), ',')) {
+            final String[] parts = StringUtils.split(coding, ';');
+            final String name = parts.length > 0 ? parts[0].trim() : StringUtils.EMPTY;
+            if (!GZIP_CODING.equalsIgnoreCase(name)) {
+                continue;
+            }
+            final boolean rejected = parts.length > 1
+                    && NumberUtils.toDouble(StringUtils.substringAfter(parts[1].trim(), "q="), 1) == 0;
+            return !rejected;
+        }
+        return false;
+    }
+
+    private void writeEntry(final SequenceWriter writer, final BlastResultEntry entry) {
+        try {
+            writer.write(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -26,6 +26,7 @@ package com.epam.blast.controller.task;
 
 import com.epam.blast.controller.AbstractRestController;
 import com.epam.blast.controller.common.Result;
+import com.epam.blast.entity.task.ResultCacheStats;
 import com.epam.blast.entity.task.TaskStatus;
 import com.epam.blast.manager.commands.ScheduledService;
 import com.epam.blast.manager.task.TaskService;
@@ -59,4 +60,12 @@ public class TaskController extends AbstractRestController {
         return Result.success(scheduledService.cancelTask(id, true));
     }
 
+    @GetMapping("/task/cache")
+    @Operation(summary = "Returns statistics of the result cache.",
+            description = "Returns amount of cache hits, misses and evictions, amount and total size of cached "
+                    + "results. Identical searches are completed with cached results without running BLAST")
+    public Result<ResultCacheStats> getResultCacheStats() {
+        return Result.success(taskService.getResultCacheStats());
+    }
+
 }
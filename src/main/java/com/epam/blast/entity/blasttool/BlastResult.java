@@ -35,4 +35,8 @@ public class BlastResult {
     Integer size;
     BlastTool tool;
     List<BlastResultEntry> entries;
+    /**
+     * Cursor of the next page, {@code null} if there are no more results.
+     */
+    String nextCursor;
 }
@@ -0,0 +1,77 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.entity.blasttool;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Describes a page of blast results: where it starts, how many entries it contains
+ * and which entries are included. Filters which are not set are not applied.
+ * Sorted entries are selected in memory, so a sorted page may end at most {@link #MAX_SORTED_ENTRIES}
+ * entries from the beginning, a sorted query without limit returns that many entries.
+ */
+@Value
+@Builder
+public class BlastResultQuery {
+
+    public static final int MAX_SORTED_ENTRIES = 10_000;
+
+    /**
+     * Opaque position returned as {@link BlastResult#getNextCursor()} by the previous page.
+     */
+    String cursor;
+    /**
+     * Number of result lines to skip from the beginning, can't be used together with the cursor.
+     * Number of entries to skip if the result is sorted.
+     */
+    Long offset;
+    Integer limit;
+    Double maxExpValue;
+    Double minPercentIdent;
+    Double minBitScore;
+    Set<Long> taxIds;
+    String queryAccVersion;
+    /**
+     * Order of entries, the result isn't sorted if neither the order nor {@link #topPerQuery} is set.
+     */
+    BlastResultSort sortBy;
+    /**
+     * Number of the best entries returned for every query, entries are grouped by query if it is set.
+     * It can't exceed {@link #MAX_SORTED_ENTRIES}.
+     */
+    Integer topPerQuery;
+
+    public boolean hasFilters() {
+        return maxExpValue != null || minPercentIdent != null || minBitScore != null
+                || taxIds != null && !taxIds.isEmpty() || queryAccVersion != null;
+    }
+
+    public boolean isSorted() {
+        return sortBy != null || topPerQuery != null;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.entity.blasttool;
+
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Orders of blast result entries, every order puts the best entries first and entries without a value last.
+ */
+public enum BlastResultSort {
+
+    EXP_VALUE(BlastResultEntry::getExpValue, false),
+    BIT_SCORE(BlastResultEntry::getBitScore, true),
+    SCORE(BlastResultEntry::getScore, true),
+    PERCENT_IDENT(BlastResultEntry::getPercentIdent, true),
+    QUERY_COVERAGE(BlastResultEntry::getQueryCovS, true),
+    LENGTH(entry -> entry.getLength() == null ? null : entry.getLength().doubleValue(), true);
+
+    @Getter
+    private final Comparator<BlastResultEntry> comparator;
+
+    BlastResultSort(final Function<BlastResultEntry, Double> value, final boolean descending) {
+        this.comparator = Comparator.comparing(value, Comparator.nullsLast(
+                descending ? Comparator.<Double>reverseOrder() : Comparator.<Double>naturalOrder()));
+    }
+}
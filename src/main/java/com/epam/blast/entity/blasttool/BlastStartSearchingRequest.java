@@ -46,4 +46,5 @@ public class BlastStartSearchingRequest {
     Double expectedThreshold;
     String options;
     Boolean filterOptions;
+    Integer priority;
 }
@@ -42,4 +42,5 @@ public class CreateDbRequest {
     Boolean parseSeqIds;
     Integer blastDbVersion;
     Integer taxId;
+    Integer shards;
 }
@@ -46,6 +46,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -76,6 +77,30 @@ public class TaskEntity {
 
     LocalDateTime createdAt;
 
+    String claimedBy;
+
+    LocalDateTime leaseExpiresAt;
+
+    Integer priority;
+
+    Integer cost;
+
+    String owner;
+
+    String orgUnit;
+
+    String resultKey;
+
+    // identical pending task, which runs the search on behalf of this one
+    Long leaderId;
+
+    // id of the cluster job, which runs the task asynchronously
+    String jobId;
+
+    // threads budget given to the task by the scheduler of this node, it isn't stored since it is valid for one run
+    @Transient
+    Integer threads;
+
     @ElementCollection
     @CollectionTable(name = "query_db_mapping",
             joinColumns = {@JoinColumn(name = "task_id", referencedColumnName = "id")})
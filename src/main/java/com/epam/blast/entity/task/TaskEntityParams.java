@@ -38,6 +38,9 @@ public final class TaskEntityParams {
     public static final String TAX_ID = "taxId";
     public static final String BLAST_DB_DIRECTORY = "blastDbDirectory";
     public static final String TASK_NAME = "taskName";
+    public static final String JOB_ID = "jobId";
+    public static final String SHARDS = "shards";
+    public static final String MAX_FILE_SIZE = "maxFileSize";
 
     public static final String TAX_IDS = "taxIds";
     public static final String EXCLUDED_TAX_IDS = "excludedTaxIds";
@@ -43,4 +43,5 @@ public class TaskStatus {
     String reason;
     TaskType taskType;
     LocalDateTime createdDate;
+    Long queuePosition;
 }
@@ -0,0 +1,124 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands;
+
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.task.TaskCostEstimator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Weighted admission of tasks on the node: each task takes as many capacity units as its estimated cost,
+ * costs bigger than the whole capacity are truncated, so such task just runs alone.
+ * Admitted searches also get threads budgets out of the node cores: free cores are shared between
+ * the search and searches waiting for admission after it, so a short queue uses the whole node,
+ * while a long one leaves a single thread for each search. A search admitted when all cores are taken gets
+ * no budget, so BLAST+ uses its default single thread, and the budgets never exceed the node cores.
+ */
+class AdmissionController {
+
+    private final int capacity;
+    private final Semaphore units;
+    private final int cores;
+    private final int maxThreadsPerSearch;
+    private final AtomicInteger usedCores = new AtomicInteger();
+    private final Map<Long, Integer> admitted = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> threads = new ConcurrentHashMap<>();
+
+    AdmissionController(final int capacity, final int cores, final int maxThreadsPerSearch) {
+        this.capacity = capacity;
+        this.units = new Semaphore(capacity);
+        this.cores = cores;
+        this.maxThreadsPerSearch = maxThreadsPerSearch;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int availableUnits() {
+        return units.availablePermits();
+    }
+
+    int availableCores() {
+        return Math.max(0, cores - usedCores.get());
+    }
+
+    boolean tryAdmit(final TaskEntity taskEntity) {
+        return tryAdmit(taskEntity, 1);
+    }
+
+    /**
+     * Admits the task, if there are enough free units for it, the amount of waiting tasks includes the task itself.
+     */
+    boolean tryAdmit(final TaskEntity taskEntity, final int waitingTasks) {
+        final int cost = Math.min(TaskCostEstimator.getCost(taskEntity), capacity);
+        if (!units.tryAcquire(cost)) {
+            return false;
+        }
+        admitted.put(taskEntity.getId(), cost);
+        if (maxThreadsPerSearch > 0 && taskEntity.getTaskType() == TaskType.BLAST_TOOL) {
+            final int budget = getThreadsBudget(cost, waitingTasks);
+            if (budget > 0) {
+                usedCores.addAndGet(budget);
+                threads.put(taskEntity.getId(), budget);
+            }
+            taskEntity.setThreads(budget > 0 ? budget : null);
+        }
+        return true;
+    }
+
+    void release(final Long taskId) {
+        final Integer cost = admitted.remove(taskId);
+        if (cost != null) {
+            units.release(cost);
+        }
+        final Integer budget = threads.remove(taskId);
+        if (budget != null) {
+            usedCores.addAndGet(-budget);
+        }
+    }
+
+    /**
+     * Short searches are dominated by loading of the database and get a single thread, others may use
+     * up to {@code maxThreadsPerSearch} threads per slot of their cost, but not more than their share of free cores.
+     * There is no budget, if there are no free cores.
+     */
+    private int getThreadsBudget(final int cost, final int waitingTasks) {
+        if (availableCores() == 0) {
+            return 0;
+        }
+        if (cost < TaskCostEstimator.UNITS_PER_SLOT) {
+            return 1;
+        }
+        final int wanted = cost / TaskCostEstimator.UNITS_PER_SLOT * maxThreadsPerSearch;
+        final int share = availableCores() / Math.max(1, waitingTasks);
+        return Math.max(1, Math.min(wanted, share));
+    }
+}
@@ -40,6 +40,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 import static com.epam.blast.entity.commands.ExitCodes.NULL_COMMAND_TYPE;
 import static com.epam.blast.entity.commands.ExitCodes.UNRECOGNIZED_COMMAND_TYPE;
@@ -72,6 +77,7 @@ public class CommandExecutionService {
         log.info(messageHelper.getMessage(MessageConstants.INFO_START_TASK_EXECUTION, taskEntity.getId()));
 
         taskEntity.setStatus(Status.RUNNING);
+        taskEntity.setJobId(null);
         taskService.updateTask(taskEntity);
         final TaskType type = taskEntity.getTaskType();
         ExecutionResult exitValue;
@@ -107,7 +113,78 @@ public class CommandExecutionService {
         return exitValue;
     }
 
+    /**
+     * Returns the key of a batch the task can be searched in with other tasks, only searches are batched.
+     */
+    public Optional<String> getBatchKey(final TaskEntity taskEntity) {
+        if (taskEntity.getTaskType() != TaskType.BLAST_TOOL) {
+            return Optional.empty();
+        }
+        return blastToolRunner.getBatchKey(taskEntity);
+    }
+
+    /**
+     * Runs searches of the tasks with the same batch key by a single command, returns results by task id
+     * of tasks, which are still {@code running} when the command is finished.
+     */
+    public Map<Long, ExecutionResult> runBatch(final List<TaskEntity> tasks, final Predicate<Long> running)
+            throws IOException, InterruptedException {
+        for (TaskEntity taskEntity : tasks) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_START_TASK_EXECUTION, taskEntity.getId()));
+            taskEntity.setStatus(Status.RUNNING);
+            taskEntity.setJobId(null);
+            taskService.updateTask(taskEntity);
+        }
+        final Map<Long, ExecutionResult> results = blastToolRunner.runBatch(tasks, running);
+        tasks.forEach(taskEntity -> log.info(
+                messageHelper.getMessage(MessageConstants.INFO_END_TASK_EXECUTION, taskEntity.getId())));
+        return results;
+    }
+
+    public Optional<ExecutionResult> attachTask(final TaskEntity task) {
+        if (task.getTaskType() == null) {
+            return Optional.empty();
+        }
+        try {
+            switch (task.getTaskType()) {
+                case MAKE_BLAST_DB:
+                    return makeBlastDbRunner.attachTask(task);
+                case BLAST_TOOL:
+                    return blastToolRunner.attachTask(task);
+                case BLAST_DB_CMD:
+                    return blastDbCmdRunner.attachTask(task);
+                default:
+                    return Optional.empty();
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns results of finished cluster jobs of the tasks by task id, only searches are run as cluster jobs.
+     */
+    public Map<Long, ExecutionResult> checkJobs(final Collection<TaskEntity> tasks) {
+        try {
+            return blastToolRunner.checkJobs(tasks);
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void cancelJob(final TaskEntity task) {
+        try {
+            blastToolRunner.cancelJob(task);
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public void cancelTask(TaskEntity task) {
+        if (task.getJobId() != null) {
+            cancelJob(task);
+            return;
+        }
         try {
             switch (task.getTaskType()) {
                 case MAKE_BLAST_DB:
@@ -30,22 +30,40 @@ import com.epam.blast.entity.task.TaskStatus;
 import com.epam.blast.manager.commands.runners.ExecutionResult;
 import com.epam.blast.manager.helper.MessageConstants;
 import com.epam.blast.manager.helper.MessageHelper;
+import com.epam.blast.manager.task.NodeIdentity;
+import com.epam.blast.manager.task.TaskCostEstimator;
+import com.epam.blast.manager.task.TaskCreatedEvent;
 import com.epam.blast.manager.task.TaskService;
 import com.epam.blast.manager.task.TaskServiceImpl;
+import com.epam.blast.utils.DateUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import static com.epam.blast.entity.commands.ExitCodes.IO_EXCEPTION;
 import static com.epam.blast.entity.commands.ExitCodes.OTHER_EXCEPTION;
@@ -61,23 +79,52 @@ public class ScheduledService {
     private final ExecutorService executorService;
     private final TaskService taskService;
     private final CommandExecutionService commandService;
-    private final Semaphore semaphore;
+    private final AdmissionController admission;
     private final MessageHelper messageHelper;
+    private final NodeIdentity nodeIdentity;
     private final Map<Long, Future<ExecutionResult>> tasksFutures = new ConcurrentHashMap<>();
+    // tasks, which searches are submitted as cluster jobs and don't take any threads or admission units
+    private final Map<Long, TaskEntity> clusterJobs = new ConcurrentHashMap<>();
+    // searches waiting for the batching window to close by batch key, guarded by this service
+    private final Map<String, List<TaskEntity>> pendingBatches = new HashMap<>();
+    // tasks, which are searched in batches, a cancelled task leaves its batch, but the batch goes on
+    private final Set<Long> batchedTasks = ConcurrentHashMap.newKeySet();
     private final boolean distributedDeployment;
+    private final boolean eventDrivenDispatch;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean(false);
+    private final Duration leaseDuration;
+    private final ScheduledExecutorService batchTimer = Executors.newSingleThreadScheduledExecutor();
+    private final long batchWindowMs;
+    private final int maxBatchTasks;
 
     @Autowired
     public ScheduledService(@Value("${blast-wrapper.task-status-checking.thread-amount}") final Integer threadsAmount,
                             @Value("${blast-wrapper.task-status-checking.threadsPending}") final Integer threadsPending,
                             @Value("${blast-wrapper.distributed.deployment}") final boolean  distributedDeployment,
+                            @Value("${blast-wrapper.task-status-checking.event-driven:true}")
+                            final boolean eventDrivenDispatch,
+                            @Value("${blast-wrapper.task-lease.duration:120000}") final long leaseDurationMs,
+                            @Value("${blast-wrapper.batching.window:200}") final long batchWindowMs,
+                            @Value("${blast-wrapper.batching.max-tasks:50}") final int maxBatchTasks,
+                            @Value("${blast-wrapper.scheduling.cores:0}") final int cores,
+                            @Value("${blast-wrapper.scheduling.max-threads-per-search:8}")
+                            final int maxThreadsPerSearch,
                             final ExecutorService executorService,
                             final TaskServiceImpl taskService,
                             final CommandExecutionService commandService,
+                            final NodeIdentity nodeIdentity,
                             MessageHelper messageHelper) {
         this.distributedDeployment = distributedDeployment;
+        this.nodeIdentity = nodeIdentity;
+        this.eventDrivenDispatch = eventDrivenDispatch;
+        this.leaseDuration = Duration.ofMillis(leaseDurationMs);
+        this.batchWindowMs = batchWindowMs;
+        this.maxBatchTasks = maxBatchTasks;
         this.executorService = executorService;
         this.messageHelper = messageHelper;
-        this.semaphore = new Semaphore(threadsAmount + threadsPending);
+        this.admission = new AdmissionController(TaskCostEstimator.getNodeCapacity(threadsAmount, threadsPending),
+                cores > 0 ? cores : Runtime.getRuntime().availableProcessors(), maxThreadsPerSearch);
         this.taskService = taskService;
         this.commandService = commandService;
     }
@@ -88,71 +135,296 @@ public class ScheduledService {
             log.debug(messageHelper.getMessage(MessageConstants.DEBUG_STARTUP_DISTRIBUTED));
             return;
         }
+        // in local mode the only owner of running tasks is the previous run of this instance,
+        // so every lease granted before the startup can be treated as expired right away
         log.debug(messageHelper.getMessage(MessageConstants.DEBUG_RUN_CLEANUP));
-        taskService.findAllTasksByStatus(Status.RUNNING)
-                .forEach(taskEntity -> {
-                    log.warn(messageHelper.getMessage(
-                            MessageConstants.WARN_TASK_IS_IN_RUNNING_STATE_AFTER_STARTUP, taskEntity.getId()));
-                    cancelTask(taskEntity.getId(), false);
-                });
+        recoverTasks(DateUtils.nowUtc().plus(leaseDuration));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        batchTimer.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskCreated(final TaskCreatedEvent event) {
+        log.debug(messageHelper.getMessage(MessageConstants.DEBUG_TASK_CREATED_DISPATCH, event.getTaskId()));
+        requestDispatch();
+    }
+
+    /**
+     * Asks the dispatcher to look for new tasks as soon as possible. Requests, that come while a dispatch
+     * is already pending, are collapsed into it, so a burst of submissions results in a single lookup.
+     */
+    public void requestDispatch() {
+        if (eventDrivenDispatch && dispatchRequested.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                dispatchRequested.set(false);
+                runNewTasks();
+            });
+        }
     }
 
     @Scheduled(initialDelay = 0, fixedDelayString = "${blast-wrapper.task-status-checking.interval}")
     public synchronized void runNewTasks() {
         log.info(messageHelper.getMessage(MessageConstants.INFO_RUN_NEW_TASK_LOOP));
         log.info(messageHelper.getMessage(MessageConstants.INFO_CURRENT_ACTIVE_TASKS,
-                tasksFutures.size(), semaphore.availablePermits()));
+                tasksFutures.size(), admission.availableUnits(), admission.availableCores()));
 
-        taskService
-            .findAllTasksByStatus(Status.CREATED)
+        final List<TaskEntity> claimedTasks = taskService
+            .claimTasks(nodeIdentity.getId(), admission.availableUnits(), nextLeaseExpiration())
             .stream()
-            .limit(semaphore.availablePermits())
             .filter(taskEntity -> !tasksFutures.containsKey(taskEntity.getId()))
-            .forEach(taskEntity -> {
-                try {
-                    semaphore.acquire();
-                    tasksFutures.put(taskEntity.getId(), executorService.submit(() -> processTask(taskEntity))
-                    );
-                } catch (InterruptedException e) {
-                    log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
-                    Thread.currentThread().interrupt();
-                }
-            });
+            .collect(Collectors.toList());
+        for (int i = 0; i < claimedTasks.size(); i++) {
+            final TaskEntity taskEntity = claimedTasks.get(i);
+            // free cores are shared between the task and all claimed tasks after it
+            if (admission.tryAdmit(taskEntity, claimedTasks.size() - i)) {
+                startTask(taskEntity);
+            } else if (taskService.requeueTask(taskEntity, nodeIdentity.getId())) {
+                log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_REQUEUED, taskEntity.getId()));
+            }
+        }
+    }
+
+    private void startTask(final TaskEntity taskEntity) {
+        final Optional<String> batchKey = commandService.getBatchKey(taskEntity);
+        if (batchKey.isEmpty()) {
+            tasksFutures.put(taskEntity.getId(), executorService.submit(() -> processTask(taskEntity)));
+            return;
+        }
+        List<TaskEntity> batch = pendingBatches.get(batchKey.get());
+        if (batch == null) {
+            batch = new ArrayList<>();
+            pendingBatches.put(batchKey.get(), batch);
+            final List<TaskEntity> scheduledBatch = batch;
+            batchTimer.schedule(() -> startBatch(batchKey.get(), scheduledBatch), batchWindowMs, TimeUnit.MILLISECONDS);
+        }
+        batch.add(taskEntity);
+        if (batch.size() >= maxBatchTasks) {
+            startBatch(batchKey.get(), batch);
+        }
+    }
+
+    /**
+     * Starts the batch, which window is closed or which is full, a batch of a single task is run as usual.
+     */
+    private synchronized void startBatch(final String batchKey, final List<TaskEntity> batch) {
+        if (!pendingBatches.remove(batchKey, batch) || batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1) {
+            final TaskEntity taskEntity = batch.get(0);
+            tasksFutures.put(taskEntity.getId(), executorService.submit(() -> processTask(taskEntity)));
+            return;
+        }
+        final FutureTask<ExecutionResult> future = new FutureTask<>(() -> processBatch(batch));
+        batch.forEach(taskEntity -> {
+            batchedTasks.add(taskEntity.getId());
+            tasksFutures.put(taskEntity.getId(), future);
+        });
+        executorService.execute(future);
+    }
+
+    @Scheduled(fixedDelayString = "${blast-wrapper.task-lease.heartbeat-interval:30000}")
+    public void renewLeases() {
+        final Set<Long> taskIds = new HashSet<>(tasksFutures.keySet());
+        taskIds.addAll(clusterJobs.keySet());
+        if (!taskIds.isEmpty()) {
+            taskService.renewLeases(nodeIdentity.getId(), taskIds, nextLeaseExpiration());
+        }
+    }
+
+    /**
+     * Checks states of all submitted cluster jobs in one call and completes tasks, which jobs are finished.
+     */
+    @Scheduled(fixedDelayString = "${blast-wrapper.cluster-jobs.poll-interval:10000}")
+    public void pollClusterJobs() {
+        if (clusterJobs.isEmpty()) {
+            return;
+        }
+        final Map<Long, ExecutionResult> finished;
+        try {
+            finished = commandService.checkJobs(clusterJobs.values());
+        } catch (Exception e) {
+            log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
+            return;
+        }
+        finished.forEach((taskId, result) -> {
+            final TaskEntity taskEntity = clusterJobs.remove(taskId);
+            if (taskEntity == null) {
+                return;
+            }
+            // the task could be cancelled by another node while its job was running, so its snapshot is stale
+            if (taskService.completeTask(taskEntity, result, nodeIdentity.getId())) {
+                log.info(messageHelper.getMessage(MessageConstants.INFO_END_TASK_EXECUTION, taskId));
+            } else {
+                log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_NOT_COMPLETED_BY_JOB, taskId));
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${blast-wrapper.task-lease.reaper-interval:60000}",
+            fixedDelayString = "${blast-wrapper.task-lease.reaper-interval:60000}")
+    public void recoverExpiredTasks() {
+        recoverTasks(DateUtils.nowUtc());
+    }
+
+    /**
+     * Takes over running tasks, which lease has expired before the given moment, i.e. their owner stopped
+     * renewing it. Each task is re-attached to its job if it is still alive, otherwise it is returned to the queue.
+     */
+    private synchronized void recoverTasks(final LocalDateTime expiredBefore) {
+        for (TaskEntity taskEntity : taskService.findTasksWithExpiredLease(expiredBefore)) {
+            if (tasksFutures.containsKey(taskEntity.getId()) || clusterJobs.containsKey(taskEntity.getId())) {
+                continue;
+            }
+            if (taskEntity.getJobId() != null) {
+                recoverClusterJob(taskEntity, expiredBefore);
+                continue;
+            }
+            if (!admission.tryAdmit(taskEntity)) {
+                break;
+            }
+            final String previousOwner = taskEntity.getClaimedBy();
+            if (!taskService.takeOverTask(taskEntity, nodeIdentity.getId(), expiredBefore, nextLeaseExpiration())) {
+                admission.release(taskEntity.getId());
+                continue;
+            }
+            log.warn(messageHelper.getMessage(MessageConstants.WARN_TASK_LEASE_EXPIRED,
+                    taskEntity.getId(), previousOwner));
+            tasksFutures.put(taskEntity.getId(), executorService.submit(() -> recoverTask(taskEntity)));
+        }
+    }
+
+    /**
+     * A cluster job doesn't depend on the instance, which has submitted it, so it is just polled from now on.
+     */
+    private void recoverClusterJob(final TaskEntity taskEntity, final LocalDateTime expiredBefore) {
+        if (taskService.takeOverTask(taskEntity, nodeIdentity.getId(), expiredBefore, nextLeaseExpiration())) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_CLUSTER_JOB_REATTACHED,
+                    taskEntity.getId(), taskEntity.getJobId()));
+            clusterJobs.put(taskEntity.getId(), taskEntity);
+        }
+    }
+
+    private ExecutionResult recoverTask(final TaskEntity taskEntity) {
+        Optional<ExecutionResult> result;
+        try {
+            result = commandService.attachTask(taskEntity);
+        } catch (Exception e) {
+            log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
+            result = Optional.empty();
+        }
+        admission.release(taskEntity.getId());
+        tasksFutures.remove(taskEntity.getId());
+        if (result.isPresent()) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_REATTACHED, taskEntity.getId()));
+            taskService.changeStatus(taskEntity, result.get());
+        } else if (taskService.requeueTask(taskEntity, nodeIdentity.getId())) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_REQUEUED, taskEntity.getId()));
+        }
+        requestDispatch();
+        return result.orElse(null);
+    }
+
+    private LocalDateTime nextLeaseExpiration() {
+        return DateUtils.nowUtc().plus(leaseDuration);
     }
 
     private ExecutionResult processTask(final TaskEntity taskEntity) {
         ExecutionResult result;
         try {
             result = commandService.runTask(taskEntity);
-        } catch (IOException e) {
-            log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
-            result = ExecutionResult.builder().exitCode(IO_EXCEPTION).reason(e.getMessage()).build();
-        } catch (InterruptedException e) {
-            log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
-            Thread.currentThread().interrupt();
-            result = ExecutionResult.builder().exitCode(THREAD_INTERRUPTION_EXCEPTION).reason(e.getMessage()).build();
         } catch (Exception e) {
-            log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
-            result = ExecutionResult.builder().exitCode(OTHER_EXCEPTION).reason(e.getMessage()).build();
+            result = getErrorResult(e);
+        }
+        admission.release(taskEntity.getId());
+        if (result.getJobId() != null) {
+            // the task keeps running on the cluster, its slot is given to the next task right away
+            taskEntity.setJobId(result.getJobId());
+            taskService.updateTask(taskEntity);
+            clusterJobs.put(taskEntity.getId(), taskEntity);
+        } else {
+            taskService.changeStatus(taskEntity, result);
         }
-        semaphore.release();
         tasksFutures.remove(taskEntity.getId());
-        taskService.changeStatus(taskEntity, result);
+        requestDispatch();
         return result;
     }
 
+    private ExecutionResult processBatch(final List<TaskEntity> batch) {
+        Map<Long, ExecutionResult> results;
+        ExecutionResult error = null;
+        try {
+            results = commandService.runBatch(batch, batchedTasks::contains);
+        } catch (Exception e) {
+            error = getErrorResult(e);
+            results = Map.of();
+        }
+        for (TaskEntity taskEntity : batch) {
+            admission.release(taskEntity.getId());
+            if (batchedTasks.remove(taskEntity.getId())) {
+                taskService.changeStatus(taskEntity, results.getOrDefault(taskEntity.getId(), error));
+                tasksFutures.remove(taskEntity.getId());
+            }
+        }
+        requestDispatch();
+        return error;
+    }
+
+    private ExecutionResult getErrorResult(final Exception e) {
+        log.error(format(EXCEPTION_MESSAGE_PATTERN, e.getClass(), e.getMessage(), e));
+        if (e instanceof IOException) {
+            return ExecutionResult.builder().exitCode(IO_EXCEPTION).reason(e.getMessage()).build();
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.builder().exitCode(THREAD_INTERRUPTION_EXCEPTION).reason(e.getMessage()).build();
+        }
+        return ExecutionResult.builder().exitCode(OTHER_EXCEPTION).reason(e.getMessage()).build();
+    }
+
+    /**
+     * Removes the task from a batch, which waits for its window to close, returns false if it isn't there.
+     */
+    private boolean removeFromPendingBatch(final Long taskId) {
+        for (List<TaskEntity> batch : pendingBatches.values()) {
+            if (batch.removeIf(taskEntity -> taskEntity.getId().equals(taskId))) {
+                admission.release(taskId);
+                return true;
+            }
+        }
+        return false;
+    }
+
     public synchronized TaskStatus cancelTask(final Long id, final boolean byRequest) {
         final TaskEntity task = taskService.findTask(id);
         if (task.getStatus() == Status.RUNNING || task.getStatus() == Status.CREATED) {
             if (byRequest) {
                 task.setReason(messageHelper.getMessage(MessageConstants.INFO_TASK_WAS_CANCELLED));
-                Optional.ofNullable(tasksFutures.get(task.getId())).ifPresent(t -> t.cancel(true));
+                if (batchedTasks.remove(task.getId())) {
+                    // other tasks of the batch still need its search, the result of this one is just dropped,
+                    // the search is stopped only if it was the last task of the batch
+                    final Future<ExecutionResult> batch = tasksFutures.remove(task.getId());
+                    if (batch != null && !tasksFutures.containsValue(batch)) {
+                        batch.cancel(true);
+                    }
+                } else if (!removeFromPendingBatch(task.getId())) {
+                    Optional.ofNullable(tasksFutures.get(task.getId())).ifPresent(t -> t.cancel(true));
+                }
+                clusterJobs.remove(task.getId());
+                if (task.getJobId() != null) {
+                    commandService.cancelJob(task);
+                }
             } else  {
                 task.setReason(messageHelper.getMessage(MessageConstants.INFO_TASK_WAS_CANCELLED_BY_RESTART));
                 commandService.cancelTask(task);
             }
             task.setStatus(Status.CANCELED);
             taskService.updateTask(task);
+            taskService.completeFollowers(task);
         } else {
             throw new IllegalStateException(
                     messageHelper.getMessage(MessageConstants.ERROR_TASK_IS_NOT_RUNNING, id, task.getStatus())
@@ -0,0 +1,169 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Structured description of a command to launch, backends decide how to run it: as a local process,
+ * in a container, as a cluster job, etc. Arguments, environment and working directory refer to
+ * files by container paths of {@link #mounts}, backends, which run the command on the host, map them
+ * to host paths with {@link #toHostPath(String)}.
+ */
+@Value
+@Builder
+public class CommandSpec {
+
+    public static final String BLAST_IMAGE = "ncbi/blast";
+    public static final String DB_DIRECTORY = "/blast/blastdb_custom";
+    public static final String QUERIES_DIRECTORY = "/blast/queries";
+    public static final String RESULTS_DIRECTORY = "/blast/results";
+    public static final String FASTA_DIRECTORY = "/blast/fasta";
+    public static final String BLASTDB_VARIABLE = "BLASTDB";
+    private static final char SINGLE_QUOTE = '\'';
+    private static final char DOUBLE_QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    // unique name of the job, it is used to cancel or attach to the job
+    String name;
+
+    // the job is kept after its completion, so that it can be attached to, the runner removes it
+    // by ExecutionBackend.remove
+    boolean attachable;
+
+    // container image of the job, auxiliary commands (e.g. job status checks) don't set it and are always run
+    // on the host as is
+    String image;
+
+    @Singular
+    List<String> arguments;
+
+    @Singular
+    List<Mount> mounts;
+
+    @Singular("variable")
+    Map<String, String> environment;
+
+    String workingDirectory;
+
+    // amount of CPUs the command is expected to use, not set if unknown
+    Integer threads;
+
+    public boolean isContainerized() {
+        return image != null;
+    }
+
+    /**
+     * Maps a path, which is located in one of the mounted container directories, to the corresponding host path,
+     * other values are returned as is.
+     */
+    public String toHostPath(final String value) {
+        if (value == null) {
+            return null;
+        }
+        for (Mount mount : mounts) {
+            final String containerPath = mount.getContainerPath();
+            if (value.equals(containerPath) || value.startsWith(containerPath + "/")) {
+                return mount.getHostPath() + value.substring(containerPath.length());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Splits a string of command line options into arguments the way a shell does: by whitespaces outside of
+     * quotes, single or double quoted parts (e.g. {@code -entrez_query "Homo sapiens[Organism]"}) are kept in
+     * one argument without the quotes, a backslash escapes the next character outside of single quotes.
+     * A blank string has no arguments, an unclosed quote lasts till the end of the string.
+     */
+    public static List<String> splitArguments(final String options) {
+        if (StringUtils.isBlank(options)) {
+            return List.of();
+        }
+        final List<String> arguments = new ArrayList<>();
+        final StringBuilder argument = new StringBuilder();
+        boolean inArgument = false;
+        char quote = 0;
+        for (int i = 0; i < options.length(); i++) {
+            final char c = options.charAt(i);
+            if (quote == SINGLE_QUOTE) {
+                if (c == SINGLE_QUOTE) {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == ESCAPE && i + 1 < options.length()) {
+                argument.append(options.charAt(++i));
+                inArgument = true;
+            } else if (quote == DOUBLE_QUOTE) {
+                if (c == DOUBLE_QUOTE) {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == SINGLE_QUOTE || c == DOUBLE_QUOTE) {
+                quote = c;
+                inArgument = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArgument) {
+                    arguments.add(argument.toString());
+                    argument.setLength(0);
+                    inArgument = false;
+                }
+            } else {
+                argument.append(c);
+                inArgument = true;
+            }
+        }
+        if (inArgument) {
+            arguments.add(argument.toString());
+        }
+        return arguments;
+    }
+
+    public List<String> getHostArguments() {
+        return arguments.stream().map(this::toHostPath).collect(Collectors.toList());
+    }
+
+    public Map<String, String> getHostEnvironment() {
+        return environment.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> toHostPath(entry.getValue())));
+    }
+
+    @Value
+    public static class Mount {
+        String hostPath;
+        String containerPath;
+        boolean readOnly;
+    }
+}
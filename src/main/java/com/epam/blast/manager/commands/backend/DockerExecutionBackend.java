@@ -0,0 +1,109 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.commands.TaskAttachCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs each job in its own named container, the same way as the default command templates do.
+ * Containers of attachable jobs are kept after completion till {@link #remove(String)}, so that
+ * {@code docker wait} can read their exit codes.
+ */
+@Component
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "docker")
+public class DockerExecutionBackend extends ProcessExecutionBackend {
+
+    static final String DOCKER = "docker";
+    private static final String READ_ONLY = ":ro";
+    private static final String READ_WRITE = ":rw";
+
+    public DockerExecutionBackend(final CommandPerformer commandPerformer) {
+        super(commandPerformer);
+    }
+
+    @Override
+    public Optional<ExecutionResult> attach(final String name) throws IOException, InterruptedException {
+        return TaskAttachCommand.toJobResult(perform(new ProcessBuilder(DOCKER, "wait", name), null));
+    }
+
+    @Override
+    public void remove(final String name) throws IOException, InterruptedException {
+        perform(new ProcessBuilder(DOCKER, "rm", "-f", name), null);
+    }
+
+    @Override
+    protected ProcessBuilder getJobProcess(final CommandSpec spec, final Path outputFile) {
+        final List<String> command = new ArrayList<>(List.of(DOCKER, "run"));
+        if (!spec.isAttachable()) {
+            command.add("--rm");
+        }
+        command.add("--name");
+        command.add(spec.getName());
+        for (CommandSpec.Mount mount : spec.getMounts()) {
+            command.add("-v");
+            command.add(toVolume(mount));
+        }
+        for (Map.Entry<String, String> variable : spec.getEnvironment().entrySet()) {
+            command.add("-e");
+            command.add(variable.getKey() + "=" + variable.getValue());
+        }
+        if (spec.getWorkingDirectory() != null) {
+            command.add("-w");
+            command.add(spec.getWorkingDirectory());
+        }
+        if (spec.getThreads() != null) {
+            command.add("--cpus");
+            command.add(String.valueOf(spec.getThreads()));
+        }
+        command.add(spec.getImage());
+        command.addAll(spec.getArguments());
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    protected boolean writesOutputFile() {
+        return false;
+    }
+
+    @Override
+    protected List<String> getCancelCommand(final String name, final String jobId) {
+        return List.of(DOCKER, "kill", name);
+    }
+
+    static String toVolume(final CommandSpec.Mount mount) {
+        return mount.getHostPath() + ":" + mount.getContainerPath() + (mount.isReadOnly() ? READ_ONLY : READ_WRITE);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps a pool of long-lived BLAST containers with the database, queries and results directories mounted and
+ * dispatches jobs into idle containers by {@code docker exec}, so a job doesn't pay for a cold container start.
+ * Jobs, which need other mounts (e.g. creation of a database) or find no idle container, are run in their own
+ * containers as by {@link DockerExecutionBackend}. A pooled job is cancelled by killing its process inside
+ * the container, the container itself is recycled after {@code max-tasks-per-container} jobs or if it stops
+ * running.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "docker-pool")
+public class DockerPoolExecutionBackend extends DockerExecutionBackend {
+
+    // docker exec exits with this code if the command can't be run in the container at all
+    private static final int DOCKER_ERROR_EXIT_CODE = 125;
+    private static final String SHELL = "sh";
+    private static final String RUN_JOB_SCRIPT = "echo $$ > \"/tmp/$0.pid\" && exec \"$@\"";
+    private static final String KILL_JOB_SCRIPT = "kill -9 \"$(cat \"/tmp/$1.pid\")\"";
+
+    private final MessageHelper messageHelper;
+    private final int maxTasksPerContainer;
+    private final List<String> containerNames;
+    private final List<CommandSpec.Mount> mounts;
+    private final BlockingQueue<PooledContainer> idleContainers = new LinkedBlockingQueue<>();
+    private final Queue<String> failedContainers = new ConcurrentLinkedQueue<>();
+    private final Map<String, PooledContainer> runningJobs = new ConcurrentHashMap<>();
+    // attachable jobs, which were run in pooled containers, so there are no containers of their own to remove
+    private final Set<String> pooledJobs = ConcurrentHashMap.newKeySet();
+
+    public DockerPoolExecutionBackend(
+            final CommandPerformer commandPerformer,
+            final BlastFileManager blastFileManager,
+            final MessageHelper messageHelper,
+            @Value("${blast-wrapper.execution.docker-pool.size:"
+                    + "${blast-wrapper.task-status-checking.thread-amount}}") final int size,
+            @Value("${blast-wrapper.execution.docker-pool.max-tasks-per-container:100}")
+            final int maxTasksPerContainer,
+            @Value("${blast-wrapper.execution.docker-pool.name-prefix:blast-pool}") final String namePrefix) {
+        super(commandPerformer);
+        this.messageHelper = messageHelper;
+        this.maxTasksPerContainer = maxTasksPerContainer;
+        this.containerNames = IntStream.range(0, size)
+                .mapToObj(index -> namePrefix + "_" + index)
+                .collect(Collectors.toList());
+        this.mounts = List.of(
+                new CommandSpec.Mount(blastFileManager.getBlastDbDirectory(), CommandSpec.DB_DIRECTORY, true),
+                new CommandSpec.Mount(blastFileManager.getBlastQueryDirectory(), CommandSpec.QUERIES_DIRECTORY, true),
+                new CommandSpec.Mount(blastFileManager.getBlastResultsDirectory(), CommandSpec.RESULTS_DIRECTORY,
+                        false));
+    }
+
+    @PostConstruct
+    public void startContainers() throws IOException, InterruptedException {
+        for (String name : containerNames) {
+            startContainer(name);
+        }
+    }
+
+    @PreDestroy
+    public void removeContainers() throws IOException, InterruptedException {
+        for (String name : containerNames) {
+            perform(new ProcessBuilder(DOCKER, "rm", "-f", name), null);
+        }
+    }
+
+    /**
+     * Recreates containers, which stopped running or failed to start, only idle containers are checked.
+     */
+    @Scheduled(fixedDelayString = "${blast-wrapper.execution.docker-pool.health-check-interval:60000}")
+    public void checkContainers() throws IOException, InterruptedException {
+        final List<PooledContainer> containers = new ArrayList<>();
+        idleContainers.drainTo(containers);
+        for (PooledContainer container : containers) {
+            if (isRunning(container.getName())) {
+                idleContainers.add(container);
+            } else {
+                log.warn(messageHelper.getMessage(MessageConstants.WARN_POOLED_CONTAINER_NOT_RUNNING,
+                        container.getName()));
+                startContainer(container.getName());
+            }
+        }
+        final List<String> failed = new ArrayList<>(failedContainers);
+        failedContainers.removeAll(failed);
+        for (String name : failed) {
+            startContainer(name);
+        }
+    }
+
+    @Override
+    public void cancel(final String name, final String jobId) throws IOException, InterruptedException {
+        final PooledContainer container = runningJobs.get(name);
+        if (container == null) {
+            super.cancel(name, jobId);
+            return;
+        }
+        killJob(container, name);
+    }
+
+    @Override
+    public void remove(final String name) throws IOException, InterruptedException {
+        if (!pooledJobs.remove(name)) {
+            super.remove(name);
+        }
+    }
+
+    @Override
+    protected ExecutionResult runJob(final CommandSpec spec, final Path outputFile)
+            throws IOException, InterruptedException {
+        final PooledContainer container = mounts.containsAll(spec.getMounts()) ? idleContainers.poll() : null;
+        if (container == null) {
+            return super.runJob(spec, outputFile);
+        }
+        runningJobs.put(spec.getName(), container);
+        if (spec.isAttachable()) {
+            pooledJobs.add(spec.getName());
+        }
+        boolean healthy = false;
+        try {
+            final ExecutionResult result = perform(getExecProcess(container, spec), outputFile);
+            if (result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+                // only the docker client is destroyed on interruption, the job is still running in the container
+                killJob(container, spec.getName());
+            }
+            healthy = result.getExitCode() != DOCKER_ERROR_EXIT_CODE;
+            return result;
+        } finally {
+            runningJobs.remove(spec.getName());
+            release(container, healthy);
+        }
+    }
+
+    private ProcessBuilder getExecProcess(final PooledContainer container, final CommandSpec spec) {
+        final List<String> command = new ArrayList<>(List.of(DOCKER, "exec"));
+        for (Map.Entry<String, String> variable : spec.getEnvironment().entrySet()) {
+            command.add("-e");
+            command.add(variable.getKey() + "=" + variable.getValue());
+        }
+        if (spec.getWorkingDirectory() != null) {
+            command.add("-w");
+            command.add(spec.getWorkingDirectory());
+        }
+        command.addAll(List.of(container.getName(), SHELL, "-c", RUN_JOB_SCRIPT, spec.getName()));
+        command.addAll(spec.getArguments());
+        return new ProcessBuilder(command);
+    }
+
+    private void killJob(final PooledContainer container, final String name) throws IOException, InterruptedException {
+        perform(new ProcessBuilder(DOCKER, "exec", container.getName(), SHELL, "-c", KILL_JOB_SCRIPT, SHELL, name),
+                null);
+    }
+
+    private void release(final PooledContainer container, final boolean healthy)
+            throws IOException, InterruptedException {
+        container.incrementTasks();
+        if (healthy && container.getTasks() < maxTasksPerContainer) {
+            idleContainers.add(container);
+            return;
+        }
+        log.info(messageHelper.getMessage(MessageConstants.INFO_POOLED_CONTAINER_RECYCLED,
+                container.getName(), container.getTasks()));
+        startContainer(container.getName());
+    }
+
+    private void startContainer(final String name) throws IOException, InterruptedException {
+        perform(new ProcessBuilder(DOCKER, "rm", "-f", name), null);
+        final List<String> command = new ArrayList<>(List.of(DOCKER, "run", "-d", "--name", name));
+        for (CommandSpec.Mount mount : mounts) {
+            command.add("-v");
+            command.add(toVolume(mount));
+        }
+        command.addAll(List.of("-e", CommandSpec.BLASTDB_VARIABLE + "=" + CommandSpec.DB_DIRECTORY,
+                "--entrypoint", "sleep", CommandSpec.BLAST_IMAGE, "infinity"));
+        final ExecutionResult result = perform(new ProcessBuilder(command), null);
+        if (result.getExitCode() == ExitCodes.SUCCESSFUL_EXECUTION) {
+            idleContainers.add(new PooledContainer(name));
+        } else {
+            log.warn(messageHelper.getMessage(MessageConstants.WARN_POOLED_CONTAINER_START_FAILED,
+                    name, result.getExitCode(), result.getReason()));
+            failedContainers.add(name);
+        }
+    }
+
+    private boolean isRunning(final String name) throws IOException, InterruptedException {
+        final ExecutionResult result = perform(
+                new ProcessBuilder(DOCKER, "inspect", "-f", "{{.State.Running}}", name), null);
+        return result.getExitCode() == ExitCodes.SUCCESSFUL_EXECUTION
+                && Boolean.parseBoolean(StringUtils.trim(result.getOutput()));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class PooledContainer {
+
+        private final String name;
+        private int tasks;
+
+        void incrementTasks() {
+            tasks++;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.commands.LaunchableCommand;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Launches commands of the runners in the environment of the deployment. The backend is chosen by
+ * {@code blast-wrapper.execution.backend}: {@code template} (default) renders command templates,
+ * {@code local}, {@code docker}, {@code docker-pool}, {@code sge} and {@code slurm} launch structured commands
+ * directly.
+ */
+public interface ExecutionBackend {
+
+    String BACKEND_PROPERTY = "blast-wrapper.execution.backend";
+
+    /**
+     * Runs the command and waits for it, the standard output is returned as a part of the result.
+     */
+    ExecutionResult run(LaunchableCommand command) throws IOException, InterruptedException;
+
+    /**
+     * Runs the command and waits for it, the standard output is written to {@code outputFile}.
+     */
+    ExecutionResult run(LaunchableCommand command, Path outputFile) throws IOException, InterruptedException;
+
+    /**
+     * Kills the job with the given name, {@code jobId} is set if the job was submitted asynchronously.
+     */
+    void cancel(String name, String jobId) throws IOException, InterruptedException;
+
+    /**
+     * Whether the blast command is submitted as an asynchronous cluster job: it prints the job id and returns,
+     * jobs are polled by the job status command, see {@code blast-wrapper.cluster-jobs.enabled}.
+     */
+    default boolean supportsJobSubmission() {
+        return false;
+    }
+
+    /**
+     * Waits for a job, which was started before, returns empty result if the job can't be found
+     * or the backend can't attach to jobs.
+     */
+    default Optional<ExecutionResult> attach(final String name) throws IOException, InterruptedException {
+        return Optional.empty();
+    }
+
+    /**
+     * Removes a finished or killed job, which is kept after its completion, so that it can be attached to.
+     */
+    default void remove(final String name) throws IOException, InterruptedException {
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.performers.ProcessSupervisor;
+import com.epam.blast.manager.commands.performers.SupervisedProcess;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs BLAST+ binaries installed on the host directly, without containers, mounted directories are
+ * used in place. A binary is taken from {@code blast-wrapper.execution.local.binaries} by the name of the tool
+ * ({@code blastn}, {@code makeblastdb} etc.), otherwise from {@code blast-wrapper.execution.local.bin-directory}
+ * or from {@code PATH}. Running jobs are tracked by name, so they are cancelled by destroying their processes.
+ * The pid of a job is also written to {@code <name>.pid} in the results directory, so a job left running by
+ * a previous run of the service is still found: it is killed on cancel or recovery, since its exit code
+ * can't be read, and the job is run again. The thread, which runs the task, waits for the process to exit,
+ * the same as it waits for {@code docker run} of other backends.
+ */
+@Component
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "local")
+public class LocalExecutionBackend extends ProcessExecutionBackend {
+
+    private static final String SPLIT_CHAR = " ";
+    private static final String PID_FILE_EXT = ".pid";
+
+    private final ProcessSupervisor processSupervisor;
+    private final String binDirectory;
+    private final Map<String, String> binaries;
+    private final String pidDirectory;
+    private final Map<String, Process> processes = new ConcurrentHashMap<>();
+
+    public LocalExecutionBackend(
+            final CommandPerformer commandPerformer,
+            final ProcessSupervisor processSupervisor,
+            @Value("${blast-wrapper.execution.local.bin-directory:}") final String binDirectory,
+            @Value("#{${blast-wrapper.execution.local.binaries:{:}}}") final Map<String, String> binaries,
+            @Value("${blast-wrapper.blast-commands.blast-results-directory}") final String pidDirectory) {
+        super(commandPerformer);
+        this.processSupervisor = processSupervisor;
+        this.binDirectory = binDirectory;
+        this.binaries = binaries;
+        this.pidDirectory = pidDirectory;
+    }
+
+    @Override
+    public void cancel(final String name, final String jobId) throws IOException {
+        final Process process = processes.get(name);
+        if (process != null) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            return;
+        }
+        findStartedProcess(name).ifPresent(LocalExecutionBackend::destroy);
+    }
+
+    /**
+     * Kills the process of the job left by a previous run of the service, the result is always empty,
+     * since the exit code of a process, which wasn't started by this run, can't be read.
+     */
+    @Override
+    public Optional<ExecutionResult> attach(final String name) throws IOException {
+        if (!processes.containsKey(name)) {
+            findStartedProcess(name).ifPresent(LocalExecutionBackend::destroy);
+            Files.deleteIfExists(getPidFile(name));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    protected ExecutionResult runJob(final CommandSpec spec, final Path outputFile) throws IOException {
+        final ProcessBuilder processBuilder = getJobProcess(spec, outputFile);
+        if (outputFile != null) {
+            processBuilder.redirectOutput(outputFile.toFile());
+        }
+        final SupervisedProcess process = processSupervisor.start(
+                String.join(SPLIT_CHAR, processBuilder.command()), processBuilder, outputFile == null);
+        processes.put(spec.getName(), process.getProcess());
+        try {
+            writePidFile(spec.getName(), process.getProcess().pid());
+            return process.await();
+        } catch (IOException e) {
+            // the job isn't left running without anyone waiting for it
+            process.getProcess().destroyForcibly();
+            throw e;
+        } finally {
+            processes.remove(spec.getName(), process.getProcess());
+            Files.deleteIfExists(getPidFile(spec.getName()));
+        }
+    }
+
+    @Override
+    protected ProcessBuilder getJobProcess(final CommandSpec spec, final Path outputFile) {
+        final ProcessBuilder processBuilder = getHostProcess(spec);
+        final List<String> command = processBuilder.command();
+        command.set(0, getBinary(command.get(0)));
+        return processBuilder;
+    }
+
+    @Override
+    protected boolean writesOutputFile() {
+        return false;
+    }
+
+    @Override
+    protected List<String> getCancelCommand(final String name, final String jobId) {
+        // jobs are cancelled by their process handles
+        return List.of();
+    }
+
+    /**
+     * Writes the pid of the process and its start time, which tells the process from another one,
+     * which got the same pid later.
+     */
+    private void writePidFile(final String name, final long pid) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.valueOf(pid));
+        ProcessHandle.of(pid)
+                .flatMap(handle -> handle.info().startInstant())
+                .ifPresent(start -> lines.add(String.valueOf(start.toEpochMilli())));
+        Files.write(getPidFile(name), lines);
+    }
+
+    /**
+     * Returns the alive process, which pid is written for the job, if it is still the same process.
+     */
+    private Optional<ProcessHandle> findStartedProcess(final String name) throws IOException {
+        final Path pidFile = getPidFile(name);
+        if (!Files.exists(pidFile)) {
+            return Optional.empty();
+        }
+        final List<String> lines = Files.readAllLines(pidFile);
+        final long pid = lines.isEmpty() ? -1 : NumberUtils.toLong(lines.get(0), -1);
+        final Long start = lines.size() > 1 ? NumberUtils.createLong(lines.get(1)) : null;
+        if (pid <= 0) {
+            return Optional.empty();
+        }
+        return ProcessHandle.of(pid)
+                .filter(ProcessHandle::isAlive)
+                .filter(handle -> start == null || handle.info().startInstant()
+                        .map(instant -> instant.toEpochMilli() == start)
+                        .orElse(true));
+    }
+
+    private Path getPidFile(final String name) {
+        return Paths.get(pidDirectory, name + PID_FILE_EXT);
+    }
+
+    private static void destroy(final ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    String getBinary(final String tool) {
+        final String binary = binaries.get(tool);
+        if (StringUtils.isNotBlank(binary)) {
+            return binary;
+        }
+        return StringUtils.isBlank(binDirectory) ? tool : Paths.get(binDirectory, tool).toString();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.commands.LaunchableCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Base of backends, which launch structured commands as argument arrays: arguments are passed to the process
+ * as is, without rendering and re-splitting of a command line. Auxiliary commands without an image are always
+ * run on the host. A job is run synchronously: {@link #run} returns when the process exits.
+ */
+abstract class ProcessExecutionBackend implements ExecutionBackend {
+
+    private final CommandPerformer commandPerformer;
+
+    ProcessExecutionBackend(final CommandPerformer commandPerformer) {
+        this.commandPerformer = commandPerformer;
+    }
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command) throws IOException, InterruptedException {
+        return launch(command.toSpec(), null);
+    }
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command, final Path outputFile)
+            throws IOException, InterruptedException {
+        return launch(command.toSpec(), outputFile);
+    }
+
+    @Override
+    public void cancel(final String name, final String jobId) throws IOException, InterruptedException {
+        final List<String> cancelCommand = getCancelCommand(name, jobId);
+        if (!cancelCommand.isEmpty()) {
+            perform(new ProcessBuilder(cancelCommand), null);
+        }
+    }
+
+    /**
+     * Returns the process, which runs the job described by the containerized {@code spec}. If the process writes
+     * the output of the job to {@code outputFile} itself, its own output isn't redirected.
+     */
+    protected abstract ProcessBuilder getJobProcess(CommandSpec spec, Path outputFile);
+
+    protected abstract boolean writesOutputFile();
+
+    /**
+     * Returns the command, which kills the job, or empty list if the job can't be killed by name.
+     */
+    protected abstract List<String> getCancelCommand(String name, String jobId);
+
+    /**
+     * Runs the job described by the containerized {@code spec} and waits for its completion.
+     */
+    protected ExecutionResult runJob(final CommandSpec spec, final Path outputFile)
+            throws IOException, InterruptedException {
+        return perform(getJobProcess(spec, outputFile), writesOutputFile() ? null : outputFile);
+    }
+
+    protected ExecutionResult perform(final ProcessBuilder processBuilder, final Path outputFile)
+            throws IOException, InterruptedException {
+        return commandPerformer.perform(processBuilder, outputFile);
+    }
+
+    protected static ProcessBuilder getHostProcess(final CommandSpec spec) {
+        final ProcessBuilder processBuilder = new ProcessBuilder(spec.getHostArguments());
+        processBuilder.environment().putAll(spec.getHostEnvironment());
+        if (spec.getWorkingDirectory() != null) {
+            processBuilder.directory(new File(spec.toHostPath(spec.getWorkingDirectory())));
+        }
+        return processBuilder;
+    }
+
+    private ExecutionResult launch(final CommandSpec spec, final Path outputFile)
+            throws IOException, InterruptedException {
+        if (!spec.isContainerized()) {
+            return perform(getHostProcess(spec), outputFile);
+        }
+        return runJob(spec, outputFile);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Submits each job to a Sun Grid Engine cluster with {@code qsub -sync y} and waits for it. Binaries are run on
+ * execution hosts directly, so BLAST+ and the mounted directories must be available there under host paths.
+ */
+@Component
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "sge")
+public class SgeExecutionBackend extends ProcessExecutionBackend {
+
+    private static final String NO_OUTPUT = "/dev/null";
+
+    private final String parallelEnvironment;
+
+    public SgeExecutionBackend(final CommandPerformer commandPerformer,
+                               @Value("${blast-wrapper.execution.sge.parallel-environment:smp}")
+                               final String parallelEnvironment) {
+        super(commandPerformer);
+        this.parallelEnvironment = parallelEnvironment;
+    }
+
+    @Override
+    protected ProcessBuilder getJobProcess(final CommandSpec spec, final Path outputFile) {
+        final List<String> command = new ArrayList<>(List.of("qsub", "-sync", "y", "-b", "y", "-N", spec.getName(),
+                "-o", outputFile != null ? outputFile.toString() : NO_OUTPUT));
+        if (!spec.getEnvironment().isEmpty()) {
+            command.add("-v");
+            command.add(spec.getHostEnvironment().entrySet().stream()
+                    .map(variable -> variable.getKey() + "=" + variable.getValue())
+                    .collect(Collectors.joining(",")));
+        }
+        if (spec.getWorkingDirectory() != null) {
+            command.add("-wd");
+            command.add(spec.toHostPath(spec.getWorkingDirectory()));
+        }
+        if (spec.getThreads() != null) {
+            command.add("-pe");
+            command.add(parallelEnvironment);
+            command.add(String.valueOf(spec.getThreads()));
+        }
+        command.addAll(spec.getHostArguments());
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    protected boolean writesOutputFile() {
+        return true;
+    }
+
+    @Override
+    protected List<String> getCancelCommand(final String name, final String jobId) {
+        // qdel accepts both ids and names of jobs
+        return List.of("qdel", jobId != null ? jobId : name);
+    }
+}
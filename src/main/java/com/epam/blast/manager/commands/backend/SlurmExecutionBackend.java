@@ -0,0 +1,73 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs each job as a Slurm job step with {@code srun}, which waits for the job. This is a minimal backend:
+ * partitions, accounts and memory limits are taken from the defaults of the cluster or from {@code SLURM_*}
+ * variables of the application environment.
+ */
+@Component
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "slurm")
+public class SlurmExecutionBackend extends ProcessExecutionBackend {
+
+    public SlurmExecutionBackend(final CommandPerformer commandPerformer) {
+        super(commandPerformer);
+    }
+
+    @Override
+    protected ProcessBuilder getJobProcess(final CommandSpec spec, final Path outputFile) {
+        final List<String> command = new ArrayList<>(List.of("srun", "--job-name=" + spec.getName()));
+        final StringBuilder export = new StringBuilder("--export=ALL");
+        spec.getHostEnvironment().forEach((name, value) -> export.append(',').append(name).append('=').append(value));
+        command.add(export.toString());
+        if (spec.getWorkingDirectory() != null) {
+            command.add("--chdir=" + spec.toHostPath(spec.getWorkingDirectory()));
+        }
+        if (spec.getThreads() != null) {
+            command.add("--cpus-per-task=" + spec.getThreads());
+        }
+        command.addAll(spec.getHostArguments());
+        return new ProcessBuilder(command);
+    }
+
+    @Override
+    protected boolean writesOutputFile() {
+        return false;
+    }
+
+    @Override
+    protected List<String> getCancelCommand(final String name, final String jobId) {
+        return jobId != null ? List.of("scancel", jobId) : List.of("scancel", "--name=" + name);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.manager.commands.commands.LaunchableCommand;
+import com.epam.blast.manager.commands.commands.TaskAttachCommand;
+import com.epam.blast.manager.commands.commands.TaskCancelCommand;
+import com.epam.blast.manager.commands.commands.TaskRemoveCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Renders commands from the templates of {@code blast-wrapper.template.command.dir} and performs
+ * the resulting command lines, so any environment can be supported by templates only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = ExecutionBackend.BACKEND_PROPERTY, havingValue = "template", matchIfMissing = true)
+public class TemplateExecutionBackend implements ExecutionBackend {
+
+    private final CommandPerformer commandPerformer;
+    private final TemplateEngine templateEngine;
+    private final MessageHelper messageHelper;
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command) throws IOException, InterruptedException {
+        return commandPerformer.perform(generateCmd(command));
+    }
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command, final Path outputFile)
+            throws IOException, InterruptedException {
+        return commandPerformer.perform(generateCmd(command), outputFile);
+    }
+
+    @Override
+    public boolean supportsJobSubmission() {
+        return true;
+    }
+
+    @Override
+    public void cancel(final String name, final String jobId) throws IOException, InterruptedException {
+        final String cancelCommand = TaskCancelCommand.builder()
+                .taskName(name).jobId(jobId).build().generateCmd(templateEngine);
+        if (StringUtils.isNotBlank(cancelCommand)) {
+            commandPerformer.perform(cancelCommand);
+        } else {
+            log.warn(messageHelper.getMessage(MessageConstants.WARN_CANCEL_COMMAND_IS_BLANK));
+        }
+    }
+
+    @Override
+    public Optional<ExecutionResult> attach(final String name) throws IOException, InterruptedException {
+        final String attachCommand = TaskAttachCommand.builder()
+                .taskName(name).build().generateCmd(templateEngine);
+        if (StringUtils.isBlank(attachCommand)) {
+            log.warn(messageHelper.getMessage(MessageConstants.WARN_ATTACH_COMMAND_IS_BLANK));
+            return Optional.empty();
+        }
+        return TaskAttachCommand.toJobResult(commandPerformer.perform(attachCommand));
+    }
+
+    @Override
+    public void remove(final String name) throws IOException, InterruptedException {
+        final String removeCommand = TaskRemoveCommand.builder()
+                .taskName(name).build().generateCmd(templateEngine);
+        if (StringUtils.isNotBlank(removeCommand)) {
+            commandPerformer.perform(removeCommand);
+        }
+    }
+
+    private String generateCmd(final LaunchableCommand command) {
+        final String commandLine = command.generateCmd(templateEngine);
+        if (StringUtils.isBlank(commandLine)) {
+            throw new IllegalStateException(messageHelper.getMessage(MessageConstants.ERROR_COMMAND_IS_BLANK,
+                    command.getClass().getSimpleName()));
+        }
+        return commandLine;
+    }
+}
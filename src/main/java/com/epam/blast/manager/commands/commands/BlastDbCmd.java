@@ -28,13 +28,14 @@ import static com.epam.blast.entity.task.TaskEntityParams.BLAST_DB_DIRECTORY;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
 import static com.epam.blast.entity.task.TaskEntityParams.TASK_NAME;
 
+import com.epam.blast.manager.commands.backend.CommandSpec;
 import lombok.Builder;
 import lombok.NonNull;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 @Builder
-public class BlastDbCmd implements BlastWrapperCommand {
+public class BlastDbCmd implements LaunchableCommand {
 
     private static final String BLASTDBCMD_COMMAND_TEMPLATE = "blastdbcmd_command_template";
 
@@ -52,6 +53,19 @@ public class BlastDbCmd implements BlastWrapperCommand {
         return template.process(BLASTDBCMD_COMMAND_TEMPLATE, buildContext());
     }
 
+    @Override
+    public CommandSpec toSpec() {
+        return CommandSpec.builder()
+                .name(taskName)
+                .image(CommandSpec.BLAST_IMAGE)
+                .mount(new CommandSpec.Mount(dbDirectory, CommandSpec.DB_DIRECTORY, true))
+                .variable(CommandSpec.BLASTDB_VARIABLE, CommandSpec.DB_DIRECTORY)
+                .argument("blastdbcmd")
+                .argument("-db").argument(dbName)
+                .argument("-outfmt").argument("%T")
+                .argument("-entry").argument("all")
+                .build();
+    }
 
     private Context buildContext() {
         final Context context = new Context();
@@ -24,6 +24,7 @@
 
 package com.epam.blast.manager.commands.commands;
 
+import com.epam.blast.manager.commands.backend.CommandSpec;
 import lombok.Builder;
 import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
@@ -45,7 +46,7 @@ import static com.epam.blast.entity.task.TaskEntityParams.TAX_IDS;
 import static java.io.File.separator;
 
 @Builder
-public class BlastToolCommand implements BlastWrapperCommand {
+public class BlastToolCommand implements LaunchableCommand {
 
     public static final List<String> HEADERS = Arrays.asList("qaccver", "qlen", "qstart", "qend", "qseq", "saccver",
             "sseqid", "slen", "sstart", "send", "sseq", "btop", "evalue", "bitscore", "score", "length", "pident",
@@ -55,6 +56,7 @@ public class BlastToolCommand implements BlastWrapperCommand {
     public static final String BLAST_FILE_FORMAT_STRING = String.format("\"10 delim=%%s %s\"",
             String.join(" ", HEADERS));
     public static final int BLAST_FILE_FORMAT_PARTS = 30;
+    public static final String BLAST_FILE_FORMAT = "10 delim=%s " + String.join(" ", HEADERS);
 
     private static final String EMPTY_STRING = "";
     private static final String PATH_SEPARATOR_THYMELEAF_VARIABLE_NAME = "pathSeparator";
@@ -74,6 +76,7 @@ public class BlastToolCommand implements BlastWrapperCommand {
     private static final String E_VALUE_BLAST_PARAM_NAME = "evalue";
     private static final String MAX_TARGET_SEQS_BLAST_PARAM_NAME = "max_target_seqs";
     private static final String NEGATIVE_TAXIDS_BLAST_PARAM_NAME = "negative_taxids";
+    private static final String NUM_THREADS_BLAST_PARAM_NAME = "num_threads";
 
     private final String blastDbDirectory;
     private final String blastQueriesDirectory;
@@ -103,6 +106,9 @@ public class BlastToolCommand implements BlastWrapperCommand {
     private final String expectedThreshold;
     private final String options;
 
+    // threads budget given to the search by the scheduler, not set if the search runs with BLAST defaults
+    private final Integer threads;
+
     @Override
     public String generateCmd(final TemplateEngine templateEngine) {
         return templateEngine.process(BLAST_COMMAND_TEMPLATE, buildContext())
@@ -132,11 +138,55 @@ public class BlastToolCommand implements BlastWrapperCommand {
         context.setVariable(EXPECTED_THRESHOLD,
                 getCommandParameterOrEmpty(E_VALUE_BLAST_PARAM_NAME, expectedThreshold)
         );
-        context.setVariable(OPTIONS, getCommandParameterOrEmpty(EMPTY_STRING, options));
+        // the threads parameter goes along with the options, so submit scripts get it without new arguments
+        context.setVariable(OPTIONS, String.join(" ", getCommandParameterOrEmpty(EMPTY_STRING, options),
+                getCommandParameterOrEmpty(NUM_THREADS_BLAST_PARAM_NAME, getThreads())).trim());
 
         return context;
     }
 
+    @Override
+    public CommandSpec toSpec() {
+        final CommandSpec.CommandSpecBuilder spec = CommandSpec.builder()
+                .name(taskName)
+                .attachable(true)
+                .image(CommandSpec.BLAST_IMAGE)
+                .mount(new CommandSpec.Mount(blastDbDirectory, CommandSpec.DB_DIRECTORY, true))
+                .mount(new CommandSpec.Mount(blastQueriesDirectory, CommandSpec.QUERIES_DIRECTORY, true))
+                .mount(new CommandSpec.Mount(blastResultsDirectory, CommandSpec.RESULTS_DIRECTORY, false))
+                .variable(CommandSpec.BLASTDB_VARIABLE, CommandSpec.DB_DIRECTORY)
+                .arguments(CommandSpec.splitArguments(blastTool))
+                .argument("-query").argument(CommandSpec.QUERIES_DIRECTORY + "/" + queryFileName)
+                .argument("-db").argument(dbName)
+                .argument("-out").argument(CommandSpec.RESULTS_DIRECTORY + "/" + outputFileName)
+                .argument("-outfmt").argument(String.format(BLAST_FILE_FORMAT, resultDelimiter))
+                .threads(threads);
+        addParameter(spec, TAXIDS_BLAST_PARAM_NAME, taxIds);
+        addParameter(spec, NEGATIVE_TAXIDS_BLAST_PARAM_NAME, excludedTaxIds);
+        addParameter(spec, MAX_TARGET_SEQS_BLAST_PARAM_NAME, maxTargetSequence);
+        addParameter(spec, E_VALUE_BLAST_PARAM_NAME, expectedThreshold);
+        spec.arguments(CommandSpec.splitArguments(options));
+        addParameter(spec, NUM_THREADS_BLAST_PARAM_NAME, getThreads());
+        return spec.build();
+    }
+
+    /**
+     * Returns the threads budget as a parameter value, unless the options already set the amount of threads.
+     */
+    private String getThreads() {
+        if (threads == null || StringUtils.contains(options, "-" + NUM_THREADS_BLAST_PARAM_NAME)) {
+            return EMPTY_STRING;
+        }
+        return String.valueOf(threads);
+    }
+
+    private static void addParameter(final CommandSpec.CommandSpecBuilder spec, final String parameter,
+                                     final String value) {
+        if (StringUtils.isNotBlank(value)) {
+            spec.argument("-" + parameter).argument(value.trim());
+        }
+    }
+
     private String getCommandParameterOrEmpty(final String parameter, final String value) {
         if (StringUtils.isBlank(value)) {
             return EMPTY_STRING;
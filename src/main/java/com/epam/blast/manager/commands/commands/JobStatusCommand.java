@@ -0,0 +1,74 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.commands;
+
+import com.epam.blast.manager.commands.backend.CommandSpec;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import lombok.Builder;
+import org.apache.commons.lang3.StringUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lists all cluster jobs, which are still queued or running, in one call.
+ * The command is expected to print a job id at the start of each job line, as {@code qstat} does,
+ * other lines (e.g. headers) are ignored.
+ */
+@Builder
+public class JobStatusCommand implements LaunchableCommand {
+
+    private static final String JOB_STATUS_COMMAND_TEMPLATE = "job_status_command_template";
+    private static final String WHITESPACES = "\\s+";
+    private static final String QSTAT = "qstat";
+
+    @Override
+    public String generateCmd(final TemplateEngine template) {
+        return template.process(JOB_STATUS_COMMAND_TEMPLATE, new Context())
+                .replaceAll(" +", " ")
+                .trim();
+    }
+
+    @Override
+    public CommandSpec toSpec() {
+        return CommandSpec.builder().argument(QSTAT).build();
+    }
+
+    /**
+     * Extracts ids of active jobs from the output of the command.
+     */
+    public static Set<String> getActiveJobIds(final ExecutionResult statusResult) {
+        final Set<String> jobIds = new HashSet<>();
+        for (String line : StringUtils.defaultString(statusResult.getOutput()).split("\n")) {
+            final String jobId = StringUtils.trimToEmpty(line).split(WHITESPACES)[0];
+            if (StringUtils.isNumeric(jobId)) {
+                jobIds.add(jobId);
+            }
+        }
+        return jobIds;
+    }
+}
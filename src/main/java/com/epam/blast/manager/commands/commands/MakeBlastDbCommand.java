@@ -24,6 +24,7 @@
 
 package com.epam.blast.manager.commands.commands;
 
+import com.epam.blast.manager.commands.backend.CommandSpec;
 import lombok.Builder;
 import lombok.NonNull;
 import org.thymeleaf.TemplateEngine;
@@ -34,12 +35,13 @@ import static com.epam.blast.entity.task.TaskEntityParams.BLAST_DB_VERSION;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_TITLE;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_TYPE;
+import static com.epam.blast.entity.task.TaskEntityParams.MAX_FILE_SIZE;
 import static com.epam.blast.entity.task.TaskEntityParams.PARSE_SEQ_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.TASK_NAME;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_ID;
 
 @Builder
-public class MakeBlastDbCommand implements BlastWrapperCommand {
+public class MakeBlastDbCommand implements LaunchableCommand {
 
     private static final String MAKEDB_COMMAND_TEMPLATE = "makedb_command_template";
 
@@ -61,6 +63,7 @@ public class MakeBlastDbCommand implements BlastWrapperCommand {
     private final String dbTitle;
     private final Integer taxId;
     private final Integer blastDbVersion;
+    private final String maxFileSize;
 
     @Override
     public String generateCmd(final TemplateEngine template) {
@@ -68,6 +71,27 @@ public class MakeBlastDbCommand implements BlastWrapperCommand {
                 .trim().replaceAll(" +", " ");
     }
 
+    @Override
+    public CommandSpec toSpec() {
+        return CommandSpec.builder()
+                .name(taskName)
+                .attachable(true)
+                .image(CommandSpec.BLAST_IMAGE)
+                .mount(new CommandSpec.Mount(blastDbDirectory, CommandSpec.DB_DIRECTORY, false))
+                .mount(new CommandSpec.Mount(inputFilePath, CommandSpec.FASTA_DIRECTORY, true))
+                .workingDirectory(CommandSpec.DB_DIRECTORY)
+                .argument("makeblastdb")
+                .argument("-in").argument(CommandSpec.FASTA_DIRECTORY + "/" + inputFileName)
+                .argument("-dbtype").argument(dbType)
+                .arguments(CommandSpec.splitArguments(parseSeqIds))
+                .argument("-out").argument(dbName)
+                .argument("-title").argument(dbTitle)
+                .argument("-taxid").argument(String.valueOf(taxId))
+                .argument("-blastdb_version").argument(String.valueOf(blastDbVersion))
+                .arguments(CommandSpec.splitArguments(maxFileSize))
+                .build();
+    }
+
     private Context buildContext() {
         final Context context = new Context();
         context.setVariable(BLAST_DB_DIRECTORY, blastDbDirectory);
@@ -80,6 +104,7 @@ public class MakeBlastDbCommand implements BlastWrapperCommand {
         context.setVariable(TAX_ID, taxId);
         context.setVariable(BLAST_DB_VERSION, blastDbVersion);
         context.setVariable(TASK_NAME, taskName);
+        context.setVariable(MAX_FILE_SIZE, maxFileSize);
         return context;
     }
 }
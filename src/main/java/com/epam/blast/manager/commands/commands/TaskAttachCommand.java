@@ -0,0 +1,87 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.commands;
+
+import static com.epam.blast.entity.task.TaskEntityParams.TASK_NAME;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import lombok.Builder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Optional;
+
+/**
+ * Waits for a job, which was started by another (possibly dead) instance of the application, to finish.
+ * The command is expected to print the exit code of the job, as {@code docker wait} does.
+ */
+@Builder
+public class TaskAttachCommand implements BlastWrapperCommand {
+
+    private static final String ATTACH_COMMAND_TEMPLATE = "attach_command_template";
+    private static final String EMPTY = "";
+
+    private final String taskName;
+
+    @Override
+    public String generateCmd(final TemplateEngine template) {
+        return template.process(ATTACH_COMMAND_TEMPLATE, buildContext())
+                .replaceAll(" +", " ")
+                .trim();
+    }
+
+    /**
+     * Converts the result of the attach command to the result of the job itself,
+     * returns empty result if there is no job to attach to. The result of an interrupted attach command
+     * is returned as is, so the caller can cancel the job, which is still running.
+     */
+    public static Optional<ExecutionResult> toJobResult(final ExecutionResult attachResult) {
+        if (attachResult.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+            return Optional.of(attachResult);
+        }
+        if (attachResult.getExitCode() != 0) {
+            return Optional.empty();
+        }
+        final String exitCode = StringUtils.trimToEmpty(attachResult.getOutput());
+        if (!NumberUtils.isParsable(exitCode) || exitCode.contains(".")) {
+            return Optional.empty();
+        }
+        return Optional.of(ExecutionResult.builder()
+                .exitCode(Integer.parseInt(exitCode))
+                .reason(EMPTY)
+                .output(EMPTY)
+                .build());
+    }
+
+    private Context buildContext() {
+        final Context context = new Context();
+        context.setVariable(TASK_NAME, taskName);
+        return context;
+    }
+
+}
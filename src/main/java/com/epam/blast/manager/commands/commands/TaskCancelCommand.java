@@ -24,6 +24,7 @@
 
 package com.epam.blast.manager.commands.commands;
 
+import static com.epam.blast.entity.task.TaskEntityParams.JOB_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.TASK_NAME;
 
 import lombok.Builder;
@@ -36,6 +37,7 @@ public class TaskCancelCommand implements BlastWrapperCommand {
     private static final String BLAST_COMMAND_TEMPLATE = "cancel_command_template";
 
     private final String taskName;
+    private final String jobId;
 
     @Override
     public String generateCmd(final TemplateEngine template) {
@@ -47,6 +49,7 @@ public class TaskCancelCommand implements BlastWrapperCommand {
     private Context buildContext() {
         final Context context = new Context();
         context.setVariable(TASK_NAME, taskName);
+        context.setVariable(JOB_ID, jobId);
         return context;
     }
 
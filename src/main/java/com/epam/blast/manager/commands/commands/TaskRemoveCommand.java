@@ -0,0 +1,58 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.commands.commands;
+
+import static com.epam.blast.entity.task.TaskEntityParams.TASK_NAME;
+
+import lombok.Builder;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * Removes a finished job, which is kept after its completion, so that another instance of the application
+ * can attach to it and read its exit code, as {@code docker rm} does for containers started without {@code --rm}.
+ */
+@Builder
+public class TaskRemoveCommand implements BlastWrapperCommand {
+
+    private static final String REMOVE_COMMAND_TEMPLATE = "remove_command_template";
+
+    private final String taskName;
+
+    @Override
+    public String generateCmd(final TemplateEngine template) {
+        return template.process(REMOVE_COMMAND_TEMPLATE, buildContext())
+                .replaceAll(" +", " ")
+                .trim();
+    }
+
+    private Context buildContext() {
+        final Context context = new Context();
+        context.setVariable(TASK_NAME, taskName);
+        return context;
+    }
+
+}
@@ -27,8 +27,22 @@ package com.epam.blast.manager.commands.performers;
 import com.epam.blast.manager.commands.runners.ExecutionResult;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 public interface CommandPerformer {
 
     ExecutionResult perform(final String command) throws IOException, InterruptedException;
+
+    /**
+     * Performs the command writing its standard output directly to {@code outputFile}, so the output isn't kept
+     * in memory and the output of the result is empty.
+     */
+    ExecutionResult perform(final String command, final Path outputFile) throws IOException, InterruptedException;
+
+    /**
+     * Performs the prepared process as is, without splitting a command line into arguments. If {@code outputFile}
+     * is set, the standard output is written to it, otherwise the output is returned as a part of the result.
+     */
+    ExecutionResult perform(final ProcessBuilder processBuilder, final Path outputFile)
+            throws IOException, InterruptedException;
 }
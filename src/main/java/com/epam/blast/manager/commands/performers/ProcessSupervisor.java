@@ -0,0 +1,191 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.performers;
+
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts external processes and tracks them without dedicated threads. Captured standard output of a process
+ * is redirected to a temporary file, while its standard error is periodically moved from the pipe to a buffer,
+ * which keeps only its tail, by a small shared pool. The pool reads only bytes available in the pipes, so it never
+ * blocks on a process, and collects the result when {@link Process#onExit()} completes. So running processes
+ * need no reader threads and their standard error takes a fixed amount of memory and disk. The result is still
+ * awaited by the thread, which runs the task, see {@link SupervisedProcess#await()}.
+ */
+@Slf4j
+@Component
+public class ProcessSupervisor {
+
+    private static final String TEMP_FILE_PREFIX = "blast-wrapper-";
+    private static final String OUTPUT_FILE_SUFFIX = ".out";
+    private static final int MAX_ERROR_OUTPUT_SIZE = 64 * 1024;
+    private static final int ERROR_CHUNK_SIZE = 8 * 1024;
+    private static final long ERROR_PUMP_INTERVAL_MS = 100;
+
+    private final MessageHelper messageHelper;
+    private final ScheduledExecutorService collector;
+    private final Set<ErrorTail> errorTails = ConcurrentHashMap.newKeySet();
+
+    public ProcessSupervisor(final MessageHelper messageHelper,
+                             @Value("${blast-wrapper.command.supervisor-threads:2}") final int threads) {
+        this.messageHelper = messageHelper;
+        this.collector = Executors.newScheduledThreadPool(threads);
+        // a process blocks on writing to standard error only if it fills the pipe between two runs
+        collector.scheduleWithFixedDelay(this::pumpErrors, ERROR_PUMP_INTERVAL_MS, ERROR_PUMP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        collector.shutdownNow();
+    }
+
+    /**
+     * Starts the process. If {@code captureOutput} is set, the standard output is returned as the output of the
+     * result, otherwise it must be redirected by {@code processBuilder} and the output of the result is empty.
+     * Only the tail of the standard error is kept as the reason of the result, it is logged if the process fails.
+     */
+    public SupervisedProcess start(final String command, final ProcessBuilder processBuilder,
+                                   final boolean captureOutput) throws IOException {
+        log.info(messageHelper.getMessage(MessageConstants.INFO_RUN_COMMAND, command));
+        final Path output = captureOutput ? Files.createTempFile(TEMP_FILE_PREFIX, OUTPUT_FILE_SUFFIX) : null;
+        processBuilder.redirectError(ProcessBuilder.Redirect.PIPE);
+        if (output != null) {
+            processBuilder.redirectOutput(output.toFile());
+        }
+        final Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            deleteQuietly(output);
+            throw e;
+        }
+        final ErrorTail errorTail = new ErrorTail(process.getErrorStream());
+        errorTails.add(errorTail);
+        final CompletableFuture<ExecutionResult> result = process.onExit()
+                .thenApplyAsync(exited -> collect(exited, errorTail, output), collector);
+        return new SupervisedProcess(process, result);
+    }
+
+    private void pumpErrors() {
+        for (ErrorTail errorTail : errorTails) {
+            try {
+                errorTail.pump();
+            } catch (IOException e) {
+                // the pipe is closed, the rest of the output is lost, the tail is read once more on exit
+                errorTails.remove(errorTail);
+            }
+        }
+    }
+
+    private ExecutionResult collect(final Process process, final ErrorTail errorTail, final Path output) {
+        errorTails.remove(errorTail);
+        try {
+            final String reason = errorTail.close();
+            if (process.exitValue() != 0 && StringUtils.isNotBlank(reason)) {
+                log.warn(reason);
+            }
+            return ExecutionResult.builder()
+                    .exitCode(process.exitValue())
+                    .reason(reason)
+                    .output(output == null
+                            ? StringUtils.EMPTY
+                            : new String(Files.readAllBytes(output), Charset.defaultCharset()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(output);
+        }
+    }
+
+    private static void deleteQuietly(final Path output) {
+        if (output != null) {
+            FileUtils.deleteQuietly(output.toFile());
+        }
+    }
+
+    /**
+     * Standard error pipe of a process and the tail of its content read so far.
+     */
+    private static final class ErrorTail {
+        private final InputStream errors;
+        private final RingBufferOutputStream tail = new RingBufferOutputStream(MAX_ERROR_OUTPUT_SIZE);
+        private final byte[] chunk = new byte[ERROR_CHUNK_SIZE];
+
+        private ErrorTail(final InputStream errors) {
+            this.errors = errors;
+        }
+
+        /**
+         * Moves bytes available in the pipe to the tail without blocking.
+         */
+        private synchronized void pump() throws IOException {
+            int available = errors.available();
+            while (available > 0) {
+                final int read = errors.read(chunk, 0, Math.min(available, chunk.length));
+                if (read < 0) {
+                    return;
+                }
+                tail.write(chunk, 0, read);
+                available = errors.available();
+            }
+        }
+
+        /**
+         * Reads the rest of the pipe, which is written before the process exited, and returns the tail.
+         */
+        private synchronized String close() {
+            try {
+                pump();
+                errors.close();
+            } catch (IOException e) {
+                // the tail read so far is still returned
+            }
+            return tail.toString(Charset.defaultCharset());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.performers;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Output stream which keeps only the last {@code capacity} bytes written to it, so output of any size is captured
+ * in a fixed amount of memory. The stream must not be written and read concurrently.
+ */
+public class RingBufferOutputStream extends OutputStream {
+
+    private static final String TRUNCATION_MARK = "...";
+
+    private final byte[] buffer;
+    private long written;
+
+    public RingBufferOutputStream(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    @Override
+    public void write(final int b) {
+        buffer[(int) (written % buffer.length)] = (byte) b;
+        written++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        // only the tail of a long chunk could remain in the buffer
+        final int skipped = Math.max(length - buffer.length, 0);
+        written += skipped;
+        int from = offset + skipped;
+        int remaining = length - skipped;
+        while (remaining > 0) {
+            final int position = (int) (written % buffer.length);
+            final int chunk = Math.min(remaining, buffer.length - position);
+            System.arraycopy(bytes, from, buffer, position, chunk);
+            written += chunk;
+            from += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    /**
+     * Returns the total number of bytes written to the stream.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    public boolean isTruncated() {
+        return written > buffer.length;
+    }
+
+    /**
+     * Returns the kept bytes in the order they were written.
+     */
+    public byte[] toByteArray() {
+        if (!isTruncated()) {
+            final byte[] content = new byte[(int) written];
+            System.arraycopy(buffer, 0, content, 0, content.length);
+            return content;
+        }
+        final int start = (int) (written % buffer.length);
+        final byte[] content = new byte[buffer.length];
+        System.arraycopy(buffer, start, content, 0, buffer.length - start);
+        System.arraycopy(buffer, 0, content, buffer.length - start, start);
+        return content;
+    }
+
+    public String toString(final Charset charset) {
+        final String content = new String(toByteArray(), charset);
+        return isTruncated() ? TRUNCATION_MARK + content : content;
+    }
+}
@@ -24,23 +24,16 @@
 
 package com.epam.blast.manager.commands.performers;
 
-import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.manager.commands.runners.ExecutionResult;
-import com.epam.blast.manager.helper.MessageConstants;
-import com.epam.blast.manager.helper.MessageHelper;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
-@Slf4j
 @RequiredArgsConstructor
 public class SimpleCommandPerformer implements CommandPerformer {
 
@@ -51,20 +44,31 @@ public class SimpleCommandPerformer implements CommandPerformer {
     private static final String EMPTY = "";
     private static final int MAX_EXIT_REASON_MESSAGE_LINES = 2;
 
-    private final MessageHelper messageHelper;
+    private final ProcessSupervisor processSupervisor;
 
     @Override
     public ExecutionResult perform(final String command) throws IOException {
-        log.info(messageHelper.getMessage(MessageConstants.INFO_RUN_COMMAND, command));
-        Process process = new ProcessBuilder().command(splitCommandByArguments(command)).start();
-        try {
-            return waitForProcessResult(process);
-        } catch (InterruptedException e) {
-            process.destroyForcibly();
-            return ExecutionResult.builder()
-                    .exitCode(ExitCodes.THREAD_INTERRUPTION_EXCEPTION)
-                    .reason(e.getMessage()).build();
+        return perform(command, new ProcessBuilder().command(splitCommandByArguments(command)), true);
+    }
+
+    @Override
+    public ExecutionResult perform(final String command, final Path outputFile) throws IOException {
+        return perform(command, new ProcessBuilder().command(splitCommandByArguments(command))
+                .redirectOutput(outputFile.toFile()), false);
+    }
+
+    @Override
+    public ExecutionResult perform(final ProcessBuilder processBuilder, final Path outputFile) throws IOException {
+        final String command = String.join(SPLIT_CHAR, processBuilder.command());
+        if (outputFile == null) {
+            return perform(command, processBuilder, true);
         }
+        return perform(command, processBuilder.redirectOutput(outputFile.toFile()), false);
+    }
+
+    private ExecutionResult perform(final String command, final ProcessBuilder processBuilder,
+                                    final boolean captureOutput) throws IOException {
+        return processSupervisor.start(command, processBuilder, captureOutput).await();
     }
 
     static List<String> splitCommandByArguments(final String command) {
@@ -107,43 +111,4 @@ public class SimpleCommandPerformer implements CommandPerformer {
                 (part.endsWith(QUOT) || part.endsWith(DOUBLE_QUOT))
                  && !(part.startsWith(DOUBLE_QUOT) || part.startsWith(QUOT));
     }
-
-    private ExecutionResult waitForProcessResult(final Process process) throws IOException, InterruptedException {
-        final StringBuilder output = new StringBuilder();
-        final StringBuilder errors = new StringBuilder();
-        final Thread stdReader = new Thread(() -> readOutputStream(output,
-                new InputStreamReader(process.getInputStream())));
-        final Thread errReader = new Thread(() -> readOutputStream(errors,
-                new InputStreamReader(process.getErrorStream())));
-        stdReader.start();
-        errReader.start();
-        final int exitCode = process.waitFor();
-        stdReader.join();
-        errReader.join();
-
-        if (StringUtils.isNotBlank(errors)) {
-            log.warn(errors.toString());
-        }
-        return ExecutionResult.builder()
-                .exitCode(exitCode)
-                .reason(errors.toString())
-                .output(output.toString())
-                .build();
-    }
-
-    private void readOutputStream(final StringBuilder content, final InputStreamReader in) {
-        try (BufferedReader reader = new BufferedReader(in)) {
-            appendReaderContent(content, reader);
-        } catch (IOException e) {
-            log.error("An error occurred while reading command output", e);
-        }
-    }
-
-    private void appendReaderContent(final StringBuilder output, final BufferedReader reader)
-            throws IOException {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            output.append(line).append('\n');
-        }
-    }
 }
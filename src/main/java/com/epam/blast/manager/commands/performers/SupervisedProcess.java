@@ -0,0 +1,62 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.performers;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A process started by {@link ProcessSupervisor} and the result which is completed when the process exits.
+ */
+@Value
+public class SupervisedProcess {
+    Process process;
+    CompletableFuture<ExecutionResult> result;
+
+    /**
+     * Waits for the process to exit. If the waiting thread is interrupted, the process is destroyed and
+     * the result with {@link ExitCodes#THREAD_INTERRUPTION_EXCEPTION} is returned.
+     * Task runners are synchronous, so a task run by a process occupies a thread of the task executor until
+     * the process exits, so {@code max-parallel-tasks} threads wait for at most as many processes. Only cluster
+     * jobs of the template backend are completed without a waiting thread.
+     */
+    public ExecutionResult await() throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            return ExecutionResult.builder()
+                    .exitCode(ExitCodes.THREAD_INTERRUPTION_EXCEPTION)
+                    .reason(e.getMessage()).build();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
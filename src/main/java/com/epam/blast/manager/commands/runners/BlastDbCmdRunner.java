@@ -28,71 +28,52 @@ import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
 
 import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.manager.commands.backend.ExecutionBackend;
 import com.epam.blast.manager.commands.commands.BlastDbCmd;
-import com.epam.blast.manager.commands.commands.TaskCancelCommand;
-import com.epam.blast.manager.commands.performers.CommandPerformer;
 import com.epam.blast.manager.file.BlastFileManager;
-import com.epam.blast.manager.helper.MessageConstants;
-import com.epam.blast.manager.helper.MessageHelper;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 
 @Service
-@Slf4j
 @RequiredArgsConstructor
 public class BlastDbCmdRunner implements CommandRunner {
 
     private final BlastFileManager blastFileManager;
-    private final CommandPerformer commandPerformer;
-    private final MessageHelper messageHelper;
-    private final TemplateEngine templateEngine;
+    private final ExecutionBackend executionBackend;
 
     @Override
     public ExecutionResult runTask(final TaskEntity taskEntity) throws IOException, InterruptedException {
         final Map<String, String> params = taskEntity.getParams();
         final Long taskId = taskEntity.getId();
 
-        final String command = BlastDbCmd.builder()
+        final BlastDbCmd command = BlastDbCmd.builder()
             .taskName(getTaskName(taskId))
             .dbDirectory(blastFileManager.getBlastDbDirectory())
             .dbName(params.get(DB_NAME))
-            .build()
-            .generateCmd(templateEngine);
+            .build();
 
-        final ExecutionResult result = performCommand(command, taskId);
-        Files.write(Paths.get(blastFileManager.getBlastResultsDirectory(),
-                blastFileManager.getResultFileName(taskEntity.getId())),
-                result.getOutput().getBytes(Charset.defaultCharset()));
-        return result;
+        // the listing of a large database is written directly to the result file without buffering in memory
+        return performCommand(command, taskId, Paths.get(blastFileManager.getBlastResultsDirectory(),
+                blastFileManager.getResultFileName(taskId)));
     }
 
     @Override
     public void cancelTask(final Long taskId) throws IOException, InterruptedException {
-        final String cancelCommand = TaskCancelCommand.builder()
-            .taskName(getTaskName(taskId)).build().generateCmd(templateEngine);
-        if (StringUtils.isNotBlank(cancelCommand)) {
-            commandPerformer.perform(cancelCommand);
-        } else {
-            log.warn(messageHelper.getMessage(MessageConstants.WARN_CANCEL_COMMAND_IS_BLANK));
-        }
+        executionBackend.cancel(getTaskName(taskId), null);
     }
 
     protected String getTaskName(final Long taskId) {
         return "blastdbcmd_" + taskId;
     }
 
-    private ExecutionResult performCommand(final String command, final Long taskId)
+    private ExecutionResult performCommand(final BlastDbCmd command, final Long taskId, final Path resultFile)
         throws IOException, InterruptedException {
-        final ExecutionResult result = commandPerformer.perform(command);
+        final ExecutionResult result = executionBackend.run(command, resultFile);
         if (result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
             cancelTask(taskId);
             Thread.currentThread().interrupt();
@@ -27,24 +27,45 @@ package com.epam.blast.manager.commands.runners;
 import com.epam.blast.entity.blasttool.BlastTool;
 import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.manager.commands.backend.ExecutionBackend;
 import com.epam.blast.manager.commands.commands.BlastToolCommand;
-import com.epam.blast.manager.commands.commands.TaskCancelCommand;
-import com.epam.blast.manager.commands.performers.CommandPerformer;
-import com.epam.blast.manager.commands.performers.SimpleCommandPerformer;
+import com.epam.blast.manager.commands.commands.JobStatusCommand;
 import com.epam.blast.manager.file.BlastFileManager;
 import com.epam.blast.manager.helper.MessageConstants;
 import com.epam.blast.manager.helper.MessageHelper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
@@ -52,6 +73,7 @@ import static com.epam.blast.entity.task.TaskEntityParams.EXCLUDED_TAX_IDS;
 import static com.epam.blast.entity.task.TaskEntityParams.EXPECTED_THRESHOLD;
 import static com.epam.blast.entity.task.TaskEntityParams.MAX_TARGET_SEQS;
 import static com.epam.blast.entity.task.TaskEntityParams.OPTIONS;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_IDS;
 
 @Slf4j
@@ -62,77 +84,583 @@ public class BlastToolRunner implements CommandRunner {
     public static final String SPACE = " ";
     public static final String TASK_ARG = "-task";
     public static final String EMPTY = "";
+    public static final String DB_SIZE_ARG = "-dbsize";
+    public static final String SEARCH_SPACE_ARG = "-searchsp";
+    // default max_target_seqs of BLAST+ for tabular output formats
+    public static final int DEFAULT_MAX_TARGET_SEQS = 500;
+    public static final String JOB_EXIT_CODE_EXT = ".exitcode";
+    // query id BLAST+ assigns to a query without FASTA header
+    public static final String DEFAULT_QUERY_ID = "Query_1";
+    private static final String BATCH_QUERY_ID_PREFIX = "batch_";
+    private static final String FASTA_HEADER = ">";
+    private static final String NEW_LINE = "\n";
+    private static final String BATCH_KEY_SEPARATOR = "\u0000";
+    // query ids which BLAST+ reports as is, ids with database tags (e.g. sp|P02769|ALBU_BOVIN) are reformatted
+    private static final Pattern PLAIN_QUERY_ID = Pattern.compile("[\\w.-]+");
 
-    private final CommandPerformer commandPerformer;
+    private final ExecutionBackend executionBackend;
     private final BlastFileManager blastFileManager;
     private final MessageHelper messageHelper;
-    private final TemplateEngine templateEngine;
+    private final QuerySplitter querySplitter;
+    private final DbShardResolver dbShardResolver;
+    private final ExecutorService chunkExecutor;
+    private final boolean clusterJobs;
+    private final boolean batching;
+    private final int maxBatchQueryLength;
+    private final int cores;
+    private final Map<Long, List<String>> runningSubSearches = new ConcurrentHashMap<>();
 
     @Autowired
     public BlastToolRunner(
-            final SimpleCommandPerformer simpleCommandPerformer,
+            final ExecutionBackend executionBackend,
             final BlastFileManager blastFileManager,
             final MessageHelper messageHelper,
-            final TemplateEngine templateEngine) {
-        this.commandPerformer = simpleCommandPerformer;
+            final QuerySplitter querySplitter,
+            final DbShardResolver dbShardResolver,
+            @Value("${blast-wrapper.cluster-jobs.enabled:false}") final boolean clusterJobs,
+            @Value("${blast-wrapper.batching.enabled:false}") final boolean batching,
+            @Value("${blast-wrapper.batching.max-query-length:1000}") final int maxBatchQueryLength,
+            @Value("${blast-wrapper.scheduling.cores:0}") final int cores) {
+        if (clusterJobs && !executionBackend.supportsJobSubmission()) {
+            throw new IllegalStateException(messageHelper.getMessage(
+                    MessageConstants.ERROR_CLUSTER_JOBS_ARE_NOT_SUPPORTED,
+                    executionBackend.getClass().getSimpleName()));
+        }
+        this.executionBackend = executionBackend;
         this.blastFileManager = blastFileManager;
         this.messageHelper = messageHelper;
-        this.templateEngine = templateEngine;
+        this.querySplitter = querySplitter;
+        this.dbShardResolver = dbShardResolver;
+        this.chunkExecutor = Executors.newFixedThreadPool(querySplitter.getParallelism());
+        this.clusterJobs = clusterJobs;
+        this.batching = batching;
+        this.maxBatchQueryLength = maxBatchQueryLength;
+        this.cores = cores > 0 ? cores : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkExecutor.shutdownNow();
     }
 
     @Override
     public ExecutionResult runTask(final TaskEntity taskEntity) throws IOException, InterruptedException {
-        final Map<String, String> params = taskEntity.getParams();
+        if (clusterJobs) {
+            return submitJob(taskEntity);
+        }
+        final List<String> queryChunks = querySplitter.split(taskEntity.getParams().get(QUERY));
+        final Pair<String, String> db = getDbDirectoryAndName(taskEntity.getParams());
+        final Optional<DbShards> dbShards = dbShardResolver.resolve(db.getFirst(), db.getSecond());
+        if (queryChunks.size() > 1 || dbShards.isPresent()) {
+            return compressResult(taskEntity.getId(),
+                    runSubSearches(taskEntity, queryChunks, dbShards.orElse(null)));
+        }
         final File queryFile = blastFileManager.getQueryFile(taskEntity);
-        final String queryFileName = queryFile.getName();
-        final Pair<String, String> db = getDbDirectoryAndName(params);
-        final String blastTool = getToolWithAlgorithm(params);
         final Long taskId = taskEntity.getId();
 
         try {
-            final String command =
-                    BlastToolCommand.builder()
-                            .taskName(getTaskName(taskId))
-                            .blastDbDirectory(db.getFirst())
-                            .blastQueriesDirectory(blastFileManager.getBlastQueryDirectory())
-                            .blastResultsDirectory(blastFileManager.getBlastResultsDirectory())
-                            .blastTool(blastTool)
-                            .resultDelimiter(blastFileManager.getResultDelimiter())
-                            .queryFileName(queryFileName)
-                            .dbName(db.getSecond())
-                            .outputFileName(blastFileManager.getResultFileName(taskId))
-                            .taxIds(params.getOrDefault(TAX_IDS, EMPTY))
-                            .excludedTaxIds(params.getOrDefault(EXCLUDED_TAX_IDS, EMPTY))
-                            .maxTargetSequence(params.getOrDefault(MAX_TARGET_SEQS, EMPTY))
-                            .expectedThreshold(params.getOrDefault(EXPECTED_THRESHOLD, EMPTY))
-                            .options(params.getOrDefault(OPTIONS, EMPTY))
-                            .build()
-                            .generateCmd(templateEngine);
-            return performCommand(command, taskId);
+            final BlastToolCommand command = buildCommand(taskEntity, getTaskName(taskId), queryFile.getName(),
+                    blastFileManager.getResultFileName(taskId), taskEntity.getThreads());
+            final ExecutionResult result = performCommand(command, taskId);
+            if (result.getExitCode() != ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+                removeContainer(getTaskName(taskId));
+            }
+            return compressResult(taskId, result);
         } finally {
             blastFileManager.removeQueryFile(taskId);
         }
     }
 
+    /**
+     * Waits for the job of the task, which was started by another instance, the job of each sub-search
+     * is waited for, if the task is searched in query chunks or database shards.
+     */
+    @Override
+    public Optional<ExecutionResult> attachTask(final TaskEntity taskEntity)
+            throws IOException, InterruptedException {
+        final Long taskId = taskEntity.getId();
+        try {
+            final List<String> queryChunks = querySplitter.split(taskEntity.getParams().get(QUERY));
+            final Pair<String, String> db = getDbDirectoryAndName(taskEntity.getParams());
+            final Optional<DbShards> dbShards = dbShardResolver.resolve(db.getFirst(), db.getSecond());
+            final Optional<ExecutionResult> result = queryChunks.size() > 1 || dbShards.isPresent()
+                    ? attachSubSearches(taskEntity, queryChunks, dbShards.orElse(null))
+                    : attach(taskId, getTaskName(taskId));
+            return result.map(taskResult -> compressResult(taskId, taskResult));
+        } finally {
+            blastFileManager.removeQueryFile(taskId);
+        }
+    }
+
+    /**
+     * Returns the key of a batch the task can be searched in together with other tasks with the same key:
+     * tasks, which differ only by queries, share the key. Only tasks with a single short query with a plain
+     * query id are batched, since their searches are dominated by loading of the database. Empty key is
+     * returned if the task must be searched alone.
+     */
+    public Optional<String> getBatchKey(final TaskEntity taskEntity) {
+        final Map<String, String> params = taskEntity.getParams();
+        if (!batching || clusterJobs || params == null || !params.containsKey(BLAST_TOOL)) {
+            return Optional.empty();
+        }
+        final List<String> records = QuerySplitter.getRecords(params.get(QUERY));
+        if (records.size() != 1 || !PLAIN_QUERY_ID.matcher(getQueryId(records.get(0))).matches()
+                || StringUtils.deleteWhitespace(getSequence(records.get(0))).length() > maxBatchQueryLength) {
+            return Optional.empty();
+        }
+        final Pair<String, String> db = getDbDirectoryAndName(params);
+        if (dbShardResolver.resolve(db.getFirst(), db.getSecond()).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(String.join(BATCH_KEY_SEPARATOR, getToolWithAlgorithm(params),
+                params.get(DB_NAME),
+                params.getOrDefault(TAX_IDS, EMPTY),
+                params.getOrDefault(EXCLUDED_TAX_IDS, EMPTY),
+                params.getOrDefault(MAX_TARGET_SEQS, EMPTY),
+                params.getOrDefault(EXPECTED_THRESHOLD, EMPTY),
+                params.getOrDefault(OPTIONS, EMPTY)));
+    }
+
+    /**
+     * Searches queries of the tasks with the same batch key by a single command: queries are renamed to
+     * unique ids and written to one query file, hits are split back into result files of the tasks by
+     * the query id. All tasks share the result of the command. The batch is named after its first task.
+     * Tasks, which aren't {@code running} anymore when the command is finished, e.g. cancelled ones,
+     * get neither result files nor results.
+     */
+    public Map<Long, ExecutionResult> runBatch(final List<TaskEntity> tasks, final Predicate<Long> running)
+            throws IOException, InterruptedException {
+        final TaskEntity firstTask = tasks.get(0);
+        final Long batchId = firstTask.getId();
+        final StringBuilder query = new StringBuilder();
+        final Map<String, Long> tasksByQueryId = new HashMap<>();
+        final Map<Long, String> queryIds = new LinkedHashMap<>();
+        for (TaskEntity task : tasks) {
+            final String record = QuerySplitter.getRecords(task.getParams().get(QUERY)).get(0);
+            final String batchQueryId = BATCH_QUERY_ID_PREFIX + task.getId();
+            tasksByQueryId.put(batchQueryId, task.getId());
+            queryIds.put(task.getId(), getQueryId(record));
+            query.append(FASTA_HEADER).append(batchQueryId).append(NEW_LINE).append(getSequence(record));
+        }
+        log.info(messageHelper.getMessage(MessageConstants.INFO_TASKS_BATCHED, batchId, queryIds.keySet()));
+        final String taskName = getBatchTaskName(batchId);
+        // the batch searches on behalf of all its tasks, so it uses threads budgets of all of them,
+        // but not more than the node has
+        final Integer threads = tasks.stream()
+                .map(TaskEntity::getThreads)
+                .filter(Objects::nonNull)
+                .reduce(Integer::sum)
+                .map(sum -> Math.min(sum, cores))
+                .orElse(null);
+        try {
+            final String queryFileName = blastFileManager.getQueryChunkFile(batchId, 0, query.toString()).getName();
+            final ExecutionResult result = performChunkCommand(buildCommand(firstTask, taskName, queryFileName,
+                    blastFileManager.getChunkResultFileName(batchId, 0), threads), taskName);
+            tasksByQueryId.values().removeIf(taskId -> !running.test(taskId));
+            queryIds.keySet().removeIf(taskId -> !running.test(taskId));
+            if (result.getExitCode() == ExitCodes.SUCCESSFUL_EXECUTION) {
+                blastFileManager.splitBatchResult(batchId, tasksByQueryId, queryIds);
+            }
+            final Map<Long, ExecutionResult> results = new HashMap<>();
+            queryIds.keySet().forEach(taskId -> results.put(taskId, compressResult(taskId, result)));
+            return results;
+        } finally {
+            blastFileManager.removeChunkFiles(batchId, 1, 0);
+        }
+    }
+
+    private static String getQueryId(final String record) {
+        if (!record.startsWith(FASTA_HEADER)) {
+            return DEFAULT_QUERY_ID;
+        }
+        return QuerySplitter.getQueryIds(record).get(0);
+    }
+
+    private static String getSequence(final String record) {
+        return record.startsWith(FASTA_HEADER) ? StringUtils.substringAfter(record, NEW_LINE) : record;
+    }
+
+    /**
+     * Submits the search as a cluster job and returns as soon as the job is queued, the result contains
+     * the id of the job printed by the submit command. The search isn't split into chunks or shards in this
+     * case, since the cluster runs many jobs in parallel anyway.
+     */
+    private ExecutionResult submitJob(final TaskEntity taskEntity) throws IOException, InterruptedException {
+        final Long taskId = taskEntity.getId();
+        final File queryFile = blastFileManager.getQueryFile(taskEntity);
+        Files.deleteIfExists(getJobExitCodeFile(taskId));
+        final BlastToolCommand command = buildCommand(taskEntity, getTaskName(taskId), queryFile.getName(),
+                blastFileManager.getResultFileName(taskId), taskEntity.getThreads());
+        final ExecutionResult result = performCommand(command, taskId);
+        final String jobId = getLastLine(result.getOutput());
+        if (result.getExitCode() != ExitCodes.SUCCESSFUL_EXECUTION) {
+            blastFileManager.removeQueryFile(taskId);
+            return result;
+        }
+        if (StringUtils.isBlank(jobId)) {
+            blastFileManager.removeQueryFile(taskId);
+            return ExecutionResult.builder()
+                    .exitCode(ExitCodes.OTHER_EXCEPTION)
+                    .reason(messageHelper.getMessage(MessageConstants.ERROR_CLUSTER_JOB_ID_IS_BLANK, taskId))
+                    .build();
+        }
+        log.info(messageHelper.getMessage(MessageConstants.INFO_CLUSTER_JOB_SUBMITTED, taskId, jobId));
+        return ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION)
+                .reason(EMPTY)
+                .output(EMPTY)
+                .jobId(jobId)
+                .build();
+    }
+
+    /**
+     * Checks states of cluster jobs of the tasks with one status command and returns results of finished jobs.
+     * A job, which isn't listed by the status command anymore, is finished, its exit code is written to
+     * a file next to the result by the job itself. Nothing is returned if the status command fails.
+     */
+    public Map<Long, ExecutionResult> checkJobs(final Collection<TaskEntity> tasks)
+            throws IOException, InterruptedException {
+        final ExecutionResult status = executionBackend.run(JobStatusCommand.builder().build());
+        if (status.getExitCode() != ExitCodes.SUCCESSFUL_EXECUTION) {
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_JOB_STATUS_COMMAND_FAILED,
+                    status.getExitCode(), status.getReason()));
+            return Map.of();
+        }
+        final Set<String> activeJobs = JobStatusCommand.getActiveJobIds(status);
+        final Map<Long, ExecutionResult> finished = new HashMap<>();
+        for (TaskEntity task : tasks) {
+            if (!activeJobs.contains(task.getJobId())) {
+                finished.put(task.getId(), compressResult(task.getId(), readJobResult(task)));
+            }
+        }
+        return finished;
+    }
+
+    private ExecutionResult readJobResult(final TaskEntity task) throws IOException {
+        final Path exitCodeFile = getJobExitCodeFile(task.getId());
+        try {
+            final String exitCode = Files.exists(exitCodeFile)
+                    ? new String(Files.readAllBytes(exitCodeFile), Charset.defaultCharset()).trim()
+                    : EMPTY;
+            if (!StringUtils.isNumeric(exitCode)) {
+                return ExecutionResult.builder()
+                        .exitCode(ExitCodes.OTHER_EXCEPTION)
+                        .reason(messageHelper.getMessage(MessageConstants.ERROR_CLUSTER_JOB_EXIT_CODE_MISSING,
+                                task.getJobId()))
+                        .build();
+            }
+            return ExecutionResult.builder()
+                    .exitCode(Integer.parseInt(exitCode))
+                    .reason(EMPTY)
+                    .output(EMPTY)
+                    .build();
+        } finally {
+            Files.deleteIfExists(exitCodeFile);
+            blastFileManager.removeQueryFile(task.getId());
+        }
+    }
+
+    /**
+     * Kills the cluster job of the task and removes its files.
+     */
+    public void cancelJob(final TaskEntity task) throws IOException, InterruptedException {
+        killContainer(getTaskName(task.getId()), task.getJobId());
+        Files.deleteIfExists(getJobExitCodeFile(task.getId()));
+        blastFileManager.removeQueryFile(task.getId());
+        blastFileManager.removeBlastOutput(task.getId());
+    }
+
+    private Path getJobExitCodeFile(final Long taskId) {
+        return Paths.get(blastFileManager.getBlastResultsDirectory(),
+                blastFileManager.getResultFileName(taskId) + JOB_EXIT_CODE_EXT);
+    }
+
+    private static String getLastLine(final String output) {
+        final String[] lines = StringUtils.defaultString(output).trim().split("\n");
+        return lines[lines.length - 1].trim();
+    }
+
+    /**
+     * Waits for the job with the given name, the job is removed once its result is read. All jobs of the task
+     * are cancelled, if the wait is interrupted.
+     */
+    private Optional<ExecutionResult> attach(final Long taskId, final String taskName)
+            throws IOException, InterruptedException {
+        final Optional<ExecutionResult> result = executionBackend.attach(taskName);
+        if (result.isPresent() && result.get().getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+            cancelTask(taskId);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        if (result.isPresent()) {
+            removeContainer(taskName);
+        }
+        return result;
+    }
+
+    /**
+     * Waits for sub-searches of the task one by one and merges their results. If any of them can't be found
+     * or has failed, the rest are cancelled: the task is searched again from scratch in the former case
+     * and fails in the latter one, as {@link #runSubSearches} does.
+     */
+    private Optional<ExecutionResult> attachSubSearches(final TaskEntity taskEntity, final List<String> queryChunks,
+                                                        final DbShards dbShards)
+            throws IOException, InterruptedException {
+        final Long taskId = taskEntity.getId();
+        final int shards = dbShards != null ? dbShards.getVolumes().size() : 0;
+        final List<String> taskNames = getSubSearchNames(taskId, queryChunks.size(), shards);
+        runningSubSearches.put(taskId, taskNames);
+        try {
+            for (String taskName : taskNames) {
+                final Optional<ExecutionResult> result = attach(taskId, taskName);
+                if (Thread.currentThread().isInterrupted()) {
+                    return Optional.empty();
+                }
+                if (result.isEmpty() || result.get().getExitCode() != ExitCodes.SUCCESSFUL_EXECUTION) {
+                    cancelTask(taskId);
+                    return result;
+                }
+            }
+            return Optional.of(mergeSubSearchResults(taskId, taskEntity.getParams(), queryChunks, shards));
+        } finally {
+            runningSubSearches.remove(taskId);
+            blastFileManager.removeChunkFiles(taskId, queryChunks.size(), shards);
+        }
+    }
+
     @Override
     public void cancelTask(final Long taskId) throws IOException, InterruptedException {
-        final String cancelCommand = TaskCancelCommand.builder()
-                .taskName(getTaskName(taskId)).build().generateCmd(templateEngine);
-        if (StringUtils.isNotBlank(cancelCommand)) {
-            commandPerformer.perform(cancelCommand);
-        } else {
-            log.warn(messageHelper.getMessage(MessageConstants.WARN_CANCEL_COMMAND_IS_BLANK));
+        killContainer(getTaskName(taskId));
+        removeContainer(getTaskName(taskId));
+        for (String taskName : runningSubSearches.getOrDefault(taskId, List.of())) {
+            killContainer(taskName);
+            removeContainer(taskName);
         }
         blastFileManager.removeBlastOutput(taskId);
     }
 
+    private ExecutionResult compressResult(final Long taskId, final ExecutionResult result) {
+        if (result.getExitCode() == ExitCodes.SUCCESSFUL_EXECUTION) {
+            blastFileManager.compressResult(taskId);
+            blastFileManager.buildColumnarCopy(taskId);
+        }
+        return result;
+    }
+
     protected String getTaskName(final Long taskId) {
         return "blast_" + taskId;
     }
 
-    private ExecutionResult performCommand(final String command, final Long taskId)
+    protected String getBatchTaskName(final Long batchId) {
+        return getTaskName(batchId) + "_batch";
+    }
+
+    protected String getChunkTaskName(final Long taskId, final int chunk) {
+        return getTaskName(taskId) + "_" + chunk;
+    }
+
+    protected String getShardTaskName(final Long taskId, final int chunk, final int shard) {
+        return getChunkTaskName(taskId, chunk) + "_" + shard;
+    }
+
+    private List<String> getSubSearchNames(final Long taskId, final int chunks, final int shards) {
+        final List<String> taskNames = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            if (shards == 0) {
+                taskNames.add(getChunkTaskName(taskId, chunk));
+            }
+            for (int shard = 0; shard < shards; shard++) {
+                taskNames.add(getShardTaskName(taskId, chunk, shard));
+            }
+        }
+        return taskNames;
+    }
+
+    /**
+     * Searches each query chunk against each database shard as a separate command in parallel.
+     * Results of shards are merged per chunk with global max_target_seqs truncation, e-values of shards
+     * are comparable since each shard is searched with the size of the whole database.
+     * Then chunk results are concatenated in the order of chunks.
+     * The first failed search fails the whole task, other searches are cancelled in this case.
+     */
+    private ExecutionResult runSubSearches(final TaskEntity taskEntity, final List<String> queryChunks,
+                                           final DbShards dbShards) throws IOException {
+        final Long taskId = taskEntity.getId();
+        final Map<String, String> params = taskEntity.getParams();
+        final int shards = dbShards != null ? dbShards.getVolumes().size() : 0;
+        final Integer threads = getSubSearchThreads(taskEntity.getThreads(), queryChunks.size() * Math.max(shards, 1));
+        final List<Future<ExecutionResult>> futures = new ArrayList<>();
+        final List<String> taskNames = new CopyOnWriteArrayList<>();
+        if (queryChunks.size() > 1) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_SPLIT_INTO_CHUNKS,
+                    taskId, queryChunks.size()));
+        }
+        if (shards > 0) {
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_SEARCHED_IN_SHARDS, taskId, shards));
+        }
+        runningSubSearches.put(taskId, taskNames);
+        try {
+            for (int chunk = 0; chunk < queryChunks.size(); chunk++) {
+                final String queryFileName = blastFileManager
+                        .getQueryChunkFile(taskId, chunk, queryChunks.get(chunk)).getName();
+                if (dbShards == null) {
+                    final String taskName = getChunkTaskName(taskId, chunk);
+                    futures.add(submitSubSearch(taskName, taskNames, buildCommand(taskEntity, taskName,
+                            queryFileName, blastFileManager.getChunkResultFileName(taskId, chunk), threads)));
+                    continue;
+                }
+                for (int shard = 0; shard < shards; shard++) {
+                    final String taskName = getShardTaskName(taskId, chunk, shard);
+                    final BlastToolCommand command = buildCommand(taskEntity, taskName, queryFileName,
+                            blastFileManager.getShardResultFileName(taskId, chunk, shard),
+                            FilenameUtils.getName(dbShards.getVolumes().get(shard)),
+                            getShardOptions(params, dbShards), threads);
+                    futures.add(submitSubSearch(taskName, taskNames, command));
+                }
+            }
+            for (Future<ExecutionResult> future : futures) {
+                final ExecutionResult result = getChunkResult(future);
+                if (result.getExitCode() != ExitCodes.SUCCESSFUL_EXECUTION) {
+                    return result;
+                }
+            }
+            return mergeSubSearchResults(taskId, params, queryChunks, shards);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.builder()
+                    .exitCode(ExitCodes.THREAD_INTERRUPTION_EXCEPTION)
+                    .reason(e.getMessage())
+                    .build();
+        } finally {
+            // interrupted searches kill their containers themselves
+            futures.forEach(future -> future.cancel(true));
+            runningSubSearches.remove(taskId);
+            blastFileManager.removeChunkFiles(taskId, queryChunks.size(), shards);
+        }
+    }
+
+    /**
+     * Merges results of shards per chunk and then results of chunks into the result of the task.
+     */
+    private ExecutionResult mergeSubSearchResults(final Long taskId, final Map<String, String> params,
+                                                  final List<String> queryChunks, final int shards)
+            throws IOException {
+        if (shards > 0) {
+            final int maxTargetSeqs = NumberUtils.toInt(params.get(MAX_TARGET_SEQS), DEFAULT_MAX_TARGET_SEQS);
+            for (int chunk = 0; chunk < queryChunks.size(); chunk++) {
+                blastFileManager.mergeShardResults(taskId, chunk, shards,
+                        QuerySplitter.getReportedQueryIds(queryChunks.get(chunk)), maxTargetSeqs);
+            }
+        }
+        blastFileManager.mergeChunkResults(taskId, queryChunks.size());
+        return ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION)
+                .reason(EMPTY)
+                .output(EMPTY)
+                .build();
+    }
+
+    /**
+     * Shares the threads budget of the task between its sub-searches, which run in parallel.
+     */
+    private Integer getSubSearchThreads(final Integer threads, final int subSearches) {
+        if (threads == null) {
+            return null;
+        }
+        return Math.max(1, threads / Math.min(subSearches, querySplitter.getParallelism()));
+    }
+
+    private Future<ExecutionResult> submitSubSearch(final String taskName, final List<String> taskNames,
+                                                    final BlastToolCommand command) {
+        taskNames.add(taskName);
+        return chunkExecutor.submit(() -> performChunkCommand(command, taskName));
+    }
+
+    /**
+     * Options of a shard search: the size of the whole database is used to calculate e-values,
+     * unless the user has set the database or the search space size.
+     */
+    private String getShardOptions(final Map<String, String> params, final DbShards dbShards) {
+        final String options = params.getOrDefault(OPTIONS, EMPTY);
+        if (options.contains(DB_SIZE_ARG) || options.contains(SEARCH_SPACE_ARG)) {
+            return options;
+        }
+        return String.join(SPACE, options, DB_SIZE_ARG, String.valueOf(dbShards.getLength())).trim();
+    }
+
+    private ExecutionResult performChunkCommand(final BlastToolCommand command, final String taskName)
+            throws IOException, InterruptedException {
+        final ExecutionResult result = executionBackend.run(command);
+        final boolean interrupted = result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION;
+        if (interrupted) {
+            killContainer(taskName);
+        }
+        removeContainer(taskName);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private ExecutionResult getChunkResult(final Future<ExecutionResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error(e.getMessage(), e);
+            return ExecutionResult.builder()
+                    .exitCode(ExitCodes.OTHER_EXCEPTION)
+                    .reason(String.valueOf(e.getCause().getMessage()))
+                    .build();
+        }
+    }
+
+    private void killContainer(final String taskName) throws IOException, InterruptedException {
+        killContainer(taskName, null);
+    }
+
+    private void killContainer(final String taskName, final String jobId) throws IOException, InterruptedException {
+        executionBackend.cancel(taskName, jobId);
+    }
+
+    private void removeContainer(final String taskName) throws IOException, InterruptedException {
+        executionBackend.remove(taskName);
+    }
+
+    private BlastToolCommand buildCommand(final TaskEntity taskEntity, final String taskName,
+                                          final String queryFileName, final String outputFileName,
+                                          final Integer threads) {
+        final Map<String, String> params = taskEntity.getParams();
+        return buildCommand(taskEntity, taskName, queryFileName, outputFileName,
+                getDbDirectoryAndName(params).getSecond(), params.getOrDefault(OPTIONS, EMPTY), threads);
+    }
+
+    private BlastToolCommand buildCommand(final TaskEntity taskEntity, final String taskName,
+                                          final String queryFileName, final String outputFileName,
+                                          final String dbName, final String options, final Integer threads) {
+        final Map<String, String> params = taskEntity.getParams();
+        final Pair<String, String> db = getDbDirectoryAndName(params);
+        return BlastToolCommand.builder()
+                .taskName(taskName)
+                .blastDbDirectory(db.getFirst())
+                .blastQueriesDirectory(blastFileManager.getBlastQueryDirectory())
+                .blastResultsDirectory(blastFileManager.getBlastResultsDirectory())
+                .blastTool(getToolWithAlgorithm(params))
+                .resultDelimiter(blastFileManager.getResultDelimiter())
+                .queryFileName(queryFileName)
+                .dbName(dbName)
+                .outputFileName(outputFileName)
+                .taxIds(params.getOrDefault(TAX_IDS, EMPTY))
+                .excludedTaxIds(params.getOrDefault(EXCLUDED_TAX_IDS, EMPTY))
+                .maxTargetSequence(params.getOrDefault(MAX_TARGET_SEQS, EMPTY))
+                .expectedThreshold(params.getOrDefault(EXPECTED_THRESHOLD, EMPTY))
+                .options(options)
+                .threads(threads)
+                .build();
+    }
+
+    private ExecutionResult performCommand(final BlastToolCommand command, final Long taskId)
             throws IOException, InterruptedException {
-        final ExecutionResult result = commandPerformer.perform(command);
+        final ExecutionResult result = executionBackend.run(command);
         if (result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
             cancelTask(taskId);
             Thread.currentThread().interrupt();
@@ -27,10 +27,20 @@ package com.epam.blast.manager.commands.runners;
 import com.epam.blast.entity.task.TaskEntity;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public interface CommandRunner {
 
     ExecutionResult runTask(final TaskEntity taskEntity) throws IOException, InterruptedException;
 
     void cancelTask(final Long taskId) throws IOException, InterruptedException;
+
+    /**
+     * Waits for a job of the task, which was started before, returns empty result if the job can't be found,
+     * so the task should be started from scratch.
+     */
+    default Optional<ExecutionResult> attachTask(final TaskEntity taskEntity)
+            throws IOException, InterruptedException {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.runners;
+
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads alias file (.pal or .nal) of a multi-volume database, which is created by makeblastdb
+ * when a database exceeds {@code -max_file_sz}, to search each volume separately.
+ */
+@Slf4j
+@Component
+public class DbShardResolver {
+
+    private static final List<String> ALIAS_EXTENSIONS = List.of(".pal", ".nal");
+    private static final String DB_LIST = "DBLIST";
+    private static final String LENGTH = "LENGTH";
+    private static final String QUOT = "\"";
+
+    private final MessageHelper messageHelper;
+    private final boolean enabled;
+
+    public DbShardResolver(final MessageHelper messageHelper,
+                           @Value("${blast-wrapper.blast-commands.db-shards.enabled:false}") final boolean enabled) {
+        this.messageHelper = messageHelper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns volumes of the database if it has more than one volume and its total length is known.
+     */
+    public Optional<DbShards> resolve(final String dbDirectory, final String dbName) {
+        if (!enabled || StringUtils.isBlank(dbDirectory) || StringUtils.isBlank(dbName)) {
+            return Optional.empty();
+        }
+        for (String extension : ALIAS_EXTENSIONS) {
+            final Path alias = Path.of(dbDirectory, dbName + extension);
+            if (Files.isRegularFile(alias)) {
+                try {
+                    return parseAlias(Files.readAllLines(alias));
+                } catch (IOException e) {
+                    log.warn(messageHelper.getMessage(MessageConstants.WARN_DB_ALIAS_NOT_READ, alias, e.getMessage()));
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    static Optional<DbShards> parseAlias(final List<String> lines) {
+        final List<String> volumes = new ArrayList<>();
+        long length = 0;
+        for (String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.startsWith(DB_LIST + " ")) {
+                Arrays.stream(StringUtils.split(trimmed.substring(DB_LIST.length())))
+                        .map(volume -> StringUtils.strip(volume, QUOT))
+                        .filter(StringUtils::isNotBlank)
+                        .forEach(volumes::add);
+            } else if (trimmed.startsWith(LENGTH + " ")) {
+                length = NumberUtils.toLong(trimmed.substring(LENGTH.length()).trim());
+            }
+        }
+        if (volumes.size() < 2 || length <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new DbShards(volumes, length));
+    }
+}
@@ -33,4 +33,6 @@ public class ExecutionResult {
     int exitCode;
     String reason;
     String output;
+    // id of the submitted cluster job, set if the job keeps running after the command is finished
+    String jobId;
 }
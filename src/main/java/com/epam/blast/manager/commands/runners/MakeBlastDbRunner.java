@@ -27,20 +27,15 @@ package com.epam.blast.manager.commands.runners;
 import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.db.DbType;
 import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.manager.commands.backend.ExecutionBackend;
 import com.epam.blast.manager.commands.commands.MakeBlastDbCommand;
-import com.epam.blast.manager.commands.commands.TaskCancelCommand;
-import com.epam.blast.manager.commands.performers.CommandPerformer;
-import com.epam.blast.manager.commands.performers.SimpleCommandPerformer;
 import com.epam.blast.manager.file.BlastFileManager;
-import com.epam.blast.manager.helper.MessageConstants;
-import com.epam.blast.manager.helper.MessageHelper;
-import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 
 import java.io.File;
 import java.io.IOException;
@@ -57,20 +52,23 @@ import static com.epam.blast.entity.task.TaskEntityParams.DB_TITLE;
 import static com.epam.blast.entity.task.TaskEntityParams.DB_TYPE;
 import static com.epam.blast.entity.task.TaskEntityParams.PARSE_SEQ_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.PATH_TO_FILE;
+import static com.epam.blast.entity.task.TaskEntityParams.SHARDS;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_ID;
 
-@Slf4j
 @Service
 public class MakeBlastDbRunner implements CommandRunner {
 
+    public static final String MAX_FILE_SIZE_ARG = "-max_file_sz";
+    private static final long MEGABYTE = 1024 * 1024;
+    // nucleotide sequences are stored 4 bases per byte
+    private static final int NUCLEOTIDES_PER_BYTE = 4;
+
     private final DbType defaultDbType;
     private final Integer defaultDbVersion;
     private final Boolean defaultParseSeqIds;
     private final BlastFileManager blastFileManager;
-    private final CommandPerformer commandPerformer;
+    private final ExecutionBackend executionBackend;
     private final Set<String> validDbVersions;
-    private final MessageHelper messageHelper;
-    private final TemplateEngine templateEngine;
 
     @Autowired
     public MakeBlastDbRunner(
@@ -78,17 +76,13 @@ public class MakeBlastDbRunner implements CommandRunner {
             @Value("${blast-wrapper.blast-db.defaultDbVersion}") Integer defaultDbVersion,
             @Value("${blast-wrapper.command.defaultParseSeqIds}") Boolean defaultParseSeqIds,
             final BlastFileManager blastFileManager,
-            final SimpleCommandPerformer simpleCommandPerformer,
-            final MessageHelper messageHelper,
-            final TemplateEngine templateEngine) {
+            final ExecutionBackend executionBackend) {
         this.defaultDbType = defaultDbType;
         this.defaultDbVersion = defaultDbVersion;
         this.defaultParseSeqIds = defaultParseSeqIds;
         this.blastFileManager = blastFileManager;
-        this.commandPerformer = simpleCommandPerformer;
+        this.executionBackend = executionBackend;
         this.validDbVersions  = new HashSet<>(Arrays.asList(defaultDbVersion.toString(), "4"));
-        this.messageHelper = messageHelper;
-        this.templateEngine = templateEngine;
     }
 
     @Override
@@ -103,8 +97,9 @@ public class MakeBlastDbRunner implements CommandRunner {
         final String databaseName = getDatabaseName(params);
         final String databaseTitle = getDatabaseTitle(params);
         final Integer taxID = getTaxID(params);
+        final String maxFileSize = getMaxFileSize(params, new File(inputFilePath, inputFileName), dbType);
 
-        final String command =
+        final MakeBlastDbCommand command =
                 MakeBlastDbCommand.builder()
                         .taskName(getTaskName(taskEntity.getId()))
                         .blastDbDirectory(blastFileManager.getBlastDbDirectory())
@@ -116,31 +111,59 @@ public class MakeBlastDbRunner implements CommandRunner {
                         .dbTitle(databaseTitle)
                         .taxId(taxID)
                         .blastDbVersion(blastDbVersion)
-                        .build()
-                        .generateCmd(templateEngine);
+                        .maxFileSize(maxFileSize)
+                        .build();
         return performCommand(command, taskEntity.getId());
     }
 
     @Override
-    public void cancelTask(Long taskId) throws IOException, InterruptedException {
-        final String cancelCommand = TaskCancelCommand.builder()
-                .taskName(getTaskName(taskId)).build().generateCmd(templateEngine);
-        if (StringUtils.isNotBlank(cancelCommand)) {
-            commandPerformer.perform(cancelCommand);
-        } else {
-            log.warn(messageHelper.getMessage(MessageConstants.WARN_CANCEL_COMMAND_IS_BLANK));
-        }
+    public Optional<ExecutionResult> attachTask(final TaskEntity taskEntity)
+            throws IOException, InterruptedException {
+        return attach(taskEntity.getId());
     }
 
-    private ExecutionResult performCommand(String command, Long taskId) throws IOException, InterruptedException {
-        final ExecutionResult result = commandPerformer.perform(command);
-        if (result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+    private Optional<ExecutionResult> attach(final Long taskId) throws IOException, InterruptedException {
+        final Optional<ExecutionResult> result = executionBackend.attach(getTaskName(taskId));
+        if (result.isPresent() && result.get().getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
             cancelTask(taskId);
             Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        if (result.isPresent()) {
+            executionBackend.remove(getTaskName(taskId));
         }
         return result;
     }
 
+    @Override
+    public void cancelTask(Long taskId) throws IOException, InterruptedException {
+        executionBackend.cancel(getTaskName(taskId), null);
+        executionBackend.remove(getTaskName(taskId));
+    }
+
+    /**
+     * Runs the command and removes its container afterwards, even if the run has failed, so that
+     * a requeued task doesn't conflict with the container of the previous attempt.
+     */
+    private ExecutionResult performCommand(MakeBlastDbCommand command, Long taskId)
+            throws IOException, InterruptedException {
+        boolean cancelled = false;
+        try {
+            final ExecutionResult result = executionBackend.run(command);
+            if (result.getExitCode() == ExitCodes.THREAD_INTERRUPTION_EXCEPTION) {
+                cancelled = true;
+                cancelTask(taskId);
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        } finally {
+            // cancelTask removes the container itself
+            if (!cancelled) {
+                executionBackend.remove(getTaskName(taskId));
+            }
+        }
+    }
+
     protected String getTaskName(Long id) {
         return "makeBlastDb_" + id;
     }
@@ -188,4 +211,22 @@ public class MakeBlastDbRunner implements CommandRunner {
     private Integer getTaxID(Map<String, String> params) {
         return Integer.parseInt(params.get(TAX_ID));
     }
+
+    /**
+     * Limits the size of database volumes, so makeblastdb splits the database into the requested
+     * amount of volumes, which can be searched in parallel. Sequences of the input file are
+     * stored in volumes almost without overhead, so the limit is derived from the input size.
+     */
+    private String getMaxFileSize(final Map<String, String> params, final File inputFile, final String dbType) {
+        final int shards = NumberUtils.toInt(params.get(SHARDS), 1);
+        final long inputSize = inputFile.length();
+        if (shards <= 1 || inputSize == 0) {
+            return "";
+        }
+        final long sequenceSize = DbType.NUCL.getShorthandForMakeBlastDB().equals(dbType)
+                ? inputSize / NUCLEOTIDES_PER_BYTE
+                : inputSize;
+        final long volumeSize = Math.max(1, (sequenceSize + shards * MEGABYTE - 1) / (shards * MEGABYTE));
+        return String.join(" ", MAX_FILE_SIZE_ARG, volumeSize + "MB");
+    }
 }
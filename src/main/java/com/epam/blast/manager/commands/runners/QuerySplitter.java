@@ -0,0 +1,176 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.runners;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits multi-FASTA query into chunks of whole records, so chunks can be searched in parallel.
+ * Records keep their original order: the first chunk contains the first records and so on,
+ * so concatenation of chunk results keeps the order of queries.
+ */
+@Component
+public class QuerySplitter {
+
+    private static final String FASTA_HEADER = ">";
+    private static final String NEW_LINE = "\n";
+    private static final String ID_SEPARATOR = "\\|";
+    private static final String PDB_TAG = "pdb";
+    // tags of FASTA ids followed by a single value, e.g. lcl|my_query or gi|129295
+    private static final Set<String> SINGLE_VALUE_TAGS = Set.of("lcl", "gi");
+    // tags of FASTA ids followed by an accession and a name, e.g. sp|P02769|ALBU_BOVIN
+    private static final Set<String> ACCESSION_TAGS = Set.of("gb", "emb", "dbj", "ref", "sp", "tr", "pir", "prf",
+            "tpg", "tpe", "tpd", "gpp", "nat", PDB_TAG);
+
+    private final boolean enabled;
+    private final int recordsPerChunk;
+    private final int maxChunks;
+    private final int parallelism;
+
+    public QuerySplitter(@Value("${blast-wrapper.blast-commands.query-split.enabled:false}") final boolean enabled,
+                         @Value("${blast-wrapper.blast-commands.query-split.records-per-chunk:50}")
+                         final int recordsPerChunk,
+                         @Value("${blast-wrapper.blast-commands.query-split.max-chunks:8}") final int maxChunks,
+                         @Value("${blast-wrapper.blast-commands.query-split.parallelism:4}") final int parallelism) {
+        this.enabled = enabled;
+        this.recordsPerChunk = Math.max(1, recordsPerChunk);
+        this.maxChunks = Math.max(1, maxChunks);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Max amount of chunks of all tasks searched simultaneously on the node.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns query chunks, a query which is small enough or can't be split is returned as a single chunk.
+     */
+    public List<String> split(final String query) {
+        if (!enabled) {
+            return Collections.singletonList(query);
+        }
+        final List<String> records = getRecords(query);
+        if (records.size() <= recordsPerChunk) {
+            return Collections.singletonList(query);
+        }
+        final int chunks = Math.min(maxChunks, (records.size() + recordsPerChunk - 1) / recordsPerChunk);
+        final int chunkSize = (records.size() + chunks - 1) / chunks;
+        final List<String> result = new ArrayList<>(chunks);
+        for (int from = 0; from < records.size(); from += chunkSize) {
+            final int to = Math.min(from + chunkSize, records.size());
+            result.add(String.join(StringUtils.EMPTY, records.subList(from, to)));
+        }
+        return result;
+    }
+
+    static List<String> getRecords(final String query) {
+        final List<String> records = new ArrayList<>();
+        StringBuilder record = new StringBuilder();
+        for (String line : StringUtils.defaultString(query).split(NEW_LINE)) {
+            if (line.startsWith(FASTA_HEADER) && StringUtils.isNotBlank(record)) {
+                records.add(record.toString());
+                record = new StringBuilder();
+            }
+            if (StringUtils.isNotBlank(line)) {
+                record.append(line).append(NEW_LINE);
+            }
+        }
+        if (StringUtils.isNotBlank(record)) {
+            records.add(record.toString());
+        }
+        return records;
+    }
+
+    /**
+     * Returns identifiers of query records, i.e. the first word of each FASTA header, in the order of records.
+     */
+    public static List<String> getQueryIds(final String query) {
+        final List<String> ids = new ArrayList<>();
+        for (String record : getRecords(query)) {
+            if (record.startsWith(FASTA_HEADER)) {
+                ids.add(getHeaderId(record));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns ids, which BLAST+ reports for query records in the qaccver column, in the order of records:
+     * the first word of a plain header, the accession of a header with database tags (e.g. P02769 for
+     * sp|P02769|ALBU_BOVIN) or Query_1 for a record without header.
+     */
+    public static List<String> getReportedQueryIds(final String query) {
+        final List<String> ids = new ArrayList<>();
+        for (String record : getRecords(query)) {
+            ids.add(record.startsWith(FASTA_HEADER)
+                    ? getReportedQueryId(getHeaderId(record))
+                    : BlastToolRunner.DEFAULT_QUERY_ID);
+        }
+        return ids;
+    }
+
+    /**
+     * Parses a FASTA id with database tags, e.g. gi|129295|sp|P01013.1|OVAX_CHICK, the accession of
+     * the first tagged id is preferred to gi numbers and local ids. Ids, which aren't made of known tags,
+     * are reported as is.
+     */
+    static String getReportedQueryId(final String headerId) {
+        final String[] fields = headerId.split(ID_SEPARATOR, -1);
+        String reported = null;
+        int i = 0;
+        while (i < fields.length) {
+            final String tag = fields[i];
+            final String value = i + 1 < fields.length ? fields[i + 1] : StringUtils.EMPTY;
+            if (SINGLE_VALUE_TAGS.contains(tag)) {
+                reported = reported == null ? value : reported;
+                i += 2;
+            } else if (ACCESSION_TAGS.contains(tag)) {
+                final String name = i + 2 < fields.length ? fields[i + 2] : StringUtils.EMPTY;
+                if (PDB_TAG.equals(tag) && StringUtils.isNotBlank(name)) {
+                    return value + "_" + name;
+                }
+                return StringUtils.isBlank(value) ? name : value;
+            } else {
+                return headerId;
+            }
+        }
+        return StringUtils.isBlank(reported) ? headerId : reported;
+    }
+
+    private static String getHeaderId(final String record) {
+        final String header = StringUtils.substringBefore(record, NEW_LINE).substring(FASTA_HEADER.length());
+        return StringUtils.substringBefore(header.trim(), StringUtils.SPACE);
+    }
+}
@@ -25,24 +25,106 @@
 package com.epam.blast.manager.file;
 
 import com.epam.blast.entity.blasttool.BlastResult;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastTool;
 import com.epam.blast.entity.task.TaskEntity;
-import org.springframework.data.util.Pair;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BlastFileManager {
 
+    String COMPRESSED_RESULT_EXT = ".gz";
+
     String getResultFileName(Long taskId);
 
     BlastResult getResults(Long taskId, BlastTool tool, Integer limit);
 
-    Pair<String, byte[]> getRawResults(Long taskId);
+    /**
+     * Returns a page of results which starts at the query cursor or offset and contains up to
+     * the query limit entries matching the query filters.
+     */
+    BlastResult getResults(Long taskId, BlastTool tool, BlastResultQuery query);
+
+    /**
+     * Passes results described by the query to {@code consumer} one by one as they are read from the result file,
+     * returns the cursor of the next page, {@code null} if there are no more results.
+     */
+    String streamResults(Long taskId, BlastResultQuery query, Consumer<BlastResultEntry> consumer);
+
+    /**
+     * Returns per query summary of the result, the summary is computed once and stored next to the result file.
+     */
+    BlastResultSummary getResultSummary(Long taskId);
+
+    /**
+     * Describes the raw result of the task without reading the result file. If the result file is compressed
+     * and {@code acceptGzip} is set, the raw result is gzip encoded and is written without decompression.
+     */
+    BlastRawResult getRawResults(Long taskId, boolean acceptGzip);
+
+    /**
+     * Returns the result file of the task, it is compressed if compression of results is enabled.
+     */
+    Path getResultFile(Long taskId);
+
+    /**
+     * Opens the content of the result file of the task, the content is decompressed if the file is compressed.
+     */
+    InputStream openResult(Long taskId) throws IOException;
+
+    /**
+     * Compresses the result file of the completed task if compression of results is enabled.
+     */
+    void compressResult(Long taskId);
+
+    /**
+     * Builds the columnar copy of the result of the completed task if the columnar cache is enabled.
+     * Does nothing if the copy is being built by another thread.
+     */
+    void buildColumnarCopy(Long taskId);
 
     void removeQueryFile(Long taskId);
 
     File getQueryFile(TaskEntity taskEntity);
 
+    File getQueryChunkFile(Long taskId, int chunk, String query);
+
+    String getChunkResultFileName(Long taskId, int chunk);
+
+    /**
+     * Concatenates results of query chunks into the result file of the task in the order of chunks.
+     */
+    void mergeChunkResults(Long taskId, int chunks) throws IOException;
+
+    String getShardResultFileName(Long taskId, int chunk, int shard);
+
+    /**
+     * Merges results of a query chunk searched against database shards into the result file of the chunk:
+     * hits are grouped by query in the order of {@code queryIds}, which are ids BLAST+ reports for the queries,
+     * sorted by e-value and bit score and truncated to {@code maxTargetSeqs} subject sequences per query.
+     * Hits of queries missing in {@code queryIds} go after the others in the order of their first appearance.
+     */
+    void mergeShardResults(Long taskId, int chunk, int shards, List<String> queryIds, int maxTargetSeqs)
+            throws IOException;
+
+    /**
+     * Splits the result of a batch of tasks, which queries were searched at once as the chunk 0 of the task
+     * {@code batchId}, into result files of the tasks. A hit goes to the task of its query id from
+     * {@code tasksByQueryId}, the query id is replaced by the original query id of the task from {@code queryIds}.
+     */
+    void splitBatchResult(Long batchId, Map<String, Long> tasksByQueryId, Map<Long, String> queryIds)
+            throws IOException;
+
+    void removeChunkFiles(Long taskId, int chunks, int shards);
+
     String getBlastQueryDirectory();
 
     String getBlastDbDirectory();
@@ -53,5 +135,10 @@ public interface BlastFileManager {
 
     void removeBlastOutput(Long taskId);
 
+    /**
+     * Shares the result file of one task with another one, the file is linked if possible, otherwise copied.
+     */
+    boolean linkResult(Long fromTaskId, Long toTaskId);
+
     String getResultDelimiter();
 }
@@ -26,6 +26,9 @@ package com.epam.blast.manager.file;
 
 import com.epam.blast.entity.blasttool.BlastResult;
 import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSort;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastTool;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.manager.commands.commands.BlastToolCommand;
@@ -33,24 +36,51 @@ import com.epam.blast.manager.helper.MessageConstants;
 import com.epam.blast.manager.helper.MessageHelper;
 import com.epam.blast.utils.TemporaryFileWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
-import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
 
@@ -59,8 +89,23 @@ import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
 public class BlastFileManagerImpl implements BlastFileManager {
 
     private static final String QUERY_NAME_FORMAT = "query_%d";
-    private static final String NA = "N/A";
+    private static final String QUERY_CHUNK_NAME_FORMAT = "query_%d_%d";
+    private static final String CHUNK_RESULT_NAME_FORMAT = "%d_%d";
+    private static final String SHARD_RESULT_NAME_FORMAT = "%d_%d_%d";
+    private static final int QUERY_COLUMN = 0;
+    private static final int SUBJECT_COLUMN = 5;
+    private static final int EVALUE_COLUMN = 12;
+    private static final int BITSCORE_COLUMN = 13;
+    private static final int PIDENT_COLUMN = 16;
+    private static final int TAXID_COLUMN = 23;
     private static final String BLASTOUT_EXT = ".blastout";
+    private static final String INDEX_EXT = ".idx";
+    private static final String COLUMNAR_EXT = ".col";
+    private static final String SUMMARY_EXT = ".summary";
+    private static final long MEGABYTE = 1024 * 1024;
+    private static final String TEMP_EXT = ".tmp";
+    private static final String GZIP_ENCODING = "gzip";
+    private static final BitSet FILTER_COLUMNS = filterColumns();
 
     private final TemporaryFileWriter temporaryFileWriter;
     private final MessageHelper messageHelper;
@@ -69,6 +114,11 @@ public class BlastFileManagerImpl implements BlastFileManager {
     private final String blastDbDirectory;
     private final String defaultFastaDirectory;
     private final String resultDelimiter;
+    private final ResultCompression resultCompression;
+    private final long columnarCacheMaxContentLength;
+    // columnar copies are built by a single background thread, a copy of a result is built by one thread at a time
+    private final ExecutorService columnarExecutor = Executors.newSingleThreadExecutor();
+    private final Set<Long> buildingCopies = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public BlastFileManagerImpl(
@@ -77,12 +127,17 @@ public class BlastFileManagerImpl implements BlastFileManager {
             @Value("${blast-wrapper.blast-commands.blast-db-directory}") String blastDbDirectory,
             @Value("${blast-wrapper.blast-commands.blast-fasta-directory}") String defaultFastaDirectory,
             @Value("${blast-wrapper.blast-commands.result.delimiter:-,}") final String resultDelimiter,
+            @Value("${blast-wrapper.blast-commands.result.compression:NONE}") final ResultCompression compression,
+            @Value("${blast-wrapper.blast-commands.result.columnar-cache.max-content-mb:256}")
+            final long columnarCacheMaxContentMb,
             TemporaryFileWriter temporaryFileWriter, final MessageHelper messageHelper) {
         this.blastQueryDirectory = blastQueryDirectory;
         this.blastResultsDirectory = blastResultsDirectory;
         this.blastDbDirectory = blastDbDirectory;
         this.defaultFastaDirectory = defaultFastaDirectory;
         this.resultDelimiter = resultDelimiter;
+        this.resultCompression = compression;
+        this.columnarCacheMaxContentLength = columnarCacheMaxContentMb * MEGABYTE;
         this.temporaryFileWriter = temporaryFileWriter;
         this.messageHelper = messageHelper;
     }
@@ -95,6 +150,11 @@ public class BlastFileManagerImpl implements BlastFileManager {
         createDirectoryIfNotExists(defaultFastaDirectory);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        columnarExecutor.shutdownNow();
+    }
+
     @Override
     public String getResultFileName(final Long taskId) {
         return taskId + BLASTOUT_EXT;
@@ -102,15 +162,35 @@ public class BlastFileManagerImpl implements BlastFileManager {
 
     @Override
     public BlastResult getResults(final Long taskId, final BlastTool tool, final Integer limit) {
+        return getResults(taskId, tool, BlastResultQuery.builder().limit(limit).build());
+    }
+
+    @Override
+    public BlastResult getResults(final Long taskId, final BlastTool tool, final BlastResultQuery query) {
+        final List<BlastResultEntry> entries = new ArrayList<>();
+        final String nextCursor = readResults(taskId, query, true, entries::add);
+        return BlastResult.builder()
+                .entries(entries)
+                .tool(tool)
+                .size(entries.size())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public String streamResults(final Long taskId, final BlastResultQuery query,
+                                final Consumer<BlastResultEntry> consumer) {
+        // the stream is parsed from the result file, so its memory doesn't depend on the size of the result
+        return readResults(taskId, query, false, consumer);
+    }
+
+    @Override
+    public BlastResultSummary getResultSummary(final Long taskId) {
         try {
-            final List<BlastResultEntry> entries = Files.lines(
-                    Path.of(blastResultsDirectory, getResultFileName(taskId))
-            ).limit(limit)
-                    .filter(StringUtils::isNotBlank)
-                    .map(this::parseBlastResultEntry)
-                    .collect(Collectors.toList());
-            return BlastResult.builder().entries(entries).tool(tool).size(entries.size()).build();
-        } catch (IOException | IllegalStateException e) {
+            return ResultSummaryFile.load(getResultFile(taskId),
+                    Path.of(blastResultsDirectory, getResultSummaryFileName(taskId)),
+                    consumer -> readResults(taskId, BlastResultQuery.builder().build(), true, consumer));
+        } catch (IOException e) {
             throw new IllegalStateException(
                     messageHelper.getMessage(MessageConstants.ERROR_WHILE_READ_TASK_OUTPUT, taskId, e.getMessage()), e
             );
@@ -118,12 +198,42 @@ public class BlastFileManagerImpl implements BlastFileManager {
     }
 
     @Override
-    public Pair<String, byte[]> getRawResults(final Long taskId) {
+    public BlastRawResult getRawResults(final Long taskId, final boolean acceptGzip) {
+        final Path file = getResultFile(taskId);
         try {
-            final String name = getResultFileName(taskId);
-            final byte[] content = Files.readAllBytes(Path.of(blastResultsDirectory, name));
-            final String header = String.join(resultDelimiter, BlastToolCommand.HEADERS) + "\n";
-            return Pair.of(name, ArrayUtils.addAll(header.getBytes(Charset.defaultCharset()), content));
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final byte[] header = (String.join(resultDelimiter, BlastToolCommand.HEADERS) + "\n")
+                    .getBytes(Charset.defaultCharset());
+            final String version = String.format("%x-%x-%x", attributes.lastModifiedTime().toMillis(),
+                    attributes.size(), Arrays.hashCode(header));
+            final BlastRawResult.BlastRawResultBuilder rawResult = BlastRawResult.builder()
+                    .name(getResultFileName(taskId))
+                    .file(file);
+            if (!isCompressed(file)) {
+                return rawResult.etag(String.format("\"%s\"", version))
+                        .prefix(header)
+                        .fileLength(attributes.size())
+                        .suffix(new byte[0])
+                        .build();
+            }
+            final GzipFiles.Info info = GzipFiles.readInfo(file);
+            if (!acceptGzip) {
+                return rawResult.etag(String.format("\"%s\"", version))
+                        .prefix(header)
+                        .fileLength(info.getLength())
+                        .decompress(true)
+                        .suffix(new byte[0])
+                        .build();
+            }
+            // compressed data of the file is sent as is between a compressed header and a new trailer
+            final int crc = GzipFiles.combineCrc(GzipFiles.crc(header), info.getCrc(), info.getLength());
+            return rawResult.etag(String.format("\"%s-%s\"", version, GZIP_ENCODING))
+                    .contentEncoding(GZIP_ENCODING)
+                    .prefix(ArrayUtils.addAll(GzipFiles.header(), GzipFiles.deflate(header)))
+                    .fileOffset(info.getDataStart())
+                    .fileLength(info.getDataEnd() - info.getDataStart())
+                    .suffix(GzipFiles.trailer(crc, header.length + info.getLength()))
+                    .build();
         } catch (IOException e) {
             throw new IllegalStateException(
                     messageHelper.getMessage(MessageConstants.ERROR_WHILE_READ_TASK_OUTPUT, taskId, e.getMessage()), e
@@ -131,6 +241,58 @@ public class BlastFileManagerImpl implements BlastFileManager {
         }
     }
 
+    @Override
+    public Path getResultFile(final Long taskId) {
+        final Path compressed = Path.of(blastResultsDirectory, getResultFileName(taskId) + COMPRESSED_RESULT_EXT);
+        return Files.exists(compressed) ? compressed : Path.of(blastResultsDirectory, getResultFileName(taskId));
+    }
+
+    @Override
+    public InputStream openResult(final Long taskId) throws IOException {
+        return openResult(getResultFile(taskId), 0);
+    }
+
+    @Override
+    public void compressResult(final Long taskId) {
+        final Path result = Path.of(blastResultsDirectory, getResultFileName(taskId));
+        if (resultCompression == ResultCompression.NONE || !Files.exists(result)) {
+            return;
+        }
+        final Path compressed = Path.of(blastResultsDirectory, getResultFileName(taskId) + COMPRESSED_RESULT_EXT);
+        final Path temp = Path.of(blastResultsDirectory, compressed.getFileName() + TEMP_EXT);
+        try {
+            GzipFiles.compress(result, temp);
+            Files.move(temp, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(result);
+        } catch (IOException e) {
+            // the result stays uncompressed
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_WHILE_COMPRESSING_RESULT,
+                    taskId, e.getMessage()));
+            FileUtils.deleteQuietly(temp.toFile());
+        }
+    }
+
+    @Override
+    public void buildColumnarCopy(final Long taskId) {
+        if (columnarCacheMaxContentLength <= 0 || !buildingCopies.add(taskId)) {
+            return;
+        }
+        try {
+            final Path result = getResultFile(taskId);
+            final Path copy = Path.of(blastResultsDirectory, getColumnarFileName(taskId));
+            if (Files.exists(result) && !ColumnarResult.isUpToDate(result, copy)) {
+                ColumnarResult.build(result, copy, offset -> openResult(result, offset), createParser(),
+                        columnarCacheMaxContentLength);
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            // the result is read from the result file
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_WHILE_BUILDING_COLUMNAR_COPY,
+                    taskId, e.getMessage()));
+        } finally {
+            buildingCopies.remove(taskId);
+        }
+    }
+
     @Override
     public String getResultDelimiter() {
         return resultDelimiter;
@@ -149,6 +311,171 @@ public class BlastFileManagerImpl implements BlastFileManager {
                         String.format(QUERY_NAME_FORMAT, taskEntity.getId()));
     }
 
+    @Override
+    public File getQueryChunkFile(final Long taskId, final int chunk, final String query) {
+        return temporaryFileWriter
+                .writeToDisk(getBlastQueryDirectory(), query, String.format(QUERY_CHUNK_NAME_FORMAT, taskId, chunk));
+    }
+
+    @Override
+    public String getChunkResultFileName(final Long taskId, final int chunk) {
+        return String.format(CHUNK_RESULT_NAME_FORMAT, taskId, chunk) + BLASTOUT_EXT;
+    }
+
+    @Override
+    public void mergeChunkResults(final Long taskId, final int chunks) throws IOException {
+        final Path result = Path.of(blastResultsDirectory, getResultFileName(taskId));
+        try (FileChannel out = FileChannel.open(result, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                final Path chunkResult = Path.of(blastResultsDirectory, getChunkResultFileName(taskId, chunk));
+                if (!Files.exists(chunkResult)) {
+                    continue;
+                }
+                try (FileChannel in = FileChannel.open(chunkResult, StandardOpenOption.READ)) {
+                    long position = 0;
+                    final long size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getShardResultFileName(final Long taskId, final int chunk, final int shard) {
+        return String.format(SHARD_RESULT_NAME_FORMAT, taskId, chunk, shard) + BLASTOUT_EXT;
+    }
+
+    /**
+     * BLAST+ reports queries in the input order and subjects of a query best first, so shard results are merged
+     * in a single pass: the next query is the first of the queries at the heads of the shards and its subjects
+     * are merged by their best hits, so only the current subject of each shard is kept in memory.
+     */
+    @Override
+    public void mergeShardResults(final Long taskId, final int chunk, final int shards,
+                                  final List<String> queryIds, final int maxTargetSeqs) throws IOException {
+        final Map<String, Integer> queryOrder = new HashMap<>();
+        for (int i = 0; i < queryIds.size(); i++) {
+            queryOrder.putIfAbsent(queryIds.get(i), i);
+        }
+        final Comparator<String> hitOrder = Comparator
+                .comparingDouble((String line) -> getScore(line, EVALUE_COLUMN, Double.MAX_VALUE))
+                .thenComparing(Comparator.comparingDouble(
+                        (String line) -> getScore(line, BITSCORE_COLUMN, 0)).reversed());
+        final List<ShardReader> readers = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                Path.of(blastResultsDirectory, getChunkResultFileName(taskId, chunk)))) {
+            for (int shard = 0; shard < shards; shard++) {
+                final Path shardResult = Path.of(blastResultsDirectory, getShardResultFileName(taskId, chunk, shard));
+                if (Files.exists(shardResult)) {
+                    readers.add(new ShardReader(Files.newBufferedReader(shardResult)));
+                }
+            }
+            // amount of subjects written for each query, in case hits of a query aren't contiguous
+            final Map<String, Integer> writtenSubjects = new HashMap<>();
+            String queryId;
+            while ((queryId = getNextQuery(readers, queryOrder)) != null) {
+                final int written = mergeQueryHits(readers, queryId,
+                        maxTargetSeqs - writtenSubjects.getOrDefault(queryId, 0), hitOrder, writer);
+                writtenSubjects.merge(queryId, written, Integer::sum);
+            }
+        } finally {
+            for (ShardReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the query, which hits are at the head of the shards and which goes first in {@code queryOrder},
+     * queries which are unknown or have no ids go after known ones.
+     */
+    private String getNextQuery(final List<ShardReader> readers, final Map<String, Integer> queryOrder) {
+        String next = null;
+        int nextOrder = Integer.MAX_VALUE;
+        for (ShardReader reader : readers) {
+            final String queryId = reader.getQueryId();
+            if (queryId == null) {
+                continue;
+            }
+            final int order = queryOrder.getOrDefault(queryId, Integer.MAX_VALUE);
+            if (next == null || order < nextOrder) {
+                next = queryId;
+                nextOrder = order;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Writes hits of up to {@code maxSubjects} best subjects of the query from the heads of the shards,
+     * hits of the rest of subjects are skipped. Returns the amount of written subjects.
+     */
+    private int mergeQueryHits(final List<ShardReader> readers, final String queryId, final int maxSubjects,
+                               final Comparator<String> hitOrder, final BufferedWriter writer) throws IOException {
+        final PriorityQueue<SubjectHits> heads = new PriorityQueue<>(
+                Comparator.comparing(SubjectHits::getBestHit, hitOrder));
+        for (ShardReader reader : readers) {
+            final List<String> hits = reader.nextSubjectHits(queryId);
+            if (hits != null) {
+                heads.add(new SubjectHits(reader, hits, Collections.min(hits, hitOrder)));
+            }
+        }
+        int written = 0;
+        while (!heads.isEmpty()) {
+            final SubjectHits best = heads.poll();
+            if (written < maxSubjects) {
+                for (String hit : best.getHits()) {
+                    writer.write(hit);
+                    writer.newLine();
+                }
+                written++;
+            }
+            final List<String> hits = best.getReader().nextSubjectHits(queryId);
+            if (hits != null) {
+                heads.add(new SubjectHits(best.getReader(), hits, Collections.min(hits, hitOrder)));
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void splitBatchResult(final Long batchId, final Map<String, Long> tasksByQueryId,
+                                 final Map<Long, String> queryIds) throws IOException {
+        final Map<Long, List<String>> hits = new LinkedHashMap<>();
+        queryIds.keySet().forEach(taskId -> hits.put(taskId, new ArrayList<>()));
+        final Path batchResult = Path.of(blastResultsDirectory, getChunkResultFileName(batchId, 0));
+        if (Files.exists(batchResult)) {
+            try (Stream<String> lines = Files.lines(batchResult)) {
+                lines.filter(StringUtils::isNotBlank).forEach(line -> {
+                    final String queryId = StringUtils.substringBefore(line, resultDelimiter);
+                    final Long taskId = tasksByQueryId.get(queryId);
+                    if (taskId != null) {
+                        hits.get(taskId).add(queryIds.get(taskId) + line.substring(queryId.length()));
+                    }
+                });
+            }
+        }
+        for (Map.Entry<Long, List<String>> taskHits : hits.entrySet()) {
+            Files.write(Path.of(blastResultsDirectory, getResultFileName(taskHits.getKey())), taskHits.getValue());
+        }
+    }
+
+    @Override
+    public void removeChunkFiles(final Long taskId, final int chunks, final int shards) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            temporaryFileWriter.removeFile(getBlastQueryDirectory(),
+                    String.format(QUERY_CHUNK_NAME_FORMAT, taskId, chunk));
+            temporaryFileWriter.removeFile(getBlastResultsDirectory(), getChunkResultFileName(taskId, chunk));
+            for (int shard = 0; shard < shards; shard++) {
+                temporaryFileWriter.removeFile(getBlastResultsDirectory(),
+                        getShardResultFileName(taskId, chunk, shard));
+            }
+        }
+    }
+
     @Override
     public String getBlastQueryDirectory() {
         return getAbsolutePath(blastQueryDirectory);
@@ -174,6 +501,10 @@ public class BlastFileManagerImpl implements BlastFileManager {
         try {
             final String name = getResultFileName(taskId);
             Files.deleteIfExists(Path.of(blastResultsDirectory, name));
+            Files.deleteIfExists(Path.of(blastResultsDirectory, name + COMPRESSED_RESULT_EXT));
+            Files.deleteIfExists(Path.of(blastResultsDirectory, getResultIndexFileName(taskId)));
+            Files.deleteIfExists(Path.of(blastResultsDirectory, getColumnarFileName(taskId)));
+            Files.deleteIfExists(Path.of(blastResultsDirectory, getResultSummaryFileName(taskId)));
         } catch (IOException e) {
             log.error(messageHelper.getMessage(MessageConstants.ERROR_WHILE_REMOVING_BLAST_OUTPUT,
                     taskId, e.getMessage()));
@@ -181,61 +512,302 @@ public class BlastFileManagerImpl implements BlastFileManager {
         }
     }
 
+    @Override
+    public boolean linkResult(final Long fromTaskId, final Long toTaskId) {
+        final Path from = getResultFile(fromTaskId);
+        final Path to = Path.of(blastResultsDirectory,
+                getResultFileName(toTaskId) + (isCompressed(from) ? COMPRESSED_RESULT_EXT : ""));
+        try {
+            removeBlastOutput(toTaskId);
+            try {
+                Files.createLink(to, from);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(from, to);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_WHILE_READ_TASK_OUTPUT,
+                    fromTaskId, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Reads the page of results described by the query, returns the cursor of the next page.
+     * The columnar copy of the result is read if it is allowed and is built, otherwise the result file is parsed.
+     * Sorted results are selected in a single pass over the result and have no cursor, the selection is kept
+     * in memory, so it is bounded by {@link BlastResultQuery#MAX_SORTED_ENTRIES}.
+     */
+    private String readResults(final Long taskId, final BlastResultQuery query, final boolean columnar,
+                               final Consumer<BlastResultEntry> consumer) {
+        final long offset = query.getOffset() == null ? 0 : Math.max(query.getOffset(), 0);
+        if (!query.isSorted()) {
+            final int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+            return readResults(taskId, query, columnar, getCursor(query), offset, limit, consumer);
+        }
+        final int limit = query.getLimit() == null
+                ? (int) Math.max(0, BlastResultQuery.MAX_SORTED_ENTRIES - offset)
+                : query.getLimit();
+        if (offset + limit > BlastResultQuery.MAX_SORTED_ENTRIES
+                || query.getTopPerQuery() != null && query.getTopPerQuery() > BlastResultQuery.MAX_SORTED_ENTRIES) {
+            throw new IllegalArgumentException(messageHelper.getMessage(
+                    MessageConstants.ERROR_SORTED_RESULT_TOO_LARGE, BlastResultQuery.MAX_SORTED_ENTRIES));
+        }
+        if (query.getCursor() != null) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.ERROR_RESULT_CURSOR_WITH_SORT));
+        }
+        if (query.getTopPerQuery() != null && query.getTopPerQuery() <= 0) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.ERROR_INVALID_TOP_PER_QUERY, query.getTopPerQuery()));
+        }
+        final Comparator<BlastResultEntry> order = Optional.ofNullable(query.getSortBy())
+                .orElse(BlastResultSort.BIT_SCORE)
+                .getComparator();
+        final TopHits topHits = query.getTopPerQuery() != null
+                ? new TopHits(order, query.getTopPerQuery(), true)
+                : new TopHits(order, (int) offset + limit, false);
+        readResults(taskId, query, columnar, null, 0, Integer.MAX_VALUE, topHits::add);
+        topHits.emit(offset, limit, consumer);
+        return null;
+    }
+
+    /**
+     * Reads entries in the order of the result file starting from the cursor or the line {@code line}.
+     */
+    private String readResults(final Long taskId, final BlastResultQuery query, final boolean columnar,
+                               final Long cursor, final long line, final int limit,
+                               final Consumer<BlastResultEntry> consumer) {
+        final Path result = getResultFile(taskId);
+        try {
+            if (cursor != null) {
+                checkCursor(result, cursor);
+            }
+            final ColumnarResult copy = columnar ? openColumnarCopy(taskId, result) : null;
+            final long nextOffset;
+            if (copy != null) {
+                final int fromRow = cursor != null ? copy.findRow(cursor) : copy.findLine(line);
+                nextOffset = copy.read(fromRow, limit, query, consumer);
+            } else {
+                final long startOffset = cursor != null ? cursor : getLineOffset(taskId, result, line);
+                try (InputStream input = openResult(result, startOffset)) {
+                    nextOffset = createParser()
+                            .parse(input, startOffset, limit, BlastResultParser.allColumns(), FILTER_COLUMNS,
+                                    query.hasFilters() ? entry -> matches(entry, query) : null, consumer);
+                } catch (IllegalArgumentException e) {
+                    // a line of the result file is malformed, unlike a wrong cursor it isn't a fault of the request
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+            return nextOffset < 0 ? null : String.valueOf(nextOffset);
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalStateException(
+                    messageHelper.getMessage(MessageConstants.ERROR_WHILE_READ_TASK_OUTPUT, taskId, e.getMessage()), e
+            );
+        }
+    }
+
+    /**
+     * Maps the columnar copy of the result if it is built, otherwise schedules its build and returns null.
+     */
+    private ColumnarResult openColumnarCopy(final Long taskId, final Path result) throws IOException {
+        if (columnarCacheMaxContentLength <= 0) {
+            return null;
+        }
+        final Path copy = Path.of(blastResultsDirectory, getColumnarFileName(taskId));
+        final ColumnarResult columnar = ColumnarResult.open(result, copy);
+        if (columnar == null && !ColumnarResult.isUpToDate(result, copy) && !buildingCopies.contains(taskId)) {
+            columnarExecutor.execute(() -> buildColumnarCopy(taskId));
+        }
+        return columnar;
+    }
+
+    /**
+     * Returns the offset in the result content passed as the cursor of the query or null if there is no cursor.
+     */
+    private Long getCursor(final BlastResultQuery query) {
+        if (query.getCursor() == null) {
+            return null;
+        }
+        if (query.getOffset() != null) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.ERROR_RESULT_CURSOR_WITH_OFFSET));
+        }
+        final long cursor = NumberUtils.toLong(query.getCursor(), -1);
+        if (cursor < 0) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.ERROR_INVALID_RESULT_CURSOR, query.getCursor()));
+        }
+        return cursor;
+    }
+
+    /**
+     * Checks that the cursor points to the start of a line of the result content, since any other offset
+     * would be parsed from the middle of a line.
+     */
+    private void checkCursor(final Path result, final long cursor) throws IOException {
+        if (cursor == 0) {
+            return;
+        }
+        try (InputStream input = openResult(result, cursor - 1)) {
+            if (input.read() == '\n') {
+                return;
+            }
+        } catch (EOFException e) {
+            // the cursor is beyond the end of the compressed content
+        }
+        throw new IllegalArgumentException(
+                messageHelper.getMessage(MessageConstants.ERROR_INVALID_RESULT_CURSOR, cursor));
+    }
+
+    private long getLineOffset(final Long taskId, final Path result, final long line) throws IOException {
+        if (line == 0) {
+            return 0;
+        }
+        return ResultLineIndex.findLineOffset(result, Path.of(blastResultsDirectory, getResultIndexFileName(taskId)),
+                line, offset -> openResult(result, offset));
+    }
+
+    private BlastResultParser createParser() {
+        return new BlastResultParser(resultDelimiter, messageHelper);
+    }
+
+    /**
+     * Opens the content of the result file starting from {@code offset}, compressed files are decompressed.
+     */
+    private InputStream openResult(final Path result, final long offset) throws IOException {
+        if (isCompressed(result)) {
+            return GzipFiles.open(result, offset);
+        }
+        final FileChannel channel = FileChannel.open(result, StandardOpenOption.READ);
+        return Channels.newInputStream(channel.position(offset));
+    }
+
+    private static boolean isCompressed(final Path result) {
+        return result.getFileName().toString().endsWith(COMPRESSED_RESULT_EXT);
+    }
+
+    private static boolean matches(final BlastResultEntry entry, final BlastResultQuery query) {
+        return (query.getMaxExpValue() == null
+                    || entry.getExpValue() != null && entry.getExpValue() <= query.getMaxExpValue())
+                && (query.getMinPercentIdent() == null
+                    || entry.getPercentIdent() != null && entry.getPercentIdent() >= query.getMinPercentIdent())
+                && (query.getMinBitScore() == null
+                    || entry.getBitScore() != null && entry.getBitScore() >= query.getMinBitScore())
+                && (CollectionUtils.isEmpty(query.getTaxIds()) || query.getTaxIds().contains(entry.getSeqTaxId()))
+                && (query.getQueryAccVersion() == null
+                    || query.getQueryAccVersion().equals(entry.getQueryAccVersion()));
+    }
+
+    private static BitSet filterColumns() {
+        final BitSet columns = new BitSet(BlastResultParser.COLUMNS);
+        columns.set(QUERY_COLUMN);
+        columns.set(EVALUE_COLUMN);
+        columns.set(BITSCORE_COLUMN);
+        columns.set(PIDENT_COLUMN);
+        columns.set(TAXID_COLUMN);
+        return columns;
+    }
+
+    private String getResultIndexFileName(final Long taskId) {
+        return getResultFileName(taskId) + INDEX_EXT;
+    }
+
+    private String getResultSummaryFileName(final Long taskId) {
+        return getResultFileName(taskId) + SUMMARY_EXT;
+    }
+
+    private String getColumnarFileName(final Long taskId) {
+        return getResultFileName(taskId) + COLUMNAR_EXT;
+    }
+
     private String getAbsolutePath(final String path) {
         return FilenameUtils.normalize(Path.of(path).toAbsolutePath().toString());
     }
 
     BlastResultEntry parseBlastResultEntry(final String line) {
-        final String[] split = line.split(resultDelimiter);
-        Assert.isTrue(split.length == BlastToolCommand.BLAST_FILE_FORMAT_PARTS,
-                messageHelper.getMessage(
-                        MessageConstants.ERROR_WHILE_PARSE_TASK_OUTPUT, BlastToolCommand.BLAST_FILE_FORMAT_PARTS,
-                        split.length
-                )
-        );
-        return BlastResultEntry.builder()
-                .queryAccVersion(split[0])
-                .queryLen(parseNumber(split[1], Long::parseLong))
-                .queryStart(parseNumber(split[2], Long::parseLong))
-                .queryEnd(parseNumber(split[3], Long::parseLong))
-                .qseq(split[4])
-                .seqAccVersion(split[5])
-                .seqSeqId(split[6])
-                .seqLen(parseNumber(split[7], Long::parseLong))
-                .seqStart(parseNumber(split[8], Long::parseLong))
-                .seqEnd(parseNumber(split[9], Long::parseLong))
-                .sseq(split[10])
-                .btop(split[11])
-                .expValue(parseNumber(split[12], Double::parseDouble))
-                .bitScore(parseNumber(split[13], Double::parseDouble))
-                .score(parseNumber(split[14], Double::parseDouble))
-                .length(parseNumber(split[15], Long::parseLong))
-                .percentIdent(parseNumber(split[16], Double::parseDouble))
-                .numIdent(parseNumber(split[17], Long::parseLong))
-                .mismatch(parseNumber(split[18], Long::parseLong))
-                .positive(parseNumber(split[19], Long::parseLong))
-                .gapOpen(parseNumber(split[20], Long::parseLong))
-                .gaps(parseNumber(split[21], Long::parseLong))
-                .percentPos(parseNumber(split[22], Double::parseDouble))
-                .seqTaxId(parseNumber(split[23], Long::parseLong))
-                .seqSciName(split[24])
-                .seqComName(split[25])
-                .seqStrand(split[26])
-                .queryCovS(parseNumber(split[27], Double::parseDouble))
-                .queryCovHsp(parseNumber(split[28], Double::parseDouble))
-                .queryCovUs(parseNumber(split[29], Double::parseDouble))
-                .build();
+        return createParser().parseLine(line, BlastResultParser.allColumns());
     }
 
-    private <T extends Number> T parseNumber(final String value, final Function<String, T> parser) {
-        if (StringUtils.isBlank(value) || value.equals(NA)) {
-            return null;
+    private String[] splitResultLine(final String line) {
+        return StringUtils.splitByWholeSeparatorPreserveAllTokens(line, resultDelimiter);
+    }
+
+    private String getColumn(final String[] columns, final int column) {
+        return column < columns.length ? columns[column] : StringUtils.EMPTY;
+    }
+
+    private double getScore(final String line, final int column, final double defaultValue) {
+        return NumberUtils.toDouble(getColumn(splitResultLine(line), column), defaultValue);
+    }
+
+    /**
+     * Reads hits of a shard result subject by subject.
+     */
+    private final class ShardReader implements Closeable {
+        private final BufferedReader reader;
+        private String[] columns;
+        private String line;
+
+        private ShardReader(final BufferedReader reader) throws IOException {
+            this.reader = reader;
+            advance();
         }
-        try {
-            return parser.apply(value);
-        } catch (NumberFormatException e) {
-            throw new IllegalStateException(
-                    messageHelper.getMessage(MessageConstants.ERROR_WRONG_FORMAT_OF_RESULT_STRING, value), e);
+
+        private String getQueryId() {
+            return line == null ? null : getColumn(columns, QUERY_COLUMN);
+        }
+
+        /**
+         * Reads consecutive hits of the same subject, if the next hit belongs to the query, otherwise returns null.
+         */
+        private List<String> nextSubjectHits(final String queryId) throws IOException {
+            if (!queryId.equals(getQueryId())) {
+                return null;
+            }
+            final String subject = getColumn(columns, SUBJECT_COLUMN);
+            final List<String> hits = new ArrayList<>();
+            while (queryId.equals(getQueryId()) && subject.equals(getColumn(columns, SUBJECT_COLUMN))) {
+                hits.add(line);
+                advance();
+            }
+            return hits;
+        }
+
+        private void advance() throws IOException {
+            do {
+                line = reader.readLine();
+            } while (line != null && StringUtils.isBlank(line));
+            columns = line == null ? null : splitResultLine(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class SubjectHits {
+        private final ShardReader reader;
+        private final List<String> hits;
+        private final String bestHit;
+
+        private SubjectHits(final ShardReader reader, final List<String> hits, final String bestHit) {
+            this.reader = reader;
+            this.hits = hits;
+            this.bestHit = bestHit;
+        }
+
+        private ShardReader getReader() {
+            return reader;
+        }
+
+        private List<String> getHits() {
+            return hits;
+        }
+
+        private String getBestHit() {
+            return bestHit;
         }
     }
 
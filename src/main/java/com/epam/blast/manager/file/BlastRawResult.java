@@ -0,0 +1,114 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import lombok.Builder;
+import lombok.Value;
+import org.apache.commons.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Raw blast output: the header line followed by the content of the result file. The output is written
+ * as a prefix, a part of the result file and a suffix, so the result file is never loaded into memory.
+ */
+@Value
+@Builder
+public class BlastRawResult {
+    String name;
+    /**
+     * Strong entity tag of the output, it changes whenever the result file is replaced.
+     */
+    String etag;
+    /**
+     * Content coding of the output, {@code null} if the output isn't encoded.
+     */
+    String contentEncoding;
+    byte[] prefix;
+    Path file;
+    long fileOffset;
+    long fileLength;
+    /**
+     * Whether the file is gzip compressed and is decompressed while it is written,
+     * the offset and the length of the file part refer to decompressed content in this case.
+     */
+    boolean decompress;
+    byte[] suffix;
+
+    public long getLength() {
+        return prefix.length + fileLength + suffix.length;
+    }
+
+    /**
+     * Writes bytes of the output from {@code start} to {@code end} inclusive.
+     */
+    public void write(final OutputStream output, final long start, final long end) throws IOException {
+        final long fileStart = prefix.length;
+        final long suffixStart = fileStart + fileLength;
+        if (start < fileStart) {
+            output.write(prefix, (int) start, (int) (Math.min(end + 1, fileStart) - start));
+        }
+        final long from = Math.max(start, fileStart);
+        final long to = Math.min(end + 1, suffixStart);
+        if (from < to) {
+            writeFile(output, fileOffset + from - fileStart, to - from);
+        }
+        if (end >= suffixStart) {
+            final long suffixFrom = Math.max(start, suffixStart);
+            output.write(suffix, (int) (suffixFrom - suffixStart), (int) (end + 1 - suffixFrom));
+        }
+    }
+
+    private void writeFile(final OutputStream output, final long offset, final long length) throws IOException {
+        if (decompress) {
+            try (InputStream input = GzipFiles.open(file, offset)) {
+                if (IOUtils.copyLarge(input, output, 0, length) < length) {
+                    throw new EOFException(String.format("File %s was truncated", name));
+                }
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final WritableByteChannel target = Channels.newChannel(output);
+            long position = offset;
+            final long end = offset + length;
+            while (position < end) {
+                final long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new EOFException(String.format("File %s was truncated", name));
+                }
+                position += transferred;
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Parses BLAST tabular output (outfmt 10 with {@link BlastToolCommand#HEADERS} columns) directly from bytes.
+ * Lines are split by the literal delimiter without regular expressions, numeric columns are parsed in place
+ * without intermediate strings and string columns are decoded only if they are requested.
+ * An instance keeps parsing state and must not be shared between threads.
+ */
+public class BlastResultParser {
+
+    public static final int COLUMNS = BlastToolCommand.BLAST_FILE_FORMAT_PARTS;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NA = "N/A".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+    // mantissa up to 2^53 is represented exactly by double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER_OF_TEN + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER_OF_TEN; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Receives a parsed entry together with the number of its line counting from zero, the offset of the line
+     * and the offset of the following line.
+     */
+    @FunctionalInterface
+    interface LineConsumer {
+        void accept(BlastResultEntry entry, long line, long start, long end);
+    }
+
+    private final byte[] delimiter;
+    private final MessageHelper messageHelper;
+    private final int[] starts = new int[COLUMNS];
+    private final int[] ends = new int[COLUMNS];
+    private byte[] buffer;
+    private int position;
+    private int length;
+    // number of bytes dropped from the beginning of the buffer
+    private long consumed;
+
+    public BlastResultParser(final String delimiter, final MessageHelper messageHelper) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.ERROR_EMPTY_RESULT_DELIMITER));
+        }
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.messageHelper = messageHelper;
+    }
+
+    /**
+     * Returns a set of all columns.
+     */
+    public static BitSet allColumns() {
+        final BitSet columns = new BitSet(COLUMNS);
+        columns.set(0, COLUMNS);
+        return columns;
+    }
+
+    /**
+     * Parses up to {@code limit} first lines of the stream, blank lines are skipped but counted.
+     * Columns which aren't in {@code columns} are left empty.
+     */
+    public List<BlastResultEntry> parse(final InputStream input, final int limit, final BitSet columns)
+            throws IOException {
+        final List<BlastResultEntry> entries = new ArrayList<>();
+        readLines(input, limit, Integer.MAX_VALUE, columns, null, null,
+                (entry, line, start, end) -> entries.add(entry));
+        return entries;
+    }
+
+    /**
+     * Passes up to {@code limit} entries matching {@code filter} to {@code consumer} one by one, the stream starts
+     * at {@code startOffset} of a result file. The filter is tested on an entry with {@code filterColumns} only,
+     * so lines which don't match aren't decoded completely.
+     * Returns the offset of the line following the last parsed one or -1 if there are no more lines.
+     */
+    public long parse(final InputStream input, final long startOffset, final int limit, final BitSet columns,
+                      final BitSet filterColumns, final Predicate<BlastResultEntry> filter,
+                      final Consumer<BlastResultEntry> consumer) throws IOException {
+        final long consumed = readLines(input, Integer.MAX_VALUE, limit, columns, filterColumns, filter,
+                (entry, line, start, end) -> consumer.accept(entry));
+        return consumed < 0 ? -1 : startOffset + consumed;
+    }
+
+    /**
+     * Passes all entries of the stream with all columns to {@code consumer} along with their line positions.
+     */
+    void scan(final InputStream input, final LineConsumer consumer) throws IOException {
+        readLines(input, Integer.MAX_VALUE, Integer.MAX_VALUE, allColumns(), null, null, consumer);
+    }
+
+    public BlastResultEntry parseLine(final String line, final BitSet columns) {
+        final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parseLine(bytes, 0, bytes.length, columns);
+    }
+
+    BlastResultEntry parseLine(final byte[] bytes, final int from, final int to, final BitSet columns) {
+        split(bytes, from, to);
+        return buildEntry(bytes, columns);
+    }
+
+    /**
+     * Reads lines until {@code lineLimit} lines are read or {@code entryLimit} entries are parsed,
+     * returns the number of consumed bytes or -1 if there are no more lines.
+     */
+    private long readLines(final InputStream input, final int lineLimit, final int entryLimit,
+                           final BitSet columns, final BitSet filterColumns,
+                           final Predicate<BlastResultEntry> filter, final LineConsumer consumer)
+            throws IOException {
+        buffer = new byte[BUFFER_SIZE];
+        position = 0;
+        length = 0;
+        consumed = 0;
+        int lines = 0;
+        int entries = 0;
+        int lineEnd;
+        while (lines < lineLimit && entries < entryLimit && (lineEnd = nextLineEnd(input)) >= 0) {
+            final int lineStart = position;
+            position = Math.min(lineEnd + 1, length);
+            lines++;
+            final int end = lineEnd > lineStart && buffer[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (isBlank(buffer, lineStart, end)) {
+                continue;
+            }
+            split(buffer, lineStart, end);
+            if (filter != null && !filter.test(buildEntry(buffer, filterColumns))) {
+                continue;
+            }
+            consumer.accept(buildEntry(buffer, columns), lines - 1, consumed + lineStart, consumed + position);
+            entries++;
+        }
+        // looking for the next line doesn't move the current position
+        return nextLineEnd(input) >= 0 ? consumed + position : -1;
+    }
+
+    private BlastResultEntry buildEntry(final byte[] bytes, final BitSet columns) {
+        return BlastResultEntry.builder()
+                .queryAccVersion(getString(bytes, 0, columns))
+                .queryLen(getLong(bytes, 1, columns))
+                .queryStart(getLong(bytes, 2, columns))
+                .queryEnd(getLong(bytes, 3, columns))
+                .qseq(getString(bytes, 4, columns))
+                .seqAccVersion(getString(bytes, 5, columns))
+                .seqSeqId(getString(bytes, 6, columns))
+                .seqLen(getLong(bytes, 7, columns))
+                .seqStart(getLong(bytes, 8, columns))
+                .seqEnd(getLong(bytes, 9, columns))
+                .sseq(getString(bytes, 10, columns))
+                .btop(getString(bytes, 11, columns))
+                .expValue(getDouble(bytes, 12, columns))
+                .bitScore(getDouble(bytes, 13, columns))
+                .score(getDouble(bytes, 14, columns))
+                .length(getLong(bytes, 15, columns))
+                .percentIdent(getDouble(bytes, 16, columns))
+                .numIdent(getLong(bytes, 17, columns))
+                .mismatch(getLong(bytes, 18, columns))
+                .positive(getLong(bytes, 19, columns))
+                .gapOpen(getLong(bytes, 20, columns))
+                .gaps(getLong(bytes, 21, columns))
+                .percentPos(getDouble(bytes, 22, columns))
+                .seqTaxId(getLong(bytes, 23, columns))
+                .seqSciName(getString(bytes, 24, columns))
+                .seqComName(getString(bytes, 25, columns))
+                .seqStrand(getString(bytes, 26, columns))
+                .queryCovS(getDouble(bytes, 27, columns))
+                .queryCovHsp(getDouble(bytes, 28, columns))
+                .queryCovUs(getDouble(bytes, 29, columns))
+                .build();
+    }
+
+    /**
+     * Finds the end of the next line, reading more data into the buffer if needed,
+     * returns -1 if there are no more lines.
+     */
+    private int nextLineEnd(final InputStream input) throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (position > 0) {
+                consumed += position;
+                System.arraycopy(buffer, position, buffer, 0, length - position);
+                length -= position;
+                position = 0;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            scanFrom = length;
+            final int read = input.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                // the last line may be not terminated
+                return length > position ? length : -1;
+            }
+            length += read;
+        }
+    }
+
+    private void split(final byte[] bytes, final int from, final int to) {
+        int column = 0;
+        int start = from;
+        int i = from;
+        while (i <= to - delimiter.length) {
+            if (matchesDelimiter(bytes, i)) {
+                addColumn(column++, start, i, bytes, from, to);
+                i += delimiter.length;
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        addColumn(column++, start, to, bytes, from, to);
+        if (column != COLUMNS) {
+            throw new IllegalArgumentException(messageHelper.getMessage(
+                    MessageConstants.ERROR_WHILE_PARSE_TASK_OUTPUT, COLUMNS, column));
+        }
+    }
+
+    private void addColumn(final int column, final int start, final int end,
+                           final byte[] bytes, final int from, final int to) {
+        if (column >= COLUMNS) {
+            // the line has more columns than expected, count them to report
+            throw new IllegalArgumentException(messageHelper.getMessage(
+                    MessageConstants.ERROR_WHILE_PARSE_TASK_OUTPUT, COLUMNS, countColumns(bytes, from, to)));
+        }
+        starts[column] = start;
+        ends[column] = end;
+    }
+
+    private int countColumns(final byte[] bytes, final int from, final int to) {
+        int count = 1;
+        int i = from;
+        while (i <= to - delimiter.length) {
+            if (matchesDelimiter(bytes, i)) {
+                count++;
+                i += delimiter.length;
+            } else {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    private boolean matchesDelimiter(final byte[] bytes, final int offset) {
+        for (int j = 0; j < delimiter.length; j++) {
+            if (bytes[offset + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getString(final byte[] bytes, final int column, final BitSet columns) {
+        if (!columns.get(column)) {
+            return null;
+        }
+        return new String(bytes, starts[column], ends[column] - starts[column], StandardCharsets.UTF_8);
+    }
+
+    private Long getLong(final byte[] bytes, final int column, final BitSet columns) {
+        final int from = starts[column];
+        final int to = ends[column];
+        if (!columns.get(column) || isEmptyValue(bytes, from, to)) {
+            return null;
+        }
+        int i = from;
+        final boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        if (i == to || to - i > 18) {
+            return parseWithFallback(bytes, from, to, Long::parseLong).longValue();
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw wrongFormat(bytes, from, to, null);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private Double getDouble(final byte[] bytes, final int column, final BitSet columns) {
+        final int from = starts[column];
+        final int to = ends[column];
+        if (!columns.get(column) || isEmptyValue(bytes, from, to)) {
+            return null;
+        }
+        final double value = parseDouble(bytes, from, to);
+        return Double.isNaN(value) ? parseWithFallback(bytes, from, to, Double::parseDouble).doubleValue() : value;
+    }
+
+    /**
+     * Parses a decimal number like {@code -12.345e-6} exactly as {@link Double#parseDouble} does,
+     * when the result can be computed with a single exact operation, otherwise returns NaN.
+     */
+    private static double parseDouble(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        final boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        for (; i < to; i++) {
+            final byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < to) {
+            i++;
+            final boolean negativeExponent = i < to && bytes[i] == '-';
+            if (i < to && (negativeExponent || bytes[i] == '+')) {
+                i++;
+            }
+            if (i == to || to - i > 3) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; i < to; i++) {
+                final int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return Double.NaN;
+                }
+                value = value * 10 + digit;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (Math.abs(exponent) > MAX_EXACT_POWER_OF_TEN) {
+            return Double.NaN;
+        }
+        final double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private Number parseWithFallback(final byte[] bytes, final int from, final int to,
+                                     final Function<String, Number> parser) {
+        final String value = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw wrongFormat(bytes, from, to, e);
+        }
+    }
+
+    private IllegalStateException wrongFormat(final byte[] bytes, final int from, final int to,
+                                              final NumberFormatException cause) {
+        return new IllegalStateException(messageHelper.getMessage(MessageConstants.ERROR_WRONG_FORMAT_OF_RESULT_STRING,
+                new String(bytes, from, to - from, StandardCharsets.UTF_8)), cause);
+    }
+
+    private static boolean isEmptyValue(final byte[] bytes, final int from, final int to) {
+        return isBlank(bytes, from, to) || Arrays.equals(bytes, from, to, NA, 0, NA.length);
+    }
+
+    private static boolean isBlank(final byte[] bytes, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,596 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import lombok.Value;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Columnar binary copy of a result file. Numeric columns are stored as primitive arrays, accessions, names and
+ * strands are dictionary encoded and other strings are stored as offsets in a block of bytes. The copy is memory
+ * mapped, so rows are filtered over primitive columns and only returned rows are decoded into entries.
+ * The copy is stored next to the result file and is built in background, when the task completes or after
+ * the first read of the result, readers parse the result file until the copy is ready. The copy is written
+ * column by column into temporary files while the result is parsed, so the build doesn't hold the result in memory.
+ * Results which are longer than the limit, have too many distinct values in a dictionary column or can't be parsed
+ * aren't copied, a stub is stored for them instead.
+ */
+final class ColumnarResult {
+
+    private static final int MAGIC = 0x424c4331;
+    private static final int NOT_COPIED = -1;
+    private static final int NO_ID = -1;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    // a NaN which differs from the one produced by parsing
+    private static final long NULL_DOUBLE = 0x7ff8_0000_0000_0badL;
+    // distinct values of a dictionary column are kept in memory while the copy is built
+    private static final int MAX_DICTIONARY_SIZE = 1 << 18;
+
+    private static final int QUERY_COLUMN = 0;
+    private static final int EVALUE_COLUMN = 12;
+    private static final int BITSCORE_COLUMN = 13;
+    private static final int PIDENT_COLUMN = 16;
+    private static final int TAXID_COLUMN = 23;
+
+    private enum Kind { LONG, DOUBLE, DICTIONARY, TEXT }
+
+    @Value
+    private static class Column {
+        Kind kind;
+        Function<BlastResultEntry, Object> value;
+    }
+
+    // in the order of BlastToolCommand.HEADERS
+    private static final List<Column> COLUMNS = List.of(
+            new Column(Kind.DICTIONARY, BlastResultEntry::getQueryAccVersion),
+            new Column(Kind.LONG, BlastResultEntry::getQueryLen),
+            new Column(Kind.LONG, BlastResultEntry::getQueryStart),
+            new Column(Kind.LONG, BlastResultEntry::getQueryEnd),
+            new Column(Kind.TEXT, BlastResultEntry::getQseq),
+            new Column(Kind.DICTIONARY, BlastResultEntry::getSeqAccVersion),
+            new Column(Kind.TEXT, BlastResultEntry::getSeqSeqId),
+            new Column(Kind.LONG, BlastResultEntry::getSeqLen),
+            new Column(Kind.LONG, BlastResultEntry::getSeqStart),
+            new Column(Kind.LONG, BlastResultEntry::getSeqEnd),
+            new Column(Kind.TEXT, BlastResultEntry::getSseq),
+            new Column(Kind.TEXT, BlastResultEntry::getBtop),
+            new Column(Kind.DOUBLE, BlastResultEntry::getExpValue),
+            new Column(Kind.DOUBLE, BlastResultEntry::getBitScore),
+            new Column(Kind.DOUBLE, BlastResultEntry::getScore),
+            new Column(Kind.LONG, BlastResultEntry::getLength),
+            new Column(Kind.DOUBLE, BlastResultEntry::getPercentIdent),
+            new Column(Kind.LONG, BlastResultEntry::getNumIdent),
+            new Column(Kind.LONG, BlastResultEntry::getMismatch),
+            new Column(Kind.LONG, BlastResultEntry::getPositive),
+            new Column(Kind.LONG, BlastResultEntry::getGapOpen),
+            new Column(Kind.LONG, BlastResultEntry::getGaps),
+            new Column(Kind.DOUBLE, BlastResultEntry::getPercentPos),
+            new Column(Kind.LONG, BlastResultEntry::getSeqTaxId),
+            new Column(Kind.DICTIONARY, BlastResultEntry::getSeqSciName),
+            new Column(Kind.DICTIONARY, BlastResultEntry::getSeqComName),
+            new Column(Kind.DICTIONARY, BlastResultEntry::getSeqStrand),
+            new Column(Kind.DOUBLE, BlastResultEntry::getQueryCovS),
+            new Column(Kind.DOUBLE, BlastResultEntry::getQueryCovHsp),
+            new Column(Kind.DOUBLE, BlastResultEntry::getQueryCovUs));
+
+    // magic, rows, result file size, content length, positions of columns, line starts, line ends and line numbers
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES + (COLUMNS.size() + 3) * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final long contentLength;
+    private final int[] positions;
+    private final int lineStarts;
+    private final int lineEnds;
+    private final int lineNumbers;
+
+    private ColumnarResult(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.rows = buffer.getInt(Integer.BYTES);
+        this.contentLength = buffer.getLong(2 * Integer.BYTES + Long.BYTES);
+        this.positions = new int[COLUMNS.size()];
+        final int start = 2 * Integer.BYTES + 2 * Long.BYTES;
+        for (int column = 0; column < positions.length; column++) {
+            positions[column] = buffer.getInt(start + column * Integer.BYTES);
+        }
+        this.lineStarts = buffer.getInt(start + positions.length * Integer.BYTES);
+        this.lineEnds = buffer.getInt(start + (positions.length + 1) * Integer.BYTES);
+        this.lineNumbers = buffer.getInt(start + (positions.length + 2) * Integer.BYTES);
+    }
+
+    /**
+     * Maps the columnar copy of a result file, returns null if the copy isn't built yet, is outdated or is a stub.
+     */
+    static ColumnarResult open(final Path result, final Path copy) throws IOException {
+        if (!isUpToDate(result, copy)) {
+            return null;
+        }
+        final ByteBuffer buffer = map(copy);
+        return buffer == null || buffer.getInt(Integer.BYTES) == NOT_COPIED ? null : new ColumnarResult(buffer);
+    }
+
+    /**
+     * Returns true if the copy or its stub is built for the current result file.
+     */
+    static boolean isUpToDate(final Path result, final Path copy) throws IOException {
+        if (!Files.exists(copy)
+                || Files.getLastModifiedTime(copy).compareTo(Files.getLastModifiedTime(result)) < 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return false;
+            }
+            final ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + Long.BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return false;
+                }
+            }
+            return header.getInt(0) == MAGIC && header.getLong(2 * Integer.BYTES) == Files.size(result);
+        }
+    }
+
+    /**
+     * Builds the columnar copy of a result file or its stub, if the result isn't copied.
+     * The copy is written to a temporary file first and replaces the previous one atomically,
+     * so concurrent readers never see it partially written.
+     */
+    static void build(final Path result, final Path copy, final ResultLineIndex.ContentReader reader,
+                      final BlastResultParser parser, final long maxContentLength) throws IOException {
+        final long size = Files.size(result);
+        final Path directory = copy.toAbsolutePath().getParent();
+        final Path columns = Files.createTempDirectory(directory, copy.getFileName().toString());
+        final Path temp = Files.createTempFile(directory, copy.getFileName().toString(), null);
+        try {
+            boolean parsed = true;
+            try (Builder builder = new Builder(columns);
+                 CountingInputStream input = new CountingInputStream(reader.open(0))) {
+                try {
+                    parser.scan(input, (entry, line, start, end) -> {
+                        if (end > maxContentLength) {
+                            throw new NotCopiedException();
+                        }
+                        builder.add(entry, line, start, end);
+                    });
+                } catch (NotCopiedException | IllegalArgumentException | IllegalStateException e) {
+                    // a result which can't be parsed is read as text, so errors are reported as before
+                    parsed = false;
+                }
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    if (!parsed || !builder.write(output, size, input.getByteCount())) {
+                        writeStub(output, size);
+                    }
+                }
+            }
+            Files.move(temp, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(temp);
+            FileUtils.deleteQuietly(columns.toFile());
+        }
+    }
+
+    /**
+     * Returns the first row which starts at {@code offset} of the content or later.
+     */
+    int findRow(final long offset) {
+        return search(lineStarts, offset);
+    }
+
+    /**
+     * Returns the first row which has line number {@code line} or greater.
+     */
+    int findLine(final long line) {
+        return search(lineNumbers, line);
+    }
+
+    /**
+     * Passes up to {@code limit} rows starting from {@code fromRow} which match filters of the query to
+     * {@code consumer}. Returns the offset of the line following the last passed row or -1 if there are no more
+     * lines, exactly as {@link BlastResultParser} does for the result file.
+     */
+    long read(final int fromRow, final int limit, final BlastResultQuery query,
+              final Consumer<BlastResultEntry> consumer) {
+        if (limit <= 0) {
+            return fromRow < rows ? getLong(lineStarts, fromRow) : -1;
+        }
+        final int queryId = query.getQueryAccVersion() == null
+                ? NO_ID
+                : findId(QUERY_COLUMN, query.getQueryAccVersion());
+        if (query.getQueryAccVersion() != null && queryId == NO_ID) {
+            return -1;
+        }
+        final long[] taxIds = CollectionUtils.isEmpty(query.getTaxIds())
+                ? null
+                : query.getTaxIds().stream().filter(Objects::nonNull).mapToLong(Long::longValue).sorted().toArray();
+        int returned = 0;
+        for (int row = fromRow; row < rows; row++) {
+            if (!matches(row, query, queryId, taxIds)) {
+                continue;
+            }
+            consumer.accept(toEntry(row));
+            returned++;
+            if (returned == limit) {
+                final long next = getLong(lineEnds, row);
+                return next < contentLength ? next : -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(final int row, final BlastResultQuery query, final int queryId, final long[] taxIds) {
+        if (queryId != NO_ID && buffer.getInt(positions[QUERY_COLUMN] + row * Integer.BYTES) != queryId) {
+            return false;
+        }
+        if (query.getMaxExpValue() != null) {
+            final long bits = getLong(positions[EVALUE_COLUMN], row);
+            if (bits == NULL_DOUBLE || Double.longBitsToDouble(bits) > query.getMaxExpValue()) {
+                return false;
+            }
+        }
+        if (!isAtLeast(PIDENT_COLUMN, row, query.getMinPercentIdent())
+                || !isAtLeast(BITSCORE_COLUMN, row, query.getMinBitScore())) {
+            return false;
+        }
+        if (taxIds != null) {
+            final long taxId = getLong(positions[TAXID_COLUMN], row);
+            return taxId != NULL_LONG && Arrays.binarySearch(taxIds, taxId) >= 0;
+        }
+        return true;
+    }
+
+    private boolean isAtLeast(final int column, final int row, final Double min) {
+        if (min == null) {
+            return true;
+        }
+        final long bits = getLong(positions[column], row);
+        return bits != NULL_DOUBLE && Double.longBitsToDouble(bits) >= min;
+    }
+
+    private BlastResultEntry toEntry(final int row) {
+        return BlastResultEntry.builder()
+                .queryAccVersion(getString(0, row))
+                .queryLen(getLongValue(1, row))
+                .queryStart(getLongValue(2, row))
+                .queryEnd(getLongValue(3, row))
+                .qseq(getString(4, row))
+                .seqAccVersion(getString(5, row))
+                .seqSeqId(getString(6, row))
+                .seqLen(getLongValue(7, row))
+                .seqStart(getLongValue(8, row))
+                .seqEnd(getLongValue(9, row))
+                .sseq(getString(10, row))
+                .btop(getString(11, row))
+                .expValue(getDoubleValue(12, row))
+                .bitScore(getDoubleValue(13, row))
+                .score(getDoubleValue(14, row))
+                .length(getLongValue(15, row))
+                .percentIdent(getDoubleValue(16, row))
+                .numIdent(getLongValue(17, row))
+                .mismatch(getLongValue(18, row))
+                .positive(getLongValue(19, row))
+                .gapOpen(getLongValue(20, row))
+                .gaps(getLongValue(21, row))
+                .percentPos(getDoubleValue(22, row))
+                .seqTaxId(getLongValue(23, row))
+                .seqSciName(getString(24, row))
+                .seqComName(getString(25, row))
+                .seqStrand(getString(26, row))
+                .queryCovS(getDoubleValue(27, row))
+                .queryCovHsp(getDoubleValue(28, row))
+                .queryCovUs(getDoubleValue(29, row))
+                .build();
+    }
+
+    private Long getLongValue(final int column, final int row) {
+        final long value = getLong(positions[column], row);
+        return value == NULL_LONG ? null : value;
+    }
+
+    private Double getDoubleValue(final int column, final int row) {
+        final long bits = getLong(positions[column], row);
+        return bits == NULL_DOUBLE ? null : Double.longBitsToDouble(bits);
+    }
+
+    private String getString(final int column, final int row) {
+        final int position = positions[column];
+        if (COLUMNS.get(column).getKind() == Kind.DICTIONARY) {
+            final int values = position + rows * Integer.BYTES;
+            return decode(values + Integer.BYTES, buffer.getInt(values), buffer.getInt(position + row * Integer.BYTES));
+        }
+        return decode(position, rows, row);
+    }
+
+    /**
+     * Decodes the string with number {@code index} of a block of {@code count} strings at {@code position}.
+     */
+    private String decode(final int position, final int count, final int index) {
+        final int bytes = position + (count + 1) * Integer.BYTES;
+        final int from = buffer.getInt(position + index * Integer.BYTES);
+        final int to = buffer.getInt(position + (index + 1) * Integer.BYTES);
+        final byte[] value = new byte[to - from];
+        buffer.duplicate().position(bytes + from).get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private int findId(final int column, final String value) {
+        final int values = positions[column] + rows * Integer.BYTES;
+        final int count = buffer.getInt(values);
+        final byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        final int offsets = values + Integer.BYTES;
+        final int bytes = offsets + (count + 1) * Integer.BYTES;
+        for (int id = 0; id < count; id++) {
+            final int from = buffer.getInt(offsets + id * Integer.BYTES);
+            final int to = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+            if (to - from == expected.length
+                    && buffer.slice().position(bytes + from).limit(bytes + to).equals(ByteBuffer.wrap(expected))) {
+                return id;
+            }
+        }
+        return NO_ID;
+    }
+
+    private long getLong(final int position, final int row) {
+        return buffer.getLong(position + row * Long.BYTES);
+    }
+
+    /**
+     * Returns the first row which value in the ascending column at {@code position} is at least {@code value}.
+     */
+    private int search(final int position, final long value) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (getLong(position, middle) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static ByteBuffer map(final Path copy) throws IOException {
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return buffer.getInt(0) == MAGIC ? buffer : null;
+        }
+    }
+
+    private static void writeStub(final DataOutputStream output, final long size) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(NOT_COPIED);
+        output.writeLong(size);
+        output.write(new byte[HEADER_SIZE - 2 * Integer.BYTES - Long.BYTES]);
+    }
+
+    /**
+     * Thrown to stop reading of a result which is too long or has too many distinct values to be copied.
+     */
+    private static final class NotCopiedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Writes each column of a result into its own temporary file, only dictionaries are kept in memory.
+     */
+    private static final class Builder implements Closeable {
+
+        private final Path directory;
+        private final DataOutputStream[] values = new DataOutputStream[COLUMNS.size()];
+        private final DataOutputStream[] texts = new DataOutputStream[COLUMNS.size()];
+        private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        private final DataOutputStream lineStarts;
+        private final DataOutputStream lineEnds;
+        private final DataOutputStream lineNumbers;
+        private int rows;
+
+        Builder(final Path directory) throws IOException {
+            this.directory = directory;
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                dictionaries.add(null);
+                values[column] = open("values" + column);
+                switch (COLUMNS.get(column).getKind()) {
+                    case DICTIONARY:
+                        dictionaries.set(column, new LinkedHashMap<>());
+                        break;
+                    case TEXT:
+                        texts[column] = open("text" + column);
+                        // offsets of strings in the block of bytes start from zero
+                        values[column].writeInt(0);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.lineStarts = open("starts");
+            this.lineEnds = open("ends");
+            this.lineNumbers = open("numbers");
+        }
+
+        void add(final BlastResultEntry entry, final long line, final long start, final long end) {
+            try {
+                lineStarts.writeLong(start);
+                lineEnds.writeLong(end);
+                lineNumbers.writeLong(line);
+                for (int column = 0; column < COLUMNS.size(); column++) {
+                    final Column definition = COLUMNS.get(column);
+                    final Object value = definition.getValue().apply(entry);
+                    switch (definition.getKind()) {
+                        case LONG:
+                            values[column].writeLong(value == null ? NULL_LONG : (Long) value);
+                            break;
+                        case DOUBLE:
+                            values[column].writeLong(value == null
+                                    ? NULL_DOUBLE
+                                    : Double.doubleToRawLongBits((Double) value));
+                            break;
+                        case DICTIONARY:
+                            final Map<String, Integer> dictionary = dictionaries.get(column);
+                            final Integer id = dictionary.computeIfAbsent((String) value, key -> dictionary.size());
+                            if (dictionary.size() > MAX_DICTIONARY_SIZE) {
+                                throw new NotCopiedException();
+                            }
+                            values[column].writeInt(id);
+                            break;
+                        default:
+                            texts[column].write(((String) value).getBytes(StandardCharsets.UTF_8));
+                            // the counter of written bytes stops at the max int value
+                            if (texts[column].size() == Integer.MAX_VALUE) {
+                                throw new NotCopiedException();
+                            }
+                            values[column].writeInt(texts[column].size());
+                            break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        /**
+         * Writes the copy from column files, returns false if it doesn't fit in a single mapped buffer.
+         */
+        boolean write(final DataOutputStream output, final long size, final long contentLength)
+                throws IOException {
+            close();
+            final List<byte[][]> encodedDictionaries = new ArrayList<>();
+            final int[] positions = new int[COLUMNS.size()];
+            long position = HEADER_SIZE;
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                positions[column] = (int) Math.min(position, Integer.MAX_VALUE);
+                encodedDictionaries.add(null);
+                switch (COLUMNS.get(column).getKind()) {
+                    case LONG:
+                    case DOUBLE:
+                        position += (long) rows * Long.BYTES;
+                        break;
+                    case DICTIONARY:
+                        final byte[][] encoded = dictionaries.get(column).keySet().stream()
+                                .map(value -> value.getBytes(StandardCharsets.UTF_8))
+                                .toArray(byte[][]::new);
+                        encodedDictionaries.set(column, encoded);
+                        position += (long) rows * Integer.BYTES + Integer.BYTES
+                                + (encoded.length + 1L) * Integer.BYTES
+                                + Arrays.stream(encoded).mapToLong(value -> value.length).sum();
+                        break;
+                    default:
+                        position += (rows + 1L) * Integer.BYTES + texts[column].size();
+                        break;
+                }
+            }
+            final long lines = position;
+            position += 3L * rows * Long.BYTES;
+            if (position > Integer.MAX_VALUE) {
+                return false;
+            }
+            output.writeInt(MAGIC);
+            output.writeInt(rows);
+            output.writeLong(size);
+            output.writeLong(contentLength);
+            for (int column : positions) {
+                output.writeInt(column);
+            }
+            output.writeInt((int) lines);
+            output.writeInt((int) lines + rows * Long.BYTES);
+            output.writeInt((int) lines + 2 * rows * Long.BYTES);
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                Files.copy(directory.resolve("values" + column), output);
+                switch (COLUMNS.get(column).getKind()) {
+                    case DICTIONARY:
+                        writeDictionary(output, encodedDictionaries.get(column));
+                        break;
+                    case TEXT:
+                        Files.copy(directory.resolve("text" + column), output);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            Files.copy(directory.resolve("starts"), output);
+            Files.copy(directory.resolve("ends"), output);
+            Files.copy(directory.resolve("numbers"), output);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                IOUtils.close(values[column], texts[column]);
+            }
+            IOUtils.close(lineStarts, lineEnds, lineNumbers);
+        }
+
+        private DataOutputStream open(final String name) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(name))));
+        }
+
+        private static void writeDictionary(final DataOutputStream output, final byte[][] values)
+                throws IOException {
+            output.writeInt(values.length);
+            int offset = 0;
+            output.writeInt(offset);
+            for (byte[] value : values) {
+                offset += value.length;
+                output.writeInt(offset);
+            }
+            for (byte[] value : values) {
+                output.write(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import lombok.Value;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Writes and reads gzip compressed result files. A file is a single gzip member which keeps the length
+ * of uncompressed content in the extra field of its header, so the content can be served as is or
+ * with other data prepended without decompression: see {@link #header()}, {@link #deflate(byte[])}
+ * and {@link #trailer(int, long)}.
+ * The content is compressed in blocks: the compressor is fully flushed at the end of each block, so a block
+ * doesn't refer to data of previous ones and can be decompressed starting from its first byte. Compressed
+ * offsets of blocks are kept in the extra field too, so reading from an offset decompresses a single block
+ * at most before the offset.
+ */
+final class GzipFiles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final byte FLAG_EXTRA = 4;
+    private static final byte OS_UNKNOWN = (byte) 255;
+    private static final byte[] LENGTH_FIELD_ID = {'B', 'L'};
+    private static final byte[] BLOCKS_FIELD_ID = {'B', 'K'};
+    // subfield id, subfield length and uncompressed length
+    private static final int LENGTH_FIELD_SIZE = LENGTH_FIELD_ID.length + Short.BYTES + Long.BYTES;
+    // subfield id, subfield length and block size followed by offsets of blocks
+    private static final int BLOCKS_FIELD_SIZE = BLOCKS_FIELD_ID.length + Short.BYTES + Long.BYTES;
+    private static final long MIN_BLOCK_SIZE = 256 * 1024;
+    // offsets of blocks fit in the extra field, which is limited to 64 KB
+    private static final int MAX_BLOCKS = 4096;
+    private static final int CRC_POLYNOMIAL = 0xedb88320;
+    private static final int GF2_DIMENSION = 32;
+
+    private GzipFiles() {
+    }
+
+    /**
+     * Position of compressed data and parameters of uncompressed content of a gzip file.
+     */
+    @Value
+    static class Info {
+        long dataStart;
+        long dataEnd;
+        long length;
+        int crc;
+        // uncompressed size of blocks and compressed offsets of their starts, empty if blocks aren't indexed
+        long blockSize;
+        long[] blockOffsets;
+    }
+
+    static void compress(final Path source, final Path target) throws IOException {
+        final long length = Files.size(source);
+        final long blockSize = Math.max(MIN_BLOCK_SIZE, (length + MAX_BLOCKS - 1) / MAX_BLOCKS);
+        final long[] blockOffsets = new long[(int) Math.max(1, (length + blockSize - 1) / blockSize)];
+        final byte[] header = header(length, blockSize, blockOffsets);
+        final CRC32 crc = new CRC32();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (InputStream input = Files.newInputStream(source);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            final CountingOutputStream output = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            output.write(header);
+            blockOffsets[0] = header.length;
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final byte[] compressed = new byte[BUFFER_SIZE];
+            long total = 0;
+            int read;
+            while ((read = input.read(buffer, 0, (int) Math.min(buffer.length, blockSize - total % blockSize))) >= 0) {
+                crc.update(buffer, 0, read);
+                deflater.setInput(buffer, 0, read);
+                while (!deflater.needsInput()) {
+                    output.write(compressed, 0, deflater.deflate(compressed, 0, compressed.length));
+                }
+                total += read;
+                if (total % blockSize == 0 && total < length) {
+                    flush(deflater, output, compressed, Deflater.FULL_FLUSH);
+                    blockOffsets[(int) (total / blockSize)] = output.getByteCount();
+                }
+            }
+            if (total != length) {
+                throw new IOException(String.format("File %s was changed while it was compressed", source));
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                output.write(compressed, 0, deflater.deflate(compressed, 0, compressed.length));
+            }
+            output.write(trailer((int) crc.getValue(), length));
+            output.flush();
+            // offsets of blocks are known after compression, they are written in place of the reserved ones
+            final ByteBuffer offsets = ByteBuffer.allocate(blockOffsets.length * Long.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            Arrays.stream(blockOffsets).forEach(offsets::putLong);
+            offsets.flip();
+            final long position = header.length - offsets.remaining();
+            while (offsets.hasRemaining()) {
+                channel.write(offsets, position + offsets.position());
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static Info readInfo(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readInfo(channel, file);
+        }
+    }
+
+    /**
+     * Opens uncompressed content of the file starting from {@code offset}. Decompression starts from the block
+     * of the offset, files without offsets of blocks are decompressed from the start.
+     */
+    static InputStream open(final Path file, final long offset) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        InputStream input = Channels.newInputStream(channel);
+        try {
+            final Info info = readInfo(channel, file);
+            final long skip;
+            if (info.getBlockOffsets().length == 0) {
+                input = new GZIPInputStream(input, BUFFER_SIZE);
+                skip = offset;
+            } else {
+                final int block = (int) Math.min(offset / info.getBlockSize(), info.getBlockOffsets().length - 1);
+                channel.position(info.getBlockOffsets()[block]);
+                final Inflater inflater = new Inflater(true);
+                input = new InflaterInputStream(input, inflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+                skip = offset - block * info.getBlockSize();
+            }
+            IOUtils.skipFully(input, skip);
+            return input;
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Header of a gzip member without optional fields.
+     */
+    static byte[] header() {
+        return new byte[] {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, OS_UNKNOWN};
+    }
+
+    /**
+     * Compresses the data into non-final deflate blocks, other deflate blocks may follow them.
+     */
+    static byte[] deflate(final byte[] data) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int written;
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                output.write(buffer, 0, written);
+            } while (written == buffer.length);
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] trailer(final int crc, final long length) {
+        return ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(crc)
+                .putInt((int) length)
+                .array();
+    }
+
+    static int crc(final byte[] data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns CRC-32 of two concatenated blocks of data by their checksums, the same way as
+     * {@code crc32_combine} of zlib does.
+     */
+    static int combineCrc(final int crc1, final int crc2, final long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[GF2_DIMENSION];
+        final long[] odd = new long[GF2_DIMENSION];
+        // operator for one zero bit
+        odd[0] = CRC_POLYNOMIAL & 0xffffffffL;
+        long row = 1;
+        for (int n = 1; n < GF2_DIMENSION; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operators for two and four zero bits
+        square(even, odd);
+        square(odd, even);
+        long crc = crc1 & 0xffffffffL;
+        long length = length2;
+        // apply operators for zero bytes of the second block, a byte at a time is too slow
+        while (length != 0) {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                crc = times(even, crc);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            length >>= 1;
+        }
+        return (int) (crc ^ (crc2 & 0xffffffffL));
+    }
+
+    /**
+     * Header with the length of uncompressed content and offsets of blocks, offsets go at the end of the header.
+     */
+    private static byte[] header(final long length, final long blockSize, final long[] blockOffsets) {
+        final byte[] header = header();
+        header[3] = FLAG_EXTRA;
+        final int blocksSize = blockOffsets.length * Long.BYTES;
+        final ByteBuffer buffer = ByteBuffer
+                .allocate(HEADER_SIZE + Short.BYTES + LENGTH_FIELD_SIZE + BLOCKS_FIELD_SIZE + blocksSize)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .put(header)
+                .putShort((short) (LENGTH_FIELD_SIZE + BLOCKS_FIELD_SIZE + blocksSize))
+                .put(LENGTH_FIELD_ID)
+                .putShort((short) Long.BYTES)
+                .putLong(length)
+                .put(BLOCKS_FIELD_ID)
+                .putShort((short) (Long.BYTES + blocksSize))
+                .putLong(blockSize);
+        Arrays.stream(blockOffsets).forEach(buffer::putLong);
+        return buffer.array();
+    }
+
+    private static Info readInfo(final FileChannel channel, final Path file) throws IOException {
+        final ByteBuffer header = read(channel, 0, HEADER_SIZE + Short.BYTES);
+        if (header.get(0) != (byte) 0x1f || header.get(1) != (byte) 0x8b || header.get(3) != FLAG_EXTRA) {
+            throw new IOException(String.format("File %s isn't a compressed result", file));
+        }
+        final int extraSize = Short.toUnsignedInt(header.getShort(HEADER_SIZE));
+        final ByteBuffer extra = read(channel, HEADER_SIZE + Short.BYTES, extraSize);
+        final long dataStart = HEADER_SIZE + Short.BYTES + extraSize;
+        extra.rewind();
+        Long length = null;
+        long blockSize = 0;
+        long[] blockOffsets = new long[0];
+        while (extra.remaining() >= 2 + Short.BYTES) {
+            final byte first = extra.get();
+            final byte second = extra.get();
+            final int size = Short.toUnsignedInt(extra.getShort());
+            if (size > extra.remaining()) {
+                break;
+            }
+            final ByteBuffer field = extra.slice().order(ByteOrder.LITTLE_ENDIAN).limit(size);
+            extra.position(extra.position() + size);
+            if (first == LENGTH_FIELD_ID[0] && second == LENGTH_FIELD_ID[1] && size == Long.BYTES) {
+                length = field.getLong();
+            } else if (first == BLOCKS_FIELD_ID[0] && second == BLOCKS_FIELD_ID[1] && size >= Long.BYTES) {
+                blockSize = field.getLong();
+                blockOffsets = new long[field.remaining() / Long.BYTES];
+                field.asLongBuffer().get(blockOffsets);
+            }
+        }
+        if (length == null || channel.size() < dataStart + TRAILER_SIZE
+                || (blockSize <= 0 && blockOffsets.length > 0)) {
+            throw new IOException(String.format("File %s isn't a compressed result", file));
+        }
+        final ByteBuffer trailer = read(channel, channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+        return new Info(dataStart, channel.size() - TRAILER_SIZE, length, trailer.getInt(0), blockSize,
+                blockOffsets);
+    }
+
+    private static void flush(final Deflater deflater, final OutputStream output, final byte[] buffer,
+                              final int mode) throws IOException {
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, mode);
+            output.write(buffer, 0, written);
+        } while (written == buffer.length);
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int size)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer;
+    }
+
+    private static long times(final long[] matrix, final long vector) {
+        long sum = 0;
+        long rest = vector;
+        for (int i = 0; rest != 0; i++, rest >>>= 1) {
+            if ((rest & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(final long[] square, final long[] matrix) {
+        for (int n = 0; n < GF2_DIMENSION; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
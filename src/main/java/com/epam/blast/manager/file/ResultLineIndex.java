@@ -0,0 +1,175 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index of line offsets of a result file. The index keeps the offset of every {@link #STEP}-th line,
+ * so any line is found by reading one index entry and scanning less than {@link #STEP} lines of the result.
+ * Offsets are positions in the content of the result, which is decompressed if the file is compressed.
+ * The index is stored next to the result file and is rebuilt when the result file is changed.
+ */
+final class ResultLineIndex {
+
+    static final int STEP = 1024;
+
+    // result file size, content length and number of lines
+    private static final int HEADER_SIZE = 3 * Long.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ResultLineIndex() {
+    }
+
+    /**
+     * Opens the content of a result file starting from the offset.
+     */
+    @FunctionalInterface
+    interface ContentReader {
+        InputStream open(long offset) throws IOException;
+    }
+
+    /**
+     * Returns the offset of the line with number {@code line} counting from zero,
+     * or the length of the content if it has fewer lines.
+     */
+    static long findLineOffset(final Path result, final Path index, final long line,
+                               final ContentReader reader) throws IOException {
+        final long size = Files.size(result);
+        if (!isUpToDate(result, index, size)) {
+            build(index, size, reader);
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            if (line >= readLong(channel, 2 * Long.BYTES)) {
+                return readLong(channel, Long.BYTES);
+            }
+            final long indexed = readLong(channel, HEADER_SIZE + line / STEP * Long.BYTES);
+            return skipLines(reader, indexed, line % STEP);
+        }
+    }
+
+    private static boolean isUpToDate(final Path result, final Path index, final long size) throws IOException {
+        if (!Files.exists(index)
+                || Files.getLastModifiedTime(index).compareTo(Files.getLastModifiedTime(result)) < 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            return channel.size() >= HEADER_SIZE && readLong(channel, 0) == size;
+        }
+    }
+
+    private static void build(final Path index, final long size, final ContentReader reader) throws IOException {
+        long[] offsets = new long[16];
+        long lines = 0;
+        long length = 0;
+        boolean lineStart = true;
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = reader.open(0)) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    if (lineStart) {
+                        if (lines % STEP == 0) {
+                            final int entry = (int) (lines / STEP);
+                            if (entry == offsets.length) {
+                                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                            }
+                            offsets[entry] = length + i;
+                        }
+                        lines++;
+                        lineStart = false;
+                    }
+                    if (buffer[i] == '\n') {
+                        lineStart = true;
+                    }
+                }
+                length += read;
+            }
+        }
+        // the index is written to a temporary file first, so concurrent readers never see it partially written
+        final Path temp = Files.createTempFile(index.toAbsolutePath().getParent(),
+                index.getFileName().toString(), null);
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeLong(size);
+                output.writeLong(length);
+                output.writeLong(lines);
+                for (int entry = 0; entry < (lines + STEP - 1) / STEP; entry++) {
+                    output.writeLong(offsets[entry]);
+                }
+            }
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long skipLines(final ContentReader reader, final long offset, final long lines)
+            throws IOException {
+        if (lines == 0) {
+            return offset;
+        }
+        try (InputStream input = reader.open(offset)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long position = offset;
+            long skipped = 0;
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    skipped++;
+                    if (skipped == lines) {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return position;
+        }
+    }
+
+    private static long readLong(final FileChannel channel, final long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Line index is truncated");
+            }
+        }
+        return buffer.getLong(0);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastQuerySummary;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
+import com.epam.blast.entity.blasttool.BlastTaxonSummary;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Per query summary of a result file. The summary is computed in a single pass over result entries and is
+ * stored next to the result file, so it's read without reading the result again until the result is changed.
+ * A hit is a subject sequence found for the query, so several alignments (HSPs) of one subject are one hit.
+ */
+final class ResultSummaryFile {
+
+    static final int TOP_TAXA = 5;
+    // summaries stored in another format are computed again, 1 counted result lines as hits
+    private static final int FORMAT_VERSION = 2;
+
+    private ResultSummaryFile() {
+    }
+
+    /**
+     * Passes all entries of a result to the consumer.
+     */
+    @FunctionalInterface
+    interface EntrySource {
+        void forEach(Consumer<BlastResultEntry> consumer);
+    }
+
+    /**
+     * Returns the summary of the result, the summary is computed from {@code source} if it isn't stored yet
+     * or is outdated.
+     */
+    static BlastResultSummary load(final Path result, final Path summary, final EntrySource source)
+            throws IOException {
+        final long size = Files.size(result);
+        if (Files.exists(summary)
+                && Files.getLastModifiedTime(summary).compareTo(Files.getLastModifiedTime(result)) >= 0) {
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(summary)))) {
+                if (input.readInt() == FORMAT_VERSION && input.readLong() == size) {
+                    return read(input);
+                }
+            }
+        }
+        final Map<String, QueryStatistics> statistics = new LinkedHashMap<>();
+        source.forEach(entry -> statistics
+                .computeIfAbsent(entry.getQueryAccVersion(), query -> new QueryStatistics())
+                .add(entry));
+        final BlastResultSummary computed = BlastResultSummary.builder()
+                .hitCount(statistics.values().stream().mapToLong(query -> query.hitCount).sum())
+                .queries(statistics.entrySet().stream()
+                        .map(query -> query.getValue().toSummary(query.getKey()))
+                        .collect(Collectors.toList()))
+                .build();
+        write(summary, size, computed);
+        return computed;
+    }
+
+    private static BlastResultSummary read(final DataInputStream input) throws IOException {
+        final long hitCount = input.readLong();
+        final int queries = input.readInt();
+        final List<BlastQuerySummary> summaries = new ArrayList<>(queries);
+        for (int query = 0; query < queries; query++) {
+            final BlastQuerySummary.BlastQuerySummaryBuilder summary = BlastQuerySummary.builder()
+                    .queryAccVersion(input.readUTF())
+                    .hitCount(input.readLong())
+                    .bestExpValue(readDouble(input))
+                    .bestBitScore(readDouble(input))
+                    .queryCoverage(readDouble(input));
+            final int taxa = input.readInt();
+            final List<BlastTaxonSummary> topTaxa = new ArrayList<>(taxa);
+            for (int taxon = 0; taxon < taxa; taxon++) {
+                topTaxa.add(BlastTaxonSummary.builder()
+                        .taxId(input.readLong())
+                        .sciName(input.readUTF())
+                        .hitCount(input.readLong())
+                        .build());
+            }
+            summaries.add(summary.topTaxa(topTaxa).build());
+        }
+        return BlastResultSummary.builder().hitCount(hitCount).queries(summaries).build();
+    }
+
+    private static void write(final Path summary, final long size, final BlastResultSummary computed)
+            throws IOException {
+        // the summary is written to a temporary file first, so concurrent readers never see it partially written
+        final Path temp = Files.createTempFile(summary.toAbsolutePath().getParent(),
+                summary.getFileName().toString(), null);
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(size);
+                output.writeLong(computed.getHitCount());
+                output.writeInt(computed.getQueries().size());
+                for (BlastQuerySummary query : computed.getQueries()) {
+                    output.writeUTF(query.getQueryAccVersion());
+                    output.writeLong(query.getHitCount());
+                    writeDouble(output, query.getBestExpValue());
+                    writeDouble(output, query.getBestBitScore());
+                    writeDouble(output, query.getQueryCoverage());
+                    output.writeInt(query.getTopTaxa().size());
+                    for (BlastTaxonSummary taxon : query.getTopTaxa()) {
+                        output.writeLong(taxon.getTaxId());
+                        output.writeUTF(StringUtils.defaultString(taxon.getSciName()));
+                        output.writeLong(taxon.getHitCount());
+                    }
+                }
+            }
+            Files.move(temp, summary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Double readDouble(final DataInputStream input) throws IOException {
+        final double value = input.readDouble();
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static void writeDouble(final DataOutputStream output, final Double value) throws IOException {
+        output.writeDouble(value == null ? Double.NaN : value);
+    }
+
+    /**
+     * Statistics of hits of a single query collected while the result is read.
+     */
+    private static final class QueryStatistics {
+
+        private final Map<Long, TaxonStatistics> taxa = new HashMap<>();
+        private final Set<String> subjects = new HashSet<>();
+        private long hitCount;
+        private Double bestExpValue;
+        private Double bestBitScore;
+        private Double queryCoverage;
+
+        void add(final BlastResultEntry entry) {
+            // an entry without the subject accession can't be matched with others, so it's a hit by itself
+            final boolean newSubject = entry.getSeqAccVersion() == null || subjects.add(entry.getSeqAccVersion());
+            if (newSubject) {
+                hitCount++;
+            }
+            bestExpValue = best(bestExpValue, entry.getExpValue(), Comparator.reverseOrder());
+            bestBitScore = best(bestBitScore, entry.getBitScore(), Comparator.naturalOrder());
+            queryCoverage = best(queryCoverage, entry.getQueryCovS(), Comparator.naturalOrder());
+            if (newSubject && entry.getSeqTaxId() != null) {
+                taxa.computeIfAbsent(entry.getSeqTaxId(), taxId -> new TaxonStatistics(entry.getSeqSciName()))
+                        .hitCount++;
+            }
+        }
+
+        BlastQuerySummary toSummary(final String queryAccVersion) {
+            return BlastQuerySummary.builder()
+                    .queryAccVersion(queryAccVersion)
+                    .hitCount(hitCount)
+                    .bestExpValue(bestExpValue)
+                    .bestBitScore(bestBitScore)
+                    .queryCoverage(queryCoverage)
+                    .topTaxa(taxa.entrySet().stream()
+                            .sorted(Comparator.comparingLong(
+                                    (Map.Entry<Long, TaxonStatistics> taxon) -> taxon.getValue().hitCount)
+                                    .reversed()
+                                    .thenComparing(Map.Entry::getKey))
+                            .limit(TOP_TAXA)
+                            .map(taxon -> BlastTaxonSummary.builder()
+                                    .taxId(taxon.getKey())
+                                    .sciName(taxon.getValue().sciName)
+                                    .hitCount(taxon.getValue().hitCount)
+                                    .build())
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+
+        /**
+         * Returns the greater of two values in the order, a missing value is never the greater one.
+         */
+        private static Double best(final Double current, final Double value, final Comparator<Double> order) {
+            if (value == null) {
+                return current;
+            }
+            return current == null || order.compare(value, current) > 0 ? value : current;
+        }
+    }
+
+    private static final class TaxonStatistics {
+
+        private final String sciName;
+        private long hitCount;
+
+        TaxonStatistics(final String sciName) {
+            this.sciName = sciName;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Selects the best entries of a result in a single pass. Entries are kept in bounded heaps, either one heap for
+ * the whole result or one heap per query accession, so only {@code limit} entries per heap are held in memory.
+ * Entries which are equal in the order keep the order of the result file.
+ */
+final class TopHits {
+
+    private final Comparator<Ranked> order;
+    private final int limit;
+    private final boolean perQuery;
+    private final Map<String, PriorityQueue<Ranked>> heaps = new LinkedHashMap<>();
+    private long sequence;
+
+    /**
+     * Creates a selection of {@code limit} best entries in total or for every query if {@code perQuery} is set.
+     */
+    TopHits(final Comparator<BlastResultEntry> order, final int limit, final boolean perQuery) {
+        this.order = Comparator.comparing(Ranked::getEntry, order).thenComparingLong(Ranked::getSequence);
+        this.limit = limit;
+        this.perQuery = perQuery;
+    }
+
+    void add(final BlastResultEntry entry) {
+        if (limit <= 0) {
+            return;
+        }
+        // the worst entry is on the top of a heap, so it's replaced when a better one comes
+        final PriorityQueue<Ranked> heap = heaps.computeIfAbsent(
+                perQuery ? entry.getQueryAccVersion() : null, key -> new PriorityQueue<>(order.reversed()));
+        final Ranked ranked = new Ranked(entry, sequence);
+        sequence++;
+        if (heap.size() < limit) {
+            heap.add(ranked);
+        } else if (order.compare(ranked, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(ranked);
+        }
+    }
+
+    /**
+     * Passes selected entries to {@code consumer} skipping first {@code skip} ones. Entries are passed best first,
+     * entries of different queries are grouped in the order queries appear in the result.
+     */
+    void emit(final long skip, final int count, final Consumer<BlastResultEntry> consumer) {
+        long skipped = 0;
+        int emitted = 0;
+        for (PriorityQueue<Ranked> heap : heaps.values()) {
+            final List<Ranked> entries = new ArrayList<>(heap);
+            entries.sort(order);
+            for (Ranked ranked : entries) {
+                if (emitted == count) {
+                    return;
+                }
+                if (skipped < skip) {
+                    skipped++;
+                    continue;
+                }
+                consumer.accept(ranked.getEntry());
+                emitted++;
+            }
+        }
+    }
+
+    @Value
+    private static class Ranked {
+        BlastResultEntry entry;
+        long sequence;
+    }
+}
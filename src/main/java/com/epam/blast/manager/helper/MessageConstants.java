@@ -60,8 +60,40 @@ public final class MessageConstants {
     public static final String INFO_TASK_WAS_CANCELLED_BY_RESTART = "info.task.was.cancelled.by.restart";
     public static final String DEBUG_RUN_CLEANUP = "debug.run.startup.cleanup";
     public static final String DEBUG_STARTUP_DISTRIBUTED = "debug.run.startup.distributed.setup";
-    public static final String WARN_TASK_IS_IN_RUNNING_STATE_AFTER_STARTUP
-            = "warn.task.is.in.running.state.after.startup";
+    public static final String INFO_NODE_ID = "info.node.id";
+    public static final String DEBUG_TASK_CREATED_DISPATCH = "debug.task.created.dispatch";
+    public static final String WARN_TASK_LEASE_EXPIRED = "warn.task.lease.expired";
+    public static final String INFO_TASK_REATTACHED = "info.task.reattached";
+    public static final String INFO_TASK_REQUEUED = "info.task.requeued";
+    public static final String INFO_TASK_NOT_COMPLETED_BY_JOB = "info.task.not.completed.by.job";
+    public static final String INFO_TASK_SPLIT_INTO_CHUNKS = "info.task.split.into.chunks";
+    public static final String INFO_TASK_SEARCHED_IN_SHARDS = "info.task.searched.in.shards";
+    public static final String WARN_ATTACH_COMMAND_IS_BLANK = "warn.attach.command.is.blank";
+    public static final String INFO_TASK_COMPLETED_FROM_CACHE = "info.task.completed.from.cache";
+    public static final String INFO_TASK_COALESCED = "info.task.coalesced";
+    public static final String INFO_RESULT_CACHE_EVICTED = "info.result.cache.evicted";
+    public static final String ERROR_RESULT_CACHE_IO = "error.result.cache.io";
+    public static final String ERROR_INVALID_RESULT_CURSOR = "error.invalid.result.cursor";
+    public static final String ERROR_RESULT_CURSOR_WITH_OFFSET = "error.result.cursor.with.offset";
+    public static final String ERROR_RESULT_CURSOR_WITH_SORT = "error.result.cursor.with.sort";
+    public static final String ERROR_INVALID_TOP_PER_QUERY = "error.invalid.top.per.query";
+    public static final String ERROR_WHILE_COMPRESSING_RESULT = "error.while.compressing.result";
+    public static final String ERROR_WHILE_BUILDING_COLUMNAR_COPY = "error.while.building.columnar.copy";
+    public static final String INFO_CLUSTER_JOB_SUBMITTED = "info.cluster.job.submitted";
+    public static final String INFO_CLUSTER_JOB_REATTACHED = "info.cluster.job.reattached";
+    public static final String ERROR_COMMAND_IS_BLANK = "error.command.is.blank";
+    public static final String ERROR_JOB_STATUS_COMMAND_FAILED = "error.job.status.command.failed";
+    public static final String ERROR_CLUSTER_JOB_ID_IS_BLANK = "error.cluster.job.id.is.blank";
+    public static final String ERROR_CLUSTER_JOB_EXIT_CODE_MISSING = "error.cluster.job.exit.code.missing";
+    public static final String ERROR_CLUSTER_JOBS_ARE_NOT_SUPPORTED = "error.cluster.jobs.are.not.supported";
+    public static final String WARN_POOLED_CONTAINER_START_FAILED = "warn.pooled.container.start.failed";
+    public static final String WARN_POOLED_CONTAINER_NOT_RUNNING = "warn.pooled.container.not.running";
+    public static final String INFO_POOLED_CONTAINER_RECYCLED = "info.pooled.container.recycled";
+    public static final String INFO_TASKS_BATCHED = "info.tasks.batched";
+    public static final String DEBUG_NO_DB_SEQUENCE_FILES = "debug.no.db.sequence.files";
+    public static final String ERROR_SORTED_RESULT_TOO_LARGE = "error.sorted.result.too.large";
+    public static final String WARN_DB_ALIAS_NOT_READ = "warn.db.alias.not.read";
+    public static final String ERROR_EMPTY_RESULT_DELIMITER = "error.empty.result.delimiter";
 
     // INPUT VALIDATION
     public static final String INCORRECT_TOOL_TYPE_EXCEPTION_MESSAGE = "error.incorrect.tool.type";
@@ -75,6 +107,7 @@ public final class MessageConstants {
             = "error.taxIds.and.excludedTaxIds.are.both.presented";
     public static final String TARGET_SEQUENCE_LIMIT_EXCEPTION_MESSAGE = "error.unappropriated.maxTargetSequence";
     public static final String EXPECTED_THRESHOLD_LIMIT_EXCEPTION_MESSAGE = "error.unappropriated.expectedThreshold";
+    public static final String PRIORITY_LIMIT_EXCEPTION_MESSAGE = "error.unappropriated.priority";
     public static final String NOT_VALID_OPTION_NAME_WARNING_MESSAGE = "warning.not.valid.option.name";
     public static final String NOT_VALID_OPTION_VALUE_WARNING_MESSAGE = "warning.not.valid.option.value";
     public static final String VALID_OPTION_VALUE_INFO_MESSAGE = "info.valid.option.value";
@@ -0,0 +1,195 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Decides in which order waiting tasks should be started.
+ * Tasks with higher priority always go first, tasks of the same priority are shared between owners
+ * proportionally to their weights, so the owner with the least running tasks per weight unit is served first.
+ * Amount of tasks of the same type running on a single node can be limited by a quota.
+ * Tasks, which fit into the free capacity, may overtake the first one, which doesn't, but only for a limited time.
+ */
+@Component
+public class FairShareTaskSelector {
+
+    public static final int DEFAULT_PRIORITY = 0;
+    private static final String ANONYMOUS_OWNER = "";
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final Map<String, Integer> ownerWeights;
+    private final Map<TaskType, Integer> typeQuotas;
+    private final int candidatesPerOwner;
+    private final long maxHeadDelay;
+
+    // the first ranked task, which didn't fit into the free capacity, and since when it is overtaken
+    private Long blockedHeadId;
+    private long blockedSince;
+
+    public FairShareTaskSelector(
+            @Value("#{${blast-wrapper.scheduling.fair-share.weights:{:}}}") final Map<String, Integer> ownerWeights,
+            @Value("#{${blast-wrapper.scheduling.type-quotas:{:}}}") final Map<String, Integer> typeQuotas,
+            @Value("${blast-wrapper.scheduling.candidates-per-owner:20}") final int candidatesPerOwner,
+            @Value("${blast-wrapper.scheduling.backfill.max-head-delay:60000}") final long maxHeadDelay) {
+        this.ownerWeights = MapUtils.emptyIfNull(ownerWeights);
+        this.typeQuotas = new EnumMap<>(TaskType.class);
+        MapUtils.emptyIfNull(typeQuotas).forEach((type, quota) -> this.typeQuotas.put(TaskType.valueOf(type), quota));
+        this.candidatesPerOwner = candidatesPerOwner;
+        this.maxHeadDelay = maxHeadDelay;
+    }
+
+    /**
+     * Amount of waiting tasks of each owner considered on a dispatch, so the candidates include tasks
+     * of every owner with a backlog, no matter how many tasks the other owners have submitted.
+     */
+    public int getCandidatesPerOwner() {
+        return candidatesPerOwner;
+    }
+
+    /**
+     * Orders waiting tasks in the sequence they should be started by the given node.
+     * Candidates are expected to be sorted by priority and creation date already,
+     * tasks which type quota is exhausted on the node are excluded.
+     *
+     * @param candidates waiting tasks
+     * @param running tasks running on all nodes, used to calculate share of each owner
+     * @param nodeId node that is going to start the tasks
+     */
+    public List<TaskEntity> rank(final List<TaskEntity> candidates, final List<TaskEntity> running,
+                                 final String nodeId) {
+        final Map<String, Integer> ownerLoad = new HashMap<>();
+        final Map<TaskType, Integer> nodeTypeLoad = new EnumMap<>(TaskType.class);
+        for (TaskEntity task : running) {
+            ownerLoad.merge(getOwnerKey(task), 1, Integer::sum);
+            if (task.getTaskType() != null && Objects.equals(nodeId, task.getClaimedBy())) {
+                nodeTypeLoad.merge(task.getTaskType(), 1, Integer::sum);
+            }
+        }
+
+        final Map<String, Deque<TaskEntity>> queues = new LinkedHashMap<>();
+        candidates.forEach(task -> queues.computeIfAbsent(getOwnerKey(task), k -> new ArrayDeque<>()).add(task));
+
+        final List<TaskEntity> ranked = new ArrayList<>(candidates.size());
+        while (true) {
+            TaskEntity next = null;
+            for (Deque<TaskEntity> queue : queues.values()) {
+                dropTasksOverQuota(queue, nodeTypeLoad);
+                final TaskEntity head = queue.peekFirst();
+                if (head != null && (next == null || compare(head, next, ownerLoad) < 0)) {
+                    next = head;
+                }
+            }
+            if (next == null) {
+                return ranked;
+            }
+            queues.get(getOwnerKey(next)).pollFirst();
+            ranked.add(next);
+            ownerLoad.merge(getOwnerKey(next), 1, Integer::sum);
+            if (next.getTaskType() != null) {
+                nodeTypeLoad.merge(next.getTaskType(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Tells whether tasks ranked after the given one may be started, while it waits for enough free capacity.
+     * Once the task has waited for {@code max-head-delay} milliseconds, the capacity is held for it instead.
+     *
+     * @param head the first ranked task, which doesn't fit into the free capacity of the node
+     */
+    public synchronized boolean mayBackfill(final TaskEntity head) {
+        final long now = System.currentTimeMillis();
+        if (!Objects.equals(head.getId(), blockedHeadId)) {
+            blockedHeadId = head.getId();
+            blockedSince = now;
+        }
+        return now - blockedSince < maxHeadDelay;
+    }
+
+    /**
+     * Forgets the blocked task after a dispatch, in which every ranked task fitted into the free capacity.
+     */
+    public synchronized void releaseBlockedHead() {
+        blockedHeadId = null;
+    }
+
+    private void dropTasksOverQuota(final Deque<TaskEntity> queue, final Map<TaskType, Integer> nodeTypeLoad) {
+        final Iterator<TaskEntity> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            final TaskType type = iterator.next().getTaskType();
+            final Integer quota = type == null ? null : typeQuotas.get(type);
+            if (quota == null || nodeTypeLoad.getOrDefault(type, 0) < quota) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private int compare(final TaskEntity first, final TaskEntity second, final Map<String, Integer> ownerLoad) {
+        return Comparator
+                .comparingInt((TaskEntity task) -> -getPriority(task))
+                .thenComparingDouble(task -> getShare(task, ownerLoad))
+                .thenComparing(TaskEntity::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .compare(first, second);
+    }
+
+    private double getShare(final TaskEntity task, final Map<String, Integer> ownerLoad) {
+        return (double) ownerLoad.getOrDefault(getOwnerKey(task), 0) / getWeight(task);
+    }
+
+    private int getWeight(final TaskEntity task) {
+        return Optional.ofNullable(ownerWeights.get(getOwnerKey(task)))
+                .or(() -> Optional.ofNullable(task.getOrgUnit()).map(ownerWeights::get))
+                .filter(weight -> weight > 0)
+                .orElse(DEFAULT_WEIGHT);
+    }
+
+    private static int getPriority(final TaskEntity task) {
+        return Optional.ofNullable(task.getPriority()).orElse(DEFAULT_PRIORITY);
+    }
+
+    private static String getOwnerKey(final TaskEntity task) {
+        return StringUtils.defaultString(task.getOwner(), ANONYMOUS_OWNER);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Identifies this wrapper instance among the nodes sharing one task database, tasks are claimed on its behalf.
+ */
+@Slf4j
+@Component
+public class NodeIdentity {
+
+    private static final String UNKNOWN_HOST = "blast-wrapper";
+    private static final int RANDOM_SUFFIX_LENGTH = 8;
+
+    @Getter
+    private final String id;
+
+    public NodeIdentity(@Value("${blast-wrapper.distributed.node-id:}") final String configuredId,
+                        final MessageHelper messageHelper) {
+        this.id = StringUtils.isNotBlank(configuredId) ? configuredId : generateId();
+        log.info(messageHelper.getMessage(MessageConstants.INFO_NODE_ID, id));
+    }
+
+    private static String generateId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = UNKNOWN_HOST;
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, RANDOM_SUFFIX_LENGTH);
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.task.ResultCacheStats;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
+import static com.epam.blast.entity.task.TaskEntityParams.BLAST_TOOL;
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static com.epam.blast.entity.task.TaskEntityParams.EXCLUDED_TAX_IDS;
+import static com.epam.blast.entity.task.TaskEntityParams.EXPECTED_THRESHOLD;
+import static com.epam.blast.entity.task.TaskEntityParams.MAX_TARGET_SEQS;
+import static com.epam.blast.entity.task.TaskEntityParams.OPTIONS;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
+import static com.epam.blast.entity.task.TaskEntityParams.TAX_IDS;
+
+/**
+ * Content-addressed cache of BLAST results. A key is a hash of the normalized search: query sequences,
+ * tool and algorithm, database name and build time, tax filters and options which affect results.
+ * Entries are hard links to result files of completed tasks, so a new task with the same key is
+ * completed by linking its result file to the entry without copying. The database build time is a part
+ * of the key, so results of a rebuilt database are never reused. The budget bounds disk space held only
+ * by the cache: a result file is counted once however many entries link to it, and a file still linked
+ * by a task result is not counted, since evicting its entries would not free any space. The least
+ * recently used files held only by the cache are evicted when their size exceeds the budget.
+ */
+@Slf4j
+@Component
+public class ResultCache {
+
+    private static final String CACHE_DIRECTORY = "cache";
+    private static final String KEY_ALGORITHM = "SHA-256";
+    private static final String FASTA_HEADER = ">";
+    private static final String NEW_LINE = "\n";
+    private static final String FIELD_SEPARATOR = "\u0000";
+    private static final String TAX_ID_DELIMITER = ",";
+    private static final String LOWER_CASE_MASKING_OPTION = "-lcase_masking";
+    // options which affect only the way a search is executed, but not its results
+    private static final String EXECUTION_OPTIONS = "-num_threads\\s+\\S+|-mt_mode\\s+\\S+";
+    private static final long MEGABYTE = 1024 * 1024;
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+    private final BlastFileManager blastFileManager;
+    private final MessageHelper messageHelper;
+    private final boolean enabled;
+    private final long maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResultCache(final BlastFileManager blastFileManager,
+                       final MessageHelper messageHelper,
+                       @Value("${blast-wrapper.result-cache.enabled:false}") final boolean enabled,
+                       @Value("${blast-wrapper.result-cache.max-size-mb:10240}") final long maxSizeMb) {
+        this.blastFileManager = blastFileManager;
+        this.messageHelper = messageHelper;
+        this.enabled = enabled;
+        this.maxSize = maxSizeMb * MEGABYTE;
+    }
+
+    /**
+     * Returns the key of a BLAST search with given parameters, identical searches have the same key.
+     */
+    public Optional<String> getKey(final Map<String, String> params) {
+        if (params == null || StringUtils.isBlank(params.get(QUERY))) {
+            return Optional.empty();
+        }
+        final String options = normalizeOptions(params.get(OPTIONS));
+        final String search = String.join(FIELD_SEPARATOR,
+                normalizeQuery(params.get(QUERY), options.contains(LOWER_CASE_MASKING_OPTION)),
+                StringUtils.defaultString(params.get(BLAST_TOOL)),
+                StringUtils.defaultString(params.get(ALGORITHM)),
+                StringUtils.defaultString(params.get(DB_NAME)),
+                String.valueOf(getDbBuildTime(params.get(DB_NAME))),
+                normalizeTaxIds(params.get(TAX_IDS)),
+                normalizeTaxIds(params.get(EXCLUDED_TAX_IDS)),
+                StringUtils.defaultString(params.get(MAX_TARGET_SEQS)),
+                StringUtils.defaultString(params.get(EXPECTED_THRESHOLD)),
+                options);
+        return Optional.of(hash(search));
+    }
+
+    /**
+     * Links the cached result with the key to the result file of the task.
+     *
+     * @return true if the result was found in the cache and linked
+     */
+    public boolean completeFromCache(final String key, final Long taskId) {
+        if (!enabled) {
+            return false;
+        }
+        // an entry keeps the extension of a compressed result file
+        final Path compressedEntry = getEntry(key + BlastFileManager.COMPRESSED_RESULT_EXT);
+        final boolean compressed = Files.exists(compressedEntry);
+        final Path entry = compressed ? compressedEntry : getEntry(key);
+        if (!Files.exists(entry)) {
+            misses.incrementAndGet();
+            return false;
+        }
+        try {
+            final Path result = Path.of(blastFileManager.getBlastResultsDirectory(),
+                    blastFileManager.getResultFileName(taskId)
+                            + (compressed ? BlastFileManager.COMPRESSED_RESULT_EXT : StringUtils.EMPTY));
+            blastFileManager.removeBlastOutput(taskId);
+            Files.createLink(result, entry);
+            // modification time of an entry is the time of its last use
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_COMPLETED_FROM_CACHE, taskId));
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_RESULT_CACHE_IO, key, e.getMessage()));
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Adds the result of the successfully completed task to the cache.
+     */
+    public void store(final String key, final Long taskId) {
+        final Path result = blastFileManager.getResultFile(taskId);
+        if (!enabled || StringUtils.isBlank(key) || !Files.exists(result)) {
+            return;
+        }
+        final boolean compressed = result.getFileName().toString().endsWith(BlastFileManager.COMPRESSED_RESULT_EXT);
+        try {
+            Files.createDirectories(getCacheDirectory());
+            Files.createLink(getEntry(compressed ? key + BlastFileManager.COMPRESSED_RESULT_EXT : key), result);
+        } catch (FileAlreadyExistsException e) {
+            log.debug(messageHelper.getMessage(MessageConstants.ERROR_RESULT_CACHE_IO, key, e.getMessage()));
+        } catch (IOException | UnsupportedOperationException e) {
+            log.error(messageHelper.getMessage(MessageConstants.ERROR_RESULT_CACHE_IO, key, e.getMessage()));
+        }
+    }
+
+    public ResultCacheStats getStats() {
+        final List<CachedFile> files = listCachedFiles();
+        return ResultCacheStats.builder()
+                .enabled(enabled)
+                .hits(hits.get())
+                .misses(misses.get())
+                .evictions(evictions.get())
+                .entries(files.stream().mapToInt(file -> file.getEntries().size()).sum())
+                .sizeBytes(getSize(files, true))
+                .sharedSizeBytes(getSize(files, false))
+                .maxSizeBytes(maxSize)
+                .build();
+    }
+
+    /**
+     * Removes entries of the least recently used files held only by the cache until they fit into the budget.
+     * Entries of files still linked by task results are kept, the space of such a file is counted
+     * against the budget once the tasks are removed.
+     */
+    @Scheduled(initialDelayString = "${blast-wrapper.result-cache.eviction-interval:600000}",
+            fixedDelayString = "${blast-wrapper.result-cache.eviction-interval:600000}")
+    public void evict() {
+        if (!enabled) {
+            return;
+        }
+        final List<CachedFile> files = listCachedFiles();
+        long size = getSize(files, true);
+        int evicted = 0;
+        for (CachedFile file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+            if (!file.isHeldByCacheOnly()) {
+                continue;
+            }
+            final long deleted = file.getEntries().stream().filter(File::delete).count();
+            if (deleted == file.getEntries().size()) {
+                size -= file.getSize();
+            }
+            evicted += deleted;
+        }
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            log.info(messageHelper.getMessage(MessageConstants.INFO_RESULT_CACHE_EVICTED, evicted, size));
+        }
+    }
+
+    static String normalizeQuery(final String query, final boolean keepCase) {
+        final StringBuilder normalized = new StringBuilder();
+        for (String line : StringUtils.defaultString(query).split(NEW_LINE)) {
+            if (line.startsWith(FASTA_HEADER)) {
+                // only identifiers of queries get into results
+                normalized.append(NEW_LINE).append(FASTA_HEADER)
+                        .append(StringUtils.substringBefore(line.substring(1).trim(), StringUtils.SPACE))
+                        .append(NEW_LINE);
+            } else {
+                final String sequence = StringUtils.deleteWhitespace(line);
+                normalized.append(keepCase ? sequence : sequence.toUpperCase());
+            }
+        }
+        return normalized.toString().trim();
+    }
+
+    static String normalizeOptions(final String options) {
+        return StringUtils.normalizeSpace(StringUtils.defaultString(options).replaceAll(EXECUTION_OPTIONS, ""));
+    }
+
+    private static String normalizeTaxIds(final String taxIds) {
+        return Arrays.stream(StringUtils.split(StringUtils.defaultString(taxIds), TAX_ID_DELIMITER))
+                .map(String::trim)
+                .sorted()
+                .collect(Collectors.joining(TAX_ID_DELIMITER));
+    }
+
+    private static String hash(final String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance(KEY_ALGORITHM)
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The latest modification time of database files, it changes when the database is rebuilt.
+     */
+    private long getDbBuildTime(final String dbPath) {
+        if (StringUtils.isBlank(dbPath)) {
+            return 0;
+        }
+        final String path = FilenameUtils.getFullPath(dbPath);
+        final String dbName = FilenameUtils.getName(dbPath);
+        final File[] files = new File(StringUtils.isNotBlank(path) ? path : blastFileManager.getBlastDbDirectory())
+                .listFiles((dir, name) -> name.startsWith(dbName + "."));
+        if (files == null) {
+            return 0;
+        }
+        return Arrays.stream(files).mapToLong(File::lastModified).max().orElse(0);
+    }
+
+    /**
+     * Groups entries by the files they link to, the least recently used files go first.
+     */
+    private List<CachedFile> listCachedFiles() {
+        final File[] entries = getCacheDirectory().toFile().listFiles(File::isFile);
+        if (entries == null) {
+            return List.of();
+        }
+        final Map<Object, CachedFile> files = new HashMap<>();
+        for (File entry : entries) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(entry.toPath(),
+                        BasicFileAttributes.class);
+                final Object fileKey = Optional.ofNullable(attributes.fileKey()).orElse(entry);
+                files.computeIfAbsent(fileKey, key -> new CachedFile(attributes.size(), getLinkCount(entry)))
+                        .getEntries().add(entry);
+            } catch (IOException e) {
+                // the entry was evicted concurrently
+                log.debug(messageHelper.getMessage(MessageConstants.ERROR_RESULT_CACHE_IO,
+                        entry.getName(), e.getMessage()));
+            }
+        }
+        return files.values().stream()
+                .sorted(Comparator.comparingLong(CachedFile::getLastUsed))
+                .collect(Collectors.toList());
+    }
+
+    private static long getSize(final List<CachedFile> files, final boolean heldByCacheOnly) {
+        return files.stream()
+                .filter(file -> file.isHeldByCacheOnly() == heldByCacheOnly)
+                .mapToLong(CachedFile::getSize)
+                .sum();
+    }
+
+    /**
+     * The number of hard links to the file, a file system without link counts is supposed
+     * to have no links besides the entry itself.
+     */
+    private static int getLinkCount(final File entry) {
+        try {
+            return (Integer) Files.getAttribute(entry.toPath(), LINK_COUNT_ATTRIBUTE);
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
+    private Path getEntry(final String key) {
+        return getCacheDirectory().resolve(key);
+    }
+
+    private Path getCacheDirectory() {
+        return Path.of(blastFileManager.getBlastResultsDirectory(), CACHE_DIRECTORY);
+    }
+
+    /**
+     * A result file on disk with all cache entries linked to it.
+     */
+    private static final class CachedFile {
+
+        private final long size;
+        private final int linkCount;
+        private final List<File> entries = new ArrayList<>();
+
+        private CachedFile(final long size, final int linkCount) {
+            this.size = size;
+            this.linkCount = linkCount;
+        }
+
+        private long getSize() {
+            return size;
+        }
+
+        private List<File> getEntries() {
+            return entries;
+        }
+
+        private boolean isHeldByCacheOnly() {
+            return linkCount <= entries.size();
+        }
+
+        // modification time of an entry is the time of its last use
+        private long getLastUsed() {
+            return entries.stream().mapToLong(File::lastModified).max().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.blasttool.BlastTool;
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.runners.DbShardResolver;
+import com.epam.blast.manager.commands.runners.QuerySplitter;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageConstants;
+import com.epam.blast.manager.helper.MessageHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
+import static com.epam.blast.entity.task.TaskEntityParams.BLAST_TOOL;
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
+
+/**
+ * Estimates how much of node resources a task needs, in cost units.
+ * A regular task occupies {@link #UNITS_PER_SLOT} units, i.e. one slot of {@code thread-amount},
+ * short searches against small databases cost less, so several of them can share one slot,
+ * while heavy translated searches against big databases may take several slots.
+ * BLAST work is approximated as query residues * database residues * tool and algorithm factors.
+ * Database residues are counted once per database build and cached.
+ */
+@Slf4j
+@Component
+public class TaskCostEstimator {
+
+    public static final int UNITS_PER_SLOT = 4;
+    public static final int MIN_COST = 1;
+
+    private static final String FASTA_HEADER = ">";
+    private static final String PROTEIN_SEQUENCE_EXTENSION = ".psq";
+    private static final String NUCLEOTIDE_SEQUENCE_EXTENSION = ".nsq";
+    // nucleotide sequences are stored 4 bases per byte
+    private static final int NUCLEOTIDES_PER_BYTE = 4;
+    // files, which are rewritten by makeblastdb, when the database is rebuilt
+    private static final String[] BUILD_FILE_EXTENSIONS = {".pal", ".nal", PROTEIN_SEQUENCE_EXTENSION,
+        NUCLEOTIDE_SEQUENCE_EXTENSION};
+
+    private static final Map<BlastTool, Double> TOOL_FACTORS = Map.of(
+            BlastTool.BLASTN, 1.0,
+            BlastTool.BLASTP, 1.0,
+            BlastTool.BLASTX, 6.0,
+            BlastTool.TBLASTN, 6.0,
+            BlastTool.TBLASTX, 36.0
+    );
+    private static final Map<String, Double> ALGORITHM_FACTORS = Map.of(
+            "megablast", 0.2,
+            "dc-megablast", 0.5,
+            "blastp-fast", 0.5,
+            "blastx-fast", 0.5,
+            "tblastn-fast", 0.5
+    );
+
+    private final BlastFileManager blastFileManager;
+    private final QuerySplitter querySplitter;
+    private final DbShardResolver dbShardResolver;
+    private final MessageHelper messageHelper;
+    private final double workPerUnit;
+    private final int maxCost;
+    // residues of databases by their path
+    private final Map<String, DbResidues> dbResidues = new ConcurrentHashMap<>();
+
+    public TaskCostEstimator(final BlastFileManager blastFileManager,
+                             final QuerySplitter querySplitter,
+                             final DbShardResolver dbShardResolver,
+                             final MessageHelper messageHelper,
+                             @Value("${blast-wrapper.scheduling.cost.work-per-unit:1e11}") final double workPerUnit,
+                             @Value("${blast-wrapper.task-status-checking.thread-amount}") final Integer threadsAmount,
+                             @Value("${blast-wrapper.task-status-checking.threadsPending}")
+                             final Integer threadsPending) {
+        this.blastFileManager = blastFileManager;
+        this.querySplitter = querySplitter;
+        this.dbShardResolver = dbShardResolver;
+        this.messageHelper = messageHelper;
+        this.workPerUnit = workPerUnit;
+        this.maxCost = getNodeCapacity(threadsAmount, threadsPending);
+    }
+
+    /**
+     * Capacity of a node in cost units, the most expensive task takes the whole node.
+     */
+    public static int getNodeCapacity(final int threadsAmount, final int threadsPending) {
+        return (threadsAmount + threadsPending) * UNITS_PER_SLOT;
+    }
+
+    /**
+     * Returns the cost of the task stored at creation or the cost of a regular task if it wasn't estimated.
+     */
+    public static int getCost(final TaskEntity taskEntity) {
+        return Optional.ofNullable(taskEntity.getCost())
+                .filter(cost -> cost >= MIN_COST)
+                .orElse(UNITS_PER_SLOT);
+    }
+
+    public int estimate(final TaskType taskType, final Map<String, String> params) {
+        if (taskType == TaskType.BLAST_DB_CMD) {
+            return MIN_COST;
+        }
+        if (taskType != TaskType.BLAST_TOOL || params == null) {
+            return UNITS_PER_SLOT;
+        }
+        // chunks of a split query are searched against database shards in parallel, each search occupies a slot
+        final int parallelChunks = Math.min(
+                querySplitter.split(params.get(QUERY)).size() * getDbShards(params.get(DB_NAME)),
+                querySplitter.getParallelism());
+        final int chunksCost = parallelChunks > 1 ? Math.min(maxCost, parallelChunks * UNITS_PER_SLOT) : MIN_COST;
+        final OptionalLong dbResidues = getDbResidues(params.get(DB_NAME));
+        if (dbResidues.isEmpty()) {
+            return Math.max(chunksCost, UNITS_PER_SLOT);
+        }
+        final double work = getQueryResidues(params.get(QUERY)) * (double) dbResidues.getAsLong()
+                * getToolFactor(params.get(BLAST_TOOL)) * ALGORITHM_FACTORS.getOrDefault(params.get(ALGORITHM), 1.0);
+        return (int) Math.max(chunksCost, Math.min(maxCost, Math.ceil(work / workPerUnit)));
+    }
+
+    static long getQueryResidues(final String query) {
+        long residues = 0;
+        for (String line : StringUtils.defaultString(query).split("\n")) {
+            if (!line.startsWith(FASTA_HEADER)) {
+                residues += StringUtils.deleteWhitespace(line).length();
+            }
+        }
+        return residues;
+    }
+
+    private double getToolFactor(final String tool) {
+        try {
+            return TOOL_FACTORS.getOrDefault(BlastTool.getByValue(tool), 1.0);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return 1.0;
+        }
+    }
+
+    private int getDbShards(final String dbPath) {
+        if (StringUtils.isBlank(dbPath)) {
+            return 1;
+        }
+        return dbShardResolver.resolve(getDbDirectory(dbPath), FilenameUtils.getName(dbPath))
+                .map(shards -> shards.getVolumes().size())
+                .orElse(1);
+    }
+
+    private String getDbDirectory(final String dbPath) {
+        final String path = FilenameUtils.getFullPath(dbPath);
+        return StringUtils.isNotBlank(path) ? path : blastFileManager.getBlastDbDirectory();
+    }
+
+    /**
+     * Returns residues of the database counted after its last build, the database is recounted only
+     * when its directory or one of its build files is modified.
+     */
+    private OptionalLong getDbResidues(final String dbPath) {
+        if (StringUtils.isBlank(dbPath)) {
+            return OptionalLong.empty();
+        }
+        final File dbDirectory = new File(getDbDirectory(dbPath));
+        final String dbName = FilenameUtils.getName(dbPath);
+        final long buildTime = getBuildTime(dbDirectory, dbName);
+        final String key = new File(dbDirectory, dbName).getPath();
+        final DbResidues cached = dbResidues.get(key);
+        if (cached != null && cached.buildTime == buildTime) {
+            return cached.residues;
+        }
+        final OptionalLong residues = countDbResidues(dbDirectory, dbName, dbPath);
+        dbResidues.put(key, new DbResidues(buildTime, residues));
+        return residues;
+    }
+
+    private long getBuildTime(final File dbDirectory, final String dbName) {
+        long buildTime = dbDirectory.lastModified();
+        for (String extension : BUILD_FILE_EXTENSIONS) {
+            buildTime = Math.max(buildTime, new File(dbDirectory, dbName + extension).lastModified());
+        }
+        return buildTime;
+    }
+
+    /**
+     * Sums sizes of sequence files of the database, including all its volumes.
+     */
+    private OptionalLong countDbResidues(final File dbDirectory, final String dbName, final String dbPath) {
+        final File[] files = dbDirectory
+                .listFiles((dir, name) -> name.startsWith(dbName + ".")
+                        && (name.endsWith(PROTEIN_SEQUENCE_EXTENSION) || name.endsWith(NUCLEOTIDE_SEQUENCE_EXTENSION)));
+        if (files == null || files.length == 0) {
+            log.debug(messageHelper.getMessage(MessageConstants.DEBUG_NO_DB_SEQUENCE_FILES, dbPath));
+            return OptionalLong.empty();
+        }
+        long residues = 0;
+        for (File file : files) {
+            residues += file.getName().endsWith(NUCLEOTIDE_SEQUENCE_EXTENSION)
+                    ? file.length() * NUCLEOTIDES_PER_BYTE
+                    : file.length();
+        }
+        return OptionalLong.of(residues);
+    }
+
+    private static final class DbResidues {
+        private final long buildTime;
+        private final OptionalLong residues;
+
+        private DbResidues(final long buildTime, final OptionalLong residues) {
+            this.buildTime = buildTime;
+            this.residues = residues;
+        }
+    }
+}
@@ -25,19 +25,26 @@
 package com.epam.blast.manager.task;
 
 import com.epam.blast.entity.blasttool.BlastResult;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastStartSearchingRequest;
 import com.epam.blast.entity.blasttool.Status;
 import com.epam.blast.entity.db.CreateDbRequest;
 import com.epam.blast.entity.db.CreateDbResponse;
+import com.epam.blast.entity.task.ResultCacheStats;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskStatus;
 import com.epam.blast.entity.task.TaskType;
 import com.epam.blast.manager.commands.runners.ExecutionResult;
-import org.springframework.data.util.Pair;
+import com.epam.blast.manager.file.BlastRawResult;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface TaskService {
 
@@ -55,14 +62,52 @@ public interface TaskService {
 
     List<TaskEntity> findAllTasksByStatus(final Status status);
 
+    /**
+     * Claims waiting tasks for the node, total estimated cost of claimed tasks doesn't exceed {@code capacity}.
+     */
+    List<TaskEntity> claimTasks(final String nodeId, final int capacity, final LocalDateTime leaseExpiresAt);
+
+    int renewLeases(final String nodeId, final Collection<Long> taskIds, final LocalDateTime leaseExpiresAt);
+
+    List<TaskEntity> findTasksWithExpiredLease(final LocalDateTime expiredBefore);
+
+    boolean takeOverTask(final TaskEntity taskEntity, final String nodeId,
+                         final LocalDateTime expiredBefore, final LocalDateTime leaseExpiresAt);
+
+    boolean requeueTask(final TaskEntity taskEntity, final String nodeId);
+
     TaskEntity updateTask(final TaskEntity taskEntity);
 
-    BlastResult getBlastResult(final Long id, final Integer limit);
+    BlastResult getBlastResult(final Long id, final BlastResultQuery query);
 
-    Pair<String, byte[]> getBlastRawResult(final Long id);
+    /**
+     * Checks that the task is done and passes its results to {@code consumer} one by one,
+     * results aren't collected in memory. Returns the cursor of the next page, {@code null} if there are
+     * no more results.
+     */
+    String streamBlastResult(final Long id, final BlastResultQuery query, final Consumer<BlastResultEntry> consumer);
+
+    BlastRawResult getBlastRawResult(final Long id, final boolean acceptGzip);
+
+    BlastResultSummary getBlastResultSummary(final Long id);
 
     TaskEntity changeStatus(final TaskEntity taskEntity, final ExecutionResult result);
 
+    /**
+     * Finishes the task with the result, only if it is still running on the node, unlike
+     * {@link #changeStatus(TaskEntity, ExecutionResult)} it doesn't rely on the state of {@code taskEntity}.
+     * Returns false, if the task was cancelled or taken over by another node meanwhile.
+     */
+    boolean completeTask(final TaskEntity taskEntity, final ExecutionResult result, final String nodeId);
+
+    /**
+     * Completes tasks waiting for the search of the finished {@code leader} with its result,
+     * if the leader was cancelled, one of waiting tasks runs the search instead.
+     */
+    void completeFollowers(final TaskEntity leader);
+
+    ResultCacheStats getResultCacheStats();
+
     TaskStatus createTaskForSpeciesListing(final String databaseName);
 
     Set<Long> getSpeciesListing(Long taskId);
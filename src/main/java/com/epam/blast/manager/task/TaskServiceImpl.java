@@ -25,43 +25,57 @@
 package com.epam.blast.manager.task;
 
 import com.epam.blast.entity.blasttool.BlastResult;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastStartSearchingRequest;
 import com.epam.blast.entity.blasttool.BlastTool;
 import com.epam.blast.entity.blasttool.Status;
 import com.epam.blast.entity.db.CreateDbRequest;
 import com.epam.blast.entity.db.CreateDbResponse;
 import com.epam.blast.entity.db.Reason;
+import com.epam.blast.entity.task.ResultCacheStats;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskStatus;
 import com.epam.blast.entity.task.TaskType;
 import com.epam.blast.exceptions.TaskNotFoundException;
 import com.epam.blast.manager.commands.runners.ExecutionResult;
 import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.file.BlastRawResult;
 import com.epam.blast.manager.helper.MessageConstants;
 import com.epam.blast.manager.helper.MessageHelper;
 import com.epam.blast.repo.task.TaskRepository;
+import com.epam.blast.security.jwt.entity.UserContext;
 import com.epam.blast.utils.DateUtils;
 import com.epam.blast.validator.BlastStartSearchingRequestValidator;
 
-import lombok.RequiredArgsConstructor;
-
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.util.Pair;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.epam.blast.entity.commands.ExitCodes.SUCCESSFUL_EXECUTION;
 import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
@@ -77,12 +91,12 @@ import static com.epam.blast.entity.task.TaskEntityParams.OPTIONS;
 import static com.epam.blast.entity.task.TaskEntityParams.PARSE_SEQ_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.PATH_TO_FILE;
 import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
+import static com.epam.blast.entity.task.TaskEntityParams.SHARDS;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_IDS;
 
 @Service
 @Transactional
-@RequiredArgsConstructor
 @Slf4j
 public class TaskServiceImpl implements TaskService {
 
@@ -92,6 +106,34 @@ public class TaskServiceImpl implements TaskService {
     private final BlastFileManager blastFileManager;
     private final BlastStartSearchingRequestValidator blastStartSearchingRequestValidator;
     private final MessageHelper messageHelper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FairShareTaskSelector taskSelector;
+    private final TaskCostEstimator costEstimator;
+    private final ResultCache resultCache;
+    private final boolean distributedDeployment;
+    private final boolean coalescingEnabled;
+
+    public TaskServiceImpl(final TaskRepository taskRepository,
+                           final BlastFileManager blastFileManager,
+                           final BlastStartSearchingRequestValidator blastStartSearchingRequestValidator,
+                           final MessageHelper messageHelper,
+                           final ApplicationEventPublisher eventPublisher,
+                           final FairShareTaskSelector taskSelector,
+                           final TaskCostEstimator costEstimator,
+                           final ResultCache resultCache,
+                           @Value("${blast-wrapper.distributed.deployment}") final boolean distributedDeployment,
+                           @Value("${blast-wrapper.coalescing.enabled:false}") final boolean coalescingEnabled) {
+        this.taskRepository = taskRepository;
+        this.blastFileManager = blastFileManager;
+        this.blastStartSearchingRequestValidator = blastStartSearchingRequestValidator;
+        this.messageHelper = messageHelper;
+        this.eventPublisher = eventPublisher;
+        this.taskSelector = taskSelector;
+        this.costEstimator = costEstimator;
+        this.resultCache = resultCache;
+        this.distributedDeployment = distributedDeployment;
+        this.coalescingEnabled = coalescingEnabled;
+    }
 
     @Override
     public TaskStatus getTaskStatus(final Long id) {
@@ -100,22 +142,47 @@ public class TaskServiceImpl implements TaskService {
 
     @Override
     public TaskEntity createTask(final TaskType taskType, final Map<String, String> incomeParams) {
+        final Optional<UserContext> user = getCurrentUser();
         return TaskEntity.builder()
                 .status(Status.CREATED)
                 .taskType(taskType)
                 .createdAt(DateUtils.nowUtc())
+                .priority(FairShareTaskSelector.DEFAULT_PRIORITY)
+                .cost(costEstimator.estimate(taskType, incomeParams))
+                .owner(user.map(this::getOwner).orElse(null))
+                .orgUnit(user.map(UserContext::getOrgUnitId).filter(StringUtils::isNotBlank).orElse(null))
                 .params(incomeParams)
                 .build();
     }
 
     @Override
     public TaskStatus createTaskForBlastToolExecution(final BlastStartSearchingRequest request) {
-        final TaskEntity taskEntity = saveTask(
-                createTask(
-                        TaskType.BLAST_TOOL,
-                        mapBlastToolParameters(blastStartSearchingRequestValidator.validate(request))
-                )
-        );
+        final BlastStartSearchingRequest validated = blastStartSearchingRequestValidator.validate(request);
+        final TaskEntity task = createTask(TaskType.BLAST_TOOL, mapBlastToolParameters(validated));
+        if (validated.getPriority() != null) {
+            task.setPriority(validated.getPriority());
+        }
+        final Optional<String> resultKey = resultCache.getKey(task.getParams());
+        resultKey.ifPresent(task::setResultKey);
+        final TaskEntity taskEntity = saveTask(task);
+        final Optional<TaskEntity> leader = resultKey.flatMap(key -> findLeader(key, taskEntity.getId()));
+        if (resultKey.isPresent() && resultCache.completeFromCache(resultKey.get(), taskEntity.getId())) {
+            taskEntity.setStatus(Status.DONE);
+            taskEntity.setReason(StringUtils.EMPTY);
+            saveTask(taskEntity);
+        } else if (leader.isPresent()) {
+            taskEntity.setLeaderId(leader.get().getId());
+            saveTask(taskEntity);
+            log.info(messageHelper.getMessage(MessageConstants.INFO_TASK_COALESCED,
+                    taskEntity.getId(), taskEntity.getLeaderId()));
+            // the leader could finish before the task was attached to it
+            final TaskEntity current = findTask(taskEntity.getLeaderId());
+            if (!taskIsNotInFinalState(current)) {
+                completeFollowers(current);
+            }
+        } else {
+            publishTaskCreated(taskEntity);
+        }
         return TaskStatus.builder()
                 .requestId(taskEntity.getId())
                 .createdDate(taskEntity.getCreatedAt())
@@ -148,10 +215,13 @@ public class TaskServiceImpl implements TaskService {
                                 ? "" : request.getParseSeqIds().toString(),
                         BLAST_DB_VERSION, (request.getBlastDbVersion() == null)
                                 ? "" : request.getBlastDbVersion().toString(),
-                        TAX_ID, request.getTaxId().toString()
+                        TAX_ID, request.getTaxId().toString(),
+                        SHARDS, (request.getShards() == null)
+                                ? "" : request.getShards().toString()
                     )
                 )
             );
+            publishTaskCreated(taskEntity);
             return CreateDbResponse.builder()
                     .status(Reason.SUCCESS.getBlastCode())
                     .taskId(taskEntity.getId())
@@ -177,42 +247,156 @@ public class TaskServiceImpl implements TaskService {
     }
 
     @Override
-    public BlastResult getBlastResult(final Long id, final Integer limit) {
+    public List<TaskEntity> claimTasks(final String nodeId, final int capacity,
+                                       final LocalDateTime leaseExpiresAt) {
+        if (capacity < TaskCostEstimator.MIN_COST) {
+            return Collections.emptyList();
+        }
+        return distributedDeployment
+                ? claimTasksSkipLocked(nodeId, capacity, leaseExpiresAt)
+                : claimTasksOptimistically(nodeId, capacity, leaseExpiresAt);
+    }
+
+    @Override
+    public int renewLeases(final String nodeId, final Collection<Long> taskIds, final LocalDateTime leaseExpiresAt) {
+        if (CollectionUtils.isEmpty(taskIds)) {
+            return 0;
+        }
+        return taskRepository.renewLeases(nodeId, taskIds, Status.RUNNING, leaseExpiresAt);
+    }
+
+    @Override
+    public List<TaskEntity> findTasksWithExpiredLease(final LocalDateTime expiredBefore) {
+        return taskRepository.findTasksWithExpiredLease(Status.RUNNING, expiredBefore);
+    }
+
+    @Override
+    public boolean takeOverTask(final TaskEntity taskEntity, final String nodeId,
+                                final LocalDateTime expiredBefore, final LocalDateTime leaseExpiresAt) {
+        if (taskRepository.takeOverExpiredTask(taskEntity.getId(), nodeId, Status.RUNNING,
+                expiredBefore, leaseExpiresAt) == 0) {
+            return false;
+        }
+        taskEntity.setClaimedBy(nodeId);
+        taskEntity.setLeaseExpiresAt(leaseExpiresAt);
+        return true;
+    }
+
+    @Override
+    public boolean requeueTask(final TaskEntity taskEntity, final String nodeId) {
+        if (taskRepository.requeueTask(taskEntity.getId(), nodeId, Status.RUNNING, Status.CREATED) == 0) {
+            return false;
+        }
+        taskEntity.setStatus(Status.CREATED);
+        taskEntity.setClaimedBy(null);
+        taskEntity.setLeaseExpiresAt(null);
+        return true;
+    }
+
+    @Override
+    public BlastResult getBlastResult(final Long id, final BlastResultQuery query) {
         final TaskEntity task = loadTaskForResult(id);
-        return blastFileManager.getResults(task.getId(),
-                geBlastToolFromParam(task), limit == null ? Integer.MAX_VALUE : limit);
+        return blastFileManager.getResults(task.getId(), geBlastToolFromParam(task), query);
     }
 
     @Override
-    public Pair<String, byte[]> getBlastRawResult(final Long id) {
+    public String streamBlastResult(final Long id, final BlastResultQuery query,
+                                    final Consumer<BlastResultEntry> consumer) {
+        return blastFileManager.streamResults(loadTaskForResult(id).getId(), query, consumer);
+    }
+
+    @Override
+    public BlastRawResult getBlastRawResult(final Long id, final boolean acceptGzip) {
         loadTaskForResult(id);
-        return blastFileManager.getRawResults(id);
+        return blastFileManager.getRawResults(id, acceptGzip);
+    }
+
+    @Override
+    public BlastResultSummary getBlastResultSummary(final Long id) {
+        return blastFileManager.getResultSummary(loadTaskForResult(id).getId());
     }
 
     @Override
     public Set<Long> getSpeciesListing(final Long taskId) {
         loadTaskForResult(taskId);
-        try {
-            final String output = Files.readString(Paths.get(blastFileManager.getBlastResultsDirectory(),
-                    blastFileManager.getResultFileName(taskId)));
-            return Stream.of(output.split("\n"))
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(blastFileManager.openResult(taskId), StandardCharsets.UTF_8))) {
+            return reader.lines()
                     .filter(StringUtils::isNotBlank)
                     .map(s -> StringUtils.strip(s.trim(), "\""))
                     .map(Long::valueOf)
                     .collect(Collectors.toSet());
         } catch (IOException e) {
             log.error("Failed to load results for task " + taskId, e);
-            throw new IllegalArgumentException(e);
+            throw new IllegalStateException(e);
         }
     }
 
     @Override
     public TaskEntity changeStatus(final TaskEntity taskEntity, final ExecutionResult result) {
-        if (taskIsNotInFinalState(taskEntity)) {
+        final boolean finished = taskIsNotInFinalState(taskEntity);
+        if (finished) {
             taskEntity.setStatus((result.getExitCode() == SUCCESSFUL_EXECUTION) ? Status.DONE : Status.FAILED);
             taskEntity.setReason(cutReasonMessage(result));
+            if (taskEntity.getStatus() == Status.DONE && taskEntity.getResultKey() != null) {
+                resultCache.store(taskEntity.getResultKey(), taskEntity.getId());
+            }
+        }
+        updateTask(taskEntity);
+        if (finished) {
+            completeFollowers(taskEntity);
         }
-        return updateTask(taskEntity);
+        return taskEntity;
+    }
+
+    @Override
+    public boolean completeTask(final TaskEntity taskEntity, final ExecutionResult result, final String nodeId) {
+        final Status status = result.getExitCode() == SUCCESSFUL_EXECUTION ? Status.DONE : Status.FAILED;
+        final String reason = cutReasonMessage(result);
+        if (taskRepository.completeTask(taskEntity.getId(), nodeId, Status.RUNNING, status, reason) == 0) {
+            return false;
+        }
+        taskEntity.setStatus(status);
+        taskEntity.setReason(reason);
+        if (status == Status.DONE && taskEntity.getResultKey() != null) {
+            resultCache.store(taskEntity.getResultKey(), taskEntity.getId());
+        }
+        completeFollowers(taskEntity);
+        return true;
+    }
+
+    @Override
+    public void completeFollowers(final TaskEntity leader) {
+        final List<TaskEntity> followers = taskRepository
+                .findTaskEntityByLeaderIdAndStatusOrderByCreatedAt(leader.getId(), Status.CREATED);
+        if (followers.isEmpty()) {
+            return;
+        }
+        if (leader.getStatus() == Status.CANCELED) {
+            // the search wasn't finished, the oldest follower runs it for the rest
+            final TaskEntity newLeader = followers.get(0);
+            followers.forEach(follower -> follower.setLeaderId(
+                    follower == newLeader ? null : newLeader.getId()));
+            taskRepository.saveAll(followers);
+            publishTaskCreated(newLeader);
+            return;
+        }
+        for (TaskEntity follower : followers) {
+            if (leader.getStatus() == Status.DONE && !blastFileManager.linkResult(leader.getId(), follower.getId())) {
+                // the follower runs the search itself, if the result of the leader can't be shared
+                follower.setLeaderId(null);
+                publishTaskCreated(follower);
+                continue;
+            }
+            follower.setStatus(leader.getStatus());
+            follower.setReason(leader.getReason());
+        }
+        taskRepository.saveAll(followers);
+    }
+
+    @Override
+    public ResultCacheStats getResultCacheStats() {
+        return resultCache.getStats();
     }
 
     @Override
@@ -226,6 +410,7 @@ public class TaskServiceImpl implements TaskService {
                 .build();
         }
         final TaskEntity taskEntity = saveTask(createTask(TaskType.BLAST_DB_CMD, Map.of(DB_NAME, databaseName)));
+        publishTaskCreated(taskEntity);
         return TaskStatus.builder()
             .requestId(taskEntity.getId())
             .createdDate(taskEntity.getCreatedAt())
@@ -234,6 +419,81 @@ public class TaskServiceImpl implements TaskService {
             .build();
     }
 
+    private List<TaskEntity> claimTasksSkipLocked(final String nodeId, final int capacity,
+                                                  final LocalDateTime leaseExpiresAt) {
+        final List<TaskEntity> candidates = taskRepository.findCreatedTasksForUpdateSkipLocked(
+                taskSelector.getCandidatesPerOwner());
+        final List<TaskEntity> tasks = claimFitting(candidates, nodeId, capacity, task -> {
+            markClaimed(task, nodeId, leaseExpiresAt);
+            return true;
+        });
+        return taskRepository.saveAll(tasks);
+    }
+
+    private List<TaskEntity> claimTasksOptimistically(final String nodeId, final int capacity,
+                                                      final LocalDateTime leaseExpiresAt) {
+        final List<TaskEntity> candidates = taskRepository.findCreatedTasksPerOwner(
+                taskSelector.getCandidatesPerOwner());
+        return claimFitting(candidates, nodeId, capacity, task -> {
+            if (taskRepository.claimTask(task.getId(), nodeId, Status.CREATED, Status.RUNNING, leaseExpiresAt) > 0) {
+                markClaimed(task, nodeId, leaseExpiresAt);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Claims tasks in the ranked order while they fit into the capacity. Tasks, which don't fit, are skipped,
+     * so smaller ones can use the free capacity, but only while the selector allows to overtake the first
+     * skipped task, afterwards claiming stops, so a stream of small tasks can't starve a big one.
+     */
+    private List<TaskEntity> claimFitting(final List<TaskEntity> candidates, final String nodeId,
+                                          final int capacity, final Predicate<TaskEntity> claim) {
+        final List<TaskEntity> claimed = new ArrayList<>();
+        TaskEntity blockedHead = null;
+        int remaining = capacity;
+        for (TaskEntity task : taskSelector.rank(candidates, findAllTasksByStatus(Status.RUNNING), nodeId)) {
+            final int cost = TaskCostEstimator.getCost(task);
+            if (cost > remaining) {
+                if (blockedHead == null) {
+                    blockedHead = task;
+                    if (!taskSelector.mayBackfill(blockedHead)) {
+                        break;
+                    }
+                }
+                continue;
+            }
+            if (claim.test(task)) {
+                claimed.add(task);
+                remaining -= cost;
+            }
+        }
+        if (blockedHead == null) {
+            taskSelector.releaseBlockedHead();
+        }
+        return claimed;
+    }
+
+    private void markClaimed(final TaskEntity task, final String nodeId, final LocalDateTime leaseExpiresAt) {
+        task.setStatus(Status.RUNNING);
+        task.setClaimedBy(nodeId);
+        task.setLeaseExpiresAt(leaseExpiresAt);
+    }
+
+    private Optional<TaskEntity> findLeader(final String resultKey, final Long taskId) {
+        if (!coalescingEnabled) {
+            return Optional.empty();
+        }
+        return taskRepository.findFirstByResultKeyAndLeaderIdIsNullAndStatusInOrderByCreatedAt(
+                        resultKey, List.of(Status.CREATED, Status.RUNNING))
+                .filter(leader -> !leader.getId().equals(taskId));
+    }
+
+    private void publishTaskCreated(final TaskEntity taskEntity) {
+        eventPublisher.publishEvent(new TaskCreatedEvent(taskEntity.getId()));
+    }
+
     private boolean taskIsNotInFinalState(TaskEntity taskEntity) {
         return taskEntity.getStatus() == Status.RUNNING || taskEntity.getStatus() == Status.CREATED;
     }
@@ -329,6 +589,25 @@ public class TaskServiceImpl implements TaskService {
             .taskType(task.getTaskType())
             .reason(task.getReason())
             .createdDate(task.getCreatedAt());
+        if (task.getStatus() == Status.CREATED) {
+            // approximate position, the actual order also depends on the share of the owner and type quotas
+            statusBuilder.queuePosition(taskRepository.countTasksAhead(Status.CREATED,
+                    Optional.ofNullable(task.getPriority()).orElse(FairShareTaskSelector.DEFAULT_PRIORITY),
+                    task.getCreatedAt()) + 1);
+        }
         return statusBuilder.build();
     }
+
+    private Optional<UserContext> getCurrentUser() {
+        return Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
+                .map(Authentication::getPrincipal)
+                .filter(UserContext.class::isInstance)
+                .map(UserContext.class::cast);
+    }
+
+    private String getOwner(final UserContext user) {
+        return user.getUserId() != null
+                ? user.getUserId().toString()
+                : StringUtils.defaultIfBlank(user.getUserName(), null);
+    }
 }
@@ -29,10 +29,109 @@ import com.epam.blast.entity.blasttool.Status;
 import com.epam.blast.entity.task.TaskEntity;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskRepository extends JpaRepository<TaskEntity, Long> {
 
     List<TaskEntity> findTaskEntityByStatusEqualsOrderByCreatedAt(final Status status);
+
+    // ids of up to :perOwner CREATED tasks of each owner with the highest priority, the oldest first
+    String CREATED_CANDIDATE_IDS = "SELECT id FROM (SELECT id, ROW_NUMBER() OVER ("
+            + "PARTITION BY COALESCE(owner, '') ORDER BY COALESCE(priority, 0) DESC, created_at, id) AS owner_rank "
+            + "FROM public.tasks WHERE status = 'CREATED' AND leader_id IS NULL) candidates "
+            + "WHERE owner_rank <= :perOwner";
+
+    /**
+     * Returns up to {@code perOwner} CREATED tasks of each owner with the highest priority, so a big backlog
+     * of one owner doesn't hide tasks of the others from fair-share scheduling.
+     */
+    @Query(value = "SELECT * FROM public.tasks WHERE id IN (" + CREATED_CANDIDATE_IDS + ") "
+            + "ORDER BY COALESCE(priority, 0) DESC, created_at", nativeQuery = true)
+    List<TaskEntity> findCreatedTasksPerOwner(@Param("perOwner") final int perOwner);
+
+    /**
+     * Counts tasks in {@code status} that go before a task with the given priority and creation date.
+     */
+    @Query("SELECT COUNT(t) FROM TaskEntity t WHERE t.status = :status AND t.leaderId IS NULL "
+            + "AND (COALESCE(t.priority, 0) > :priority "
+            + "OR (COALESCE(t.priority, 0) = :priority AND t.createdAt < :createdAt))")
+    long countTasksAhead(@Param("status") final Status status, @Param("priority") final int priority,
+                         @Param("createdAt") final LocalDateTime createdAt);
+
+    /**
+     * Locks up to {@code perOwner} CREATED tasks of each owner with the highest priority, rows already locked
+     * by another node are skipped. PostgreSQL only, must be called inside a transaction that also marks chosen
+     * tasks as claimed. The window function is kept in a sub-query, since it can't be used with FOR UPDATE.
+     */
+    @Query(value = "SELECT * FROM public.tasks WHERE id IN (" + CREATED_CANDIDATE_IDS + ") "
+            + "ORDER BY COALESCE(priority, 0) DESC, created_at FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<TaskEntity> findCreatedTasksForUpdateSkipLocked(@Param("perOwner") final int perOwner);
+
+    /**
+     * Returns the oldest task with the same result key, which is in one of {@code statuses}
+     * and runs its search itself.
+     */
+    Optional<TaskEntity> findFirstByResultKeyAndLeaderIdIsNullAndStatusInOrderByCreatedAt(
+            final String resultKey, final Collection<Status> statuses);
+
+    List<TaskEntity> findTaskEntityByLeaderIdAndStatusOrderByCreatedAt(final Long leaderId, final Status status);
+
+    /**
+     * Claims a task only if it is still in {@code expected} state, returns the number of updated rows,
+     * so 0 means that the task was claimed by someone else.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE TaskEntity t SET t.status = :claimed, t.claimedBy = :nodeId, t.leaseExpiresAt = :lease "
+            + "WHERE t.id = :id AND t.status = :expected")
+    int claimTask(@Param("id") final Long id, @Param("nodeId") final String nodeId,
+                  @Param("expected") final Status expected, @Param("claimed") final Status claimed,
+                  @Param("lease") final LocalDateTime lease);
+
+    @Query("SELECT t FROM TaskEntity t WHERE t.status = :status "
+            + "AND (t.leaseExpiresAt IS NULL OR t.leaseExpiresAt < :expiredBefore) ORDER BY t.createdAt")
+    List<TaskEntity> findTasksWithExpiredLease(@Param("status") final Status status,
+                                               @Param("expiredBefore") final LocalDateTime expiredBefore);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE TaskEntity t SET t.leaseExpiresAt = :lease "
+            + "WHERE t.claimedBy = :nodeId AND t.status = :status AND t.id IN :ids")
+    int renewLeases(@Param("nodeId") final String nodeId, @Param("ids") final Collection<Long> ids,
+                    @Param("status") final Status status, @Param("lease") final LocalDateTime lease);
+
+    /**
+     * Moves ownership of a task to {@code nodeId} only if its lease is still expired, so only one node
+     * can take over the task, returns the number of updated rows.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE TaskEntity t SET t.claimedBy = :nodeId, t.leaseExpiresAt = :lease "
+            + "WHERE t.id = :id AND t.status = :status "
+            + "AND (t.leaseExpiresAt IS NULL OR t.leaseExpiresAt < :expiredBefore)")
+    int takeOverExpiredTask(@Param("id") final Long id, @Param("nodeId") final String nodeId,
+                            @Param("status") final Status status,
+                            @Param("expiredBefore") final LocalDateTime expiredBefore,
+                            @Param("lease") final LocalDateTime lease);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE TaskEntity t SET t.status = :requeued, t.claimedBy = NULL, t.leaseExpiresAt = NULL "
+            + "WHERE t.id = :id AND t.claimedBy = :nodeId AND t.status = :expected")
+    int requeueTask(@Param("id") final Long id, @Param("nodeId") final String nodeId,
+                    @Param("expected") final Status expected, @Param("requeued") final Status requeued);
+
+    /**
+     * Finishes a task only if it is still in {@code expected} state and claimed by the node, so a state set
+     * by another node in the meantime, e.g. a cancellation, isn't overwritten.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE TaskEntity t SET t.status = :finished, t.reason = :reason "
+            + "WHERE t.id = :id AND t.claimedBy = :nodeId AND t.status = :expected")
+    int completeTask(@Param("id") final Long id, @Param("nodeId") final String nodeId,
+                     @Param("expected") final Status expected, @Param("finished") final Status finished,
+                     @Param("reason") final String reason);
 }
@@ -51,6 +51,8 @@ public class BlastStartSearchingRequestValidator {
 
     public static final Long TARGET_SEQUENCE_MIN_LIMIT = 0L;
     public static final Double EXPECTED_THRESHOLD_MIN_LIMIT = 0.0;
+    public static final Integer PRIORITY_MIN_LIMIT = 0;
+    public static final Integer PRIORITY_MAX_LIMIT = 10;
     public static final String CMD_OPTION_PATTERN = "-[a-zA-Z_\\-]*";
 
     private final Long targetSequenceMaxLimit;
@@ -71,6 +73,7 @@ public class BlastStartSearchingRequestValidator {
         validateQuery(request);
         validateMaxTargetSequence(request);
         validateExpectedThreshold(request);
+        validatePriority(request);
         return recreateWithNewOptions(
             request,
             BooleanUtils.isTrue(request.getFilterOptions())
@@ -150,6 +153,16 @@ public class BlastStartSearchingRequestValidator {
         }
     }
 
+    private void validatePriority(final BlastStartSearchingRequest request) {
+        if (request.getPriority() != null
+                && (request.getPriority() < PRIORITY_MIN_LIMIT || request.getPriority() > PRIORITY_MAX_LIMIT)) {
+            throw new IllegalArgumentException(
+                    messageHelper.getMessage(MessageConstants.PRIORITY_LIMIT_EXCEPTION_MESSAGE,
+                            PRIORITY_MIN_LIMIT, PRIORITY_MAX_LIMIT)
+            );
+        }
+    }
+
     String filterOption(final Map<BlastToolOption, String> optionMap) {
         return optionMap.keySet().stream()
                 .filter(option -> {
@@ -234,6 +247,7 @@ public class BlastStartSearchingRequestValidator {
                 .maxTargetSequence(request.getMaxTargetSequence())
                 .expectedThreshold(request.getExpectedThreshold())
                 .options(options)
+                .priority(request.getPriority())
                 .build();
     }
 
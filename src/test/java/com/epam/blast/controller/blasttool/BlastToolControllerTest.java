@@ -25,21 +25,48 @@
 package com.epam.blast.controller.blasttool;
 
 import com.epam.blast.controller.common.Result;
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSort;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
 import com.epam.blast.entity.blasttool.BlastStartSearchingRequest;
 import com.epam.blast.entity.task.TaskStatus;
 import com.epam.blast.entity.blasttool.Status;
 import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.file.BlastRawResult;
 import com.epam.blast.manager.task.TaskServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,9 +75,15 @@ class BlastToolControllerTest {
     private static final Long ID = 1L;
     private static final String VALUE_DB_NAME = "db name";
     private static final String VALUE_QUERY = "ACGT";
+    private static final String RAW_HEADER = "qaccver,saccver\n";
+    private static final String RAW_CONTENT = "Query_1,P80049.1\nQuery_2,P80049.2\n";
+    private static final String ETAG = "\"etag\"";
+    private static final String NEXT_CURSOR = "1042";
 
     @Mock
     private TaskServiceImpl mockTaskService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
     @InjectMocks
     private BlastToolController controller;
 
@@ -63,6 +96,136 @@ class BlastToolControllerTest {
         verify(mockTaskService).createTaskForBlastToolExecution(any());
     }
 
+    @Test
+    void shouldStreamResultEntriesAsNewlineDelimitedJson() throws IOException {
+        doAnswer(invocation -> {
+            final Consumer<BlastResultEntry> consumer = invocation.getArgument(2);
+            consumer.accept(BlastResultEntry.builder().queryAccVersion("Query_1").seqTaxId(7801L).build());
+            consumer.accept(BlastResultEntry.builder().queryAccVersion("Query_2").seqTaxId(7802L).build());
+            return null;
+        }).when(mockTaskService).streamBlastResult(eq(ID), any(), any());
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.streamResult(ID, null, null, null, null, null, null, Set.of(7801L, 7802L), null,
+                BlastResultSort.EXP_VALUE, 5, response);
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        final String[] lines = response.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Query_1", objectMapper.readValue(lines[0], Map.class).get("queryAccVersion"));
+        assertEquals("Query_2", objectMapper.readValue(lines[1], Map.class).get("queryAccVersion"));
+        final ArgumentCaptor<BlastResultQuery> query = ArgumentCaptor.forClass(BlastResultQuery.class);
+        verify(mockTaskService).streamBlastResult(eq(ID), query.capture(), any());
+        assertEquals(Set.of(7801L, 7802L), query.getValue().getTaxIds());
+        assertEquals(BlastResultSort.EXP_VALUE, query.getValue().getSortBy());
+        assertEquals(5, query.getValue().getTopPerQuery().intValue());
+    }
+
+    @Test
+    void shouldEndLimitedStreamWithNextCursor() throws IOException {
+        doAnswer(invocation -> {
+            final Consumer<BlastResultEntry> consumer = invocation.getArgument(2);
+            consumer.accept(BlastResultEntry.builder().queryAccVersion("Query_1").build());
+            return NEXT_CURSOR;
+        }).when(mockTaskService).streamBlastResult(eq(ID), any(), any());
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.streamResult(ID, 1, null, null, null, null, null, null, null, null, null, response);
+
+        final String[] lines = response.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Query_1", objectMapper.readValue(lines[0], Map.class).get("queryAccVersion"));
+        assertEquals(Map.of("nextCursor", NEXT_CURSOR), objectMapper.readValue(lines[1], Map.class));
+    }
+
+    @Test
+    void shouldReturnResultSummary() {
+        final BlastResultSummary summary = BlastResultSummary.builder().hitCount(0L).queries(List.of()).build();
+        when(mockTaskService.getBlastResultSummary(ID)).thenReturn(summary);
+
+        assertEquals(summary, controller.getResultSummary(ID).getPayload());
+    }
+
+    @Test
+    void shouldReturnWholeRawResult(@TempDir final Path directory) throws IOException {
+        final MockHttpServletResponse response = getRawResult(directory, null, null);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(RAW_HEADER + RAW_CONTENT, response.getContentAsString());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void shouldReturnRequestedRangeOfRawResult(@TempDir final Path directory) throws IOException {
+        final String content = RAW_HEADER + RAW_CONTENT;
+        final MockHttpServletResponse spanning = getRawResult(directory, "bytes=10-20", null);
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), spanning.getStatus());
+        assertEquals(content.substring(10, 21), spanning.getContentAsString());
+        assertEquals(String.format("bytes 10-20/%d", content.length()), spanning.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(11, spanning.getContentLength());
+
+        final MockHttpServletResponse fileOnly = getRawResult(directory, "bytes=20-", ETAG);
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), fileOnly.getStatus());
+        assertEquals(content.substring(20), fileOnly.getContentAsString());
+
+        final MockHttpServletResponse suffix = getRawResult(directory, "bytes=-4", null);
+        assertEquals(content.substring(content.length() - 4), suffix.getContentAsString());
+    }
+
+    @Test
+    void shouldReturnWholeRawResultIfItWasChanged(@TempDir final Path directory) throws IOException {
+        final MockHttpServletResponse response = getRawResult(directory, "bytes=2-12", "\"other\"");
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(RAW_HEADER + RAW_CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRangeOfRawResult(@TempDir final Path directory) throws IOException {
+        final MockHttpServletResponse response = getRawResult(directory, "bytes=1000-", null);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.getStatus());
+        assertEquals(String.format("bytes */%d", RAW_HEADER.length() + RAW_CONTENT.length()),
+                response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void shouldAcceptGzipOnlyIfItIsNotExcluded() {
+        assertTrue(BlastToolController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(BlastToolController.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"));
+        assertFalse(BlastToolController.acceptsGzip(null));
+        assertFalse(BlastToolController.acceptsGzip("deflate, br"));
+        assertFalse(BlastToolController.acceptsGzip("gzip;q=0"));
+        assertFalse(BlastToolController.acceptsGzip("x-gzip, gzip;q=0.000"));
+    }
+
+    private MockHttpServletResponse getRawResult(final Path directory, final String range, final String ifRange)
+            throws IOException {
+        final Path file = Files.writeString(directory.resolve("1.blastout"), RAW_CONTENT);
+        when(mockTaskService.getBlastRawResult(ID, false)).thenReturn(BlastRawResult.builder()
+                .name("1.blastout")
+                .prefix(RAW_HEADER.getBytes(StandardCharsets.UTF_8))
+                .file(file)
+                .fileLength(RAW_CONTENT.length())
+                .suffix(new byte[0])
+                .etag(ETAG)
+                .build());
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        if (ifRange != null) {
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        }
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getRawResult(ID, request, response);
+        return response;
+    }
+
     private TaskStatus createBlastpStatus() {
         return TaskStatus.builder()
                 .requestId(ID)
@@ -28,7 +28,10 @@ import com.epam.blast.entity.blasttool.Status;
 import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
 import com.epam.blast.manager.helper.MessageHelper;
+import com.epam.blast.manager.task.NodeIdentity;
+import com.epam.blast.manager.task.TaskCreatedEvent;
 import com.epam.blast.manager.task.TaskServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,19 +45,36 @@ import test.utils.TestTaskMaker;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -70,10 +90,19 @@ class ScheduledServiceTest {
     public static final Integer AMOUNT_TASKS_NOT_VALID = 3;
     public static final Integer AMOUNT_TASKS_TOTAL = AMOUNT_TASKS_VALID + AMOUNT_TASKS_NOT_VALID;
     public static final Integer MAX_TEST_RUN_TIMEOUT = 5;
+    public static final Integer MAX_DISPATCH_LATENCY_MS = 1000;
+    public static final String NODE_ID = "test-node";
+    public static final long LEASE_DURATION_MS = 120000;
+    public static final String JOB_ID = "4242";
+    public static final long BATCH_WINDOW_MS = 100;
+    public static final int MAX_BATCH_TASKS = 10;
+    public static final int CORES = 8;
+    public static final long POLL_INTERVAL_MS = 500;
 
     private final List<TaskEntity> taskList = new ArrayList<>(AMOUNT_TASKS_TOTAL);
     private ScheduledService scheduledService;
     private ExecutorService executorService;
+    private final NodeIdentity nodeIdentity = new NodeIdentity(NODE_ID, mock(MessageHelper.class));
 
     @Mock
     TaskServiceImpl taskService;
@@ -89,9 +118,10 @@ class ScheduledServiceTest {
         MockitoAnnotations.openMocks(this);
         executorService = Executors.newFixedThreadPool(THREADS_AMOUNT);
         scheduledService = new ScheduledService(
-                THREADS_AMOUNT, THREADS_PENDING, false,
-                executorService, taskService, commandService, messageHelper);
-        when(taskService.findAllTasksByStatus(any(Status.class))).thenReturn(taskList);
+                THREADS_AMOUNT, THREADS_PENDING, false, false, LEASE_DURATION_MS, BATCH_WINDOW_MS, MAX_BATCH_TASKS,
+                CORES, CORES, executorService, taskService, commandService, nodeIdentity, messageHelper);
+        lenient().when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenAnswer(invocation ->
+                new ArrayList<>(taskList.subList(0, Math.min(invocation.getArgument(1), taskList.size()))));
 
         taskList.addAll(TestTaskMaker.makeTasks(TaskType.MAKE_BLAST_DB, true, AMOUNT_TASKS_MAKEDB));
         taskList.addAll(TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, true, AMOUNT_TASKS_BLASTP));
@@ -132,6 +162,251 @@ class ScheduledServiceTest {
                 argThat(argument -> argument.getExitCode() == ExitCodes.OTHER_EXCEPTION));
     }
 
+    @Test
+    void testTaskIsDispatchedOnCreationWithoutWaitingForSweep() throws InterruptedException, IOException {
+        final ScheduledService eventDrivenService = new ScheduledService(
+                THREADS_AMOUNT, THREADS_PENDING, false, true, LEASE_DURATION_MS, BATCH_WINDOW_MS, MAX_BATCH_TASKS,
+                CORES, CORES, executorService, taskService, commandService, nodeIdentity, messageHelper);
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(List.of(taskEntity), List.of());
+
+        eventDrivenService.onTaskCreated(new TaskCreatedEvent(taskEntity.getId()));
+
+        verify(commandService, timeout(MAX_DISPATCH_LATENCY_MS)).runTask(taskEntity);
+        eventDrivenService.shutdown();
+    }
+
+    @Test
+    void testTaskWithExpiredLeaseIsReattachedToRunningJob() {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final ExecutionResult jobResult = ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        when(taskService.findTasksWithExpiredLease(any())).thenReturn(List.of(taskEntity));
+        when(taskService.takeOverTask(eq(taskEntity), eq(NODE_ID), any(), any())).thenReturn(true);
+        when(commandService.attachTask(taskEntity)).thenReturn(Optional.of(jobResult));
+
+        scheduledService.recoverExpiredTasks();
+
+        verify(taskService, timeout(MAX_DISPATCH_LATENCY_MS)).changeStatus(taskEntity, jobResult);
+        verify(taskService, never()).requeueTask(any(), any());
+    }
+
+    @Test
+    void testTaskWithExpiredLeaseIsRequeuedWhenJobIsGone() {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        when(taskService.findTasksWithExpiredLease(any())).thenReturn(List.of(taskEntity));
+        when(taskService.takeOverTask(eq(taskEntity), eq(NODE_ID), any(), any())).thenReturn(true);
+        when(commandService.attachTask(taskEntity)).thenReturn(Optional.empty());
+
+        scheduledService.recoverExpiredTasks();
+
+        verify(taskService, timeout(MAX_DISPATCH_LATENCY_MS)).requeueTask(taskEntity, NODE_ID);
+        verify(taskService, never()).changeStatus(any(), any());
+    }
+
+    @Test
+    void testTaskTakenOverByAnotherNodeIsNotRecovered() {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        when(taskService.findTasksWithExpiredLease(any())).thenReturn(List.of(taskEntity));
+        when(taskService.takeOverTask(eq(taskEntity), eq(NODE_ID), any(), any())).thenReturn(false);
+
+        scheduledService.recoverExpiredTasks();
+
+        verify(commandService, never()).attachTask(any());
+    }
+
+    @Test
+    void testSubmittedClusterJobIsCompletedByPoller() throws InterruptedException, IOException {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final ExecutionResult jobResult = ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(List.of(taskEntity));
+        when(commandService.runTask(taskEntity)).thenReturn(ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").jobId(JOB_ID).build());
+        when(commandService.checkJobs(any())).thenReturn(Map.of(), Map.of(taskEntity.getId(), jobResult));
+
+        scheduledService.runNewTasks();
+        checkTestTimeout();
+        verify(taskService).updateTask(argThat(task -> JOB_ID.equals(task.getJobId())));
+        verify(taskService, never()).changeStatus(any(), any());
+
+        scheduledService.renewLeases();
+        verify(taskService).renewLeases(eq(NODE_ID), eq(Set.of(taskEntity.getId())), any());
+
+        scheduledService.pollClusterJobs();
+        verify(taskService, never()).completeTask(any(), any(), any());
+        scheduledService.pollClusterJobs();
+        verify(taskService).completeTask(taskEntity, jobResult, NODE_ID);
+        verify(taskService, never()).changeStatus(any(), any());
+        scheduledService.pollClusterJobs();
+        verify(commandService, times(2)).checkJobs(any());
+    }
+
+    @Test
+    void testClusterJobResultIsDroppedIfTaskIsNoLongerRunningOnNode() throws InterruptedException, IOException {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final ExecutionResult jobResult = ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(List.of(taskEntity));
+        when(commandService.runTask(taskEntity)).thenReturn(ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").jobId(JOB_ID).build());
+        when(commandService.checkJobs(any())).thenReturn(Map.of(taskEntity.getId(), jobResult));
+        // e.g. the task was cancelled through another node
+        when(taskService.completeTask(taskEntity, jobResult, NODE_ID)).thenReturn(false);
+
+        scheduledService.runNewTasks();
+        checkTestTimeout();
+        scheduledService.pollClusterJobs();
+        scheduledService.pollClusterJobs();
+
+        verify(taskService).completeTask(taskEntity, jobResult, NODE_ID);
+        verify(taskService, never()).changeStatus(any(), any());
+        verify(commandService).checkJobs(any());
+    }
+
+    @Test
+    void testTaskWithExpiredLeaseIsReattachedToClusterJob() {
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        taskEntity.setJobId(JOB_ID);
+        when(taskService.findTasksWithExpiredLease(any())).thenReturn(List.of(taskEntity));
+        when(taskService.takeOverTask(eq(taskEntity), eq(NODE_ID), any(), any())).thenReturn(true);
+        when(commandService.checkJobs(any())).thenReturn(Map.of());
+
+        scheduledService.recoverExpiredTasks();
+        scheduledService.pollClusterJobs();
+
+        verify(commandService, never()).attachTask(any());
+        verify(commandService).checkJobs(argThat(tasks -> tasks.contains(taskEntity)));
+    }
+
+    @Test
+    void testCompatibleSearchesAreRunInOneBatch() throws InterruptedException, IOException {
+        final TaskEntity first = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity second = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity alone = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final ExecutionResult result = ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(List.of(first, second, alone));
+        when(commandService.getBatchKey(any())).thenReturn(Optional.of("key"), Optional.of("key"), Optional.empty());
+        when(commandService.runBatch(eq(List.of(first, second)), any()))
+                .thenReturn(Map.of(first.getId(), result, second.getId(), result));
+
+        scheduledService.runNewTasks();
+
+        verify(commandService, timeout(MAX_DISPATCH_LATENCY_MS)).runTask(alone);
+        verify(taskService, timeout(MAX_DISPATCH_LATENCY_MS)).changeStatus(first, result);
+        verify(taskService, timeout(MAX_DISPATCH_LATENCY_MS)).changeStatus(second, result);
+        verify(commandService).runBatch(eq(List.of(first, second)), any());
+        verify(commandService, never()).runTask(first);
+        verify(commandService, never()).runTask(second);
+    }
+
+    @Test
+    void testBatchIsStoppedWhenAllItsTasksAreCancelled() throws InterruptedException, IOException {
+        final TaskEntity first = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity second = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        first.setStatus(Status.RUNNING);
+        second.setStatus(Status.RUNNING);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(List.of(first, second));
+        when(taskService.findTask(first.getId())).thenReturn(first);
+        when(taskService.findTask(second.getId())).thenReturn(second);
+        when(commandService.getBatchKey(any())).thenReturn(Optional.of("key"));
+        when(commandService.runBatch(eq(List.of(first, second)), any())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(MAX_TEST_RUN_TIMEOUT));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return Map.of();
+        });
+
+        scheduledService.runNewTasks();
+        assertTrue(started.await(MAX_TEST_RUN_TIMEOUT, TimeUnit.SECONDS));
+        scheduledService.cancelTask(first.getId(), true);
+        assertFalse(interrupted.await(BATCH_WINDOW_MS, TimeUnit.MILLISECONDS));
+        scheduledService.cancelTask(second.getId(), true);
+
+        assertTrue(interrupted.await(MAX_TEST_RUN_TIMEOUT, TimeUnit.SECONDS));
+        checkTestTimeout();
+        verify(taskService, never()).changeStatus(any(), any());
+    }
+
+    @Test
+    void testFreeCoresAreSharedBetweenClaimedSearches() throws InterruptedException, IOException {
+        final List<TaskEntity> searches = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, true, 4);
+        final CountDownLatch finish = new CountDownLatch(1);
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenReturn(searches);
+        when(commandService.runTask(any(TaskEntity.class))).thenAnswer(invocation -> {
+            finish.await();
+            return ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        });
+
+        scheduledService.runNewTasks();
+
+        searches.forEach(task -> assertEquals(CORES / searches.size(), task.getThreads()));
+        finish.countDown();
+        checkTestTimeout();
+    }
+
+    @Test
+    void testSearchUsesCoresReleasedByFinishedSearches() throws InterruptedException, IOException {
+        final TaskEntity first = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity second = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity shortSearch = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        shortSearch.setCost(1);
+        final ExecutionResult result = ExecutionResult.builder()
+                .exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any()))
+                .thenReturn(List.of(first), List.of(shortSearch, second));
+        when(commandService.runTask(any(TaskEntity.class))).thenReturn(result);
+
+        scheduledService.runNewTasks();
+        verify(taskService, timeout(MAX_DISPATCH_LATENCY_MS)).changeStatus(first, result);
+        checkTestTimeout();
+        scheduledService.runNewTasks();
+        checkTestTimeout();
+
+        assertEquals(CORES, first.getThreads());
+        assertEquals(1, shortSearch.getThreads());
+        assertEquals(CORES - 1, second.getThreads());
+    }
+
+    @Test
+    void testSearchGetsNoThreadsBudgetWhenAllCoresAreTaken() throws InterruptedException, IOException {
+        final TaskEntity first = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final TaskEntity second = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        second.setCost(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any()))
+                .thenReturn(List.of(first), List.of(second));
+        when(commandService.runTask(any(TaskEntity.class))).thenAnswer(invocation -> {
+            finish.await();
+            return ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").build();
+        });
+
+        scheduledService.runNewTasks();
+        scheduledService.runNewTasks();
+
+        assertEquals(CORES, first.getThreads());
+        assertNull(second.getThreads());
+        finish.countDown();
+        checkTestTimeout();
+    }
+
+    @Test
+    void testEventDrivenDispatchStartsTaskSoonerThanPolling() throws InterruptedException, IOException {
+        final long pollingLatency = measureDispatchLatency(false);
+        final long eventDrivenLatency = measureDispatchLatency(true);
+
+        log.info("Submit to RUNNING latency: polling {} ms, event driven {} ms", pollingLatency, eventDrivenLatency);
+        assertTrue(eventDrivenLatency < pollingLatency);
+        assertTrue(eventDrivenLatency < MAX_DISPATCH_LATENCY_MS);
+    }
+
     private void checkTestTimeout() throws InterruptedException {
         final Future<?> future = executorService.submit(() -> {
         });
@@ -142,4 +417,37 @@ class ScheduledServiceTest {
             fail("ExecutorService didn't finish in expected time!");
         }
     }
+
+    private long measureDispatchLatency(final boolean eventDrivenDispatch) throws InterruptedException, IOException {
+        final ScheduledService service = new ScheduledService(
+                THREADS_AMOUNT, THREADS_PENDING, false, eventDrivenDispatch, LEASE_DURATION_MS, BATCH_WINDOW_MS,
+                MAX_BATCH_TASKS, CORES, CORES, executorService, taskService, commandService, nodeIdentity,
+                messageHelper);
+        final TaskEntity taskEntity = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, true);
+        final AtomicBoolean submitted = new AtomicBoolean(false);
+        final AtomicLong startedAt = new AtomicLong();
+        final CountDownLatch started = new CountDownLatch(1);
+        when(taskService.claimTasks(eq(NODE_ID), anyInt(), any())).thenAnswer(invocation ->
+                submitted.getAndSet(false) ? List.of(taskEntity) : List.of());
+        when(commandService.runTask(taskEntity)).thenAnswer(invocation -> {
+            startedAt.set(System.nanoTime());
+            started.countDown();
+            return null;
+        });
+        // stands in for the @Scheduled sweep, which is the only way to get a task started without events
+        final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(service::runNewTasks, POLL_INTERVAL_MS, POLL_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        try {
+            final long submittedAt = System.nanoTime();
+            submitted.set(true);
+            service.onTaskCreated(new TaskCreatedEvent(taskEntity.getId()));
+            assertTrue(started.await(MAX_TEST_RUN_TIMEOUT, TimeUnit.SECONDS));
+            return TimeUnit.NANOSECONDS.toMillis(startedAt.get() - submittedAt);
+        } finally {
+            sweeper.shutdownNow();
+            service.shutdown();
+            checkTestTimeout();
+        }
+    }
 }
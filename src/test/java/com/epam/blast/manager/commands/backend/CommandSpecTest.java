@@ -0,0 +1,53 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.commands.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CommandSpecTest {
+
+    @Test
+    void blankOptionsShouldHaveNoArguments() {
+        assertEquals(List.of(), CommandSpec.splitArguments(null));
+        assertEquals(List.of(), CommandSpec.splitArguments("  \t "));
+    }
+
+    @Test
+    void optionsShouldBeSplitByWhitespacesOutsideOfQuotes() {
+        assertEquals(List.of("-entrez_query", "Homo sapiens[Organism]", "-word_size", "7"),
+                CommandSpec.splitArguments(" -entrez_query \"Homo sapiens[Organism]\"  -word_size\t7 "));
+        assertEquals(List.of("-entrez_query", "Homo sapiens[Organism]"),
+                CommandSpec.splitArguments("-entrez_query 'Homo sapiens[Organism]'"));
+        assertEquals(List.of("-title", "it's \"quoted\""),
+                CommandSpec.splitArguments("-title \"it's \\\"quoted\\\"\""));
+        assertEquals(List.of("-query_loc=1 10", ""), CommandSpec.splitArguments("-query_loc=\"1 10\" ''"));
+        assertEquals(List.of("a b"), CommandSpec.splitArguments("a\\ b"));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.commands.commands.MakeBlastDbCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DockerPoolExecutionBackendTest {
+
+    private static final String DB_DIRECTORY = "/data/blastdb";
+    private static final String QUERIES_DIRECTORY = "/data/queries";
+    private static final String RESULTS_DIRECTORY = "/data/results";
+    private static final String CONTAINER = "blast-pool_0";
+    private static final String TASK_NAME = "blast_1";
+    private static final List<String> REMOVE_CONTAINER = List.of("docker", "rm", "-f", CONTAINER);
+
+    @Mock
+    private CommandPerformer commandPerformer;
+
+    @Mock
+    private BlastFileManager blastFileManager;
+
+    @Mock
+    private MessageHelper messageHelper;
+
+    private final List<List<String>> commands = new ArrayList<>();
+    private DockerPoolExecutionBackend backend;
+
+    @BeforeEach
+    public void init() throws IOException, InterruptedException {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(DB_DIRECTORY);
+        when(blastFileManager.getBlastQueryDirectory()).thenReturn(QUERIES_DIRECTORY);
+        when(blastFileManager.getBlastResultsDirectory()).thenReturn(RESULTS_DIRECTORY);
+        when(commandPerformer.perform(any(ProcessBuilder.class), any())).thenAnswer(this::record);
+        backend = new DockerPoolExecutionBackend(commandPerformer, blastFileManager, messageHelper, 1, 2,
+                "blast-pool");
+        backend.startContainers();
+    }
+
+    @Test
+    void poolShouldStartContainersWithSharedDirectories() {
+        assertEquals(List.of(REMOVE_CONTAINER, List.of("docker", "run", "-d", "--name", CONTAINER,
+                "-v", DB_DIRECTORY + ":/blast/blastdb_custom:ro",
+                "-v", QUERIES_DIRECTORY + ":/blast/queries:ro",
+                "-v", RESULTS_DIRECTORY + ":/blast/results:rw",
+                "-e", "BLASTDB=/blast/blastdb_custom",
+                "--entrypoint", "sleep", "ncbi/blast", "infinity")), commands);
+    }
+
+    @Test
+    void searchShouldBeExecutedInPooledContainer() throws IOException, InterruptedException {
+        backend.run(searchCommand());
+
+        assertEquals(List.of("docker", "exec", "-e", "BLASTDB=/blast/blastdb_custom", CONTAINER, "sh", "-c"),
+                lastCommand().subList(0, 7));
+        assertEquals(List.of(TASK_NAME, "blastn", "-query", "/blast/queries/1.fsa"), lastCommand().subList(8, 12));
+    }
+
+    @Test
+    void pooledSearchShouldHaveNoContainerToRemove() throws IOException, InterruptedException {
+        backend.run(searchCommand());
+        final int commandsRun = commands.size();
+
+        backend.remove(TASK_NAME);
+        assertEquals(commandsRun, commands.size());
+        backend.remove(TASK_NAME);
+        assertEquals(List.of("docker", "rm", "-f", TASK_NAME), lastCommand());
+    }
+
+    @Test
+    void makeBlastDbShouldBeRunInOwnContainer() throws IOException, InterruptedException {
+        backend.run(MakeBlastDbCommand.builder()
+                .taskName("makeBlastDb_2")
+                .blastDbDirectory(DB_DIRECTORY)
+                .inputFilePath("/data/fasta")
+                .inputFileName("sharks.fasta")
+                .dbType("prot")
+                .dbName("Nurse-shark-proteins")
+                .dbTitle("Nurse-shark-proteins")
+                .taxId(7801)
+                .blastDbVersion(5)
+                .build());
+
+        assertEquals(List.of("docker", "run", "--name", "makeBlastDb_2"), lastCommand().subList(0, 4));
+    }
+
+    @Test
+    void cancelShouldKillJobInsideContainer() throws IOException, InterruptedException {
+        doAnswer(invocation -> {
+            final ExecutionResult result = record(invocation);
+            if (lastCommand().contains("blastn")) {
+                backend.cancel(TASK_NAME, null);
+            }
+            return result;
+        }).when(commandPerformer).perform(any(ProcessBuilder.class), any());
+
+        backend.run(searchCommand());
+
+        assertEquals(List.of("docker", "exec", CONTAINER, "sh", "-c"), lastCommand().subList(0, 5));
+        assertEquals(List.of("sh", TASK_NAME), lastCommand().subList(6, 8));
+    }
+
+    @Test
+    void containerShouldBeRecycledAfterMaxTasks() throws IOException, InterruptedException {
+        backend.run(searchCommand());
+        assertEquals(3, commands.size());
+        backend.run(searchCommand());
+
+        assertEquals(REMOVE_CONTAINER, commands.get(4));
+        assertEquals(6, commands.size());
+    }
+
+    @Test
+    void stoppedContainerShouldBeRecreated() throws IOException, InterruptedException {
+        doAnswer(invocation -> {
+            record(invocation);
+            return ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output("false\n").build();
+        }).when(commandPerformer).perform(any(ProcessBuilder.class), any());
+
+        backend.checkContainers();
+
+        assertEquals(List.of("docker", "inspect", "-f", "{{.State.Running}}", CONTAINER), commands.get(2));
+        assertEquals(REMOVE_CONTAINER, commands.get(3));
+        assertEquals(5, commands.size());
+    }
+
+    private ExecutionResult record(final InvocationOnMock invocation) {
+        commands.add(invocation.<ProcessBuilder>getArgument(0).command());
+        return ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output("true\n").build();
+    }
+
+    private List<String> lastCommand() {
+        return commands.get(commands.size() - 1);
+    }
+
+    private static BlastToolCommand searchCommand() {
+        return BlastToolCommand.builder()
+                .taskName(TASK_NAME)
+                .blastDbDirectory(DB_DIRECTORY)
+                .blastQueriesDirectory(QUERIES_DIRECTORY)
+                .blastResultsDirectory(RESULTS_DIRECTORY)
+                .blastTool("blastn")
+                .resultDelimiter(",")
+                .queryFileName("1.fsa")
+                .dbName("Nurse-shark-proteins")
+                .outputFileName("1.blastout")
+                .expectedThreshold("0.001")
+                .options("")
+                .build();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.commands.commands.MakeBlastDbCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.performers.ProcessSupervisor;
+import com.epam.blast.manager.commands.performers.SupervisedProcess;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocalExecutionBackendTest {
+
+    private static final String BIN_DIRECTORY = "/opt/blast/bin";
+    private static final String DB_DIRECTORY = "/data/blastdb";
+    private static final String QUERIES_DIRECTORY = "/data/queries";
+    private static final String RESULTS_DIRECTORY = "/data/results";
+    private static final String FASTA_DIRECTORY = "/data/fasta";
+    private static final String TASK_NAME = "blast_1";
+    private static final String OUTPUT_FORMAT = String.format(BlastToolCommand.BLAST_FILE_FORMAT, ",");
+
+    @Mock
+    private CommandPerformer commandPerformer;
+
+    @Mock
+    private ProcessSupervisor processSupervisor;
+
+    private final ArgumentCaptor<ProcessBuilder> process = ArgumentCaptor.forClass(ProcessBuilder.class);
+
+    @Test
+    void searchShouldRunConfiguredBinaryWithHostPaths(@TempDir final Path pidDirectory)
+            throws IOException, InterruptedException {
+        mockSupervisor();
+        new LocalExecutionBackend(commandPerformer, processSupervisor, BIN_DIRECTORY,
+                Map.of("blastn", "/usr/local/bin/blastn"), pidDirectory.toString()).run(searchCommand());
+
+        verify(processSupervisor).start(anyString(), process.capture(), eq(true));
+        assertEquals(List.of("/usr/local/bin/blastn", "-task", "megablast", "-query", QUERIES_DIRECTORY + "/1.fsa",
+                "-db", "Nurse-shark-proteins", "-out", RESULTS_DIRECTORY + "/1.blastout", "-outfmt", OUTPUT_FORMAT,
+                "-evalue", "0.001"), process.getValue().command());
+        assertEquals(DB_DIRECTORY, process.getValue().environment().get(CommandSpec.BLASTDB_VARIABLE));
+        assertNull(process.getValue().directory());
+    }
+
+    @Test
+    void makeBlastDbShouldBeRunFromBinDirectoryInDatabaseDirectory(@TempDir final Path pidDirectory)
+            throws IOException, InterruptedException {
+        mockSupervisor();
+        new LocalExecutionBackend(commandPerformer, processSupervisor, BIN_DIRECTORY, Map.of(),
+                pidDirectory.toString())
+                .run(MakeBlastDbCommand.builder()
+                        .taskName("makeBlastDb_3")
+                        .blastDbDirectory(DB_DIRECTORY)
+                        .inputFilePath(FASTA_DIRECTORY)
+                        .inputFileName("sharks.fasta")
+                        .dbType("prot")
+                        .dbName("Nurse-shark-proteins")
+                        .dbTitle("Nurse-shark-proteins")
+                        .taxId(7801)
+                        .blastDbVersion(5)
+                        .build());
+
+        verify(processSupervisor).start(anyString(), process.capture(), eq(true));
+        assertEquals(BIN_DIRECTORY + "/makeblastdb", process.getValue().command().get(0));
+        assertEquals(new File(DB_DIRECTORY), process.getValue().directory());
+    }
+
+    @Test
+    @Timeout(10)
+    void cancelShouldDestroyProcessOfRunningJob(@TempDir final Path binDirectory) throws Exception {
+        final ProcessSupervisor supervisor = new ProcessSupervisor(mock(MessageHelper.class), 1);
+        try {
+            final LocalExecutionBackend backend = new LocalExecutionBackend(commandPerformer, supervisor,
+                    writeSleepingBinary(binDirectory), Map.of(), binDirectory.toString());
+            final CompletableFuture<ExecutionResult> result = CompletableFuture.supplyAsync(() -> run(backend));
+            while (!result.isDone()) {
+                backend.cancel(TASK_NAME, null);
+                Thread.sleep(10);
+            }
+
+            assertNotEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.get().getExitCode());
+        } finally {
+            supervisor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void cancelShouldDestroyProcessStartedByPreviousRun(@TempDir final Path binDirectory) throws Exception {
+        final ProcessSupervisor supervisor = new ProcessSupervisor(mock(MessageHelper.class), 1);
+        try {
+            final CompletableFuture<ExecutionResult> result = startJob(supervisor, binDirectory);
+            final LocalExecutionBackend restarted = new LocalExecutionBackend(commandPerformer, processSupervisor,
+                    BIN_DIRECTORY, Map.of(), binDirectory.toString());
+
+            restarted.cancel(TASK_NAME, null);
+
+            assertNotEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.get().getExitCode());
+        } finally {
+            supervisor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void attachShouldDestroyProcessStartedByPreviousRun(@TempDir final Path binDirectory) throws Exception {
+        final ProcessSupervisor supervisor = new ProcessSupervisor(mock(MessageHelper.class), 1);
+        try {
+            final CompletableFuture<ExecutionResult> result = startJob(supervisor, binDirectory);
+            final LocalExecutionBackend restarted = new LocalExecutionBackend(commandPerformer, processSupervisor,
+                    BIN_DIRECTORY, Map.of(), binDirectory.toString());
+
+            assertTrue(restarted.attach(TASK_NAME).isEmpty());
+
+            assertNotEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.get().getExitCode());
+            assertFalse(Files.exists(binDirectory.resolve(TASK_NAME + ".pid")));
+        } finally {
+            supervisor.shutdown();
+        }
+    }
+
+    /**
+     * Starts the job by one backend and waits until its pid is written.
+     */
+    private CompletableFuture<ExecutionResult> startJob(final ProcessSupervisor supervisor,
+                                                        final Path binDirectory) throws Exception {
+        final LocalExecutionBackend backend = new LocalExecutionBackend(commandPerformer, supervisor,
+                writeSleepingBinary(binDirectory), Map.of(), binDirectory.toString());
+        final CompletableFuture<ExecutionResult> result = CompletableFuture.supplyAsync(() -> run(backend));
+        while (!Files.exists(binDirectory.resolve(TASK_NAME + ".pid"))) {
+            Thread.sleep(10);
+        }
+        return result;
+    }
+
+    private static String writeSleepingBinary(final Path binDirectory) throws IOException {
+        final Path blastn = binDirectory.resolve("blastn");
+        Files.write(blastn, List.of("#!/bin/sh", "exec sleep 60"));
+        blastn.toFile().setExecutable(true);
+        return binDirectory.toString();
+    }
+
+    private void mockSupervisor() throws IOException {
+        when(processSupervisor.start(anyString(), any(ProcessBuilder.class), eq(true)))
+                .thenReturn(new SupervisedProcess(mock(Process.class), CompletableFuture.completedFuture(
+                        ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).build())));
+    }
+
+    private static ExecutionResult run(final ExecutionBackend backend) {
+        try {
+            return backend.run(searchCommand());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BlastToolCommand searchCommand() {
+        return BlastToolCommand.builder()
+                .taskName(TASK_NAME)
+                .blastDbDirectory(DB_DIRECTORY)
+                .blastQueriesDirectory(QUERIES_DIRECTORY)
+                .blastResultsDirectory(RESULTS_DIRECTORY)
+                .blastTool("blastn -task megablast")
+                .resultDelimiter(",")
+                .queryFileName("1.fsa")
+                .dbName("Nurse-shark-proteins")
+                .outputFileName("1.blastout")
+                .expectedThreshold("0.001")
+                .options("")
+                .build();
+    }
+}
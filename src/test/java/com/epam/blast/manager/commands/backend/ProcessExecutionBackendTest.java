@@ -0,0 +1,141 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.backend;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.commands.BlastToolCommand;
+import com.epam.blast.manager.commands.commands.JobStatusCommand;
+import com.epam.blast.manager.commands.commands.MakeBlastDbCommand;
+import com.epam.blast.manager.commands.performers.CommandPerformer;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessExecutionBackendTest {
+
+    private static final String DB_DIRECTORY = "/data/blastdb";
+    private static final String QUERIES_DIRECTORY = "/data/queries";
+    private static final String RESULTS_DIRECTORY = "/data/results";
+    private static final String FASTA_DIRECTORY = "/data/fasta";
+    private static final String OUTPUT_FORMAT = String.format(BlastToolCommand.BLAST_FILE_FORMAT, ",");
+
+    @Mock
+    private CommandPerformer commandPerformer;
+
+    private final ArgumentCaptor<ProcessBuilder> process = ArgumentCaptor.forClass(ProcessBuilder.class);
+
+    @BeforeEach
+    public void init() throws IOException, InterruptedException {
+        when(commandPerformer.perform(any(ProcessBuilder.class), any()))
+                .thenReturn(ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).build());
+    }
+
+    @Test
+    void dockerBackendShouldRunSearchInContainer() throws IOException, InterruptedException {
+        new DockerExecutionBackend(commandPerformer).run(searchCommand("-word_size 11"));
+
+        verify(commandPerformer).perform(process.capture(), eq(null));
+        assertEquals(List.of("docker", "run", "--name", "blast_1",
+                "-v", DB_DIRECTORY + ":/blast/blastdb_custom:ro",
+                "-v", QUERIES_DIRECTORY + ":/blast/queries:ro",
+                "-v", RESULTS_DIRECTORY + ":/blast/results:rw",
+                "-e", "BLASTDB=/blast/blastdb_custom",
+                "ncbi/blast", "blastn", "-task", "megablast", "-query", "/blast/queries/1.fsa",
+                "-db", "Nurse-shark-proteins", "-out", "/blast/results/1.blastout", "-outfmt", OUTPUT_FORMAT,
+                "-evalue", "0.001", "-word_size", "11"), process.getValue().command());
+    }
+
+    @Test
+    void dockerBackendShouldRemoveContainerOfAttachableJob() throws IOException, InterruptedException {
+        new DockerExecutionBackend(commandPerformer).remove("blast_1");
+
+        verify(commandPerformer).perform(process.capture(), eq(null));
+        assertEquals(List.of("docker", "rm", "-f", "blast_1"), process.getValue().command());
+    }
+
+    @Test
+    void sgeBackendShouldSubmitJobWritingOutputFile() throws IOException, InterruptedException {
+        final Path outputFile = Paths.get(RESULTS_DIRECTORY, "2.blastout");
+        new SgeExecutionBackend(commandPerformer, "smp").run(MakeBlastDbCommand.builder()
+                .taskName("makeBlastDb_2")
+                .blastDbDirectory(DB_DIRECTORY)
+                .inputFilePath(FASTA_DIRECTORY)
+                .inputFileName("sharks.fasta")
+                .dbType("prot")
+                .parseSeqIds("")
+                .dbName("Nurse-shark-proteins")
+                .dbTitle("Nurse shark proteins")
+                .taxId(7801)
+                .blastDbVersion(5)
+                .maxFileSize("")
+                .build(), outputFile);
+
+        verify(commandPerformer).perform(process.capture(), eq(null));
+        assertEquals(List.of("qsub", "-sync", "y", "-b", "y", "-N", "makeBlastDb_2", "-o", outputFile.toString(),
+                "-wd", DB_DIRECTORY, "makeblastdb", "-in", FASTA_DIRECTORY + "/sharks.fasta", "-dbtype", "prot",
+                "-out", "Nurse-shark-proteins", "-title", "Nurse shark proteins", "-taxid", "7801",
+                "-blastdb_version", "5"), process.getValue().command());
+    }
+
+    @Test
+    void auxiliaryCommandShouldBeRunOnHost() throws IOException, InterruptedException {
+        new SlurmExecutionBackend(commandPerformer).run(JobStatusCommand.builder().build());
+
+        verify(commandPerformer).perform(process.capture(), eq(null));
+        assertEquals(List.of("qstat"), process.getValue().command());
+    }
+
+    private static BlastToolCommand searchCommand(final String options) {
+        return BlastToolCommand.builder()
+                .taskName("blast_1")
+                .blastDbDirectory(DB_DIRECTORY)
+                .blastQueriesDirectory(QUERIES_DIRECTORY)
+                .blastResultsDirectory(RESULTS_DIRECTORY)
+                .blastTool("blastn -task megablast")
+                .resultDelimiter(",")
+                .queryFileName("1.fsa")
+                .dbName("Nurse-shark-proteins")
+                .outputFileName("1.blastout")
+                .expectedThreshold("0.001")
+                .options(options)
+                .build();
+    }
+}
@@ -29,7 +29,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import test.utils.TemplateEngineUtils;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 public class BlastToolCommandTest {
@@ -50,7 +54,7 @@ public class BlastToolCommandTest {
     public static final String[] OPTIONS = {"", "", "-testoption testvalue"};
 
     public static final String[] COMMANDS_SAMPLES =
-        {"docker run --rm --name blast_0 "
+        {"docker run --name blast_0 "
                 + "-v blastdb_custom:/blast/blastdb_custom:ro "
                 + "-v queries:/blast/queries:ro "
                 + "-v results:/blast/results:rw "
@@ -60,7 +64,7 @@ public class BlastToolCommandTest {
                 + "-outfmt \"10 delim=, qaccver qlen qstart qend qseq saccver sseqid slen sstart send sseq btop "
                 + "evalue bitscore score length pident nident mismatch positive gapopen gaps ppos staxid ssciname "
                 + "scomname sstrand qcovs qcovhsp qcovus\" -evalue 0.1",
-        "docker run --rm --name blast_1 "
+        "docker run --name blast_1 "
                 + "-v blastdb_custom:/blast/blastdb_custom:ro "
                 + "-v queries:/blast/queries:ro "
                 + "-v results:/blast/results:rw "
@@ -70,7 +74,7 @@ public class BlastToolCommandTest {
                 + "-outfmt \"10 delim=, qaccver qlen qstart qend qseq saccver sseqid slen sstart send sseq btop "
                 + "evalue bitscore score length pident nident mismatch positive gapopen gaps ppos staxid ssciname "
                 + "scomname sstrand qcovs qcovhsp qcovus\" -negative_taxids 1,5,495 -max_target_seqs 200 -evalue 0.001",
-        "docker run --rm --name blast_2 "
+        "docker run --name blast_2 "
             + "-v blastdb_custom:/blast/blastdb_custom:ro "
             + "-v queries:/blast/queries:ro "
             + "-v results:/blast/results:rw ncbi/blast blastn "
@@ -107,6 +111,52 @@ public class BlastToolCommandTest {
         }
     }
 
+    @Test
+    void testThreadsBudgetIsPassedAsNumThreads() {
+        final BlastToolCommand.BlastToolCommandBuilder builder = BlastToolCommand.builder()
+                .taskName(TASK_NAME)
+                .resultDelimiter(RESULT_DELIMITER)
+                .blastDbDirectory(TEST_BLAST_DB_DIRECTORY)
+                .blastQueriesDirectory(TEST_BLAST_QUERIES_DIRECTORY)
+                .blastResultsDirectory(TEST_BLAST_RESULTS_DIRECTORY)
+                .blastTool(BLAST_TOOL)
+                .queryFileName(TEST_QUERY_FILE_NAMES[0])
+                .dbName(TEST_DB_NAMES[0])
+                .outputFileName(OUT_FILE_NAMES[0])
+                .options(OPTIONS[2])
+                .threads(4);
+
+        final BlastToolCommand command = builder.build();
+        assertTrue(command.generateCmd(TemplateEngineUtils.init()).endsWith("-testoption testvalue -num_threads 4"));
+        assertEquals(4, command.toSpec().getThreads());
+        assertTrue(String.join(" ", command.toSpec().getArguments()).endsWith("-num_threads 4"));
+
+        final BlastToolCommand userThreadsCommand = builder.options("-num_threads 2").build();
+        assertTrue(userThreadsCommand.generateCmd(TemplateEngineUtils.init()).endsWith(" -num_threads 2"));
+        assertEquals(1, Collections.frequency(userThreadsCommand.toSpec().getArguments(), "-num_threads"));
+    }
+
+    @Test
+    void testQuotedOptionIsPassedAsOneArgument() {
+        final BlastToolCommand command = BlastToolCommand.builder()
+                .taskName(TASK_NAME)
+                .resultDelimiter(RESULT_DELIMITER)
+                .blastDbDirectory(TEST_BLAST_DB_DIRECTORY)
+                .blastQueriesDirectory(TEST_BLAST_QUERIES_DIRECTORY)
+                .blastResultsDirectory(TEST_BLAST_RESULTS_DIRECTORY)
+                .blastTool(BLAST_TOOL)
+                .queryFileName(TEST_QUERY_FILE_NAMES[0])
+                .dbName(TEST_DB_NAMES[0])
+                .outputFileName(OUT_FILE_NAMES[0])
+                .options("-entrez_query \"Homo sapiens[Organism]\" -word_size 7")
+                .build();
+
+        final List<String> arguments = command.toSpec().getArguments();
+        final int entrezQuery = arguments.indexOf("-entrez_query");
+        assertEquals("Homo sapiens[Organism]", arguments.get(entrezQuery + 1));
+        assertEquals(List.of("-word_size", "7"), arguments.subList(entrezQuery + 2, entrezQuery + 4));
+    }
+
     @Test
     void testNotNullArguments() {
         try {
@@ -0,0 +1,55 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import org.junit.jupiter.api.Test;
+import test.utils.TemplateEngineUtils;
+
+import java.util.Set;
+
+public class JobStatusCommandTest {
+
+    private static final String QSTAT_OUTPUT =
+            "job-ID  prior   name       user         state submit/start at     queue          slots ja-task-ID\n"
+            + "-----------------------------------------------------------------------------------------------\n"
+            + "     42 0.55500 tmp.xVYb   blast        r     10/17/2026 10:01:02 all.q@node-1       1\n"
+            + "    107 0.00000 tmp.Pq3s   blast        qw    10/17/2026 10:05:17                    1\n";
+
+    @Test
+    public void testJobStatusCommand() {
+        assertEquals("qstat", JobStatusCommand.builder().build().generateCmd(TemplateEngineUtils.init()));
+    }
+
+    @Test
+    public void testActiveJobIdsAreParsedFromStatusOutput() {
+        assertEquals(Set.of("42", "107"), JobStatusCommand.getActiveJobIds(
+                ExecutionResult.builder().exitCode(0).output(QSTAT_OUTPUT).build()));
+        assertEquals(Set.of(), JobStatusCommand.getActiveJobIds(
+                ExecutionResult.builder().exitCode(0).output("").build()));
+    }
+}
@@ -52,21 +52,21 @@ public class MakeBlastDbCommandTest {
         {0, 4, 5};
 
     public static final String[] COMMANDS_SAMPLES =
-        {"docker run --rm --name makeBlastDb_0 "
+        {"docker run --name makeBlastDb_0 "
                     + "-v blastdb_custom:/blast/blastdb_custom:rw "
                     + "-v input_files:/blast/fasta:ro "
                     + "-w /blast/blastdb_custom "
                     + "ncbi/blast "
                     + "makeblastdb -in /blast/fasta/Test_query_file_name.fsa -dbtype prot true "
                     + "-out Nurse-shark-proteins -title \"Nurse shark proteins\" -taxid 7801 -blastdb_version 0",
-        "docker run --rm --name makeBlastDb_1 "
+        "docker run --name makeBlastDb_1 "
                     + "-v blastdb_custom:/blast/blastdb_custom:rw "
                     + "-v input_files:/blast/fasta:ro "
                     + "-w /blast/blastdb_custom "
                     + "ncbi/blast "
                     + "makeblastdb -in /blast/fasta/52345-45-213123.fsa -dbtype nucl false "
                     + "-out Felis-silvestris-proteins -title \"Felis silvestris proteins\" -taxid 0 -blastdb_version 4",
-        "docker run --rm --name makeBlastDb_2 "
+        "docker run --name makeBlastDb_2 "
                     + "-v blastdb_custom:/blast/blastdb_custom:rw "
                     + "-v input_files:/blast/fasta:ro "
                     + "-w /blast/blastdb_custom "
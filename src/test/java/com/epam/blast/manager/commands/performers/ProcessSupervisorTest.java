@@ -0,0 +1,85 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.performers;
+
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ProcessSupervisorTest {
+
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor(mock(MessageHelper.class), 1);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        processSupervisor.shutdown();
+    }
+
+    @Test
+    void shouldCollectOutputAndErrorsOfExitedProcess() throws Exception {
+        final ExecutionResult result = processSupervisor.start("sh",
+                new ProcessBuilder("sh", "-c", "echo out; echo err >&2; exit 3"), true).getResult().get();
+
+        assertEquals(3, result.getExitCode());
+        assertEquals("out\n", result.getOutput());
+        assertEquals("err\n", result.getReason());
+    }
+
+    @Test
+    void shouldKeepOnlyTailOfLongErrorOutput() throws Exception {
+        final ExecutionResult result = processSupervisor.start("sh",
+                new ProcessBuilder("sh", "-c", "head -c 262144 /dev/zero | tr '\\0' e >&2; echo last >&2"), false)
+                .getResult().get();
+
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.getReason().endsWith("eeelast\n"));
+        assertTrue(result.getReason().length() < 262144);
+    }
+
+    @Test
+    void shouldLeaveRedirectedOutputToProcessBuilder() throws Exception {
+        final Path output = tempDir.resolve("output");
+        final ExecutionResult result = processSupervisor.start("sh",
+                new ProcessBuilder("sh", "-c", "echo out").redirectOutput(output.toFile()), false)
+                .getResult().get();
+
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.getOutput().isEmpty());
+        assertEquals("out\n", new String(Files.readAllBytes(output), Charset.defaultCharset()));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.performers;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferOutputStreamTest {
+
+    @Test
+    void shouldKeepWholeContentIfItFits() {
+        final RingBufferOutputStream stream = new RingBufferOutputStream(8);
+        stream.write(bytes("abc"), 0, 3);
+        stream.write('d');
+
+        assertFalse(stream.isTruncated());
+        assertEquals("abcd", stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldKeepTailOfContent() {
+        final RingBufferOutputStream stream = new RingBufferOutputStream(5);
+        stream.write(bytes("Error: first\n"), 0, 13);
+        stream.write(bytes("xxsecond\n"), 2, 7);
+
+        assertTrue(stream.isTruncated());
+        assertEquals(20, stream.getWritten());
+        assertArrayEquals(bytes("cond\n"), stream.toByteArray());
+        assertEquals("...cond\n", stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldWrapAroundOnSmallWrites() {
+        final RingBufferOutputStream stream = new RingBufferOutputStream(4);
+        for (byte b : bytes("0123456789")) {
+            stream.write(b);
+        }
+        stream.write(bytes("ab"), 0, 2);
+
+        assertArrayEquals(bytes("89ab"), stream.toByteArray());
+    }
+
+    @Test
+    void shouldRejectEmptyBuffer() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferOutputStream(0));
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
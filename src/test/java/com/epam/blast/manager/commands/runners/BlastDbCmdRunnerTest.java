@@ -0,0 +1,106 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.runners;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.backend.CommandSpec;
+import com.epam.blast.manager.file.BlastFileManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import test.utils.FakeExecutionBackend;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlastDbCmdRunnerTest {
+
+    private static final long TASK_ID = 17L;
+    private static final String DB_DIRECTORY = "/data/blastdb";
+    private static final String RESULTS_DIRECTORY = "/data/results";
+    private static final String RESULT_FILE_NAME = "17.blastout";
+
+    @Mock
+    private BlastFileManager blastFileManager;
+
+    private final FakeExecutionBackend executionBackend = new FakeExecutionBackend();
+    private BlastDbCmdRunner blastDbCmdRunner;
+
+    @BeforeEach
+    public void init() {
+        blastDbCmdRunner = new BlastDbCmdRunner(blastFileManager, executionBackend);
+    }
+
+    @Test
+    void testSpeciesListingIsWrittenToResultFile() throws IOException, InterruptedException {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(DB_DIRECTORY);
+        when(blastFileManager.getBlastResultsDirectory()).thenReturn(RESULTS_DIRECTORY);
+        when(blastFileManager.getResultFileName(TASK_ID)).thenReturn(RESULT_FILE_NAME);
+
+        final ExecutionResult result = blastDbCmdRunner.runTask(TaskEntity.builder()
+                .id(TASK_ID)
+                .taskType(TaskType.BLAST_DB_CMD)
+                .params(Map.of(DB_NAME, "Nurse-shark-proteins"))
+                .build());
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.getExitCode());
+        final CommandSpec spec = executionBackend.getLaunched().get(0);
+        assertEquals("blastdbcmd_" + TASK_ID, spec.getName());
+        assertEquals(List.of("blastdbcmd", "-db", "Nurse-shark-proteins", "-outfmt", "%T", "-entry", "all"),
+                spec.getArguments());
+        assertEquals(DB_DIRECTORY, spec.getHostEnvironment().get(CommandSpec.BLASTDB_VARIABLE));
+        assertEquals(Paths.get(RESULTS_DIRECTORY, RESULT_FILE_NAME), executionBackend.getOutputFiles().get(0));
+    }
+
+    @Test
+    void testInterruptedListingIsCancelled() throws IOException, InterruptedException {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(DB_DIRECTORY);
+        when(blastFileManager.getBlastResultsDirectory()).thenReturn(RESULTS_DIRECTORY);
+        when(blastFileManager.getResultFileName(TASK_ID)).thenReturn(RESULT_FILE_NAME);
+        executionBackend.thenReturn(ExecutionResult.builder()
+                .exitCode(ExitCodes.THREAD_INTERRUPTION_EXCEPTION).build());
+
+        blastDbCmdRunner.runTask(TaskEntity.builder()
+                .id(TASK_ID)
+                .taskType(TaskType.BLAST_DB_CMD)
+                .params(Map.of(DB_NAME, "Nurse-shark-proteins"))
+                .build());
+
+        assertEquals(List.of("blastdbcmd_" + TASK_ID), executionBackend.getCancelled());
+        // clears the interruption flag set by the runner
+        Thread.interrupted();
+    }
+}
@@ -27,6 +27,8 @@ package com.epam.blast.manager.commands.runners;
 import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.backend.ExecutionBackend;
+import com.epam.blast.manager.commands.backend.TemplateExecutionBackend;
 import com.epam.blast.manager.commands.commands.TaskCancelCommand;
 import com.epam.blast.manager.commands.performers.SimpleCommandPerformer;
 import com.epam.blast.manager.file.BlastFileManager;
@@ -34,6 +36,8 @@ import com.epam.blast.manager.helper.MessageHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
@@ -43,13 +47,31 @@ import test.utils.TestTaskMaker;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
+import static com.epam.blast.entity.task.TaskEntityParams.BLAST_TOOL;
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static com.epam.blast.entity.task.TaskEntityParams.MAX_TARGET_SEQS;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -64,6 +86,10 @@ public class BlastToolRunnerTest {
     public static final String TEST_BLAST_QUERIES_DIRECTORY = "queries";
     public static final String TEST_BLAST_RESULTS_DIRECTORY = "results";
     public static final String DELIMITER = ",";
+    public static final long DB_LENGTH = 1000;
+    public static final String JOB_ID = "4242";
+    private static final String SEARCH = "docker run ";
+    private static final String REMOVE = "docker rm -f ";
 
     @Mock
     private SimpleCommandPerformer commandPerformerMock;
@@ -74,6 +100,7 @@ public class BlastToolRunnerTest {
     @Mock
     private MessageHelper messageHelper;
 
+    private TemplateExecutionBackend templateBackend;
     private BlastToolRunner blastToolRunner;
     private final List<TaskEntity> taskList = new ArrayList<>();
     private final File temporaryFile = spy(new File(TEST_BLAST_QUERIES_DIRECTORY));
@@ -81,12 +108,14 @@ public class BlastToolRunnerTest {
     @BeforeEach
     public void init() throws IOException {
         MockitoAnnotations.openMocks(this);
-        blastToolRunner = new BlastToolRunner(commandPerformerMock, blastFileManager,
-                messageHelper, TemplateEngineUtils.init());
+        templateBackend = new TemplateExecutionBackend(commandPerformerMock, TemplateEngineUtils.init(), messageHelper);
+        blastToolRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
         taskList.addAll(TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, true, AMOUNT_TASKS_VALID));
         taskList.addAll(TestTaskMaker.makeTasks(null, true, AMOUNT_TASKS_NOT_VALID));
-        when(blastFileManager.getQueryFile(any())).thenReturn(temporaryFile);
-        when(blastFileManager.getResultFileName(any())).thenReturn(TEST_BLAST_RESULTS_DIRECTORY);
+        lenient().when(blastFileManager.getQueryFile(any())).thenReturn(temporaryFile);
+        lenient().when(blastFileManager.getResultFileName(any())).thenReturn(TEST_BLAST_RESULTS_DIRECTORY);
         when(blastFileManager.getBlastResultsDirectory()).thenReturn(TEST_BLAST_RESULTS_DIRECTORY);
         when(blastFileManager.getBlastQueryDirectory()).thenReturn(TEST_BLAST_QUERIES_DIRECTORY);
         when(blastFileManager.getBlastDbDirectory()).thenReturn(TEST_BLAST_DB_DIRECTORY);
@@ -109,10 +138,301 @@ public class BlastToolRunnerTest {
                 errorCounter++;
             }
         }
-        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID)).perform(anyString());
+        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID)).perform(argThat(command -> command.startsWith(SEARCH)));
+        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID)).perform(argThat(command -> command.startsWith(REMOVE)));
         assertEquals(AMOUNT_TASKS_NOT_VALID, errorCounter);
     }
 
+    @Test
+    void testMultiFastaQueryIsSearchedInChunksAndMerged() throws IOException, InterruptedException {
+        final BlastToolRunner splittingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, ">q1\nACGT\n>q2\nACGT\n>q3\nACGT\n",
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastn",
+                ALGORITHM, "megablast"));
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        final ExecutionResult result = splittingRunner.runTask(task);
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.getExitCode());
+        verify(blastFileManager).getQueryChunkFile(task.getId(), 0, ">q1\nACGT\n>q2\nACGT\n");
+        verify(blastFileManager).getQueryChunkFile(task.getId(), 1, ">q3\nACGT\n");
+        verify(commandPerformerMock, times(2)).perform(argThat(command -> command.startsWith(SEARCH)));
+        verify(commandPerformerMock).perform(REMOVE + "blast_" + task.getId() + "_0");
+        verify(commandPerformerMock).perform(REMOVE + "blast_" + task.getId() + "_1");
+        verify(blastFileManager).mergeChunkResults(task.getId(), 2);
+        verify(blastFileManager).removeChunkFiles(task.getId(), 2, 0);
+        splittingRunner.shutdown();
+    }
+
+    @Test
+    void testThreadsBudgetIsSharedBetweenChunks() throws IOException, InterruptedException {
+        final BlastToolRunner splittingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, ">q1\nACGT\n>q2\nACGT\n",
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastn"));
+        task.setThreads(4);
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        splittingRunner.runTask(task);
+
+        verify(commandPerformerMock, times(2)).perform(argThat(command -> command.endsWith("-num_threads 2")));
+        splittingRunner.shutdown();
+    }
+
+    @Test
+    void testFailedChunkFailsTask() throws IOException, InterruptedException {
+        final BlastToolRunner splittingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, ">q1\nACGT\n>q2\nACGT\n",
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastn",
+                ALGORITHM, "megablast"));
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+        when(commandPerformerMock.perform(any())).thenReturn(
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).build(),
+                ExecutionResult.builder().exitCode(1).reason("error").build());
+
+        final ExecutionResult result = splittingRunner.runTask(task);
+
+        assertEquals(1, result.getExitCode());
+        verify(blastFileManager, never()).mergeChunkResults(any(), anyInt());
+        verify(blastFileManager).removeChunkFiles(task.getId(), 2, 0);
+        splittingRunner.shutdown();
+    }
+
+    @Test
+    void testShardedDatabaseIsSearchedPerShardAndMerged() throws IOException, InterruptedException {
+        final DbShardResolver dbShardResolver = mock(DbShardResolver.class);
+        when(dbShardResolver.resolve(TEST_BLAST_DB_DIRECTORY, "Nurse-shark-proteins")).thenReturn(Optional.of(
+                new DbShards(List.of("Nurse-shark-proteins.00", "Nurse-shark-proteins.01"), DB_LENGTH)));
+        final BlastToolRunner shardingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 2),
+                dbShardResolver, false, false, 0, 0);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, ">q1 description\nACGT\n",
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastn",
+                MAX_TARGET_SEQS, "10"));
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+        final ArgumentCaptor<String> commands = ArgumentCaptor.forClass(String.class);
+
+        final ExecutionResult result = shardingRunner.runTask(task);
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.getExitCode());
+        verify(commandPerformerMock, times(4)).perform(commands.capture());
+        final List<String> searches = commands.getAllValues().stream()
+                .filter(command -> command.startsWith(SEARCH))
+                .collect(Collectors.toList());
+        assertEquals(2, searches.size());
+        assertTrue(searches.stream().anyMatch(command -> command.contains("-db Nurse-shark-proteins.00 ")));
+        assertTrue(searches.stream().anyMatch(command -> command.contains("-db Nurse-shark-proteins.01 ")));
+        assertTrue(searches.stream().allMatch(command -> command.contains("-dbsize " + DB_LENGTH)));
+        verify(blastFileManager).mergeShardResults(task.getId(), 0, 2, List.of("q1"), 10);
+        verify(blastFileManager).mergeChunkResults(task.getId(), 1);
+        verify(blastFileManager).removeChunkFiles(task.getId(), 1, 2);
+        shardingRunner.shutdown();
+    }
+
+    @Test
+    void testShardResultsAreMergedByQueryIdsReportedByBlast() throws IOException, InterruptedException {
+        final DbShardResolver dbShardResolver = mock(DbShardResolver.class);
+        when(dbShardResolver.resolve(TEST_BLAST_DB_DIRECTORY, "Nurse-shark-proteins")).thenReturn(Optional.of(
+                new DbShards(List.of("Nurse-shark-proteins.00", "Nurse-shark-proteins.01"), DB_LENGTH)));
+        final BlastToolRunner shardingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 2),
+                dbShardResolver, false, false, 0, 0);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, ">sp|P02769|ALBU_BOVIN Albumin\nMKWV\n>q2\nMKWV\n",
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastp",
+                MAX_TARGET_SEQS, "10"));
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        shardingRunner.runTask(task);
+
+        verify(blastFileManager).mergeShardResults(task.getId(), 0, 2, List.of("P02769", "q2"), 10);
+        shardingRunner.shutdown();
+    }
+
+    @Test
+    void testSingleShortQueriesAreSearchedInOneBatch() throws IOException, InterruptedException {
+        final BlastToolRunner batchingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), false, true, 10, 0);
+        final TaskEntity first = makeSearchTask(">q1 description\nACGT\nACGT\n");
+        final TaskEntity second = makeSearchTask("ACGTAC\n");
+        assertTrue(batchingRunner.getBatchKey(first).isPresent());
+        assertEquals(batchingRunner.getBatchKey(first), batchingRunner.getBatchKey(second));
+        assertTrue(batchingRunner.getBatchKey(makeSearchTask(">sp|P02769|ALBU_BOVIN\nACGT\n")).isEmpty());
+        assertTrue(batchingRunner.getBatchKey(makeSearchTask("ACGTACGTACGT\n")).isEmpty());
+        assertTrue(batchingRunner.getBatchKey(makeSearchTask(">q1\nACGT\n>q2\nACGT\n")).isEmpty());
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        final Map<Long, ExecutionResult> results = batchingRunner.runBatch(List.of(first, second), taskId -> true);
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, results.get(first.getId()).getExitCode());
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, results.get(second.getId()).getExitCode());
+        verify(blastFileManager).getQueryChunkFile(first.getId(), 0,
+                ">batch_" + first.getId() + "\nACGT\nACGT\n>batch_" + second.getId() + "\nACGTAC\n");
+        verify(commandPerformerMock, times(1)).perform(argThat(command -> command.startsWith(SEARCH)));
+        verify(commandPerformerMock).perform(REMOVE + "blast_" + first.getId() + "_batch");
+        verify(blastFileManager).splitBatchResult(first.getId(),
+                Map.of("batch_" + first.getId(), first.getId(), "batch_" + second.getId(), second.getId()),
+                Map.of(first.getId(), "q1", second.getId(), BlastToolRunner.DEFAULT_QUERY_ID));
+        verify(blastFileManager).removeChunkFiles(first.getId(), 1, 0);
+        batchingRunner.shutdown();
+    }
+
+    @Test
+    void testTaskCancelledDuringBatchGetsNoResult() throws IOException, InterruptedException {
+        final BlastToolRunner batchingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), false, true, 10, 0);
+        final TaskEntity first = makeSearchTask(">q1\nACGT\n");
+        final TaskEntity cancelled = makeSearchTask(">q2\nACGT\n");
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        final Map<Long, ExecutionResult> results = batchingRunner.runBatch(List.of(first, cancelled),
+                taskId -> !taskId.equals(cancelled.getId()));
+
+        assertEquals(Set.of(first.getId()), results.keySet());
+        verify(blastFileManager).splitBatchResult(first.getId(), Map.of("batch_" + first.getId(), first.getId()),
+                Map.of(first.getId(), "q1"));
+        verify(blastFileManager).compressResult(first.getId());
+        verify(blastFileManager, never()).compressResult(cancelled.getId());
+        batchingRunner.shutdown();
+    }
+
+    @Test
+    void testBatchThreadsAreLimitedByCores() throws IOException, InterruptedException {
+        final BlastToolRunner batchingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), false, true, 10, 3);
+        final TaskEntity first = makeSearchTask(">q1\nACGT\n");
+        final TaskEntity second = makeSearchTask(">q2\nACGT\n");
+        first.setThreads(2);
+        second.setThreads(2);
+        when(blastFileManager.getQueryChunkFile(any(), anyInt(), anyString())).thenReturn(temporaryFile);
+
+        batchingRunner.runBatch(List.of(first, second), taskId -> true);
+
+        verify(commandPerformerMock).perform(argThat(command -> command.endsWith("-num_threads 3")));
+        batchingRunner.shutdown();
+    }
+
+    @Test
+    void testSearchIsSubmittedAsClusterJobAndPolled(@TempDir final Path resultsDirectory)
+            throws IOException, InterruptedException {
+        final BlastToolRunner clusterRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), true, false, 0, 0);
+        when(blastFileManager.getBlastResultsDirectory()).thenReturn(resultsDirectory.toString());
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        when(commandPerformerMock.perform(any())).thenReturn(
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output(JOB_ID + "\n").build(),
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output(JOB_ID).build(),
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output("").build());
+
+        final ExecutionResult submitted = clusterRunner.runTask(task);
+
+        assertEquals(JOB_ID, submitted.getJobId());
+        verify(blastFileManager, never()).removeQueryFile(task.getId());
+        task.setJobId(submitted.getJobId());
+        assertTrue(clusterRunner.checkJobs(List.of(task)).isEmpty());
+
+        Files.write(resultsDirectory.resolve(TEST_BLAST_RESULTS_DIRECTORY + BlastToolRunner.JOB_EXIT_CODE_EXT),
+                "0\n".getBytes());
+        final ExecutionResult result = clusterRunner.checkJobs(List.of(task)).get(task.getId());
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.getExitCode());
+        verify(blastFileManager).compressResult(task.getId());
+        verify(blastFileManager).removeQueryFile(task.getId());
+        clusterRunner.shutdown();
+    }
+
+    @Test
+    void testClusterJobsAreRejectedWithSynchronousBackend() {
+        final ExecutionBackend synchronousBackend = mock(ExecutionBackend.class);
+        assertThrows(IllegalStateException.class, () -> new BlastToolRunner(synchronousBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), true, false, 0, 0));
+    }
+
+    @Test
+    void testClusterJobWithoutExitCodeFails(@TempDir final Path resultsDirectory)
+            throws IOException, InterruptedException {
+        final BlastToolRunner clusterRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), true, false, 0, 0);
+        when(blastFileManager.getBlastResultsDirectory()).thenReturn(resultsDirectory.toString());
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        when(commandPerformerMock.perform(any())).thenReturn(
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output(JOB_ID).build(),
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output("").build());
+        task.setJobId(clusterRunner.runTask(task).getJobId());
+
+        final ExecutionResult result = clusterRunner.checkJobs(List.of(task)).get(task.getId());
+
+        assertEquals(ExitCodes.OTHER_EXCEPTION, result.getExitCode());
+        verify(blastFileManager, never()).compressResult(any());
+        verify(blastFileManager).removeQueryFile(task.getId());
+        clusterRunner.shutdown();
+    }
+
+    @Test
+    void testRecoveredTaskIsAttachedToAllSubSearches() throws IOException, InterruptedException {
+        final BlastToolRunner splittingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
+        final TaskEntity task = makeSearchTask(">q1\nACGT\n>q2\nACGT\n");
+        when(commandPerformerMock.perform(any())).thenReturn(
+                ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).output("0\n").build());
+
+        final Optional<ExecutionResult> result = splittingRunner.attachTask(task);
+
+        assertEquals(ExitCodes.SUCCESSFUL_EXECUTION, result.orElseThrow().getExitCode());
+        for (String taskName : List.of("blast_" + task.getId() + "_0", "blast_" + task.getId() + "_1")) {
+            verify(commandPerformerMock).perform("docker wait " + taskName);
+            verify(commandPerformerMock).perform(REMOVE + taskName);
+        }
+        verify(blastFileManager).mergeChunkResults(task.getId(), 2);
+        verify(blastFileManager).compressResult(task.getId());
+        verify(blastFileManager).removeChunkFiles(task.getId(), 2, 0);
+        splittingRunner.shutdown();
+    }
+
+    @Test
+    void testRecoveredTaskIsSearchedAgainIfSubSearchIsGone() throws IOException, InterruptedException {
+        final BlastToolRunner splittingRunner = new BlastToolRunner(templateBackend, blastFileManager,
+                messageHelper, new QuerySplitter(true, 1, 2, 2),
+                new DbShardResolver(messageHelper, false), false, false, 0, 0);
+        final TaskEntity task = makeSearchTask(">q1\nACGT\n>q2\nACGT\n");
+        when(commandPerformerMock.perform(any())).thenReturn(
+                ExecutionResult.builder().exitCode(1).output("").build());
+
+        assertTrue(splittingRunner.attachTask(task).isEmpty());
+        verify(commandPerformerMock).perform("docker wait blast_" + task.getId() + "_0");
+        verify(commandPerformerMock, never()).perform("docker wait blast_" + task.getId() + "_1");
+        verify(commandPerformerMock).perform("docker kill blast_" + task.getId() + "_1");
+        verify(blastFileManager, never()).mergeChunkResults(any(), anyInt());
+        verify(blastFileManager).removeChunkFiles(task.getId(), 2, 0);
+        splittingRunner.shutdown();
+    }
+
     @Test
     void testBlastToolRunnerRunsCancelCommand() throws IOException, InterruptedException {
         when(commandPerformerMock.perform(any())).thenReturn(
@@ -128,4 +448,14 @@ public class BlastToolRunnerTest {
                         .build().generateCmd(TemplateEngineUtils.init())
         );
     }
+
+    private static TaskEntity makeSearchTask(final String query) {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setParams(Map.of(
+                QUERY, query,
+                DB_NAME, "Nurse-shark-proteins",
+                BLAST_TOOL, "blastn",
+                ALGORITHM, "megablast"));
+        return task;
+    }
 }
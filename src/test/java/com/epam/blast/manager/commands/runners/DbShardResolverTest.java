@@ -0,0 +1,74 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.runners;
+
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class DbShardResolverTest {
+
+    private static final String DB = "Nurse-shark-proteins";
+
+    private final MessageHelper messageHelper = mock(MessageHelper.class);
+
+    @TempDir
+    Path dbDirectory;
+
+    @Test
+    void testVolumesAndLengthAreReadFromAlias() throws IOException {
+        Files.write(dbDirectory.resolve(DB + ".pal"), List.of(
+                "#",
+                "# Alias file created 10/17/2026 10:00:00",
+                "#",
+                "TITLE " + DB,
+                "DBLIST \"" + DB + ".00\" \"" + DB + ".01\" ",
+                "NSEQ 2000",
+                "LENGTH 1234567"));
+
+        final Optional<DbShards> shards = new DbShardResolver(messageHelper, true).resolve(dbDirectory.toString(), DB);
+
+        assertEquals(Optional.of(new DbShards(List.of(DB + ".00", DB + ".01"), 1234567)), shards);
+    }
+
+    @Test
+    void testSingleVolumeOrDisabledResolverIsNotSharded() throws IOException {
+        Files.write(dbDirectory.resolve(DB + ".nal"), List.of("DBLIST " + DB + ".00", "LENGTH 100"));
+
+        assertTrue(new DbShardResolver(messageHelper, true).resolve(dbDirectory.toString(), DB).isEmpty());
+        assertTrue(new DbShardResolver(messageHelper, false).resolve(dbDirectory.toString(), DB).isEmpty());
+        assertTrue(new DbShardResolver(messageHelper, true).resolve(dbDirectory.toString(), "unknown").isEmpty());
+    }
+}
@@ -28,6 +28,7 @@ import com.epam.blast.entity.commands.ExitCodes;
 import com.epam.blast.entity.db.DbType;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.backend.TemplateExecutionBackend;
 import com.epam.blast.manager.commands.commands.TaskCancelCommand;
 import com.epam.blast.manager.commands.performers.SimpleCommandPerformer;
 import com.epam.blast.manager.file.BlastFileManager;
@@ -49,6 +50,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.epam.blast.entity.commands.CommandLineFlags.BLAST_DB_FLAG;
 import static com.epam.blast.entity.commands.CommandLineFlags.OUT_FLAG;
@@ -66,8 +68,10 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -83,6 +87,8 @@ class MakeBlastDbRunnerTest {
     private static final String TEST_BLAST_FASTA_DIRECTORY = "blast_home" + File.separator + "fasta";
     private static final DbType DEFAULT_DB_DATATYPE_TEST = DbType.PROTEIN;
     private static final String INCORRECT_STRING_INPUT_VALUE = "Incorrect input value.";
+    private static final String MAKEBLASTDB = "makeblastdb";
+    private static final String REMOVE = "docker rm ";
 
     @Mock
     private SimpleCommandPerformer commandPerformerMock;
@@ -100,8 +106,8 @@ class MakeBlastDbRunnerTest {
     public void init() throws IOException {
         MockitoAnnotations.openMocks(this);
         makeBlastDbRunner = new MakeBlastDbRunner(DEFAULT_DB_DATATYPE_TEST,
-                DEFAULT_DB_VERSION, DEFAULT_SEQ_IDS, blastFileManager, commandPerformerMock,
-                messageHelper, TemplateEngineUtils.init());
+                DEFAULT_DB_VERSION, DEFAULT_SEQ_IDS, blastFileManager,
+                new TemplateExecutionBackend(commandPerformerMock, TemplateEngineUtils.init(), messageHelper));
         taskList.addAll(TestTaskMaker.makeTasks(TaskType.MAKE_BLAST_DB, true, AMOUNT_TASKS_VALID));
         taskList.addAll(TestTaskMaker.makeTasks(null, true, AMOUNT_TASKS_NOT_VALID));
         when(commandPerformerMock.perform(any()))
@@ -124,7 +130,9 @@ class MakeBlastDbRunnerTest {
                 }
             }
         }
-        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID)).perform(anyString());
+        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID))
+                .perform(argThat(command -> command.contains(MAKEBLASTDB)));
+        verify(commandPerformerMock, times(AMOUNT_TASKS_VALID)).perform(argThat(command -> command.startsWith(REMOVE)));
         assertEquals(AMOUNT_TASKS_NOT_VALID, npeCounter);
     }
 
@@ -149,7 +157,7 @@ class MakeBlastDbRunnerTest {
             makeBlastDbRunner.runTask(task);
 
             verify(commandPerformerMock, atLeastOnce()).perform(commandCaptor.capture());
-            final String command = commandCaptor.getValue();
+            final String command = getLastMakeBlastDbCommand(commandCaptor);
             if (EnumUtils.isValidEnum(DbType.class, dbTypes.get(dbTypeFromInput))) {
                 assertThat("Incorrect recognition of "
                         + dbTypeFromInput, command, containsString(
@@ -173,7 +181,7 @@ class MakeBlastDbRunnerTest {
             makeBlastDbRunner.runTask(task);
 
             verify(commandPerformerMock, atLeastOnce()).perform(commandCaptor.capture());
-            final String command = commandCaptor.getValue();
+            final String command = getLastMakeBlastDbCommand(commandCaptor);
             if (DEFAULT_SEQ_IDS.equals(Boolean.parseBoolean(parseSeqIds.get(parseSeqFromInput)))) {
                 assertThat("Incorrect recognition of "
                         + parseSeqFromInput, command, containsString(PARSE_SEQ_ID_FLAG));
@@ -195,7 +203,7 @@ class MakeBlastDbRunnerTest {
             makeBlastDbRunner.runTask(task);
 
             verify(commandPerformerMock, atLeastOnce()).perform(commandCaptor.capture());
-            final String command = commandCaptor.getValue();
+            final String command = getLastMakeBlastDbCommand(commandCaptor);
             if (dbVersions.get(dbVersionFromInput) != null
                     && dbVersions.get(dbVersionFromInput).matches("\\d")
                     && Integer.parseInt(dbVersions.get(dbVersionFromInput)) != DEFAULT_DB_VERSION) {
@@ -228,7 +236,7 @@ class MakeBlastDbRunnerTest {
             makeBlastDbRunner.runTask(task);
 
             verify(commandPerformerMock, atLeastOnce()).perform(commandCaptor.capture());
-            final String command = commandCaptor.getValue();
+            final String command = getLastMakeBlastDbCommand(commandCaptor);
             assertThat("Incorrect name generation ", command,
                     containsString(format("%1$s %2$s",
                             OUT_FLAG, databaseNames.get(nameFromInput))));
@@ -244,7 +252,7 @@ class MakeBlastDbRunnerTest {
             makeBlastDbRunner.runTask(task);
 
             verify(commandPerformerMock, atLeastOnce()).perform(commandCaptor.capture());
-            final String command = commandCaptor.getValue();
+            final String command = getLastMakeBlastDbCommand(commandCaptor);
             if (titleFromInput.isBlank()) {
                 assertThat("Incorrect title generation", command,
                         containsString(format("%1$s \"%2$s\"",
@@ -271,6 +279,23 @@ class MakeBlastDbRunnerTest {
         );
     }
 
+    @Test
+    void testMakeBlastDbRunnerRemovesContainerIfRunFails() throws IOException, InterruptedException {
+        when(commandPerformerMock.perform(argThat(command -> command.contains(MAKEBLASTDB))))
+                .thenThrow(new IOException(INCORRECT_STRING_INPUT_VALUE));
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.MAKE_BLAST_DB, true);
+
+        assertThrows(IOException.class, () -> makeBlastDbRunner.runTask(task));
+        verify(commandPerformerMock).perform(REMOVE + "-f " + makeBlastDbRunner.getTaskName(task.getId()));
+    }
+
+    private static String getLastMakeBlastDbCommand(final ArgumentCaptor<String> commandCaptor) {
+        final List<String> commands = commandCaptor.getAllValues().stream()
+                .filter(command -> command.contains(MAKEBLASTDB))
+                .collect(Collectors.toList());
+        return commands.get(commands.size() - 1);
+    }
+
     private Map<String, String> prepareTaskParams() {
         final HashMap<String, String> params = new HashMap<>();
         params.put(PATH_TO_FILE, TEST_BLAST_FASTA_DIRECTORY);
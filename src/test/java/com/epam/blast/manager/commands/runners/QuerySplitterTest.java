@@ -0,0 +1,69 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.commands.runners;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuerySplitterTest {
+
+    private static final String QUERY = ">q1 first\nACGT\nACGT\n>q2\nTTTT\n>q3\nGGGG\n>q4\nCCCC\n>q5\nAAAA\n";
+
+    @Test
+    void testRecordsAreParsedWithMultilineSequences() {
+        assertEquals(List.of(">q1 first\nACGT\nACGT\n", ">q2\nTTTT\n", ">q3\nGGGG\n", ">q4\nCCCC\n", ">q5\nAAAA\n"),
+                QuerySplitter.getRecords(QUERY));
+    }
+
+    @Test
+    void testQueryIsSplitIntoChunksKeepingOrder() {
+        assertEquals(List.of(">q1 first\nACGT\nACGT\n>q2\nTTTT\n", ">q3\nGGGG\n>q4\nCCCC\n", ">q5\nAAAA\n"),
+                new QuerySplitter(true, 2, 8, 4).split(QUERY));
+    }
+
+    @Test
+    void testChunksGetBiggerWhenAmountIsLimited() {
+        assertEquals(List.of(">q1 first\nACGT\nACGT\n>q2\nTTTT\n>q3\nGGGG\n", ">q4\nCCCC\n>q5\nAAAA\n"),
+                new QuerySplitter(true, 1, 2, 4).split(QUERY));
+    }
+
+    @Test
+    void testReportedQueryIdsAreParsedLikeBlast() {
+        assertEquals(List.of(BlastToolRunner.DEFAULT_QUERY_ID), QuerySplitter.getReportedQueryIds("ACGT\n"));
+        assertEquals(List.of("q1", "P02769", "NP_001.1", "my_query", "1ABC_A", "129295", "x|y"),
+                QuerySplitter.getReportedQueryIds(">q1 first\nACGT\n>sp|P02769|ALBU_BOVIN Albumin\nMKWV\n"
+                        + ">gi|129295|ref|NP_001.1|\nACGT\n>lcl|my_query\nACGT\n>pdb|1ABC|A\nMKWV\n"
+                        + ">gi|129295\nACGT\n>x|y\nACGT\n"));
+    }
+
+    @Test
+    void testSmallQueryIsNotSplit() {
+        assertEquals(List.of(QUERY), new QuerySplitter(true, 5, 8, 4).split(QUERY));
+        assertEquals(List.of(QUERY), new QuerySplitter(false, 1, 8, 4).split(QUERY));
+    }
+}
@@ -24,12 +24,18 @@
 
 package com.epam.blast.manager.file;
 
+import com.epam.blast.entity.blasttool.BlastQuerySummary;
 import com.epam.blast.entity.blasttool.BlastResult;
 import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.entity.blasttool.BlastResultQuery;
+import com.epam.blast.entity.blasttool.BlastResultSort;
+import com.epam.blast.entity.blasttool.BlastResultSummary;
+import com.epam.blast.entity.blasttool.BlastTaxonSummary;
 import com.epam.blast.entity.blasttool.BlastTool;
 import com.epam.blast.manager.helper.MessageHelper;
 import com.epam.blast.utils.TemporaryFileWriter;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,13 +43,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.util.Pair;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 @ExtendWith(MockitoExtension.class)
 class BlastFileManagerImplTest {
@@ -61,6 +77,11 @@ class BlastFileManagerImplTest {
     public static final String INCORRECT_RESULT_STRING = "Query_1,44,2,10,LCGRGFIRA,P80049.1,sp|P80049.1|FABPL_GINCI,"
             + "132,123,131,VCTREYVRE,LV1GT1GEFYIV1AE,0.96,14.2,25,9,33.333,3,6,6,0,0,66.67,7801,N/A,N/A,N/A,as,20,N/A";
 
+    private static final int PAGED_RESULT_LINES = 2500;
+    private static final int PAGE_SIZE = 1000;
+    private static final int RESULT_SUBJECTS = 500;
+    private static final long BACKGROUND_BUILD_TIMEOUT_MS = 10000;
+
     private Path queryDir;
     private Path resultDir;
 
@@ -76,11 +97,7 @@ class BlastFileManagerImplTest {
     public void init() throws IOException {
         queryDir = Files.createTempDirectory("query");
         resultDir = Files.createTempDirectory("result");
-        blastFileManager = new BlastFileManagerImpl(
-                queryDir.toString(), resultDir.toString(),
-                "blastdb", "fasta",
-                ",", temporaryFileWriter, messageHelper
-        );
+        blastFileManager = createFileManager(ResultCompression.NONE, 0);
 
         final Path correctOutputFile = Path.of(resultDir.toString(), blastFileManager.getResultFileName(1L));
         Path incorrectOutputFile = Path.of(resultDir.toString(), blastFileManager.getResultFileName(2L));
@@ -108,6 +125,14 @@ class BlastFileManagerImplTest {
                 () ->  blastFileManager.getResults(2L, BlastTool.BLASTP, 100));
     }
 
+    @Test
+    public void getResultShouldFailAsReadErrorForWrongNumberOfColumnsTest() throws IOException {
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getResultFileName(3L)),
+                List.of(CORRECT_RESULT_STRING, "Query_1,44"));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> blastFileManager.getResults(3L, BlastTool.BLASTP, 100));
+    }
+
     @Test
     public void getResultLimitTest() {
         BlastResult results = blastFileManager.getResults(1L, BlastTool.BLASTP, 1);
@@ -116,6 +141,308 @@ class BlastFileManagerImplTest {
         Assertions.assertEquals(1, results.getEntries().size());
     }
 
+    @Test
+    public void getResultPagesShouldCoverAllEntriesTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final List<Long> lengths = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP,
+                    BlastResultQuery.builder().cursor(cursor).limit(PAGE_SIZE).build());
+            page.getEntries().forEach(entry -> lengths.add(entry.getQueryLen()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        Assertions.assertEquals((PAGED_RESULT_LINES + PAGE_SIZE - 1) / PAGE_SIZE, pages);
+        Assertions.assertEquals(LongStream.range(0, PAGED_RESULT_LINES).boxed().collect(Collectors.toList()),
+                lengths);
+    }
+
+    @Test
+    public void getResultOffsetShouldSkipLinesTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        for (long offset : new long[] {0, 1, ResultLineIndex.STEP - 1, ResultLineIndex.STEP,
+                2 * ResultLineIndex.STEP + 1, PAGED_RESULT_LINES - 1}) {
+            final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP,
+                    BlastResultQuery.builder().offset(offset).limit(1).build());
+            Assertions.assertEquals(offset, page.getEntries().get(0).getQueryLen().longValue());
+        }
+        final BlastResult end = blastFileManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().offset((long) PAGED_RESULT_LINES).build());
+        Assertions.assertTrue(end.getEntries().isEmpty());
+        Assertions.assertNull(end.getNextCursor());
+    }
+
+    @Test
+    public void getResultOffsetShouldRebuildIndexForChangedResultTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder().offset(10L).build());
+        writeResult(3L, ResultLineIndex.STEP + 2);
+        final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().offset((long) ResultLineIndex.STEP + 1).build());
+        Assertions.assertEquals(1, page.getSize().intValue());
+        Assertions.assertEquals(ResultLineIndex.STEP + 1, page.getEntries().get(0).getQueryLen().intValue());
+    }
+
+    @Test
+    public void getResultShouldApplyFiltersTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResult filtered = blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .queryAccVersion("Query_1")
+                .maxExpValue(1e-5)
+                .minPercentIdent(50.0)
+                .minBitScore(20.0)
+                .taxIds(Set.of(7802L))
+                .build());
+        final List<Long> expected = LongStream.range(0, PAGED_RESULT_LINES)
+                .filter(i -> i % 3 == 1 && i % 10 >= 5 && i % 100 >= 50 && i % 40 >= 20 && i % 2 == 1)
+                .boxed()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(expected, filtered.getEntries().stream()
+                .map(BlastResultEntry::getQueryLen)
+                .collect(Collectors.toList()));
+
+        final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .taxIds(Set.of(7802L)).limit(2).build());
+        Assertions.assertEquals(List.of(1L, 3L), page.getEntries().stream()
+                .map(BlastResultEntry::getQueryLen)
+                .collect(Collectors.toList()));
+        final BlastResult next = blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .taxIds(Set.of(7802L)).limit(1).cursor(page.getNextCursor()).build());
+        Assertions.assertEquals(5L, next.getEntries().get(0).getQueryLen().longValue());
+    }
+
+    @Test
+    public void getResultShouldReturnTopEntriesPerQueryTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResultQuery query = BlastResultQuery.builder()
+                .topPerQuery(2)
+                .maxExpValue(1e-1)
+                .build();
+        // entries with the same bit score keep the order of the result
+        final List<String> expected = List.of(
+                "Query_0:39", "Query_0:159",
+                "Query_1:79", "Query_1:199",
+                "Query_2:119", "Query_2:239");
+        Assertions.assertEquals(expected, blastFileManager.getResults(3L, BlastTool.BLASTP, query).getEntries()
+                .stream()
+                .map(entry -> entry.getQueryAccVersion() + ":" + entry.getQueryLen())
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(expected.subList(1, 4), createFileManager(ResultCompression.NONE, 1)
+                .getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                        .topPerQuery(2).maxExpValue(1e-1).offset(1L).limit(3).build()).getEntries()
+                .stream()
+                .map(entry -> entry.getQueryAccVersion() + ":" + entry.getQueryLen())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getResultShouldSortEntriesTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResult sorted = blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .sortBy(BlastResultSort.EXP_VALUE)
+                .offset(2L)
+                .limit(3)
+                .build());
+        Assertions.assertEquals(List.of(29L, 39L, 49L), sorted.getEntries().stream()
+                .map(BlastResultEntry::getQueryLen)
+                .collect(Collectors.toList()));
+        Assertions.assertNull(sorted.getNextCursor());
+
+        final BlastResult all = blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .sortBy(BlastResultSort.PERCENT_IDENT)
+                .build());
+        Assertions.assertEquals(PAGED_RESULT_LINES, all.getSize().intValue());
+        Assertions.assertEquals(99.0, all.getEntries().get(0).getPercentIdent().doubleValue());
+        Assertions.assertEquals(0.0, all.getEntries().get(PAGED_RESULT_LINES - 1).getPercentIdent().doubleValue());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().sortBy(BlastResultSort.SCORE).cursor("0").build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().topPerQuery(0).build()));
+    }
+
+    @Test
+    public void getResultShouldRejectSortedPageBeyondLimitTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().sortBy(BlastResultSort.SCORE)
+                        .limit(BlastResultQuery.MAX_SORTED_ENTRIES + 1).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().sortBy(BlastResultSort.SCORE)
+                        .offset((long) BlastResultQuery.MAX_SORTED_ENTRIES).limit(1).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder()
+                        .topPerQuery(BlastResultQuery.MAX_SORTED_ENTRIES + 1).build()));
+        Assertions.assertTrue(blastFileManager.getResults(3L, BlastTool.BLASTP, BlastResultQuery.builder()
+                .sortBy(BlastResultSort.SCORE)
+                .offset((long) BlastResultQuery.MAX_SORTED_ENTRIES)
+                .build()).getEntries().isEmpty());
+    }
+
+    @Test
+    public void getResultSummaryShouldSummarizeEveryQueryTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResultSummary summary = blastFileManager.getResultSummary(3L);
+        // all subjects are found for every query
+        Assertions.assertEquals(3 * RESULT_SUBJECTS, summary.getHitCount().intValue());
+        Assertions.assertEquals(List.of("Query_0", "Query_1", "Query_2"), summary.getQueries().stream()
+                .map(BlastQuerySummary::getQueryAccVersion)
+                .collect(Collectors.toList()));
+        final BlastQuerySummary query = summary.getQueries().get(0);
+        Assertions.assertEquals(RESULT_SUBJECTS, query.getHitCount().intValue());
+        Assertions.assertEquals(1e-9, query.getBestExpValue().doubleValue());
+        Assertions.assertEquals(39.0, query.getBestBitScore().doubleValue());
+        Assertions.assertEquals(20.0, query.getQueryCoverage().doubleValue());
+        Assertions.assertEquals(List.of(
+                BlastTaxonSummary.builder().taxId(7801L).sciName("N/A").hitCount(250L).build(),
+                BlastTaxonSummary.builder().taxId(7802L).sciName("N/A").hitCount(250L).build()),
+                query.getTopTaxa());
+
+        Assertions.assertTrue(Files.exists(resultDir.resolve("3.blastout.summary")));
+        Assertions.assertEquals(summary, blastFileManager.getResultSummary(3L));
+
+        writeResult(3L, 2);
+        final BlastResultSummary changed = blastFileManager.getResultSummary(3L);
+        Assertions.assertEquals(2, changed.getHitCount().intValue());
+        Assertions.assertEquals(2, changed.getQueries().size());
+    }
+
+    @Test
+    public void streamShouldReturnCursorOfNextPageTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResultQuery query = BlastResultQuery.builder().limit(PAGE_SIZE).build();
+        final List<BlastResultEntry> entries = new ArrayList<>();
+
+        final String nextCursor = blastFileManager.streamResults(3L, query, entries::add);
+
+        final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP, query);
+        Assertions.assertEquals(page.getEntries(), entries);
+        Assertions.assertEquals(page.getNextCursor(), nextCursor);
+        Assertions.assertNull(blastFileManager.streamResults(3L, BlastResultQuery.builder().build(), entry -> { }));
+    }
+
+    @Test
+    public void getResultShouldRejectInvalidCursorTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(1L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor("abc").build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(1L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor("0").offset(1L).build()));
+    }
+
+    @Test
+    public void getResultShouldRejectCursorNotAtLineStartTest() throws IOException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResult page = blastFileManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().limit(1).build());
+        final long nextOffset = Long.parseLong(page.getNextCursor());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor(String.valueOf(nextOffset + 1)).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> blastFileManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor(String.valueOf(Long.MAX_VALUE)).build()));
+
+        final BlastFileManagerImpl compressingManager = createFileManager(ResultCompression.GZIP, 0);
+        compressingManager.compressResult(3L);
+        Assertions.assertEquals(1, compressingManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().cursor(page.getNextCursor()).limit(1).build()).getSize().intValue());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> compressingManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor(String.valueOf(nextOffset - 1)).build()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> compressingManager.getResults(3L,
+                BlastTool.BLASTP, BlastResultQuery.builder().cursor(String.valueOf(Long.MAX_VALUE)).build()));
+    }
+
+    @Test
+    public void columnarResultShouldMatchParsedResultTest() throws IOException {
+        final List<String> lines = IntStream.range(0, PAGED_RESULT_LINES)
+                .mapToObj(this::resultLine)
+                .collect(Collectors.toList());
+        lines.add(ResultLineIndex.STEP + 3, "");
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getResultFileName(3L)), lines);
+        final BlastFileManagerImpl columnarManager = createFileManager(ResultCompression.NONE, 1);
+        columnarManager.buildColumnarCopy(3L);
+        Assertions.assertTrue(Files.exists(resultDir.resolve("3.blastout.col")));
+
+        final List<BlastResultQuery> queries = List.of(
+                BlastResultQuery.builder().build(),
+                BlastResultQuery.builder().limit(PAGE_SIZE).build(),
+                BlastResultQuery.builder().offset((long) ResultLineIndex.STEP + 3).limit(5).build(),
+                BlastResultQuery.builder().offset((long) ResultLineIndex.STEP + 4).limit(PAGE_SIZE).build(),
+                BlastResultQuery.builder().offset((long) PAGED_RESULT_LINES).build(),
+                BlastResultQuery.builder().offset((long) PAGED_RESULT_LINES - 1).limit(1).build(),
+                BlastResultQuery.builder().queryAccVersion("Query_2").maxExpValue(1e-5).limit(10).build(),
+                BlastResultQuery.builder().queryAccVersion("Query_3").build(),
+                BlastResultQuery.builder().minPercentIdent(50.0).minBitScore(20.0).taxIds(Set.of(7802L)).build());
+        for (BlastResultQuery query : queries) {
+            Assertions.assertEquals(blastFileManager.getResults(3L, BlastTool.BLASTP, query),
+                    columnarManager.getResults(3L, BlastTool.BLASTP, query));
+        }
+
+        String cursor = null;
+        do {
+            final BlastResultQuery query = BlastResultQuery.builder().cursor(cursor).limit(PAGE_SIZE).build();
+            final BlastResult page = columnarManager.getResults(3L, BlastTool.BLASTP, query);
+            Assertions.assertEquals(blastFileManager.getResults(3L, BlastTool.BLASTP, query), page);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Test
+    public void columnarResultShouldBeRebuiltForChangedResultTest() throws IOException {
+        final BlastFileManagerImpl columnarManager = createFileManager(ResultCompression.GZIP, 1);
+        writeResult(3L, PAGED_RESULT_LINES);
+        columnarManager.buildColumnarCopy(3L);
+        final BlastResultQuery all = BlastResultQuery.builder().build();
+        Assertions.assertEquals(PAGED_RESULT_LINES,
+                columnarManager.getResults(3L, BlastTool.BLASTP, all).getSize().intValue());
+
+        writeResult(3L, ResultLineIndex.STEP);
+        Assertions.assertEquals(ResultLineIndex.STEP,
+                columnarManager.getResults(3L, BlastTool.BLASTP, all).getSize().intValue());
+        columnarManager.buildColumnarCopy(3L);
+        Assertions.assertEquals(ResultLineIndex.STEP,
+                columnarManager.getResults(3L, BlastTool.BLASTP, all).getSize().intValue());
+
+        columnarManager.compressResult(3L);
+        columnarManager.buildColumnarCopy(3L);
+        final BlastResultQuery query = BlastResultQuery.builder().offset(10L).limit(5).build();
+        Assertions.assertEquals(blastFileManager.getResults(3L, BlastTool.BLASTP, query),
+                columnarManager.getResults(3L, BlastTool.BLASTP, query));
+
+        columnarManager.removeBlastOutput(3L);
+        Assertions.assertFalse(Files.exists(resultDir.resolve("3.blastout.col")));
+    }
+
+    @Test
+    public void columnarResultShouldBeBuiltInBackgroundAfterFirstReadTest() throws IOException, InterruptedException {
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastFileManagerImpl columnarManager = createFileManager(ResultCompression.NONE, 1);
+        final BlastResultQuery query = BlastResultQuery.builder().offset(10L).limit(5).build();
+
+        Assertions.assertEquals(blastFileManager.getResults(3L, BlastTool.BLASTP, query),
+                columnarManager.getResults(3L, BlastTool.BLASTP, query));
+
+        final long deadline = System.currentTimeMillis() + BACKGROUND_BUILD_TIMEOUT_MS;
+        while (!Files.exists(resultDir.resolve("3.blastout.col")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(Files.exists(resultDir.resolve("3.blastout.col")));
+        Assertions.assertEquals(blastFileManager.getResults(3L, BlastTool.BLASTP, query),
+                columnarManager.getResults(3L, BlastTool.BLASTP, query));
+        columnarManager.shutdown();
+    }
+
+    @Test
+    public void columnarResultShouldNotHideParseErrorsTest() {
+        final BlastFileManagerImpl columnarManager = createFileManager(ResultCompression.NONE, 1);
+        columnarManager.buildColumnarCopy(2L);
+        Assertions.assertEquals(1,
+                columnarManager.getResults(2L, BlastTool.BLASTP, BlastResultQuery.builder().limit(1).build())
+                        .getSize().intValue());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> columnarManager.getResults(2L, BlastTool.BLASTP, 100));
+    }
+
     @Test
     public void parseLineShouldParseValidStringTest() {
         final BlastResultEntry first = blastFileManager.parseBlastResultEntry(CORRECT_RESULT_STRING);
@@ -135,10 +462,135 @@ class BlastFileManagerImplTest {
 
     @Test
     public void getRawResultTest() throws IOException {
-        Pair<String, byte[]> rawResults = blastFileManager.getRawResults(1L);
-        Assertions.assertEquals(rawResults.getFirst(), "1.blastout");
-        Assertions.assertArrayEquals(rawResults.getSecond(),
+        BlastRawResult rawResults = blastFileManager.getRawResults(1L, true);
+        Assertions.assertEquals(rawResults.getName(), "1.blastout");
+        Assertions.assertNull(rawResults.getContentEncoding());
+        Assertions.assertArrayEquals(write(rawResults),
                 (String.join("\n", EXPECTED_HEADER, CORRECT_RESULT_STRING, CORRECT_RESULT_STRING_2) + "\n")
                         .getBytes(Charset.defaultCharset()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getRawResultEtagShouldChangeWithResultTest() throws IOException {
+        final String etag = blastFileManager.getRawResults(1L, false).getEtag();
+        Assertions.assertEquals(etag, blastFileManager.getRawResults(1L, false).getEtag());
+        Assertions.assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        final Path result = Path.of(resultDir.toString(), blastFileManager.getResultFileName(1L));
+        Files.write(result, List.of(CORRECT_RESULT_STRING));
+        Assertions.assertNotEquals(etag, blastFileManager.getRawResults(1L, false).getEtag());
+    }
+
+    @Test
+    public void compressedResultShouldBeReadTransparentlyTest() throws IOException {
+        final BlastFileManagerImpl compressingManager = createFileManager(ResultCompression.GZIP, 0);
+        writeResult(3L, PAGED_RESULT_LINES);
+        final BlastResult plain = compressingManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().offset((long) ResultLineIndex.STEP + 1).limit(PAGE_SIZE).build());
+        final byte[] plainRaw = write(compressingManager.getRawResults(3L, true));
+
+        compressingManager.compressResult(3L);
+
+        Assertions.assertFalse(Files.exists(resultDir.resolve("3.blastout")));
+        Assertions.assertTrue(Files.exists(resultDir.resolve("3.blastout.gz")));
+        final BlastResult compressed = compressingManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().offset((long) ResultLineIndex.STEP + 1).limit(PAGE_SIZE).build());
+        Assertions.assertEquals(plain, compressed);
+        final BlastResult next = compressingManager.getResults(3L, BlastTool.BLASTP,
+                BlastResultQuery.builder().cursor(compressed.getNextCursor()).limit(1).build());
+        Assertions.assertEquals(ResultLineIndex.STEP + 1 + PAGE_SIZE,
+                next.getEntries().get(0).getQueryLen().intValue());
+
+        final BlastRawResult decompressed = compressingManager.getRawResults(3L, false);
+        Assertions.assertNull(decompressed.getContentEncoding());
+        Assertions.assertArrayEquals(plainRaw, write(decompressed));
+        final BlastRawResult encoded = compressingManager.getRawResults(3L, true);
+        Assertions.assertEquals("gzip", encoded.getContentEncoding());
+        Assertions.assertNotEquals(decompressed.getEtag(), encoded.getEtag());
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(write(encoded)))) {
+            Assertions.assertArrayEquals(plainRaw, IOUtils.toByteArray(input));
+        }
+
+        Assertions.assertTrue(compressingManager.linkResult(3L, 4L));
+        Assertions.assertTrue(Files.exists(resultDir.resolve("4.blastout.gz")));
+        compressingManager.removeBlastOutput(3L);
+        Assertions.assertFalse(Files.exists(resultDir.resolve("3.blastout.gz")));
+    }
+
+    @Test
+    public void resultShouldNotBeCompressedIfCompressionIsDisabledTest() {
+        blastFileManager.compressResult(1L);
+        Assertions.assertTrue(Files.exists(resultDir.resolve("1.blastout")));
+        Assertions.assertFalse(Files.exists(resultDir.resolve("1.blastout.gz")));
+    }
+
+    @Test
+    public void mergeShardResultsShouldOrderHitsAndTruncateTargetsTest() throws IOException {
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getShardResultFileName(3L, 0, 0)), List.of(
+                hit("q2", "s1", "1e-5", "50"),
+                hit("q1", "s2", "1e-3", "30"),
+                hit("q1", "s2", "1e-2", "20")));
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getShardResultFileName(3L, 0, 1)), List.of(
+                hit("q1", "s3", "1e-10", "80"),
+                hit("q1", "s4", "1e-3", "35")));
+
+        blastFileManager.mergeShardResults(3L, 0, 2, List.of("q1", "q2"), 2);
+
+        Assertions.assertEquals(List.of(
+                        hit("q1", "s3", "1e-10", "80"),
+                        hit("q1", "s4", "1e-3", "35"),
+                        hit("q2", "s1", "1e-5", "50")),
+                Files.readAllLines(Path.of(resultDir.toString(), blastFileManager.getChunkResultFileName(3L, 0))));
+    }
+
+    @Test
+    public void splitBatchResultShouldRestoreQueryIdsOfTasksTest() throws IOException {
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getChunkResultFileName(4L, 0)), List.of(
+                hit("batch_4", "s1", "1e-5", "50"),
+                hit("batch_5", "s2", "1e-3", "30"),
+                hit("batch_4", "s3", "1e-2", "20")));
+
+        blastFileManager.splitBatchResult(4L, Map.of("batch_4", 4L, "batch_5", 5L, "batch_6", 6L),
+                Map.of(4L, "Query_1", 5L, "P02769.1", 6L, "q6"));
+
+        Assertions.assertEquals(List.of(hit("Query_1", "s1", "1e-5", "50"), hit("Query_1", "s3", "1e-2", "20")),
+                Files.readAllLines(Path.of(resultDir.toString(), blastFileManager.getResultFileName(4L))));
+        Assertions.assertEquals(List.of(hit("P02769.1", "s2", "1e-3", "30")),
+                Files.readAllLines(Path.of(resultDir.toString(), blastFileManager.getResultFileName(5L))));
+        Assertions.assertEquals(List.of(),
+                Files.readAllLines(Path.of(resultDir.toString(), blastFileManager.getResultFileName(6L))));
+    }
+
+    private static String hit(final String query, final String subject, final String evalue, final String bitScore) {
+        return String.join(",", query, "44", "2", "10", "LCGR", subject, subject, "132", "123", "131", "VCTR",
+                "LV1GT1", evalue, bitScore, "25", "9", "33.333", "3", "6", "6", "0", "0", "66.67", "7801",
+                "N/A", "N/A", "N/A", "20", "20", "N/A");
+    }
+
+    private BlastFileManagerImpl createFileManager(final ResultCompression compression,
+                                                   final long columnarCacheMaxContentMb) {
+        return new BlastFileManagerImpl(
+                queryDir.toString(), resultDir.toString(),
+                "blastdb", "fasta",
+                ",", compression, columnarCacheMaxContentMb, temporaryFileWriter, messageHelper
+        );
+    }
+
+    private void writeResult(final Long taskId, final int lines) throws IOException {
+        Files.write(Path.of(resultDir.toString(), blastFileManager.getResultFileName(taskId)),
+                IntStream.range(0, lines).mapToObj(this::resultLine).collect(Collectors.toList()));
+    }
+
+    private String resultLine(final int index) {
+        // every subject is aligned several times, its taxon is the same for all alignments
+        final int subject = index % RESULT_SUBJECTS;
+        return String.format(Locale.ROOT, "Query_%d,%d,2,10,LCGRGFIRA,P%05d.1,sp|P%05d.1|FABPL_GINCI,132,123,131,"
+                        + "VCTREYVRE,LV1GT1GEFYIV1AE,1e-%d,%d,25,9,%d,3,6,6,0,0,66.67,%d,N/A,N/A,N/A,20,20,N/A",
+                index % 3, index, subject, subject, index % 10, index % 40, index % 100, 7801 + subject % 2);
+    }
+
+    private static byte[] write(final BlastRawResult rawResult) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        rawResult.write(output, 0, rawResult.getLength() - 1);
+        return output.toByteArray();
+    }
+}
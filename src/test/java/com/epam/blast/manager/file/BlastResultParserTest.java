@@ -0,0 +1,133 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.file;
+
+import com.epam.blast.entity.blasttool.BlastResultEntry;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class BlastResultParserTest {
+
+    private static final String LINE = "Query_1,44,2,10,LCGRGFIRA,P80049.1,sp|P80049.1|FABPL_GINCI,"
+            + "132,123,131,VCTREYVRE,LV1GT1GEFYIV1AE,1.23e-45,14.2,25,9,33.333,3,6,6,0,0,66.67,7801,N/A,N/A,N/A,20,20,";
+
+    @Mock
+    MessageHelper messageHelper;
+
+    @Test
+    void testLinesAreParsedUpToLimit() throws IOException {
+        final String content = LINE + "\r\n\n" + LINE.replace("Query_1", "Query_2") + "\n"
+                + LINE.replace("Query_1", "Query_3");
+
+        final List<BlastResultEntry> all = parse(content, Integer.MAX_VALUE, ",");
+        final List<BlastResultEntry> limited = parse(content, 2, ",");
+
+        assertEquals(3, all.size());
+        assertEquals("Query_3", all.get(2).getQueryAccVersion());
+        assertEquals(1, limited.size());
+        final BlastResultEntry entry = all.get(0);
+        assertEquals(44L, entry.getQueryLen());
+        assertEquals(1.23e-45, entry.getExpValue());
+        assertEquals(33.333, entry.getPercentIdent());
+        assertEquals("sp|P80049.1|FABPL_GINCI", entry.getSeqSeqId());
+        assertEquals("N/A", entry.getSeqSciName());
+        assertNull(entry.getQueryCovUs());
+    }
+
+    @Test
+    void testMultiCharacterDelimiterAndLongLines() throws IOException {
+        final String sequence = StringUtils.repeat("ACGT", 50_000);
+        final String line = LINE.replace("LCGRGFIRA", sequence).replace(",", "|~");
+
+        final List<BlastResultEntry> entries = parse(line + "\n" + line + "\n", Integer.MAX_VALUE, "|~");
+
+        assertEquals(2, entries.size());
+        assertEquals(sequence, entries.get(1).getQseq());
+        assertEquals(7801L, entries.get(1).getSeqTaxId());
+    }
+
+    @Test
+    void testNumbersAreParsedAsByJdk() {
+        final BlastResultParser parser = new BlastResultParser(",", messageHelper);
+        final Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            final String value = i % 2 == 0
+                    ? String.format(Locale.ROOT, "%.3f", random.nextDouble() * 1000)
+                    : String.format(Locale.ROOT, "%.2e", random.nextDouble() * Math.pow(10, random.nextInt(400) - 200));
+            final BlastResultEntry entry = parser.parseLine(LINE.replace("1.23e-45", value),
+                    BlastResultParser.allColumns());
+            assertEquals(Double.parseDouble(value), entry.getExpValue(), value);
+        }
+    }
+
+    @Test
+    void testOnlyRequestedColumnsAreMaterialized() {
+        final BitSet columns = new BitSet();
+        columns.set(0);
+        columns.set(12);
+
+        final BlastResultEntry entry = new BlastResultParser(",", messageHelper).parseLine(LINE, columns);
+
+        assertEquals("Query_1", entry.getQueryAccVersion());
+        assertEquals(1.23e-45, entry.getExpValue());
+        assertNull(entry.getSeqAccVersion());
+        assertNull(entry.getBitScore());
+    }
+
+    @Test
+    void testWrongLinesAreRejected() {
+        final BlastResultParser parser = new BlastResultParser(",", messageHelper);
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseLine(LINE + ",extra", BlastResultParser.allColumns()));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseLine("Query_1,44", BlastResultParser.allColumns()));
+        assertThrows(IllegalStateException.class,
+                () -> parser.parseLine(LINE.replace(",44,", ",4x,"), BlastResultParser.allColumns()));
+    }
+
+    private List<BlastResultEntry> parse(final String content, final int limit, final String delimiter)
+            throws IOException {
+        return new BlastResultParser(delimiter, messageHelper).parse(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), limit,
+                BlastResultParser.allColumns());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+
+package com.epam.blast.manager.file;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+class GzipFilesTest {
+
+    private static final int LINES = 40000;
+
+    private Path directory;
+    private byte[] content;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("gzip");
+        final StringBuilder builder = new StringBuilder();
+        for (int line = 0; line < LINES; line++) {
+            builder.append("Query_").append(line % 7).append(",P80049.1,").append(line).append(",1e-").append(line % 50)
+                    .append('\n');
+        }
+        content = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        FileUtils.forceDelete(directory.toFile());
+    }
+
+    @Test
+    public void compressedFileShouldBeReadFromAnyOffsetTest() throws IOException {
+        final Path compressed = compress();
+        final GzipFiles.Info info = GzipFiles.readInfo(compressed);
+        Assertions.assertEquals(content.length, info.getLength());
+        Assertions.assertTrue(info.getBlockOffsets().length > 1);
+
+        final long blockSize = info.getBlockSize();
+        for (long offset : new long[] {0, 1, blockSize - 1, blockSize, blockSize + 1, content.length / 2,
+            content.length - 1, content.length}) {
+            try (InputStream input = GzipFiles.open(compressed, offset)) {
+                Assertions.assertArrayEquals(Arrays.copyOfRange(content, (int) offset, content.length),
+                        IOUtils.toByteArray(input), String.valueOf(offset));
+            }
+        }
+    }
+
+    @Test
+    public void compressedFileShouldStaySingleGzipMemberTest() throws IOException {
+        final Path compressed = compress();
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(compressed))) {
+            Assertions.assertArrayEquals(content, IOUtils.toByteArray(input));
+        }
+        final GzipFiles.Info info = GzipFiles.readInfo(compressed);
+        Assertions.assertEquals(info.getBlockOffsets()[0], info.getDataStart());
+        Assertions.assertEquals(Files.size(compressed) - Long.BYTES, info.getDataEnd());
+    }
+
+    private Path compress() throws IOException {
+        final Path source = directory.resolve("result");
+        final Path compressed = directory.resolve("result.gz");
+        Files.write(source, content);
+        GzipFiles.compress(source, compressed);
+        return compressed;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.blasttool.Status;
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FairShareTaskSelectorTest {
+
+    private static final String NODE_ID = "test-node";
+    private static final String HEAVY_USER = "1";
+    private static final String INTERACTIVE_USER = "2";
+    private static final int CANDIDATES_PER_OWNER = 20;
+    private static final long MAX_HEAD_DELAY = 60000;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDateTime start = LocalDateTime.now();
+
+    @Test
+    void testHigherPriorityGoesFirst() {
+        final TaskEntity old = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity urgent = task(HEAVY_USER, TaskType.BLAST_TOOL, 5);
+
+        final List<TaskEntity> ranked = selector(Map.of(), Map.of()).rank(List.of(urgent, old), List.of(), NODE_ID);
+
+        assertEquals(List.of(urgent, old), ranked);
+    }
+
+    @Test
+    void testOwnersShareSlotsInsteadOfFirstComeFirstServed() {
+        final TaskEntity heavy1 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity heavy2 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity heavy3 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity interactive = task(INTERACTIVE_USER, TaskType.BLAST_TOOL, 0);
+
+        final List<TaskEntity> ranked = selector(Map.of(), Map.of())
+                .rank(List.of(heavy1, heavy2, heavy3, interactive), List.of(), NODE_ID);
+
+        assertEquals(List.of(heavy1, interactive, heavy2, heavy3), ranked);
+    }
+
+    @Test
+    void testOwnerWithRunningTasksWaitsForOthers() {
+        final TaskEntity running = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        running.setStatus(Status.RUNNING);
+        final TaskEntity heavy = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity interactive = task(INTERACTIVE_USER, TaskType.BLAST_TOOL, 0);
+
+        final List<TaskEntity> ranked = selector(Map.of(), Map.of())
+                .rank(List.of(heavy, interactive), List.of(running), NODE_ID);
+
+        assertEquals(List.of(interactive, heavy), ranked);
+    }
+
+    @Test
+    void testWeightGivesProportionallyMoreSlots() {
+        final TaskEntity heavy1 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity heavy2 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity heavy3 = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity interactive1 = task(INTERACTIVE_USER, TaskType.BLAST_TOOL, 0);
+        final TaskEntity interactive2 = task(INTERACTIVE_USER, TaskType.BLAST_TOOL, 0);
+
+        final List<TaskEntity> ranked = selector(Map.of(HEAVY_USER, 2), Map.of())
+                .rank(List.of(heavy1, heavy2, heavy3, interactive1, interactive2), List.of(), NODE_ID);
+
+        assertEquals(List.of(heavy1, interactive1, heavy2, heavy3, interactive2), ranked);
+    }
+
+    @Test
+    void testTypeQuotaLimitsTasksOnNode() {
+        final TaskEntity runningDb = task(HEAVY_USER, TaskType.MAKE_BLAST_DB, 0);
+        runningDb.setStatus(Status.RUNNING);
+        runningDb.setClaimedBy(NODE_ID);
+        final TaskEntity db1 = task(HEAVY_USER, TaskType.MAKE_BLAST_DB, 0);
+        final TaskEntity db2 = task(INTERACTIVE_USER, TaskType.MAKE_BLAST_DB, 0);
+        final TaskEntity blast = task(HEAVY_USER, TaskType.BLAST_TOOL, 0);
+
+        final List<TaskEntity> ranked = selector(Map.of(), Map.of(TaskType.MAKE_BLAST_DB.name(), 2))
+                .rank(List.of(db1, db2, blast), List.of(runningDb), NODE_ID);
+
+        assertEquals(List.of(db2, blast), ranked);
+    }
+
+    private FairShareTaskSelector selector(final Map<String, Integer> weights, final Map<String, Integer> quotas) {
+        return new FairShareTaskSelector(weights, quotas, CANDIDATES_PER_OWNER, MAX_HEAD_DELAY);
+    }
+
+    private TaskEntity task(final String owner, final TaskType type, final int priority) {
+        final long id = ids.incrementAndGet();
+        return TaskEntity.builder()
+                .id(id)
+                .status(Status.CREATED)
+                .taskType(type)
+                .owner(owner)
+                .priority(priority)
+                .createdAt(start.plusSeconds(id))
+                .build();
+    }
+}
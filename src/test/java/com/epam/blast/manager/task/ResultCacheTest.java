@@ -0,0 +1,170 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.task.ResultCacheStats;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static com.epam.blast.entity.task.TaskEntityParams.BLAST_TOOL;
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static com.epam.blast.entity.task.TaskEntityParams.OPTIONS;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
+import static com.epam.blast.entity.task.TaskEntityParams.TAX_IDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ResultCacheTest {
+
+    private static final String DB = "Nurse-shark-proteins";
+    private static final String KEY = "key";
+    private static final String RESULT = "q1,44,2,10\n";
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    BlastFileManager blastFileManager;
+
+    @Mock
+    MessageHelper messageHelper;
+
+    ResultCache resultCache;
+    Path dbFile;
+    Path resultDirectory;
+
+    @BeforeEach
+    public void init() throws IOException {
+        dbFile = Files.createDirectories(directory.resolve("db")).resolve(DB + ".psq");
+        resultDirectory = Files.createDirectories(directory.resolve("results"));
+        Files.write(dbFile, new byte[]{1});
+        lenient().when(blastFileManager.getBlastDbDirectory()).thenReturn(dbFile.getParent().toString());
+        lenient().when(blastFileManager.getBlastResultsDirectory()).thenReturn(resultDirectory.toString());
+        lenient().when(blastFileManager.getResultFileName(anyLong()))
+                .thenAnswer(invocation -> invocation.getArgument(0) + ".blastout");
+        lenient().when(blastFileManager.getResultFile(anyLong())).thenAnswer(invocation -> {
+            final Path result = resultDirectory.resolve(invocation.getArgument(0) + ".blastout");
+            final Path compressed = resultDirectory.resolve(result.getFileName() + ".gz");
+            return Files.exists(compressed) ? compressed : result;
+        });
+        resultCache = new ResultCache(blastFileManager, messageHelper, true, 1);
+    }
+
+    @Test
+    void testKeyDoesNotDependOnFormattingOfSameSearch() {
+        assertEquals(
+                resultCache.getKey(Map.of(QUERY, ">q1 first query\nacgt\nACGT\n", DB_NAME, DB, BLAST_TOOL, "blastp",
+                        TAX_IDS, "2,1", OPTIONS, "-word_size 3 -num_threads 4")),
+                resultCache.getKey(Map.of(QUERY, ">q1\nACGTACGT", DB_NAME, DB, BLAST_TOOL, "blastp",
+                        TAX_IDS, "1,2", OPTIONS, " -word_size   3")));
+        assertNotEquals(
+                resultCache.getKey(Map.of(QUERY, ">q1\nACGT", DB_NAME, DB, BLAST_TOOL, "blastp")),
+                resultCache.getKey(Map.of(QUERY, ">q1\nACGT", DB_NAME, DB, BLAST_TOOL, "blastp",
+                        OPTIONS, "-word_size 2")));
+    }
+
+    @Test
+    void testKeyChangesWhenDatabaseIsRebuilt() throws IOException {
+        final Map<String, String> params = Map.of(QUERY, ">q1\nACGT", DB_NAME, DB, BLAST_TOOL, "blastp");
+        final String key = resultCache.getKey(params).orElseThrow();
+        Files.setLastModifiedTime(dbFile,
+                FileTime.fromMillis(Files.getLastModifiedTime(dbFile).toMillis() + 60_000));
+
+        assertNotEquals(key, resultCache.getKey(params).orElseThrow());
+    }
+
+    @Test
+    void testStoredResultIsLinkedToNewTask() throws IOException {
+        assertFalse(resultCache.completeFromCache(KEY, 2L));
+        Files.writeString(resultDirectory.resolve("1.blastout"), RESULT);
+        resultCache.store(KEY, 1L);
+
+        assertTrue(resultCache.completeFromCache(KEY, 2L));
+        assertEquals(RESULT, Files.readString(resultDirectory.resolve("2.blastout")));
+        assertEquals(1, resultCache.getStats().getHits());
+        assertEquals(1, resultCache.getStats().getMisses());
+    }
+
+    @Test
+    void testStoredCompressedResultIsLinkedCompressed() throws IOException {
+        Files.writeString(resultDirectory.resolve("1.blastout.gz"), RESULT);
+        resultCache.store(KEY, 1L);
+
+        assertTrue(resultCache.completeFromCache(KEY, 2L));
+        assertEquals(RESULT, Files.readString(resultDirectory.resolve("2.blastout.gz")));
+        assertFalse(Files.exists(resultDirectory.resolve("2.blastout")));
+    }
+
+    @Test
+    void testLeastRecentlyUsedResultsAreEvictedAboveBudget() throws IOException {
+        Files.write(resultDirectory.resolve("1.blastout"), new byte[1024 * 1024]);
+        Files.writeString(resultDirectory.resolve("2.blastout"), RESULT);
+        resultCache.store("old", 1L);
+        resultCache.store("new", 2L);
+        Files.setLastModifiedTime(resultDirectory.resolve("cache").resolve("old"), FileTime.fromMillis(0));
+        Files.delete(resultDirectory.resolve("1.blastout"));
+        Files.delete(resultDirectory.resolve("2.blastout"));
+
+        resultCache.evict();
+
+        assertFalse(resultCache.completeFromCache("old", 3L));
+        assertTrue(resultCache.completeFromCache("new", 4L));
+        assertEquals(1, resultCache.getStats().getEvictions());
+    }
+
+    @Test
+    void testResultsLinkedByTasksAreNotCountedAgainstBudget() throws IOException {
+        Files.write(resultDirectory.resolve("1.blastout"), new byte[1024 * 1024]);
+        Files.writeString(resultDirectory.resolve("2.blastout"), RESULT);
+        resultCache.store("shared", 1L);
+        resultCache.store("cached", 2L);
+        Files.delete(resultDirectory.resolve("2.blastout"));
+
+        resultCache.evict();
+
+        final ResultCacheStats stats = resultCache.getStats();
+        assertEquals(0, stats.getEvictions());
+        assertEquals(2, stats.getEntries());
+        assertEquals(RESULT.length(), stats.getSizeBytes());
+        assertEquals(1024 * 1024, stats.getSharedSizeBytes());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.manager.task;
+
+import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.runners.DbShardResolver;
+import com.epam.blast.manager.commands.runners.QuerySplitter;
+import com.epam.blast.manager.file.BlastFileManager;
+import com.epam.blast.manager.helper.MessageHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static com.epam.blast.entity.task.TaskEntityParams.ALGORITHM;
+import static com.epam.blast.entity.task.TaskEntityParams.BLAST_TOOL;
+import static com.epam.blast.entity.task.TaskEntityParams.DB_NAME;
+import static com.epam.blast.entity.task.TaskEntityParams.QUERY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskCostEstimatorTest {
+
+    private static final int THREADS_AMOUNT = 2;
+    private static final int THREADS_PENDING = 2;
+    private static final double WORK_PER_UNIT = 1e9;
+    private static final String DB = "proteins";
+    private static final String SHORT_QUERY = ">q1\nQLCGRGFIRA\n";
+    private static final long DB_RESIDUES = 10_000_000L;
+
+    @TempDir
+    Path dbDirectory;
+
+    @Mock
+    BlastFileManager blastFileManager;
+
+    @Mock
+    MessageHelper messageHelper;
+
+    TaskCostEstimator estimator;
+
+    @BeforeEach
+    public void init() throws IOException {
+        estimator = new TaskCostEstimator(blastFileManager, new QuerySplitter(false, 1, 1, 1),
+                new DbShardResolver(messageHelper, false), messageHelper,
+                WORK_PER_UNIT, THREADS_AMOUNT, THREADS_PENDING);
+        try (RandomAccessFile file = new RandomAccessFile(dbDirectory.resolve(DB + ".00.psq").toFile(), "rw")) {
+            file.setLength(DB_RESIDUES / 2);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(dbDirectory.resolve(DB + ".01.psq").toFile(), "rw")) {
+            file.setLength(DB_RESIDUES / 2);
+        }
+    }
+
+    @Test
+    void testQueryResiduesIgnoreHeadersAndWhitespaces() {
+        assertEquals(14, TaskCostEstimator.getQueryResidues(">q1 some description\nACGT ACGT\n>q2\nACGTAC\n"));
+    }
+
+    @Test
+    void testShortSearchCostsLessThanSlot() {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(dbDirectory.toString());
+
+        assertEquals(TaskCostEstimator.MIN_COST, estimator.estimate(TaskType.BLAST_TOOL,
+                Map.of(BLAST_TOOL, "blastp", ALGORITHM, "blastp-short", DB_NAME, DB, QUERY, SHORT_QUERY)));
+    }
+
+    @Test
+    void testTranslatedSearchCostsMoreButNotMoreThanNode() {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(dbDirectory.toString());
+        final String longQuery = ">q1\n" + "ACGT".repeat(250) + "\n";
+
+        final int blastx = estimator.estimate(TaskType.BLAST_TOOL,
+                Map.of(BLAST_TOOL, "blastx", DB_NAME, DB, QUERY, longQuery));
+        final int tblastx = estimator.estimate(TaskType.BLAST_TOOL,
+                Map.of(BLAST_TOOL, "tblastx", DB_NAME, DB, QUERY, longQuery));
+
+        assertTrue(blastx > TaskCostEstimator.UNITS_PER_SLOT);
+        assertEquals(TaskCostEstimator.getNodeCapacity(THREADS_AMOUNT, THREADS_PENDING), tblastx);
+    }
+
+    @Test
+    void testDatabaseResiduesAreRecountedOnlyAfterRebuild() throws IOException {
+        when(blastFileManager.getBlastDbDirectory()).thenReturn(dbDirectory.toString());
+        final Map<String, String> params = Map.of(BLAST_TOOL, "blastp", DB_NAME, DB, QUERY, ">q1\n"
+                + "A".repeat(1000) + "\n");
+        final long buildTime = dbDirectory.toFile().lastModified();
+        final int cost = estimator.estimate(TaskType.BLAST_TOOL, params);
+
+        try (RandomAccessFile file = new RandomAccessFile(dbDirectory.resolve(DB + ".01.psq").toFile(), "rw")) {
+            file.setLength(DB_RESIDUES * 2);
+        }
+        assertTrue(dbDirectory.resolve(DB + ".01.psq").toFile().setLastModified(buildTime));
+        assertEquals(cost, estimator.estimate(TaskType.BLAST_TOOL, params));
+
+        assertTrue(dbDirectory.resolve(DB + ".psq").toFile().createNewFile());
+        assertTrue(dbDirectory.toFile().setLastModified(buildTime + 1000));
+        assertTrue(estimator.estimate(TaskType.BLAST_TOOL, params) > cost);
+    }
+
+    @Test
+    void testUnknownDatabaseCostsOneSlot() {
+        assertEquals(TaskCostEstimator.UNITS_PER_SLOT, estimator.estimate(TaskType.BLAST_TOOL,
+                Map.of(BLAST_TOOL, "blastp", DB_NAME, dbDirectory.resolve("missing").toString(),
+                        QUERY, SHORT_QUERY)));
+    }
+
+    @Test
+    void testDatabaseNameIsNotMatchedAsPrefixOfOtherDatabase() {
+        assertEquals(TaskCostEstimator.UNITS_PER_SLOT, estimator.estimate(TaskType.BLAST_TOOL,
+                Map.of(BLAST_TOOL, "blastp", DB_NAME, dbDirectory.resolve("prot").toString(),
+                        QUERY, SHORT_QUERY)));
+    }
+}
@@ -31,9 +31,11 @@ import com.epam.blast.entity.db.CreateDbResponse;
 import com.epam.blast.entity.db.Reason;
 import com.epam.blast.entity.task.TaskEntity;
 import com.epam.blast.entity.task.TaskType;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
 import com.epam.blast.manager.file.BlastFileManager;
 import com.epam.blast.manager.helper.MessageHelper;
 import com.epam.blast.repo.task.TaskRepository;
+import com.epam.blast.utils.DateUtils;
 import com.epam.blast.validator.BlastStartSearchingRequestValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,6 +44,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import test.utils.TestTaskMaker;
 
 import java.util.List;
@@ -55,9 +58,15 @@ import static com.epam.blast.entity.task.TaskEntityParams.PARSE_SEQ_ID;
 import static com.epam.blast.entity.task.TaskEntityParams.PATH_TO_FILE;
 import static com.epam.blast.entity.task.TaskEntityParams.TAX_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -87,6 +96,10 @@ public class TaskServiceImplTest {
     public static final String INCORRECT_STRING_INPUT_VALUE = "Incorrect input value.";
     public static final Integer INCORRECT_INTEGER_INPUT_VALUE = -1;
     public static final String BLAST_TOOL = "blastn";
+    public static final String NODE_ID = "test-node";
+    public static final int CANDIDATES_PER_OWNER = 20;
+    public static final long MAX_HEAD_DELAY = 60000;
+    public static final String RESULT_KEY = "resultKey";
 
     @Mock
     TaskRepository taskRepository;
@@ -99,13 +112,22 @@ public class TaskServiceImplTest {
 
     @Mock
     BlastStartSearchingRequestValidator blastStartSearchingRequestValidator;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    TaskCostEstimator costEstimator;
+
+    @Mock
+    ResultCache resultCache;
+
     TaskServiceImpl taskService;
 
     @BeforeEach
     public void init() {
         MockitoAnnotations.openMocks(this);
-        taskService = new TaskServiceImpl(taskRepository, blastFileManager, blastStartSearchingRequestValidator,
-                messageHelper);
+        taskService = createTaskService(MAX_HEAD_DELAY);
     }
 
     @Test
@@ -115,6 +137,176 @@ public class TaskServiceImplTest {
         verify(taskRepository, times(1)).findById(TASK_01_ID);
     }
 
+    @Test
+    void testClaimTasksBackfillsTasksBehindTaskThatDoesNotFitCapacity() {
+        final List<TaskEntity> created = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, false, 3);
+        created.get(0).setCost(1);
+        created.get(1).setCost(TaskCostEstimator.UNITS_PER_SLOT);
+        created.get(2).setCost(1);
+        when(taskRepository.findCreatedTasksPerOwner(anyInt())).thenReturn(created);
+        when(taskRepository.claimTask(anyLong(), eq(NODE_ID), eq(Status.CREATED), eq(Status.RUNNING), any()))
+                .thenReturn(1);
+
+        final List<TaskEntity> claimed = taskService.claimTasks(NODE_ID, TaskCostEstimator.UNITS_PER_SLOT,
+                DateUtils.nowUtc());
+
+        assertEquals(List.of(created.get(0), created.get(2)), claimed);
+    }
+
+    @Test
+    void testClaimTasksHoldsCapacityForTaskOvertakenForTooLong() {
+        taskService = createTaskService(0);
+        final List<TaskEntity> created = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, false, 3);
+        created.get(0).setCost(1);
+        created.get(1).setCost(TaskCostEstimator.UNITS_PER_SLOT);
+        created.get(2).setCost(1);
+        when(taskRepository.findCreatedTasksPerOwner(anyInt())).thenReturn(created);
+        when(taskRepository.claimTask(anyLong(), eq(NODE_ID), eq(Status.CREATED), eq(Status.RUNNING), any()))
+                .thenReturn(1);
+
+        final List<TaskEntity> claimed = taskService.claimTasks(NODE_ID, TaskCostEstimator.UNITS_PER_SLOT,
+                DateUtils.nowUtc());
+
+        assertEquals(List.of(created.get(0)), claimed);
+    }
+
+    @Test
+    void testGetTaskStatusContainsQueuePositionOfWaitingTask() {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(taskRepository.countTasksAhead(Status.CREATED, FairShareTaskSelector.DEFAULT_PRIORITY,
+                task.getCreatedAt())).thenReturn(2L);
+
+        assertEquals(3L, taskService.getTaskStatus(task.getId()).getQueuePosition());
+    }
+
+    @Test
+    void testCreateTaskForBlastToolKeepsRequestedPriority() {
+        when(taskRepository.save(any(TaskEntity.class))).thenReturn(TASK_BLAST_P_02);
+        final BlastStartSearchingRequest request = BlastStartSearchingRequest.builder()
+                .query(TASK_02_QUERY)
+                .dbName(TASK_02_DB_NAME)
+                .blastTool(BLAST_TOOL)
+                .priority(5)
+                .build();
+        when(blastStartSearchingRequestValidator.validate(any())).thenReturn(request);
+        taskService.createTaskForBlastToolExecution(request);
+
+        final ArgumentCaptor<TaskEntity> captor = ArgumentCaptor.forClass(TaskEntity.class);
+        verify(taskRepository).save(captor.capture());
+        assertEquals(5, captor.getValue().getPriority());
+    }
+
+    @Test
+    void testCreateTaskForBlastToolIsCompletedFromCache() {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        when(taskRepository.save(any(TaskEntity.class))).thenReturn(task);
+        final BlastStartSearchingRequest request = BlastStartSearchingRequest.builder()
+                .query(TASK_02_QUERY)
+                .dbName(TASK_02_DB_NAME)
+                .blastTool(BLAST_TOOL)
+                .build();
+        when(blastStartSearchingRequestValidator.validate(any())).thenReturn(request);
+        when(resultCache.getKey(any())).thenReturn(Optional.of(RESULT_KEY));
+        when(resultCache.completeFromCache(RESULT_KEY, task.getId())).thenReturn(true);
+
+        assertEquals(Status.DONE, taskService.createTaskForBlastToolExecution(request).getStatus());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testIdenticalPendingSearchIsCoalesced() {
+        final TaskEntity leader = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        when(taskRepository.save(any(TaskEntity.class))).thenReturn(task);
+        final BlastStartSearchingRequest request = BlastStartSearchingRequest.builder()
+                .query(TASK_02_QUERY)
+                .dbName(TASK_02_DB_NAME)
+                .blastTool(BLAST_TOOL)
+                .build();
+        when(blastStartSearchingRequestValidator.validate(any())).thenReturn(request);
+        when(resultCache.getKey(any())).thenReturn(Optional.of(RESULT_KEY));
+        when(taskRepository.findFirstByResultKeyAndLeaderIdIsNullAndStatusInOrderByCreatedAt(eq(RESULT_KEY), any()))
+                .thenReturn(Optional.of(leader));
+        when(taskRepository.findById(leader.getId())).thenReturn(Optional.of(leader));
+
+        assertEquals(Status.CREATED, taskService.createTaskForBlastToolExecution(request).getStatus());
+        assertEquals(leader.getId(), task.getLeaderId());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testFollowersAreCompletedWithResultOfLeader() {
+        final TaskEntity leader = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        leader.setStatus(Status.RUNNING);
+        final List<TaskEntity> followers = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, false, 2);
+        when(taskRepository.findById(leader.getId())).thenReturn(Optional.of(leader));
+        when(taskRepository.findTaskEntityByLeaderIdAndStatusOrderByCreatedAt(leader.getId(), Status.CREATED))
+                .thenReturn(followers);
+        when(blastFileManager.linkResult(eq(leader.getId()), any())).thenReturn(true);
+
+        taskService.changeStatus(leader, ExecutionResult.builder().exitCode(0).reason("").build());
+
+        followers.forEach(follower -> assertEquals(Status.DONE, follower.getStatus()));
+        verify(taskRepository).saveAll(followers);
+    }
+
+    @Test
+    void testOldestFollowerRunsSearchOfCancelledLeader() {
+        final TaskEntity leader = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        leader.setStatus(Status.CANCELED);
+        final List<TaskEntity> followers = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, false, 2);
+        when(taskRepository.findTaskEntityByLeaderIdAndStatusOrderByCreatedAt(leader.getId(), Status.CREATED))
+                .thenReturn(followers);
+
+        taskService.completeFollowers(leader);
+
+        assertNull(followers.get(0).getLeaderId());
+        assertEquals(followers.get(0).getId(), followers.get(1).getLeaderId());
+        verify(eventPublisher).publishEvent(new TaskCreatedEvent(followers.get(0).getId()));
+    }
+
+    @Test
+    void testSuccessfulTaskResultIsCached() {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setStatus(Status.RUNNING);
+        task.setResultKey(RESULT_KEY);
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+
+        taskService.changeStatus(task, ExecutionResult.builder().exitCode(0).reason("").build());
+
+        verify(resultCache).store(RESULT_KEY, task.getId());
+    }
+
+    @Test
+    void testTaskCancelledMeanwhileIsNotCompleted() {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setStatus(Status.RUNNING);
+        task.setResultKey(RESULT_KEY);
+        when(taskRepository.completeTask(task.getId(), NODE_ID, Status.RUNNING, Status.DONE, "")).thenReturn(0);
+
+        assertFalse(taskService.completeTask(task, ExecutionResult.builder().exitCode(0).reason("").build(),
+                NODE_ID));
+
+        assertEquals(Status.RUNNING, task.getStatus());
+        verify(resultCache, never()).store(any(), any());
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    void testRunningTaskIsCompleted() {
+        final TaskEntity task = TestTaskMaker.makeTask(TaskType.BLAST_TOOL, false);
+        task.setStatus(Status.RUNNING);
+        task.setResultKey(RESULT_KEY);
+        when(taskRepository.completeTask(task.getId(), NODE_ID, Status.RUNNING, Status.DONE, "")).thenReturn(1);
+
+        assertTrue(taskService.completeTask(task, ExecutionResult.builder().exitCode(0).reason("").build(),
+                NODE_ID));
+
+        assertEquals(Status.DONE, task.getStatus());
+        verify(resultCache).store(RESULT_KEY, task.getId());
+    }
+
     @Test
     void testCreateTaskForBlastTool() {
         when(taskRepository.save(any(TaskEntity.class))).thenReturn(TASK_BLAST_P_02);
@@ -128,6 +320,7 @@ public class TaskServiceImplTest {
 
         verify(blastStartSearchingRequestValidator, times(1)).validate(any());
         verify(taskRepository, times(1)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new TaskCreatedEvent(TASK_BLAST_P_02.getId()));
     }
 
 
@@ -272,6 +465,23 @@ public class TaskServiceImplTest {
                 .findTaskEntityByStatusEqualsOrderByCreatedAt(TASK_01_STATUS);
     }
 
+    @Test
+    void testClaimTasksSkipsTasksClaimedByAnotherNode() {
+        final List<TaskEntity> created = TestTaskMaker.makeTasks(TaskType.BLAST_TOOL, false, 3);
+        when(taskRepository.findCreatedTasksPerOwner(anyInt())).thenReturn(created);
+        when(taskRepository.claimTask(anyLong(), eq(NODE_ID), eq(Status.CREATED), eq(Status.RUNNING), any()))
+                .thenReturn(0, 1, 1);
+
+        final List<TaskEntity> claimed = taskService.claimTasks(NODE_ID, TaskCostEstimator.UNITS_PER_SLOT,
+                DateUtils.nowUtc());
+
+        assertEquals(List.of(created.get(1)), claimed);
+        assertEquals(Status.RUNNING, claimed.get(0).getStatus());
+        assertEquals(NODE_ID, claimed.get(0).getClaimedBy());
+        verify(taskRepository, times(2))
+                .claimTask(anyLong(), eq(NODE_ID), eq(Status.CREATED), eq(Status.RUNNING), any());
+    }
+
     @Test
     void testUpdateTask() {
         when(taskRepository.findById(TASK_01_ID)).thenReturn(Optional.ofNullable(TASK_MAKE_BLAST_DB_01));
@@ -280,4 +490,11 @@ public class TaskServiceImplTest {
         verify(taskRepository, times(1)).save(TASK_MAKE_BLAST_DB_01);
     }
 
+    private TaskServiceImpl createTaskService(final long maxHeadDelay) {
+        return new TaskServiceImpl(taskRepository, blastFileManager, blastStartSearchingRequestValidator,
+                messageHelper, eventPublisher,
+                new FairShareTaskSelector(Map.of(), Map.of(), CANDIDATES_PER_OWNER, maxHeadDelay),
+                costEstimator, resultCache, false, true);
+    }
+
 }
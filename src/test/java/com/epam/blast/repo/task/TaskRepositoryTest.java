@@ -0,0 +1,77 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package com.epam.blast.repo.task;
+
+import com.epam.blast.entity.blasttool.Status;
+import com.epam.blast.entity.task.TaskEntity;
+import com.epam.blast.entity.task.TaskType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class TaskRepositoryTest {
+
+    private static final String HEAVY_USER = "1";
+    private static final String INTERACTIVE_USER = "2";
+    private static final int CANDIDATES_PER_OWNER = 5;
+    private static final int HEAVY_BACKLOG = 50;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Test
+    void testBigBacklogOfOneOwnerDoesNotHideTasksOfOthers() {
+        final LocalDateTime start = LocalDateTime.now();
+        final List<TaskEntity> backlog = taskRepository.saveAll(IntStream.range(0, HEAVY_BACKLOG)
+                .mapToObj(i -> task(HEAVY_USER, start.plusSeconds(i)))
+                .collect(Collectors.toList()));
+        final TaskEntity interactive = taskRepository.save(task(INTERACTIVE_USER, start.plusSeconds(HEAVY_BACKLOG)));
+        taskRepository.flush();
+
+        final List<TaskEntity> candidates = taskRepository.findCreatedTasksPerOwner(CANDIDATES_PER_OWNER);
+
+        assertEquals(CANDIDATES_PER_OWNER + 1, candidates.size());
+        assertEquals(backlog.subList(0, CANDIDATES_PER_OWNER), candidates.subList(0, CANDIDATES_PER_OWNER));
+        assertTrue(candidates.contains(interactive));
+    }
+
+    private TaskEntity task(final String owner, final LocalDateTime createdAt) {
+        return TaskEntity.builder()
+                .status(Status.CREATED)
+                .taskType(TaskType.BLAST_TOOL)
+                .owner(owner)
+                .createdAt(createdAt)
+                .build();
+    }
+}
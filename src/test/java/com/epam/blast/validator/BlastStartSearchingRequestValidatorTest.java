@@ -336,6 +336,38 @@ public class BlastStartSearchingRequestValidatorTest {
         }
     }
 
+    /*
+    "priority" validation
+    */
+    @Test
+    void testPriorityLimitations() {
+        final Set<Integer> priorities = Set.of(
+                Integer.MIN_VALUE,
+                -1,
+                0,
+                5,
+                10,
+                11,
+                Integer.MAX_VALUE
+        );
+
+        for (Integer priority : priorities) {
+            request = BlastStartSearchingRequest.builder()
+                    .dbName(TEST_DB_NAME)
+                    .query(TEST_QUERY)
+                    .blastTool(BlastTool.TBLASTX.toString())
+                    .priority(priority)
+                    .build();
+
+            if (priority < BlastStartSearchingRequestValidator.PRIORITY_MIN_LIMIT
+                    || priority > BlastStartSearchingRequestValidator.PRIORITY_MAX_LIMIT) {
+                assertThrows(IllegalArgumentException.class, () -> validator.validate(request));
+            } else {
+                assertEquals(priority, validator.validate(request).getPriority());
+            }
+        }
+    }
+
     /*
     "options" validation
     */
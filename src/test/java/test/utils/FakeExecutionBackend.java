@@ -0,0 +1,85 @@
+/*
+ *   MIT License
+ *
+ *   Copyright (c) 2021 EPAM Systems
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ */
+
+package test.utils;
+
+import com.epam.blast.entity.commands.ExitCodes;
+import com.epam.blast.manager.commands.backend.CommandSpec;
+import com.epam.blast.manager.commands.backend.ExecutionBackend;
+import com.epam.blast.manager.commands.commands.LaunchableCommand;
+import com.epam.blast.manager.commands.runners.ExecutionResult;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Backend, which doesn't launch anything: it records structured commands and returns prepared results,
+ * successful results are returned when there are no prepared ones.
+ */
+public class FakeExecutionBackend implements ExecutionBackend {
+
+    private final List<CommandSpec> launched = new ArrayList<>();
+    private final List<Path> outputFiles = new ArrayList<>();
+    private final List<String> cancelled = new ArrayList<>();
+    private final Deque<ExecutionResult> results = new ArrayDeque<>();
+
+    public FakeExecutionBackend thenReturn(final ExecutionResult result) {
+        results.add(result);
+        return this;
+    }
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command) {
+        return run(command, null);
+    }
+
+    @Override
+    public ExecutionResult run(final LaunchableCommand command, final Path outputFile) {
+        launched.add(command.toSpec());
+        outputFiles.add(outputFile);
+        return results.isEmpty()
+                ? ExecutionResult.builder().exitCode(ExitCodes.SUCCESSFUL_EXECUTION).reason("").output("").build()
+                : results.poll();
+    }
+
+    @Override
+    public void cancel(final String name, final String jobId) {
+        cancelled.add(name);
+    }
+
+    public List<CommandSpec> getLaunched() {
+        return launched;
+    }
+
+    public List<Path> getOutputFiles() {
+        return outputFiles;
+    }
+
+    public List<String> getCancelled() {
+        return cancelled;
+    }
+}